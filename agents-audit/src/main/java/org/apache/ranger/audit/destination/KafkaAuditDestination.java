@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.destination;
+
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.MiscUtil;
+
+/**
+ * Kafka destination for use behind AuditBatchQueue. Each batch is sent in a single privileged action, and log() returns
+ * after all records of the batch are acknowledged by the brokers, or failed, or ack.timeout.ms elapsed; on failure the
+ * queue stashes the batch in its file spool, if enabled. Records acknowledged before a failure of the batch are sent
+ * again on replay - consumers should use the event id to drop duplicates.
+ *
+ * Records are keyed by service and resource, so that audits of a resource go to the same partition, in order.
+ */
+public class KafkaAuditDestination extends AuditDestination {
+	private static final Log LOG = LogFactory.getLog(KafkaAuditDestination.class);
+
+	public static final String PROP_BROKER_LIST      = "broker_list";
+	public static final String PROP_TOPIC_NAME       = "topic_name";
+	public static final String PROP_COMPRESSION_TYPE = "compression.type";
+	public static final String PROP_LINGER_MS        = "linger.ms";
+	public static final String PROP_BATCH_SIZE_BYTES = "batch.size.bytes";
+	public static final String PROP_ACKS             = "acks";
+	public static final String PROP_ACK_TIMEOUT_MS   = "ack.timeout.ms";
+	public static final String PROP_PRODUCER_PREFIX  = "producer."; // other producer configs, like producer.security.protocol
+
+	public static final String DEFAULT_BROKER_LIST      = "localhost:9092";
+	public static final String DEFAULT_TOPIC_NAME       = "ranger_audits";
+	public static final String DEFAULT_COMPRESSION_TYPE = "gzip";
+	public static final int    DEFAULT_LINGER_MS        = 50;
+	public static final int    DEFAULT_BATCH_SIZE_BYTES = 64 * 1024;
+	public static final String DEFAULT_ACKS             = "1";
+	public static final long   DEFAULT_ACK_TIMEOUT_MS   = 30 * 1000L;
+
+	private volatile Producer<String, String> producer = null;
+
+	private String topic        = DEFAULT_TOPIC_NAME;
+	private long   ackTimeoutMs = DEFAULT_ACK_TIMEOUT_MS;
+
+	@Override
+	public void init(Properties props, String propPrefix) {
+		LOG.info("init() called");
+
+		super.init(props, propPrefix);
+
+		// fallback to the properties of KafkaAuditProvider
+		topic        = getStringProperty(PROP_TOPIC_NAME, "xasecure.audit.kafka.topic_name", DEFAULT_TOPIC_NAME);
+		ackTimeoutMs = MiscUtil.getLongProperty(props, propPrefix + "." + PROP_ACK_TIMEOUT_MS, DEFAULT_ACK_TIMEOUT_MS);
+
+		connect();
+	}
+
+	@Override
+	public boolean log(Collection<AuditEventBase> events) {
+		boolean ret = false;
+
+		try {
+			logStatusIfRequired();
+			addTotalCount(events.size());
+
+			if (producer == null) {
+				connect();
+
+				if (producer == null) {
+					addDeferredCount(events.size());
+
+					return ret;
+				}
+			}
+
+			final List<ProducerRecord<String, String>> records = new ArrayList<ProducerRecord<String, String>>(events.size());
+
+			for (AuditEventBase event : events) {
+				records.add(toRecord(event));
+			}
+
+			final Producer<String, String>   producer   = this.producer;
+			final CountDownLatch             pending    = new CountDownLatch(records.size());
+			final AtomicInteger              failed     = new AtomicInteger();
+			final AtomicReference<Exception> firstError = new AtomicReference<Exception>();
+			final Callback                   callback   = new Callback() {
+				@Override
+				public void onCompletion(RecordMetadata metadata, Exception exception) {
+					if (exception != null) {
+						failed.incrementAndGet();
+						firstError.compareAndSet(null, exception);
+					}
+
+					pending.countDown();
+				}
+			};
+
+			MiscUtil.executePrivilegedAction(new PrivilegedExceptionAction<Void>() {
+				@Override
+				public Void run() throws Exception {
+					for (ProducerRecord<String, String> record : records) {
+						producer.send(record, callback);
+					}
+
+					return null;
+				}
+			});
+
+			if (!pending.await(ackTimeoutMs, TimeUnit.MILLISECONDS)) {
+				addFailedCount(events.size());
+				logError("Timed out waiting for acknowledgement from Kafka. topic=" + topic + ", timeoutMs=" + ackTimeoutMs
+						+ ", pending=" + pending.getCount() + ", batchSize=" + events.size());
+			} else if (failed.get() > 0) {
+				addFailedCount(events.size());
+				logError("Error sending audits to Kafka. topic=" + topic + ", failed=" + failed.get() + ", batchSize=" + events.size(), firstError.get());
+			} else {
+				addSuccessCount(events.size());
+
+				ret = true;
+			}
+		} catch (InterruptedException excp) {
+			addDeferredCount(events.size());
+			Thread.currentThread().interrupt();
+		} catch (Throwable t) {
+			addDeferredCount(events.size());
+			logError("Error sending audits to Kafka. topic=" + topic, t);
+		}
+
+		return ret;
+	}
+
+	@Override
+	public void flush() {
+		Producer<String, String> producer = this.producer;
+
+		if (producer != null) {
+			producer.flush();
+		}
+	}
+
+	@Override
+	public void stop() {
+		LOG.info("stop() called");
+
+		final Producer<String, String> producer = this.producer;
+
+		this.producer = null;
+
+		if (producer != null) {
+			try {
+				MiscUtil.executePrivilegedAction(new PrivilegedExceptionAction<Void>() {
+					@Override
+					public Void run() throws Exception {
+						producer.close();
+						return null;
+					}
+				});
+			} catch (Throwable t) {
+				LOG.error("Error closing Kafka producer", t);
+			}
+		}
+
+		logStatus();
+	}
+
+	public boolean isAsync() {
+		return true;
+	}
+
+	protected Producer<String, String> createProducer(Map<String, Object> producerProps) {
+		return new KafkaProducer<String, String>(producerProps, new StringSerializer(), new StringSerializer());
+	}
+
+	synchronized void connect() {
+		if (producer != null) {
+			return;
+		}
+
+		final Map<String, Object> producerProps = new HashMap<String, Object>();
+
+		producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, getStringProperty(PROP_BROKER_LIST, "xasecure.audit.kafka.broker_list", DEFAULT_BROKER_LIST));
+		producerProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, getStringProperty(PROP_COMPRESSION_TYPE, null, DEFAULT_COMPRESSION_TYPE));
+		producerProps.put(ProducerConfig.LINGER_MS_CONFIG, MiscUtil.getIntProperty(props, propPrefix + "." + PROP_LINGER_MS, DEFAULT_LINGER_MS));
+		producerProps.put(ProducerConfig.BATCH_SIZE_CONFIG, MiscUtil.getIntProperty(props, propPrefix + "." + PROP_BATCH_SIZE_BYTES, DEFAULT_BATCH_SIZE_BYTES));
+		producerProps.put(ProducerConfig.ACKS_CONFIG, getStringProperty(PROP_ACKS, null, DEFAULT_ACKS));
+
+		Map<String, String> overrides = MiscUtil.getPropertiesWithPrefix(props, propPrefix + "." + PROP_PRODUCER_PREFIX);
+
+		if (overrides != null) {
+			producerProps.putAll(overrides);
+		}
+
+		LOG.info("Connecting to Kafka. topic=" + topic + ", properties=" + producerProps);
+
+		try {
+			producer = MiscUtil.executePrivilegedAction(new PrivilegedExceptionAction<Producer<String, String>>() {
+				@Override
+				public Producer<String, String> run() throws Exception {
+					return createProducer(producerProps);
+				}
+			});
+		} catch (Throwable t) {
+			LOG.fatal("Can't connect to Kafka. properties=" + producerProps, t);
+		}
+	}
+
+	ProducerRecord<String, String> toRecord(AuditEventBase event) {
+		String key = null;
+
+		if (event instanceof AuthzAuditEvent) {
+			AuthzAuditEvent authzEvent = (AuthzAuditEvent) event;
+
+			if (authzEvent.getAgentHostname() == null) {
+				authzEvent.setAgentHostname(MiscUtil.getHostname());
+			}
+
+			if (authzEvent.getLogType() == null) {
+				authzEvent.setLogType("RangerAudit");
+			}
+
+			if (authzEvent.getEventId() == null) {
+				authzEvent.setEventId(MiscUtil.generateUniqueId());
+			}
+
+			key = authzEvent.getRepositoryName() + "/" + authzEvent.getResourcePath();
+		}
+
+		return new ProducerRecord<String, String>(topic, key, MiscUtil.stringify(event));
+	}
+
+	private String getStringProperty(String propSuffix, String legacyPropName, String defaultValue) {
+		String ret = MiscUtil.getStringProperty(props, propPrefix + "." + propSuffix);
+
+		if ((ret == null || ret.isEmpty()) && legacyPropName != null) {
+			ret = MiscUtil.getStringProperty(props, legacyPropName);
+		}
+
+		return (ret == null || ret.isEmpty()) ? defaultValue : ret.trim();
+	}
+}
@@ -41,8 +41,28 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-
+/**
+ * Solr destination for use behind AuditBatchQueue. By default log() sends the batch and returns the result, so that
+ * the queue can spool the batch if Solr doesn't accept it.
+ *
+ * When max.inflight.requests is more than 1, log() hands the batch to a writer thread and returns, so that up to
+ * max.inflight.requests add requests are in progress at a time; log() blocks when all are in use. A failed request is
+ * retried by the writer; if it still fails, the batch is held and log() sends synchronously until a request succeeds.
+ * Held batches are sent before the next batch, which is failed - for the queue to spool it - while they can't be sent.
+ * Held batches are lost only if the destination is stopped while Solr is unreachable. Batches replayed from the file
+ * spool are always sent synchronously.
+ *
+ * Documents are added with commitWithin of commit.within.ms; with SolrCloud, updates are sent to the shard leaders.
+ */
 public class SolrAuditDestination extends AuditDestination {
 	private static final Log LOG = LogFactory
 			.getLog(SolrAuditDestination.class);
@@ -51,12 +71,31 @@ public class SolrAuditDestination extends AuditDestination {
 	public static final String PROP_SOLR_ZK = "zookeepers";
 	public static final String PROP_SOLR_COLLECTION = "collection";
 	public static final String PROP_SOLR_FORCE_USE_INMEMORY_JAAS_CONFIG = "force.use.inmemory.jaas.config";
+	public static final String PROP_SOLR_MAX_INFLIGHT_REQUESTS = "max.inflight.requests";
+	public static final String PROP_SOLR_COMMIT_WITHIN_MS = "commit.within.ms";
+
+	public static final int DEFAULT_MAX_INFLIGHT_REQUESTS = 1; // > 1: log() returns before Solr accepts the batch
+	public static final int DEFAULT_COMMIT_WITHIN_MS = 5000; // <= 0: commit as per the collection's autoCommit
 
 	public static final String DEFAULT_COLLECTION_NAME = "ranger_audits";
 	public static final String PROP_JAVA_SECURITY_AUTH_LOGIN_CONFIG = "java.security.auth.login.config";
 
 	private volatile SolrClient solrClient = null;
 
+	private int maxInFlightRequests = DEFAULT_MAX_INFLIGHT_REQUESTS;
+	private int commitWithinMs = DEFAULT_COMMIT_WITHIN_MS;
+	private Semaphore inFlightPermits = null;
+	private ExecutorService writer = null;
+	private volatile boolean isSyncMode = false;
+
+	// batches that failed on writer threads; at most maxInFlightRequests, as no more are handed to writers until
+	// a request succeeds
+	private final List<FailedBatch> failedBatches = new ArrayList<FailedBatch>();
+
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong totalRequestTimeMs = new AtomicLong();
+	private volatile long maxRequestTimeMs = 0;
+
 	public SolrAuditDestination() {
 	}
 
@@ -64,106 +103,194 @@ public class SolrAuditDestination extends AuditDestination {
 	public void init(Properties props, String propPrefix) {
 		LOG.info("init() called");
 		super.init(props, propPrefix);
+		maxInFlightRequests = MiscUtil.getIntProperty(props, propPrefix + "."
+				+ PROP_SOLR_MAX_INFLIGHT_REQUESTS, DEFAULT_MAX_INFLIGHT_REQUESTS);
+		commitWithinMs = MiscUtil.getIntProperty(props, propPrefix + "."
+				+ PROP_SOLR_COMMIT_WITHIN_MS, DEFAULT_COMMIT_WITHIN_MS);
+		LOG.info("maxInFlightRequests=" + maxInFlightRequests
+				+ ", commitWithinMs=" + commitWithinMs);
 		init();
 		connect();
+		if (maxInFlightRequests > 1) {
+			inFlightPermits = new Semaphore(maxInFlightRequests);
+			writer = Executors.newFixedThreadPool(maxInFlightRequests, new ThreadFactory() {
+				private final AtomicInteger threadCount = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "SolrAuditDestination.writer"
+							+ threadCount.getAndIncrement());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
 	}
 
 	@Override
 	public void stop() {
 		super.stop();
+		waitForInFlightRequests(-1);
+		if (writer != null) {
+			writer.shutdown();
+		}
+		if (!sendFailedBatches()) {
+			for (FailedBatch failedBatch : removeFailedBatches()) {
+				addFailedCount(failedBatch.events.size());
+				logFailedEvent(failedBatch.events, "Solr is not reachable at stop");
+			}
+		}
 		logStatus();
 	}
 
+	@Override
+	public void waitToComplete() {
+		waitForInFlightRequests(-1);
+	}
+
+	@Override
+	public void waitToComplete(long timeout) {
+		waitForInFlightRequests(timeout);
+	}
+
+	public int getInFlightRequestCount() {
+		return inFlightPermits == null ? 0 : (maxInFlightRequests - inFlightPermits.availablePermits());
+	}
+
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	public long getTotalRequestTimeMs() {
+		return totalRequestTimeMs.get();
+	}
+
+	public int getFailedBatchCount() {
+		synchronized (failedBatches) {
+			return failedBatches.size();
+		}
+	}
+
+	public boolean isSyncMode() {
+		return isSyncMode;
+	}
+
+	// updated by the writer threads as well
+	@Override
+	synchronized public long addSuccessCount(int count) {
+		return super.addSuccessCount(count);
+	}
+
+	@Override
+	synchronized public long addFailedCount(int count) {
+		return super.addFailedCount(count);
+	}
+
+	@Override
+	synchronized public long addDeferredCount(int count) {
+		return super.addDeferredCount(count);
+	}
+
 	synchronized void connect() {
 		SolrClient me = solrClient;
 		if (me == null) {
 			synchronized(SolrAuditDestination.class) {
 				me = solrClient;
 				if (solrClient == null) {
-					String urls = MiscUtil.getStringProperty(props, propPrefix
-							+ "." + PROP_SOLR_URLS);
-					if (urls != null) {
-						urls = urls.trim();
-					}
-					if (urls != null && urls.equalsIgnoreCase("NONE")) {
-						urls = null;
-					}
-					List<String> solrURLs = new ArrayList<String>();
-					String zkHosts = null;
-					solrURLs = MiscUtil.toArray(urls, ",");
-					zkHosts = MiscUtil.getStringProperty(props, propPrefix + "."
-							+ PROP_SOLR_ZK);
-					if (zkHosts != null && zkHosts.equalsIgnoreCase("NONE")) {
-						zkHosts = null;
-					}
-					String collectionName = MiscUtil.getStringProperty(props,
-							propPrefix + "." + PROP_SOLR_COLLECTION);
-					if (collectionName == null
-							|| collectionName.equalsIgnoreCase("none")) {
-						collectionName = DEFAULT_COLLECTION_NAME;
-					}
-
-					LOG.info("Solr zkHosts=" + zkHosts + ", solrURLs=" + urls
-							+ ", collectionName=" + collectionName);
-
-					if (zkHosts != null && !zkHosts.isEmpty()) {
-						LOG.info("Connecting to solr cloud using zkHosts="
-								+ zkHosts);
-						try {
-							// Instantiate
-							HttpClientUtil.setConfigurer(new Krb5HttpClientConfigurer());
-							final String zkhosts =zkHosts;
-							final CloudSolrClient solrCloudClient = MiscUtil.executePrivilegedAction(new PrivilegedExceptionAction<CloudSolrClient>() {
-								@Override
-								public CloudSolrClient run()  throws Exception {
-									CloudSolrClient solrCloudClient = new CloudSolrClient(
-											zkhosts);
-									return solrCloudClient;
-								};
-							});
-
-							solrCloudClient.setDefaultCollection(collectionName);
-							me = solrClient = solrCloudClient;
-						} catch (Throwable t) {
-							LOG.fatal("Can't connect to Solr server. ZooKeepers="
-									+ zkHosts, t);
-						}
-						finally {
-							resetInitializerInSOLR();
-						}
-					} else if (solrURLs != null && !solrURLs.isEmpty()) {
-						try {
-							LOG.info("Connecting to Solr using URLs=" + solrURLs);
-							HttpClientUtil.setConfigurer(new Krb5HttpClientConfigurer());
-							final List<String> solrUrls = solrURLs;
-							final LBHttpSolrClient lbSolrClient = MiscUtil.executePrivilegedAction(new PrivilegedExceptionAction<LBHttpSolrClient>() {
-								@Override
-								public LBHttpSolrClient run()  throws Exception {
-									LBHttpSolrClient lbSolrClient = new LBHttpSolrClient(
-											solrUrls.get(0));
-									return lbSolrClient;
-								};
-							});
-
-							lbSolrClient.setConnectionTimeout(1000);
-
-							for (int i = 1; i < solrURLs.size(); i++) {
-								lbSolrClient.addSolrServer(solrURLs.get(i));
-							}
-							me = solrClient = lbSolrClient;
-						} catch (Throwable t) {
-							LOG.fatal("Can't connect to Solr server. URL="
-									+ solrURLs, t);
-						}
-						finally {
-							resetInitializerInSOLR();
-						}
-					}
+					me = solrClient = createSolrClient();
 				}
 			}
 		}
 	}
 
+	/**
+	 * @return client for the configured SolrCloud or Solr URLs; null if it can't be created
+	 */
+	protected SolrClient createSolrClient() {
+		SolrClient ret = null;
+		String urls = MiscUtil.getStringProperty(props, propPrefix
+				+ "." + PROP_SOLR_URLS);
+		if (urls != null) {
+			urls = urls.trim();
+		}
+		if (urls != null && urls.equalsIgnoreCase("NONE")) {
+			urls = null;
+		}
+		List<String> solrURLs = new ArrayList<String>();
+		String zkHosts = null;
+		solrURLs = MiscUtil.toArray(urls, ",");
+		zkHosts = MiscUtil.getStringProperty(props, propPrefix + "."
+				+ PROP_SOLR_ZK);
+		if (zkHosts != null && zkHosts.equalsIgnoreCase("NONE")) {
+			zkHosts = null;
+		}
+		String collectionName = MiscUtil.getStringProperty(props,
+				propPrefix + "." + PROP_SOLR_COLLECTION);
+		if (collectionName == null
+				|| collectionName.equalsIgnoreCase("none")) {
+			collectionName = DEFAULT_COLLECTION_NAME;
+		}
+
+		LOG.info("Solr zkHosts=" + zkHosts + ", solrURLs=" + urls
+				+ ", collectionName=" + collectionName);
+
+		if (zkHosts != null && !zkHosts.isEmpty()) {
+			LOG.info("Connecting to solr cloud using zkHosts="
+					+ zkHosts);
+			try {
+				// Instantiate
+				HttpClientUtil.setConfigurer(new Krb5HttpClientConfigurer());
+				final String zkhosts =zkHosts;
+				final CloudSolrClient solrCloudClient = MiscUtil.executePrivilegedAction(new PrivilegedExceptionAction<CloudSolrClient>() {
+					@Override
+					public CloudSolrClient run()  throws Exception {
+						// updatesToLeaders: send the documents to the leader of their shard
+						CloudSolrClient solrCloudClient = new CloudSolrClient(
+								zkhosts, true);
+						return solrCloudClient;
+					};
+				});
+
+				solrCloudClient.setDefaultCollection(collectionName);
+				solrCloudClient.setParallelUpdates(true);
+				ret = solrCloudClient;
+			} catch (Throwable t) {
+				LOG.fatal("Can't connect to Solr server. ZooKeepers="
+						+ zkHosts, t);
+			}
+			finally {
+				resetInitializerInSOLR();
+			}
+		} else if (solrURLs != null && !solrURLs.isEmpty()) {
+			try {
+				LOG.info("Connecting to Solr using URLs=" + solrURLs);
+				HttpClientUtil.setConfigurer(new Krb5HttpClientConfigurer());
+				final List<String> solrUrls = solrURLs;
+				final LBHttpSolrClient lbSolrClient = MiscUtil.executePrivilegedAction(new PrivilegedExceptionAction<LBHttpSolrClient>() {
+					@Override
+					public LBHttpSolrClient run()  throws Exception {
+						LBHttpSolrClient lbSolrClient = new LBHttpSolrClient(
+								solrUrls.get(0));
+						return lbSolrClient;
+					};
+				});
+
+				lbSolrClient.setConnectionTimeout(1000);
+
+				for (int i = 1; i < solrURLs.size(); i++) {
+					lbSolrClient.addSolrServer(solrURLs.get(i));
+				}
+				ret = lbSolrClient;
+			} catch (Throwable t) {
+				LOG.fatal("Can't connect to Solr server. URL="
+						+ solrURLs, t);
+			}
+			finally {
+				resetInitializerInSOLR();
+			}
+		}
+		return ret;
+	}
 
     private void resetInitializerInSOLR() {
 		javax.security.auth.login.Configuration solrConfig = javax.security.auth.login.Configuration.getConfiguration();
@@ -199,6 +326,20 @@ public class SolrAuditDestination extends AuditDestination {
 
 	@Override
 	public boolean log(Collection<AuditEventBase> events) {
+		return log(events, writer != null && !isSyncMode);
+	}
+
+	@Override
+	public boolean logJSON(Collection<String> events) {
+		// called on replay of the file spool, which needs the result of the request
+		List<AuditEventBase> eventList = new ArrayList<AuditEventBase>(events.size());
+		for (String event : events) {
+			eventList.add(MiscUtil.fromJson(event, AuthzAuditEvent.class));
+		}
+		return log(eventList, false);
+	}
+
+	private boolean log(Collection<AuditEventBase> events, boolean isAsync) {
 		boolean ret = false;
 		try {
 			logStatusIfRequired();
@@ -220,14 +361,18 @@ public class SolrAuditDestination extends AuditDestination {
 				SolrInputDocument document = toSolrDoc(authzEvent);
 				docs.add(document);
 			}
+			if (isAsync) {
+				// the queue reuses its batch buffer after log() returns
+				submit(new ArrayList<AuditEventBase>(events), docs);
+				return true;
+			}
+			if (!sendFailedBatches()) {
+				addFailedCount(events.size());
+				logFailedEvent(events, "earlier batches are yet to be sent to Solr");
+				return ret;
+			}
 			try {
-				final UpdateResponse response = MiscUtil.executePrivilegedAction(new PrivilegedExceptionAction<UpdateResponse>() {
-					@Override
-					public UpdateResponse run()  throws Exception {
-						UpdateResponse response = solrClient.add(docs);
-						return response;
-					};
-				});
+				final UpdateResponse response = add(docs);
 
 				if (response.getStatus() != 0) {
 					addFailedCount(events.size());
@@ -235,6 +380,10 @@ public class SolrAuditDestination extends AuditDestination {
 				} else {
 					addSuccessCount(events.size());
 					ret = true;
+					if (isSyncMode) {
+						LOG.info("Solr is reachable again. Switching to pipelined writes. name=" + getName());
+						isSyncMode = false;
+					}
 				}
 			} catch (SolrException ex) {
 				addFailedCount(events.size());
@@ -247,6 +396,147 @@ public class SolrAuditDestination extends AuditDestination {
 		return ret;
 	}
 
+	private void submit(final Collection<AuditEventBase> events, final Collection<SolrInputDocument> docs) throws InterruptedException {
+		inFlightPermits.acquire();
+		try {
+			writer.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						send(events, docs);
+					} finally {
+						inFlightPermits.release();
+					}
+				}
+			});
+		} catch (RejectedExecutionException excp) {
+			inFlightPermits.release();
+			throw excp;
+		}
+	}
+
+	private void send(Collection<AuditEventBase> events, Collection<SolrInputDocument> docs) {
+		String error = null;
+		Throwable excp = null;
+		for (int attempt = 0; attempt <= failedRetryTimes; attempt++) {
+			try {
+				if (attempt > 0) {
+					Thread.sleep(failedRetrySleep);
+				}
+
+				UpdateResponse response = add(docs);
+
+				if (response.getStatus() == 0) {
+					addSuccessCount(events.size());
+					return;
+				}
+				error = response.toString();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				excp = ex;
+				break;
+			} catch (Throwable t) {
+				excp = t;
+			}
+		}
+
+		// log() returned true for these events; hold them, to be sent again before the next batch
+		synchronized (failedBatches) {
+			failedBatches.add(new FailedBatch(events, docs));
+		}
+		addDeferredCount(events.size());
+		if (!isSyncMode) {
+			LOG.warn("Failed to send " + events.size() + " events to Solr after " + failedRetryTimes
+					+ " retries. Switching to synchronous writes until Solr is reachable. name=" + getName()
+					+ (excp != null ? ", error=" + excp : ", response=" + error));
+			isSyncMode = true;
+		}
+	}
+
+	// returns false if a held batch couldn't be sent; it is held still, along with the ones after it
+	private boolean sendFailedBatches() {
+		synchronized (failedBatches) {
+			while (!failedBatches.isEmpty()) {
+				FailedBatch failedBatch = failedBatches.get(0);
+				try {
+					if (add(failedBatch.docs).getStatus() != 0) {
+						return false;
+					}
+				} catch (Throwable t) {
+					return false;
+				}
+				failedBatches.remove(0);
+				addSuccessCount(failedBatch.events.size());
+			}
+		}
+		return true;
+	}
+
+	private List<FailedBatch> removeFailedBatches() {
+		synchronized (failedBatches) {
+			List<FailedBatch> ret = new ArrayList<FailedBatch>(failedBatches);
+			failedBatches.clear();
+			return ret;
+		}
+	}
+
+	private UpdateResponse add(final Collection<SolrInputDocument> docs) throws Exception {
+		long startTime = System.currentTimeMillis();
+		try {
+			return MiscUtil.executePrivilegedAction(new PrivilegedExceptionAction<UpdateResponse>() {
+				@Override
+				public UpdateResponse run()  throws Exception {
+					UpdateResponse response = commitWithinMs > 0 ? solrClient.add(docs, commitWithinMs) : solrClient.add(docs);
+					return response;
+				};
+			});
+		} finally {
+			long timeTaken = System.currentTimeMillis() - startTime;
+
+			requestCount.incrementAndGet();
+			totalRequestTimeMs.addAndGet(timeTaken);
+			if (timeTaken > maxRequestTimeMs) {
+				maxRequestTimeMs = timeTaken;
+			}
+		}
+	}
+
+	private void waitForInFlightRequests(long timeoutMs) {
+		if (inFlightPermits == null) {
+			return;
+		}
+		try {
+			boolean isAcquired = true;
+			if (timeoutMs < 0) {
+				inFlightPermits.acquire(maxInFlightRequests);
+			} else {
+				isAcquired = inFlightPermits.tryAcquire(maxInFlightRequests, timeoutMs, TimeUnit.MILLISECONDS);
+			}
+			if (isAcquired) {
+				inFlightPermits.release(maxInFlightRequests);
+			} else {
+				LOG.warn("Timed out waiting for Solr requests to complete. inFlightRequests="
+						+ getInFlightRequestCount() + ", name=" + getName());
+			}
+		} catch (InterruptedException excp) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	protected String getStatusDetails() {
+		long requests = requestCount.get();
+		long maxTimeMs = maxRequestTimeMs;
+
+		maxRequestTimeMs = 0;
+
+		return ", inFlightRequests=" + getInFlightRequestCount()
+				+ ", solrRequests=" + requests
+				+ ", avgRequestTimeMs=" + (requests > 0 ? totalRequestTimeMs.get() / requests : 0)
+				+ ", maxRequestTimeMs=" + maxTimeMs
+				+ (isSyncMode ? ", syncMode=true, failedBatches=" + getFailedBatchCount() : "");
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -254,7 +544,7 @@ public class SolrAuditDestination extends AuditDestination {
 	 */
 	@Override
 	public void flush() {
-
+		waitForInFlightRequests(-1);
 	}
 
 	SolrInputDocument toSolrDoc(AuthzAuditEvent auditEvent) {
@@ -290,6 +580,16 @@ public class SolrAuditDestination extends AuditDestination {
 		return true;
 	}
 
+	private static class FailedBatch {
+		final Collection<AuditEventBase> events;
+		final Collection<SolrInputDocument> docs;
+
+		FailedBatch(Collection<AuditEventBase> events, Collection<SolrInputDocument> docs) {
+			this.events = events;
+			this.docs = docs;
+		}
+	}
+
 	private void init() {
 		LOG.info("==>SolrAuditDestination.init()" );
 		try {
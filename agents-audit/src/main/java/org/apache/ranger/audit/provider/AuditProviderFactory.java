@@ -19,7 +19,9 @@
 package org.apache.ranger.audit.provider;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -30,6 +32,7 @@ import org.apache.hadoop.util.ShutdownHookManager;
 import org.apache.ranger.audit.destination.DBAuditDestination;
 import org.apache.ranger.audit.destination.FileAuditDestination;
 import org.apache.ranger.audit.destination.HDFSAuditDestination;
+import org.apache.ranger.audit.destination.KafkaAuditDestination;
 import org.apache.ranger.audit.destination.Log4JAuditDestination;
 import org.apache.ranger.audit.destination.SolrAuditDestination;
 import org.apache.ranger.audit.provider.hdfs.HdfsAuditProvider;
@@ -61,6 +64,7 @@ public class AuditProviderFactory {
 	public static final String AUDIT_DEST_BASE = "xasecure.audit.destination";
 	public static final String AUDIT_SHUTDOWN_HOOK_MAX_WAIT_SEC = "xasecure.audit.shutdown.hook.max.wait.seconds";
 	public static final String AUDIT_IS_FILE_CACHE_PROVIDER_ENABLE_PROP = "xasecure.audit.provider.filecache.is.enabled";
+	public static final String AUDIT_MULTI_DEST_QUEUE_PER_DEST_PROP = "xasecure.audit.provider.multi_dest.queue.per.destination";
 	public static final int AUDIT_SHUTDOWN_HOOK_MAX_WAIT_SEC_DEFAULT = 30;
 
 	public static final int AUDIT_ASYNC_MAX_QUEUE_SIZE_DEFAULT = 10 * 1024;
@@ -133,6 +137,7 @@ public class AuditProviderFactory {
 				AUDIT_IS_FILE_CACHE_PROVIDER_ENABLE_PROP, false);
 
 		List<AuditHandler> providers = new ArrayList<AuditHandler>();
+		Map<AuditHandler, String> unqueuedDestProviders = new HashMap<AuditHandler, String>();
 
 		for (Object propNameObj : props.keySet()) {
 			LOG.info("AUDIT PROPERTY: " + propNameObj.toString() + "="
@@ -203,6 +208,26 @@ public class AuditProviderFactory {
 					LOG.info("Audit destination " + destProvider.getName()
 							+ " added to provider list");
 					providers.add(destProvider);
+					unqueuedDestProviders.put(destProvider, destPropPrefix);
+				}
+			}
+		}
+		if (providers.size() > 1
+				&& MiscUtil.getBooleanProperty(props,
+						AUDIT_MULTI_DEST_QUEUE_PER_DEST_PROP, true)) {
+			// Each destination gets its own queue and consumer thread, so
+			// that a slow destination doesn't hold up the others
+			for (int i = 0; i < providers.size(); i++) {
+				AuditHandler provider = providers.get(i);
+				String destPropPrefix = unqueuedDestProviders.get(provider);
+
+				if (destPropPrefix != null) {
+					LOG.info("Audit destination " + provider.getName()
+							+ " has no queue. Adding batch queue, as there are "
+							+ providers.size() + " destinations");
+					AuditBatchQueue batchQueue = new AuditBatchQueue(provider);
+					batchQueue.init(props, destPropPrefix + ".batch");
+					providers.set(i, batchQueue);
 				}
 			}
 		}
@@ -433,7 +458,7 @@ public class AuditProviderFactory {
 			} else if (providerName.equals("solr")) {
 				provider = new SolrAuditDestination();
 			} else if (providerName.equals("kafka")) {
-				provider = new KafkaAuditProvider();
+				provider = new KafkaAuditDestination();
 			} else if (providerName.equals("db")) {
 				provider = new DBAuditDestination();
 			} else if (providerName.equals("log4j")) {
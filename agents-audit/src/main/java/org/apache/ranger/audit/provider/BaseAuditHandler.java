@@ -297,6 +297,9 @@ public abstract class BaseAuditHandler implements AuditHandler {
 					+ (diffStashed > 0 ? (", stashedCount=" + diffStashed) : "")
 					+ (diffDeferred > 0 ? (", deferredCount=" + diffDeferred)
 							: "")
+					+ (diffSuccess > 0 && diffTime > 0 ? (", successPerSec=" + (diffSuccess * 1000 / diffTime))
+							: "")
+					+ getStatusDetails()
 					+ ", totalEvents="
 					+ totalCount
 					+ (totalSuccessCount > 0 ? (", totalSuccessCount=" + totalSuccessCount)
@@ -313,6 +316,13 @@ public abstract class BaseAuditHandler implements AuditHandler {
 		}
 	}
 
+	/**
+	 * @return handler specific details to include in the status log, like queue size; each starting with ", "
+	 */
+	protected String getStatusDetails() {
+		return "";
+	}
+
 	public void logError(String msg) {
 		long currTimeMS = System.currentTimeMillis();
 		if (currTimeMS - lastErrorLogMS > errorLogIntervalMS) {
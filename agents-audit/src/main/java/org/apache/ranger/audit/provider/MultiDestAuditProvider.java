@@ -97,6 +97,10 @@ public class MultiDestAuditProvider extends BaseAuditHandler {
 		}
 	}
 
+	public List<AuditHandler> getAuditProviders() {
+		return mProviders;
+	}
+
 	public void addAuditProviders(List<AuditHandler> providers) {
 		if (providers != null) {
 			for (AuditHandler provider : providers) {
@@ -21,10 +21,13 @@ package org.apache.ranger.audit.queue;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -38,6 +41,19 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 	private BlockingQueue<AuditEventBase> queue = null;
 	private Collection<AuditEventBase> localBatchBuffer = new ArrayList<AuditEventBase>();
 
+	// events that didn't fit in the queue, to be written to the file spool
+	// in batches by the consumer thread - not by the thread calling log(),
+	// which feeds other destinations as well
+	private BlockingQueue<AuditEventBase> spoolQueue = null;
+
+	// events this queue couldn't accept: spooled to file or dropped, without holding up other destinations
+	private final AtomicLong queueFullSpoolCount = new AtomicLong();
+	private final AtomicLong queueFullDropCount = new AtomicLong();
+
+	// age of the oldest event in a batch, when it is sent to the destination
+	private volatile long lastDispatchLagMs = 0;
+	private volatile long maxDispatchLagMs = 0;
+
 	Thread consumerThread = null;
 	static int threadCount = 0;
 	static final String DEFAULT_NAME = "batch";
@@ -56,23 +72,84 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 	 */
 	@Override
 	public boolean log(AuditEventBase event) {
-		// Add to batchQueue. Block if full
-		queue.add(event);
-		return true;
+		// Add to batchQueue. If full, wait for up to queueFullWaitMs; then
+		// spool or drop the event for this destination only
+		boolean ret = queue.offer(event);
+
+		if (!ret && getQueueFullWaitMs() > 0) {
+			try {
+				ret = queue.offer(event, getQueueFullWaitMs(),
+						TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		if (!ret) {
+			if (fileSpoolerEnabled) {
+				if (!spoolQueue.offer(event)) {
+					// consumer thread is busy with the destination; spool
+					// the pending events here, in one batch
+					spoolPending();
+
+					if (!spoolQueue.offer(event)) {
+						fileSpooler.stashLogs(event);
+						queueFullSpoolCount.incrementAndGet();
+					}
+				}
+				ret = true;
+			} else {
+				queueFullDropCount.incrementAndGet();
+				logFailedEvent(event, "queue is full. queue=" + getName()
+						+ ", size=" + getMaxQueueSize());
+			}
+		}
+		return ret;
 	}
 
 	@Override
 	public boolean log(Collection<AuditEventBase> events) {
 		boolean ret = true;
 		for (AuditEventBase event : events) {
-			ret = log(event);
-			if (!ret) {
-				break;
+			if (!log(event)) {
+				ret = false;
 			}
 		}
 		return ret;
 	}
 
+	public int getQueueSize() {
+		return queue == null ? 0 : queue.size();
+	}
+
+	public long getQueueFullSpoolCount() {
+		return queueFullSpoolCount.get();
+	}
+
+	public long getQueueFullDropCount() {
+		return queueFullDropCount.get();
+	}
+
+	public long getLastDispatchLagMs() {
+		return lastDispatchLagMs;
+	}
+
+	private void spoolPending() {
+		if (spoolQueue == null || spoolQueue.isEmpty()) {
+			return;
+		}
+
+		List<AuditEventBase> events = new ArrayList<AuditEventBase>(
+				spoolQueue.size());
+
+		spoolQueue.drainTo(events);
+
+		if (!events.isEmpty()) {
+			fileSpooler.stashLogs(events);
+			queueFullSpoolCount.addAndGet(events.size());
+		}
+	}
+
 	@Override
 	public void init(Properties prop, String basePropertyName) {
 		String propPrefix = "xasecure.audit.batch";
@@ -98,6 +175,10 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 		logger.info("Creating ArrayBlockingQueue with maxSize="
 				+ getMaxQueueSize());
 		queue = new ArrayBlockingQueue<AuditEventBase>(getMaxQueueSize());
+		if (fileSpoolerEnabled) {
+			spoolQueue = new ArrayBlockingQueue<AuditEventBase>(
+					Math.max(getMaxBatchSize(), 1));
+		}
 
 		// Start the consumer first
 		consumer.start();
@@ -197,6 +278,7 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 	@Override
 	public void flush() {
 		if (fileSpoolerEnabled) {
+			spoolPending();
 			fileSpooler.flush();
 		}
 		consumer.flush();
@@ -224,6 +306,10 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 		while (true) {
 			logStatusIfRequired();
 
+			if (fileSpoolerEnabled) {
+				spoolPending();
+			}
+
 			// Time to next dispatch
 			long nextDispatchDuration = lastDispatchTime
 					- System.currentTimeMillis() + getMaxBatchInterval();
@@ -306,6 +392,7 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 				}
 				// Reset time just before sending the logs
 				lastDispatchTime = System.currentTimeMillis();
+				updateDispatchLag(lastDispatchTime);
 				boolean ret = consumer.log(localBatchBuffer);
 				if (!ret) {
 					if (fileSpoolerEnabled) {
@@ -353,6 +440,7 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 
 			consumer.stop();
 			if (fileSpoolerEnabled) {
+				spoolPending();
 				fileSpooler.stop();
 			}
 		} catch (Throwable t) {
@@ -361,4 +449,33 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 		logStatus();
 		logger.info("Exiting consumerThread.run() method. name=" + getName());
 	}
+
+	@Override
+	protected String getStatusDetails() {
+		long maxLagMs = maxDispatchLagMs;
+
+		maxDispatchLagMs = 0;
+
+		return ", queueSize=" + getQueueSize() + ", maxLagMs=" + maxLagMs
+				+ ", queueFullSpoolCount=" + queueFullSpoolCount.get()
+				+ ", queueFullDropCount=" + queueFullDropCount.get();
+	}
+
+	private void updateDispatchLag(long now) {
+		long oldestEventTime = now;
+
+		for (AuditEventBase event : localBatchBuffer) {
+			Date eventTime = event.getEventTime();
+
+			if (eventTime != null && eventTime.getTime() < oldestEventTime) {
+				oldestEventTime = eventTime.getTime();
+			}
+		}
+
+		lastDispatchLagMs = now - oldestEventTime;
+
+		if (lastDispatchLagMs > maxDispatchLagMs) {
+			maxDispatchLagMs = lastDispatchLagMs;
+		}
+	}
 }
@@ -69,6 +69,8 @@ public class AuditFileSpool implements Runnable {
 	// public static final String PROP_FILE_SPOOL_INDEX_DONE_FILE =
 	// "filespool.index.done_filename";
 	public static final String PROP_FILE_SPOOL_DEST_RETRY_MS = "filespool.destination.retry.ms";
+	// "segmented" for AuditSegmentedFileSpool; JSON text files otherwise
+	public static final String PROP_FILE_SPOOL_TYPE = "filespool.type";
 
 	AuditQueue queueProvider = null;
 	AuditHandler consumerProvider = null;
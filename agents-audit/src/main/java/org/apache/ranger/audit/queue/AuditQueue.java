@@ -42,12 +42,14 @@ public abstract class AuditQueue extends BaseAuditHandler {
 	private int maxQueueSize = AUDIT_MAX_QUEUE_SIZE_DEFAULT;
 	private int maxBatchInterval = AUDIT_BATCH_INTERVAL_DEFAULT_MS;
 	private int maxBatchSize = AUDIT_BATCH_SIZE_DEFAULT;
+	private int queueFullWaitMs = 0;
 
 	public static final String PROP_QUEUE = "queue";
 
 	public static final String PROP_BATCH_SIZE = "batch.size";
 	public static final String PROP_QUEUE_SIZE = "queue.size";
 	public static final String PROP_BATCH_INTERVAL = "batch.interval.ms";
+	public static final String PROP_QUEUE_FULL_WAIT = "queue.full.wait.ms";
 
 	public static final String PROP_FILE_SPOOL_ENABLE = "filespool.enable";
 	public static final String PROP_FILE_SPOOL_WAIT_FOR_FULL_DRAIN = "filespool.drain.full.wait.ms";
@@ -94,6 +96,8 @@ public abstract class AuditQueue extends BaseAuditHandler {
 				+ PROP_QUEUE_SIZE, getMaxQueueSize()));
 		setMaxBatchInterval(MiscUtil.getIntProperty(props, propPrefix + "."
 				+ PROP_BATCH_INTERVAL, getMaxBatchInterval()));
+		setQueueFullWaitMs(MiscUtil.getIntProperty(props, propPrefix + "."
+				+ PROP_QUEUE_FULL_WAIT, getQueueFullWaitMs()));
 
 		fileSpoolerEnabled = MiscUtil.getBooleanProperty(props, propPrefix
 				+ "." + PROP_FILE_SPOOL_ENABLE, false);
@@ -111,7 +115,13 @@ public abstract class AuditQueue extends BaseAuditHandler {
 			fileSpoolDrainThresholdPercent = MiscUtil.getIntProperty(props,
 					propPrefix + "." + PROP_FILE_SPOOL_QUEUE_THRESHOLD,
 					fileSpoolDrainThresholdPercent);
-			fileSpooler = new AuditFileSpool(this, consumer);
+			String fileSpoolType = MiscUtil.getStringProperty(props, propPrefix
+					+ "." + AuditFileSpool.PROP_FILE_SPOOL_TYPE);
+			if (AuditSegmentedFileSpool.SPOOL_TYPE.equalsIgnoreCase(fileSpoolType)) {
+				fileSpooler = new AuditSegmentedFileSpool(this, consumer);
+			} else {
+				fileSpooler = new AuditFileSpool(this, consumer);
+			}
 			if (!fileSpooler.init(props, basePropertyName)) {
 				fileSpoolerEnabled = false;
 				LOG.fatal("Couldn't initialize file spooler. Disabling it. queue="
@@ -196,6 +206,14 @@ public abstract class AuditQueue extends BaseAuditHandler {
 		this.maxBatchSize = maxBatchSize;
 	}
 
+	public int getQueueFullWaitMs() {
+		return queueFullWaitMs;
+	}
+
+	public void setQueueFullWaitMs(int queueFullWaitMs) {
+		this.queueFullWaitMs = queueFullWaitMs;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -0,0 +1,876 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.log4j.MDC;
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.provider.AuditHandler;
+import org.apache.ranger.audit.provider.MiscUtil;
+
+/**
+ * File spool that stores logs in segmented, append-only files of length-prefixed and CRC-checked records, while the
+ * destination is overloaded or down. Each stash call is written with a single channel write, and when sync is
+ * enabled, writes are forced to disk with group commit - one force for all writes completed before it.
+ *
+ * Segments are replayed in order; the replay position is saved in a checkpoint file of a fixed size, by overwriting
+ * the segment sequence and offset in place. On restart, records past the first torn or corrupt record of a segment
+ * are truncated. Segments following the one being sent are read and verified by a pool of threads, ahead of sending.
+ */
+public class AuditSegmentedFileSpool extends AuditFileSpool {
+	private static final Log logger = LogFactory.getLog(AuditSegmentedFileSpool.class);
+
+	public static final String SPOOL_TYPE = "segmented";
+
+	public static final String PROP_FILE_SPOOL_SEGMENT_SIZE   = "filespool.segment.size.bytes";
+	public static final String PROP_FILE_SPOOL_SYNC           = "filespool.sync";
+	public static final String PROP_FILE_SPOOL_REPLAY_THREADS = "filespool.replay.threads";
+
+	static final String SEGMENT_FILE_SUFFIX  = ".wal";
+	static final String CHECKPOINT_FILE_NAME = "checkpoint";
+	static final int    SEGMENT_MAGIC        = 0x52574131; // RWA1
+	static final int    SEGMENT_HEADER_SIZE  = 4;          // magic
+	static final int    RECORD_HEADER_SIZE   = 8;          // length, crc
+	static final int    CHECKPOINT_SIZE      = 20;         // segmentSeq, offset, crc
+
+	private final ReentrantLock                  writeLock      = new ReentrantLock();
+	private final BlockingDeque<Segment>         closedSegments = new LinkedBlockingDeque<Segment>();
+	private final Map<Segment, Future<Records>> readAheads     = new HashMap<Segment, Future<Records>>();
+
+	private File            segmentFolder        = null;
+	private String          segmentFilePrefix    = null;
+	private long            segmentSize          = 8 * 1024 * 1024;
+	private boolean         syncOnWrite          = false;
+	private int             replayThreads        = 2;
+	private ExecutorService replayExecutor       = null;
+	private FileChannel     checkpointChannel    = null;
+	private long            checkpointSeq        = 0;
+	private long            checkpointOffset     = 0;
+	private Segment         activeSegment        = null; // guarded by writeLock
+	private long            nextSegmentSeq       = 1;    // guarded by writeLock
+	private volatile Segment currentSegment      = null; // being replayed
+	private volatile boolean hasUnsentRecords    = false;
+	private volatile boolean isStopped           = false;
+
+	public AuditSegmentedFileSpool(AuditQueue queueProvider, AuditHandler consumerProvider) {
+		super(queueProvider, consumerProvider);
+	}
+
+	@Override
+	public boolean init(Properties props, String basePropertyName) {
+		if (initDone) {
+			logger.error("init() called more than once. queueProvider=" + queueProvider.getName() + ", consumerProvider=" + consumerProvider.getName());
+			return true;
+		}
+
+		String propPrefix = basePropertyName != null ? basePropertyName : "xasecure.audit.filespool";
+
+		try {
+			String logFolderProp     = MiscUtil.getStringProperty(props, propPrefix + "." + PROP_FILE_SPOOL_LOCAL_DIR);
+			String archiveFolderProp = MiscUtil.getStringProperty(props, propPrefix + "." + PROP_FILE_SPOOL_ARCHIVE_DIR);
+
+			fileNamePrefix     = MiscUtil.getStringProperty(props, propPrefix + "." + PROP_FILE_SPOOL_FILENAME_PREFIX);
+			retryDestinationMS = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_DEST_RETRY_MS, retryDestinationMS);
+			fileRolloverSec    = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_FILE_ROLLOVER, fileRolloverSec);
+			maxArchiveFiles    = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_ARCHIVE_MAX_FILES_COUNT, maxArchiveFiles);
+			segmentSize        = MiscUtil.getLongProperty(props, propPrefix + "." + PROP_FILE_SPOOL_SEGMENT_SIZE, segmentSize);
+			syncOnWrite        = MiscUtil.getBooleanProperty(props, propPrefix + "." + PROP_FILE_SPOOL_SYNC, syncOnWrite);
+			replayThreads      = Math.max(1, MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_REPLAY_THREADS, replayThreads));
+
+			logger.info("retryDestinationMS=" + retryDestinationMS + ", fileRolloverSec=" + fileRolloverSec + ", maxArchiveFiles=" + maxArchiveFiles
+					+ ", segmentSize=" + segmentSize + ", syncOnWrite=" + syncOnWrite + ", replayThreads=" + replayThreads
+					+ ", queueName=" + queueProvider.getName());
+
+			if (logFolderProp == null || logFolderProp.isEmpty()) {
+				logger.fatal("Audit spool folder is not configured. Please set " + propPrefix + "." + PROP_FILE_SPOOL_LOCAL_DIR + ". queueName=" + queueProvider.getName());
+				return false;
+			}
+
+			if (fileNamePrefix == null || fileNamePrefix.isEmpty()) {
+				fileNamePrefix = queueProvider.getName() + "_" + consumerProvider.getName();
+			}
+
+			logFolder         = new File(logFolderProp);
+			segmentFilePrefix = MiscUtil.replaceTokens("spool_" + fileNamePrefix + "_%app-type%", System.currentTimeMillis());
+			segmentFolder     = new File(logFolder, segmentFilePrefix);
+			archiveFolder     = (archiveFolderProp == null || archiveFolderProp.isEmpty()) ? new File(logFolder, "archive") : new File(archiveFolderProp);
+
+			if (!createFolder(segmentFolder) || !createFolder(archiveFolder)) {
+				return false;
+			}
+
+			logger.info("segmentFolder=" + segmentFolder + ", archiveFolder=" + archiveFolder + ", queueName=" + queueProvider.getName());
+
+			checkpointChannel = FileChannel.open(new File(segmentFolder, CHECKPOINT_FILE_NAME).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			loadCheckpoint();
+			recoverSegments();
+
+			replayExecutor = Executors.newFixedThreadPool(replayThreads, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread ret = new Thread(r, queueProvider.getName() + "_" + consumerProvider.getName() + "_spoolReader");
+
+					ret.setDaemon(true);
+
+					return ret;
+				}
+			});
+		} catch (Throwable t) {
+			logger.fatal("Error initializing File Spooler. queue=" + queueProvider.getName(), t);
+			return false;
+		}
+
+		initDone = true;
+
+		return true;
+	}
+
+	@Override
+	public void stop() {
+		if (!initDone) {
+			logger.error("Cannot stop Audit File Spooler. Initilization not done. queueName=" + queueProvider.getName());
+			return;
+		}
+
+		logger.info("Stop called, queueName=" + queueProvider.getName() + ", consumer=" + consumerProvider.getName());
+
+		isDrain = true;
+
+		writeLock.lock();
+		try {
+			closeActiveSegment(false);
+		} finally {
+			writeLock.unlock();
+		}
+
+		try {
+			if (destinationThread != null) {
+				destinationThread.interrupt();
+				destinationThread.join(retryDestinationMS + 1000L);
+			}
+			destinationThread = null;
+		} catch (Throwable e) {
+			// ignore
+		}
+
+		isStopped = true;
+
+		replayExecutor.shutdownNow();
+
+		try {
+			checkpointChannel.close();
+		} catch (IOException excp) {
+			logger.warn("Error closing checkpoint file. queueName=" + queueProvider.getName(), excp);
+		}
+	}
+
+	@Override
+	public void flush() {
+		if (!initDone) {
+			logger.error("Cannot flush Audit File Spooler. Initilization not done. queueName=" + queueProvider.getName());
+			return;
+		}
+
+		Segment segment = activeSegment;
+
+		if (segment != null) {
+			try {
+				segment.sync(segment.size);
+			} catch (IOException excp) {
+				logger.error("Error flushing spool segment " + segment.file, excp);
+			}
+		}
+	}
+
+	@Override
+	public boolean isPending() {
+		if (!initDone) {
+			logError("isPending(): File Spooler not initialized. queueName=" + queueProvider.getName());
+			return false;
+		}
+
+		return hasUnsentRecords || currentSegment != null || !closedSegments.isEmpty();
+	}
+
+	@Override
+	public void stashLogs(AuditEventBase event) {
+		append(Collections.singletonList(MiscUtil.stringify(event)));
+	}
+
+	@Override
+	public void stashLogs(Collection<AuditEventBase> events) {
+		List<String> records = new ArrayList<String>(events.size());
+
+		for (AuditEventBase event : events) {
+			records.add(MiscUtil.stringify(event));
+		}
+
+		append(records);
+	}
+
+	@Override
+	public void stashLogsString(String event) {
+		append(Collections.singletonList(event));
+	}
+
+	@Override
+	public void stashLogsString(Collection<String> events) {
+		append(events instanceof List ? (List<String>) events : new ArrayList<String>(events));
+	}
+
+	@Override
+	public void runLogAudit() {
+		while (!isDrain) {
+			try {
+				if (isDestDown) {
+					logger.info("Destination is down. sleeping for " + retryDestinationMS + " milli seconds. closedSegments=" + closedSegments.size()
+							+ ", queueName=" + queueProvider.getName() + ", consumer=" + consumerProvider.getName());
+					Thread.sleep(retryDestinationMS);
+				}
+
+				if (currentSegment == null) {
+					currentSegment = closedSegments.poll(retryDestinationMS, TimeUnit.MILLISECONDS);
+				}
+
+				if (isDrain) {
+					break;
+				}
+
+				if (currentSegment == null) {
+					// nothing else to send: close the active segment, so that its records are sent
+					rollActiveSegment();
+					continue;
+				}
+
+				if (replaySegment(currentSegment)) {
+					logger.info("Done sending segment. file=" + currentSegment.file + ", queueName=" + queueProvider.getName() + ", consumer=" + consumerProvider.getName());
+
+					archiveSegment(currentSegment);
+
+					currentSegment = null;
+				} else {
+					isDestDown      = true;
+					lastAttemptTime = System.currentTimeMillis();
+
+					logError("Destination down. queueName=" + queueProvider.getName() + ", consumer=" + consumerProvider.getName());
+				}
+			} catch (InterruptedException e) {
+				logger.info("Caught exception in consumer thread. Shutdown might be in progress");
+			} catch (Throwable t) {
+				logger.error("Exception in destination writing thread.", t);
+			}
+		}
+
+		logger.info("Exiting file spooler. provider=" + queueProvider.getName() + ", consumer=" + consumerProvider.getName());
+	}
+
+	@Override
+	public void run() {
+		try {
+			//This is done to clear the MDC context to avoid issue with Ranger Auditing for Knox
+			MDC.clear();
+			runLogAudit();
+		} catch (Throwable t) {
+			logger.fatal("Exited thread without abnormaly. queue=" + consumerProvider.getName(), t);
+		}
+	}
+
+	private void append(List<String> records) {
+		if (isDrain) {
+			// Stop has been called, so this method shouldn't be called
+			logger.error("stashLogs() is called after stop is called. eventCount=" + records.size());
+			return;
+		}
+
+		ByteBuffer buffer = encode(records);
+		Segment    segment;
+		long       endOffset;
+
+		writeLock.lock();
+		try {
+			segment = getActiveSegment(buffer.remaining());
+
+			long offset = segment.size;
+
+			// positional writes: a failed partial write is overwritten by the next write
+			while (buffer.hasRemaining()) {
+				offset += segment.channel.write(buffer, offset);
+			}
+
+			segment.size     = offset;
+			endOffset        = offset;
+			hasUnsentRecords = true;
+			isPending        = true;
+		} catch (IOException excp) {
+			logger.error("Error writing to spool segment. eventCount=" + records.size() + ", queueName=" + queueProvider.getName(), excp);
+			return;
+		} finally {
+			writeLock.unlock();
+		}
+
+		if (syncOnWrite) {
+			try {
+				segment.sync(endOffset);
+			} catch (IOException excp) {
+				logger.error("Error syncing spool segment " + segment.file, excp);
+			}
+		}
+	}
+
+	// caller should hold writeLock
+	private Segment getActiveSegment(int recordsSize) throws IOException {
+		Segment ret = activeSegment;
+
+		if (ret != null && ret.size > SEGMENT_HEADER_SIZE) {
+			boolean isFull    = ret.size + recordsSize > segmentSize;
+			boolean isExpired = System.currentTimeMillis() - ret.createTime > fileRolloverSec * 1000L;
+
+			if (isFull || isExpired) {
+				closeActiveSegment(true);
+
+				ret = null;
+			}
+		}
+
+		if (ret == null) {
+			long seq  = nextSegmentSeq++;
+			File file = getSegmentFile(segmentFolder, seq);
+
+			logger.info("Creating new segment. queueName=" + queueProvider.getName() + ", fileName=" + file);
+
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+			ByteBuffer  header  = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+
+			header.putInt(SEGMENT_MAGIC).flip();
+
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+
+			ret = new Segment(seq, file, channel, SEGMENT_HEADER_SIZE);
+
+			activeSegment = ret;
+		}
+
+		return ret;
+	}
+
+	private void rollActiveSegment() throws IOException {
+		writeLock.lock();
+		try {
+			closeActiveSegment(true);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	// caller should hold writeLock; segment with records is queued for replay if queueForReplay is true
+	private void closeActiveSegment(boolean queueForReplay) {
+		Segment segment = activeSegment;
+
+		if (segment == null) {
+			return;
+		}
+
+		activeSegment = null;
+
+		try {
+			segment.close();
+		} catch (IOException excp) {
+			logger.error("Error closing spool segment " + segment.file, excp);
+		}
+
+		if (segment.size <= SEGMENT_HEADER_SIZE) {
+			if (!segment.file.delete()) {
+				logger.warn("Failed to delete empty spool segment " + segment.file);
+			}
+		} else if (queueForReplay) {
+			logger.info("Adding segment to queue. queueName=" + queueProvider.getName() + ", fileName=" + segment.file);
+
+			closedSegments.add(segment);
+		}
+
+		hasUnsentRecords = false;
+	}
+
+	/*
+	 * Sends records of the segment from the checkpoint, in batches; returns false if the destination failed to accept a batch
+	 */
+	private boolean replaySegment(Segment segment) throws Exception {
+		Records records   = getRecords(segment);
+		int     batchSize = Math.max(1, queueProvider.getMaxBatchSize());
+
+		if (records.isCorrupt) {
+			logger.error("Spool segment " + segment.file + " has a corrupt record at offset " + records.validLength + "; records after it will not be sent");
+		}
+
+		for (int start = 0; start < records.values.size(); start += batchSize) {
+			int          end   = Math.min(start + batchSize, records.values.size());
+			List<String> batch = records.values.subList(start, end);
+			boolean      ret;
+
+			try {
+				ret = consumerProvider.logJSON(batch);
+			} catch (Throwable t) {
+				logger.error("Error while sending logs to consumer. provider=" + queueProvider.getName() + ", consumer=" + consumerProvider.getName(), t);
+
+				ret = false;
+			}
+
+			if (!ret) {
+				logError("Error sending logs to consumer. provider=" + queueProvider.getName() + ", consumer=" + consumerProvider.getName());
+
+				return false;
+			}
+
+			saveCheckpoint(segment.seq, records.endOffsets[end - 1]);
+
+			if (isDestDown) {
+				isDestDown = false;
+
+				logger.info("Destination up now. " + segment.file + ", queueName=" + queueProvider.getName() + ", consumer=" + consumerProvider.getName());
+			}
+		}
+
+		return true;
+	}
+
+	// returns records of the segment read ahead, if available; submits reads of the segments queued after it
+	private Records getRecords(Segment segment) throws Exception {
+		Future<Records>   readAhead = readAheads.remove(segment);
+		Iterator<Segment> iter      = closedSegments.iterator();
+
+		for (int i = 0; i < replayThreads && iter.hasNext(); i++) {
+			final Segment next = iter.next();
+
+			if (!readAheads.containsKey(next)) {
+				readAheads.put(next, replayExecutor.submit(new Callable<Records>() {
+					@Override
+					public Records call() throws Exception {
+						return readRecords(next.file, true);
+					}
+				}));
+			}
+		}
+
+		Records ret = readAhead != null ? readAhead.get() : readRecords(segment.file, true);
+
+		// records sent earlier - before a restart or a failed batch - are skipped
+		if (segment.seq == checkpointSeq && checkpointOffset > SEGMENT_HEADER_SIZE) {
+			ret = ret.from(checkpointOffset);
+		}
+
+		return ret;
+	}
+
+	private void archiveSegment(Segment segment) throws IOException {
+		readAheads.remove(segment);
+
+		saveCheckpoint(segment.seq + 1, 0);
+
+		if (maxArchiveFiles <= 0) {
+			if (!segment.file.delete()) {
+				logger.error("Error deleting spool segment " + segment.file);
+			}
+
+			return;
+		}
+
+		File archiveFile = new File(archiveFolder, segmentFilePrefix + "_" + segment.file.getName());
+
+		logger.info("Moving segment " + segment.file + " to " + archiveFile);
+
+		if (!segment.file.renameTo(archiveFile)) {
+			logger.error("Error moving spool segment to archive folder. segment=" + segment.file + ", archiveFile=" + archiveFile);
+		}
+
+		File[] archivedFiles = archiveFolder.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File pathname) {
+				return pathname.getName().startsWith(segmentFilePrefix + "_") && pathname.getName().endsWith(SEGMENT_FILE_SUFFIX);
+			}
+		});
+
+		if (archivedFiles != null && archivedFiles.length > maxArchiveFiles) {
+			Arrays.sort(archivedFiles);
+
+			for (int i = 0; i < archivedFiles.length - maxArchiveFiles; i++) {
+				logger.info("Deleting archive file " + archivedFiles[i]);
+
+				if (!archivedFiles[i].delete()) {
+					logger.error("Error deleting archive file. archiveFile=" + archivedFiles[i]);
+				}
+			}
+		}
+	}
+
+	private void loadCheckpoint() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_SIZE);
+
+		while (buffer.hasRemaining() && checkpointChannel.read(buffer, buffer.position()) > 0) {
+			// read until the buffer is full or end of file
+		}
+
+		if (buffer.hasRemaining()) {
+			logger.info("No checkpoint found. Segments will be sent from the beginning. folder=" + segmentFolder);
+			return;
+		}
+
+		buffer.flip();
+
+		long seq    = buffer.getLong();
+		long offset = buffer.getLong();
+		int  crc    = buffer.getInt();
+
+		if (crc != getCrc(buffer.array(), 0, 16)) {
+			logger.warn("Invalid checkpoint. Segments will be sent from the beginning. folder=" + segmentFolder);
+			return;
+		}
+
+		checkpointSeq    = seq;
+		checkpointOffset = offset;
+
+		logger.info("Loaded checkpoint: segmentSeq=" + checkpointSeq + ", offset=" + checkpointOffset + ", folder=" + segmentFolder);
+	}
+
+	// overwrites the checkpoint in place
+	private void saveCheckpoint(long seq, long offset) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_SIZE);
+
+		buffer.putLong(seq).putLong(offset);
+		buffer.putInt(getCrc(buffer.array(), 0, 16));
+		buffer.flip();
+
+		while (buffer.hasRemaining()) {
+			checkpointChannel.write(buffer, buffer.position());
+		}
+
+		if (syncOnWrite) {
+			checkpointChannel.force(false);
+		}
+
+		checkpointSeq    = seq;
+		checkpointOffset = offset;
+	}
+
+	/*
+	 * Queues existing segments for replay, after removing those already sent and truncating torn or corrupt records
+	 */
+	private void recoverSegments() throws IOException {
+		File[] files = segmentFolder.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File pathname) {
+				return pathname.getName().endsWith(SEGMENT_FILE_SUFFIX);
+			}
+		});
+
+		if (files == null) {
+			return;
+		}
+
+		Arrays.sort(files); // file names have zero-padded sequence numbers
+
+		for (File file : files) {
+			long seq = getSegmentSeq(file);
+
+			if (seq < 0) {
+				logger.warn("Ignoring unexpected file in spool folder: " + file);
+				continue;
+			}
+
+			nextSegmentSeq = Math.max(nextSegmentSeq, seq + 1);
+
+			if (seq < checkpointSeq) {
+				logger.info("Removing segment already sent. file=" + file);
+
+				if (!file.delete()) {
+					logger.error("Error deleting spool segment " + file);
+				}
+				continue;
+			}
+
+			Records records = readRecords(file, false);
+
+			if (records.validLength < file.length()) {
+				logger.warn("Truncating spool segment " + file + " from " + file.length() + " to " + records.validLength + " bytes: torn or corrupt record found");
+
+				try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+					channel.truncate(records.validLength);
+				}
+			}
+
+			if (records.validLength <= SEGMENT_HEADER_SIZE) {
+				if (!file.delete()) {
+					logger.error("Error deleting empty spool segment " + file);
+				}
+				continue;
+			}
+
+			logger.info("INIT: adding segment to queue. file=" + file + ", size=" + records.validLength);
+
+			closedSegments.add(new Segment(seq, file, null, records.validLength));
+		}
+
+		if (checkpointSeq >= nextSegmentSeq) {
+			nextSegmentSeq = checkpointSeq + 1;
+		}
+
+		if (!closedSegments.isEmpty()) {
+			isPending = true;
+		}
+	}
+
+	/*
+	 * Reads records of the segment file, until the end or the first torn/corrupt record; values are read only if readValues is true
+	 */
+	static Records readRecords(File file, boolean readValues) throws IOException {
+		List<String> values     = new ArrayList<String>();
+		List<Long>   endOffsets = new ArrayList<Long>();
+		long         offset     = SEGMENT_HEADER_SIZE;
+		boolean      isCorrupt  = false;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long       fileSize = channel.size();
+			ByteBuffer buffer   = ByteBuffer.allocate((int) Math.min(fileSize, Integer.MAX_VALUE));
+
+			while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+				// read the entire file
+			}
+
+			buffer.flip();
+
+			if (buffer.remaining() < SEGMENT_HEADER_SIZE || buffer.getInt() != SEGMENT_MAGIC) {
+				logger.error("Invalid spool segment header. file=" + file);
+
+				return new Records(values, endOffsets, 0, true);
+			}
+
+			CRC32 crc = new CRC32();
+
+			while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+				int length    = buffer.getInt();
+				int recordCrc = buffer.getInt();
+
+				if (length < 0 || length > buffer.remaining()) { // torn write
+					isCorrupt = length < 0;
+					break;
+				}
+
+				crc.reset();
+				crc.update(buffer.array(), buffer.position(), length);
+
+				if ((int) crc.getValue() != recordCrc) {
+					isCorrupt = true;
+					break;
+				}
+
+				if (readValues) {
+					values.add(new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8));
+				}
+
+				buffer.position(buffer.position() + length);
+
+				offset = buffer.position();
+
+				if (readValues) {
+					endOffsets.add(offset);
+				}
+			}
+		}
+
+		return new Records(values, endOffsets, offset, isCorrupt);
+	}
+
+	static ByteBuffer encode(List<String> records) {
+		List<byte[]> values = new ArrayList<byte[]>(records.size());
+		int          size   = 0;
+
+		for (String record : records) {
+			byte[] value = record.getBytes(StandardCharsets.UTF_8);
+
+			values.add(value);
+
+			size += RECORD_HEADER_SIZE + value.length;
+		}
+
+		ByteBuffer ret = ByteBuffer.allocate(size);
+
+		for (byte[] value : values) {
+			ret.putInt(value.length);
+			ret.putInt(getCrc(value, 0, value.length));
+			ret.put(value);
+		}
+
+		ret.flip();
+
+		return ret;
+	}
+
+	static File getSegmentFile(File folder, long seq) {
+		return new File(folder, String.format("%020d", seq) + SEGMENT_FILE_SUFFIX);
+	}
+
+	static long getSegmentSeq(File file) {
+		String name = file.getName();
+
+		try {
+			return Long.parseLong(name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length()));
+		} catch (NumberFormatException excp) {
+			return -1;
+		}
+	}
+
+	private static int getCrc(byte[] bytes, int offset, int length) {
+		CRC32 crc = new CRC32();
+
+		crc.update(bytes, offset, length);
+
+		return (int) crc.getValue();
+	}
+
+	private boolean createFolder(File folder) {
+		if (!folder.isDirectory()) {
+			folder.mkdirs();
+
+			if (!folder.isDirectory()) {
+				logger.fatal("File Spool folder not found and can't be created. folder=" + folder.getAbsolutePath() + ", queueName=" + queueProvider.getName());
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	static class Segment {
+		final long        seq;
+		final File        file;
+		final long        createTime = System.currentTimeMillis();
+		final Object      syncLock   = new Object();
+		final FileChannel channel;
+		volatile long     size;
+		long              syncedSize; // guarded by syncLock
+		boolean           isClosed;   // guarded by syncLock
+
+		Segment(long seq, File file, FileChannel channel, long size) {
+			this.seq        = seq;
+			this.file       = file;
+			this.channel    = channel;
+			this.size       = size;
+			this.syncedSize = size;
+			this.isClosed   = channel == null;
+		}
+
+		// group commit: a force covers all writes completed before it, so writers whose data is covered skip forcing
+		void sync(long upToOffset) throws IOException {
+			synchronized (syncLock) {
+				if (isClosed || syncedSize >= upToOffset) {
+					return;
+				}
+
+				long target = size;
+
+				channel.force(false);
+
+				syncedSize = target;
+			}
+		}
+
+		void close() throws IOException {
+			synchronized (syncLock) {
+				if (!isClosed) {
+					isClosed = true;
+
+					try {
+						channel.force(false);
+					} finally {
+						channel.close();
+					}
+
+					syncedSize = size;
+				}
+			}
+		}
+	}
+
+	static class Records {
+		final List<String> values;
+		final long[]       endOffsets;
+		final long         validLength;
+		final boolean      isCorrupt;
+
+		Records(List<String> values, List<Long> endOffsets, long validLength, boolean isCorrupt) {
+			this.values      = values;
+			this.endOffsets  = new long[endOffsets.size()];
+			this.validLength = validLength;
+			this.isCorrupt   = isCorrupt;
+
+			for (int i = 0; i < this.endOffsets.length; i++) {
+				this.endOffsets[i] = endOffsets.get(i);
+			}
+		}
+
+		private Records(List<String> values, long[] endOffsets, long validLength, boolean isCorrupt) {
+			this.values      = values;
+			this.endOffsets  = endOffsets;
+			this.validLength = validLength;
+			this.isCorrupt   = isCorrupt;
+		}
+
+		// returns records that end after the given offset
+		Records from(long offset) {
+			int start = 0;
+
+			while (start < endOffsets.length && endOffsets[start] <= offset) {
+				start++;
+			}
+
+			return start == 0 ? this : new Records(values.subList(start, values.size()), Arrays.copyOfRange(endOffsets, start, endOffsets.length), validLength, isCorrupt);
+		}
+	}
+}
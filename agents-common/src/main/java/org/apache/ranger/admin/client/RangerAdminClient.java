@@ -21,6 +21,7 @@
 
 
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
+import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.apache.ranger.plugin.util.ServiceTags;
 
@@ -41,4 +42,6 @@ public interface RangerAdminClient {
 
 	List<String> getTagTypes(String tagTypePattern) throws Exception;
 
+	RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, long lastActivationTimeInMillis) throws Exception;
+
 }
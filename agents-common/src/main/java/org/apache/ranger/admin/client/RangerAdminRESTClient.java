@@ -23,6 +23,7 @@
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.GenericType;
 import com.sun.jersey.api.client.WebResource;
+import com.sun.jersey.api.client.filter.GZIPContentEncodingFilter;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,6 +37,7 @@ import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.RangerRESTClient;
 import org.apache.ranger.plugin.util.RangerRESTUtils;
 import org.apache.ranger.plugin.util.RangerServiceNotFoundException;
+import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.apache.ranger.plugin.util.ServiceTags;
 
@@ -51,6 +53,8 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 	private String           serviceName;
 	private String           pluginId;
 	private String clusterName;
+	private long             longPollWaitMs;
+	private boolean          supportsTagDeltas;
 	private RangerRESTClient restClient;
 	private RangerRESTUtils restUtils   = new RangerRESTUtils();
 
@@ -87,6 +91,7 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 		clusterName       				= RangerConfiguration.getInstance().get(propertyPrefix + ".ambari.cluster.name", "");
 		int	 restClientConnTimeOutMs	= RangerConfiguration.getInstance().getInt(propertyPrefix + ".policy.rest.client.connection.timeoutMs", 120 * 1000);
 		int	 restClientReadTimeOutMs	= RangerConfiguration.getInstance().getInt(propertyPrefix + ".policy.rest.client.read.timeoutMs", 30 * 1000);
+		int	 maxConcurrentRequests		= RangerConfiguration.getInstance().getInt(propertyPrefix + ".policy.rest.client.max.concurrent.requests", 0);
         if (!StringUtil.isEmpty(tmpUrl)) {
             url = tmpUrl.trim();
         }
@@ -94,7 +99,15 @@ public class RangerAdminRESTClient implements RangerAdminClient {
             url = url.substring(0, url.length() - 1);
         }
 
-		init(url, sslConfigFileName, restClientConnTimeOutMs , restClientReadTimeOutMs);
+		longPollWaitMs    = restUtils.getLongPollWaitMs(propertyPrefix);
+		supportsTagDeltas = RangerConfiguration.getInstance().getBoolean(propertyPrefix + ".tag.rest.client.delta.enabled", true);
+
+		if (longPollWaitMs >= restClientReadTimeOutMs) {
+			// Admin must respond well before the read times out
+			longPollWaitMs = restClientReadTimeOutMs / 2;
+		}
+
+		init(url, sslConfigFileName, restClientConnTimeOutMs , restClientReadTimeOutMs, maxConcurrentRequests);
 	}
 
 	@Override
@@ -113,7 +126,7 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 			}
 			PrivilegedAction<ClientResponse> action = new PrivilegedAction<ClientResponse>() {
 				public ClientResponse run() {
-					WebResource secureWebResource = createWebResource(RangerRESTUtils.REST_URL_POLICY_GET_FOR_SECURE_SERVICE_IF_UPDATED + serviceName)
+					WebResource secureWebResource = createDownloadWebResource(RangerRESTUtils.REST_URL_POLICY_GET_FOR_SECURE_SERVICE_IF_UPDATED + serviceName)
 							.queryParam(RangerRESTUtils.REST_PARAM_LAST_KNOWN_POLICY_VERSION, Long.toString(lastKnownVersion))
 							.queryParam(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis))
 							.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId)
@@ -126,7 +139,7 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("Checking Service policy if updated with old api call");
 			}
-			WebResource webResource = createWebResource(RangerRESTUtils.REST_URL_POLICY_GET_FOR_SERVICE_IF_UPDATED + serviceName)
+			WebResource webResource = createDownloadWebResource(RangerRESTUtils.REST_URL_POLICY_GET_FOR_SERVICE_IF_UPDATED + serviceName)
 					.queryParam(RangerRESTUtils.REST_PARAM_LAST_KNOWN_POLICY_VERSION, Long.toString(lastKnownVersion))
 					.queryParam(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis))
 					.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId)
@@ -260,7 +273,7 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 		}
 	}
 
-	private void init(String url, String sslConfigFileName, int restClientConnTimeOutMs , int restClientReadTimeOutMs ) {
+	private void init(String url, String sslConfigFileName, int restClientConnTimeOutMs , int restClientReadTimeOutMs, int maxConcurrentRequests) {
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerAdminRESTClient.init(" + url + ", " + sslConfigFileName + ")");
 		}
@@ -268,6 +281,7 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 		restClient = new RangerRESTClient(url, sslConfigFileName);
 		restClient.setRestClientConnTimeOutMs(restClientConnTimeOutMs);
 		restClient.setRestClientReadTimeOutMs(restClientReadTimeOutMs);
+		restClient.setMaxConcurrentRequests(maxConcurrentRequests);
 
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerAdminRESTClient.init(" + url + ", " + sslConfigFileName + ")");
@@ -280,6 +294,19 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 		return ret;
 	}
 
+	private WebResource createDownloadWebResource(String url) {
+		WebResource ret = createWebResource(url);
+
+		// accept gzip-compressed policies/tags; the response is decompressed by the filter
+		ret.addFilter(new GZIPContentEncodingFilter(false));
+
+		if (longPollWaitMs > 0) {
+			ret = ret.queryParam(RangerRESTUtils.REST_PARAM_WAIT_FOR_UPDATE_MS, Long.toString(longPollWaitMs));
+		}
+
+		return ret;
+	}
+
 	@Override
 	public ServiceTags getServiceTagsIfUpdated(final long lastKnownVersion, final long lastActivationTimeInMillis) throws Exception {
 		if(LOG.isDebugEnabled()) {
@@ -295,10 +322,11 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 		if (isSecureMode) {
 			PrivilegedAction<ClientResponse> action = new PrivilegedAction<ClientResponse>() {
 				public ClientResponse run() {
-					WebResource secureWebResource = createWebResource(RangerRESTUtils.REST_URL_GET_SECURE_SERVICE_TAGS_IF_UPDATED + serviceName)
+					WebResource secureWebResource = createDownloadWebResource(RangerRESTUtils.REST_URL_GET_SECURE_SERVICE_TAGS_IF_UPDATED + serviceName)
 							.queryParam(RangerRESTUtils.LAST_KNOWN_TAG_VERSION_PARAM, Long.toString(lastKnownVersion))
 							.queryParam(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis))
-							.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
+							.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId)
+							.queryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_TAG_DELTAS, Boolean.toString(supportsTagDeltas));
 					return secureWebResource.accept(RangerRESTUtils.REST_MIME_TYPE_JSON).get(ClientResponse.class);
 				}
 			};
@@ -307,10 +335,11 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 			}
 			response = user.doAs(action);
 		} else {
-			webResource = createWebResource(RangerRESTUtils.REST_URL_GET_SERVICE_TAGS_IF_UPDATED + serviceName)
+			webResource = createDownloadWebResource(RangerRESTUtils.REST_URL_GET_SERVICE_TAGS_IF_UPDATED + serviceName)
 					.queryParam(RangerRESTUtils.LAST_KNOWN_TAG_VERSION_PARAM, Long.toString(lastKnownVersion))
 					.queryParam(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis))
-					.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
+					.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId)
+					.queryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_TAG_DELTAS, Boolean.toString(supportsTagDeltas));
 			response = webResource.accept(RangerRESTUtils.REST_MIME_TYPE_JSON).get(ClientResponse.class);
 		}
 
@@ -352,6 +381,61 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 		return ret;
 	}
 
+	@Override
+	public RangerUserStore getUserStoreIfUpdated(final long lastKnownUserStoreVersion, final long lastActivationTimeInMillis) throws Exception {
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerAdminRESTClient.getUserStoreIfUpdated(" + lastKnownUserStoreVersion + ", " + lastActivationTimeInMillis + "): ");
+		}
+
+		RangerUserStore ret = null;
+		ClientResponse response = null;
+		UserGroupInformation user = MiscUtil.getUGILoginUser();
+		boolean isSecureMode = user != null && UserGroupInformation.isSecurityEnabled();
+
+		if (isSecureMode) {
+			PrivilegedAction<ClientResponse> action = new PrivilegedAction<ClientResponse>() {
+				public ClientResponse run() {
+					WebResource secureWebResource = createDownloadWebResource(RangerRESTUtils.REST_URL_GET_SECURE_USERSTORE_IF_UPDATED + serviceName)
+							.queryParam(RangerRESTUtils.LAST_KNOWN_USERSTORE_VERSION_PARAM, Long.toString(lastKnownUserStoreVersion))
+							.queryParam(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis))
+							.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
+					return secureWebResource.accept(RangerRESTUtils.REST_MIME_TYPE_JSON).get(ClientResponse.class);
+				}
+			};
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("getUserStoreIfUpdated as user " + user);
+			}
+			response = user.doAs(action);
+		} else {
+			// the user-store is served only on the secure path: Admin rejects the download unless the plugin user is authenticated
+			WebResource webResource = createDownloadWebResource(RangerRESTUtils.REST_URL_GET_SECURE_USERSTORE_IF_UPDATED + serviceName)
+					.queryParam(RangerRESTUtils.LAST_KNOWN_USERSTORE_VERSION_PARAM, Long.toString(lastKnownUserStoreVersion))
+					.queryParam(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis))
+					.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
+			response = webResource.accept(RangerRESTUtils.REST_MIME_TYPE_JSON).get(ClientResponse.class);
+		}
+
+		if (response == null) {
+			LOG.error("Error getting user-store; Received NULL response!!. secureMode=" + isSecureMode + ", user=" + user + ", serviceName=" + serviceName);
+		} else if (response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("No change in user-store. secureMode=" + isSecureMode + ", user=" + user + ", serviceName=" + serviceName
+						+ ", lastKnownUserStoreVersion=" + lastKnownUserStoreVersion);
+			}
+		} else if (response.getStatus() == HttpServletResponse.SC_OK) {
+			ret = response.getEntity(RangerUserStore.class);
+		} else {
+			RESTResponse resp = RESTResponse.fromClientResponse(response);
+			LOG.warn("Error getting user-store. secureMode=" + isSecureMode + ", user=" + user + ", response=" + resp + ", serviceName=" + serviceName);
+		}
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerAdminRESTClient.getUserStoreIfUpdated(" + lastKnownUserStoreVersion + ", " + lastActivationTimeInMillis + "): " + ret);
+		}
+
+		return ret;
+	}
+
 	@Override
 	public List<String> getTagTypes(String pattern) throws Exception {
 		if(LOG.isDebugEnabled()) {
@@ -21,6 +21,7 @@ package org.apache.ranger.plugin.contextenricher;
 
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Properties;
 
@@ -29,6 +30,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.RangerServiceDef.RangerContextEnricherDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 
 
 public abstract class RangerAbstractContextEnricher implements RangerContextEnricher {
@@ -70,6 +72,18 @@ public abstract class RangerAbstractContextEnricher implements RangerContextEnri
 		}
 	}
 
+	/*
+	 * Enriches requests that are evaluated together, like those for columns of a table; enrichers that can share work
+	 * between such requests override this
+	 */
+	public void enrich(Collection<RangerAccessRequest> requests) {
+		if(requests != null) {
+			for(RangerAccessRequest request : requests) {
+				enrich(request);
+			}
+		}
+	}
+
 	@Override
 	public boolean preCleanup() {
 		return true;
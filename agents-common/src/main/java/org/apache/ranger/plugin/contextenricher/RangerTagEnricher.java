@@ -32,25 +32,33 @@ import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.plugin.model.RangerTag;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyresourcematcher.RangerDefaultPolicyResourceMatcher;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerResourceTrie;
+import org.apache.ranger.plugin.util.RangerRESTUtils;
 import org.apache.ranger.plugin.util.RangerServiceNotFoundException;
 import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.plugin.util.ServiceTagsDeltaUtil;
 
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 public class RangerTagEnricher extends RangerAbstractContextEnricher {
@@ -114,7 +122,9 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 				tagRetriever.setAppId(appId);
 				tagRetriever.init(enricherDef.getEnricherOptions());
 
-				tagRefresher = new RangerTagRefresher(tagRetriever, this, -1L, cacheFile, pollingIntervalMs);
+				long longPollWaitMs = new RangerRESTUtils().getLongPollWaitMs(propertyPrefix);
+
+				tagRefresher = new RangerTagRefresher(tagRetriever, this, -1L, cacheFile, pollingIntervalMs, longPollWaitMs);
 
 				try {
 					tagRefresher.populateTags();
@@ -148,7 +158,51 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 		}
 	}
 
+	/*
+	 * Service resources are looked up once for the resource common to all requests, like the table for requests for its
+	 * columns; each request is then matched against these. Requests without a common resource are enriched one by one.
+	 */
+	@Override
+	public void enrich(Collection<RangerAccessRequest> requests) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerTagEnricher.enrich(requestCount=" + (requests == null ? 0 : requests.size()) + ")");
+		}
+
+		final EnrichedServiceTags      enrichedServiceTags = this.enrichedServiceTags;
+		final RangerAccessResourceImpl commonResource      = enrichedServiceTags == null || CollectionUtils.size(requests) < 2 ? null : RangerAccessRequestUtil.getCommonResource(requests);
+
+		if (commonResource == null) {
+			super.enrich(requests);
+		} else {
+			final List<RangerServiceResourceMatcher> serviceResourceMatchers = getEvaluators(commonResource, enrichedServiceTags);
+
+			for (RangerAccessRequest request : requests) {
+				RangerAccessRequestUtil.setRequestTagsInContext(request.getContext(), findMatchingTags(request, enrichedServiceTags, serviceResourceMatchers));
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerTagEnricher.enrich(requestCount=" + (requests == null ? 0 : requests.size()) + "): commonResource=" + commonResource);
+		}
+	}
+
+	/**
+	 * @return version of the tags in use, or -1 if there are no tags
+	 */
+	public long getServiceTagsVersion() {
+		final EnrichedServiceTags enrichedServiceTags = this.enrichedServiceTags;
+		final Long                ret                 = enrichedServiceTags == null ? null : enrichedServiceTags.getServiceTags().getTagVersion();
+
+		return ret == null ? -1L : ret;
+	}
+
 	public void setServiceTags(final ServiceTags serviceTags) {
+		RangerPerfTracer perf = null;
+
+		if(RangerPerfTracer.isPerfTraceEnabled(PERF_CONTEXTENRICHER_INIT_LOG)) {
+			perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_INIT_LOG, "RangerTagEnricher.setServiceTags(serviceName=" + serviceName + ")");
+		}
+
 		if (serviceTags == null || CollectionUtils.isEmpty(serviceTags.getServiceResources())) {
 			LOG.info("ServiceTags is null or there are no tagged resources for service " + serviceName);
 			enrichedServiceTags = null;
@@ -159,20 +213,7 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 
 			if (CollectionUtils.isNotEmpty(serviceResources)) {
 				for (RangerServiceResource serviceResource : serviceResources) {
-					RangerDefaultPolicyResourceMatcher matcher = new RangerDefaultPolicyResourceMatcher();
-
-					matcher.setServiceDef(this.serviceDef);
-					matcher.setPolicyResources(serviceResource.getResourceElements());
-
-					if (LOG.isDebugEnabled()) {
-						LOG.debug("RangerTagEnricher.setServiceTags() - Initializing matcher with (resource=" + serviceResource
-								+ ", serviceDef=" + this.serviceDef.getName() + ")");
-
-					}
-					matcher.init();
-
-					RangerServiceResourceMatcher serviceResourceMatcher = new RangerServiceResourceMatcher(serviceResource, matcher);
-					resourceMatchers.add(serviceResourceMatcher);
+					resourceMatchers.add(createServiceResourceMatcher(serviceResource));
 				}
 
 			}
@@ -187,13 +228,125 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 				}
 			}
 
-			Set<RangerTagForEval> tagsForEmptyResourceAndAnyAccess = new HashSet<>();
-			for (Map.Entry<Long, RangerTag> entry : serviceTags.getTags().entrySet()) {
-				tagsForEmptyResourceAndAnyAccess.add(new RangerTagForEval(entry.getValue(), RangerPolicyResourceMatcher.MatchType.DESCENDANT));
+			enrichedServiceTags = new EnrichedServiceTags(serviceTags, resourceMatchers, serviceResourceTrie, getTagsForEmptyResourceAndAnyAccess(serviceTags), getResourceTags(serviceTags));
+		}
+
+		RangerPerfTracer.log(perf);
+	}
+
+	/**
+	 * Applies tag changes received from Ranger Admin to the current tags. Matchers of unchanged resources are retained, and
+	 * tries are copied with only the nodes for changed resources replaced; a trie is rebuilt only when a changed resource is
+	 * a wildcard one for its resource-def. The current tags continue to be used for lookups while the delta is applied.
+	 *
+	 * @return the updated tags, or null if there are no current tags to apply the delta to
+	 */
+	ServiceTags applyServiceTagsDelta(final ServiceTags delta) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerTagEnricher.applyServiceTagsDelta(" + delta + ")");
+		}
+
+		RangerPerfTracer perf = null;
+
+		if(RangerPerfTracer.isPerfTraceEnabled(PERF_CONTEXTENRICHER_INIT_LOG)) {
+			perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_INIT_LOG, "RangerTagEnricher.applyServiceTagsDelta(serviceName=" + serviceName + ")");
+		}
+
+		final EnrichedServiceTags enrichedServiceTags = this.enrichedServiceTags;
+
+		ServiceTags ret = null;
+
+		if (enrichedServiceTags != null) {
+			ret = ServiceTagsDeltaUtil.applyDelta(enrichedServiceTags.getServiceTags(), delta);
+
+			if (CollectionUtils.isEmpty(ret.getServiceResources())) {
+				setServiceTags(ret);
+			} else {
+				Set<Long>                          changedResourceIds = new HashSet<>();
+				List<RangerServiceResourceMatcher> resourceMatchers   = new ArrayList<>(ret.getServiceResources().size());
+				List<RangerServiceResourceMatcher> removedMatchers    = new ArrayList<>();
+				List<RangerServiceResourceMatcher> addedMatchers      = new ArrayList<>();
+
+				if (delta.getDeletedServiceResourceIds() != null) {
+					changedResourceIds.addAll(delta.getDeletedServiceResourceIds());
+				}
+
+				for (RangerServiceResource serviceResource : delta.getServiceResources()) {
+					changedResourceIds.add(serviceResource.getId());
+				}
+
+				for (RangerServiceResourceMatcher resourceMatcher : enrichedServiceTags.getServiceResourceMatchers()) {
+					if (changedResourceIds.contains(resourceMatcher.getServiceResource().getId())) {
+						removedMatchers.add(resourceMatcher);
+					} else {
+						resourceMatchers.add(resourceMatcher);
+					}
+				}
+
+				for (RangerServiceResource serviceResource : delta.getServiceResources()) {
+					addedMatchers.add(createServiceResourceMatcher(serviceResource));
+				}
+
+				resourceMatchers.addAll(addedMatchers);
+
+				Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie = null;
+
+				if (!disableTrieLookupPrefilter) {
+					serviceResourceTrie = new HashMap<>();
+
+					for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
+						RangerResourceTrie<RangerServiceResourceMatcher> currentTrie = enrichedServiceTags.getServiceResourceTrie() == null ? null : enrichedServiceTags.getServiceResourceTrie().get(resourceDef.getName());
+						RangerResourceTrie<RangerServiceResourceMatcher> trie        = currentTrie == null ? null : currentTrie.copyWithChanges(resourceDef, removedMatchers, addedMatchers);
+
+						if (trie == null) {
+							trie = new RangerResourceTrie<>(resourceDef, resourceMatchers);
+						}
+
+						serviceResourceTrie.put(resourceDef.getName(), trie);
+					}
+				}
+
+				Map<Long, ResourceTags> resourceTags = getResourceTags(ret, delta, enrichedServiceTags.getResourceTags());
+
+				this.enrichedServiceTags = new EnrichedServiceTags(ret, resourceMatchers, serviceResourceTrie, getTagsForEmptyResourceAndAnyAccess(ret), resourceTags);
 			}
+		} else {
+			LOG.info("RangerTagEnricher.applyServiceTagsDelta(): no tags to apply the delta to, for service " + serviceName);
+		}
+
+		RangerPerfTracer.log(perf);
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerTagEnricher.applyServiceTagsDelta(" + delta + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	private RangerServiceResourceMatcher createServiceResourceMatcher(RangerServiceResource serviceResource) {
+		RangerDefaultPolicyResourceMatcher matcher = new RangerDefaultPolicyResourceMatcher();
+
+		matcher.setServiceDef(this.serviceDef);
+		matcher.setPolicyResources(serviceResource.getResourceElements());
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerTagEnricher.createServiceResourceMatcher() - Initializing matcher with (resource=" + serviceResource
+					+ ", serviceDef=" + this.serviceDef.getName() + ")");
 
-			enrichedServiceTags = new EnrichedServiceTags(serviceTags, resourceMatchers, serviceResourceTrie, tagsForEmptyResourceAndAnyAccess);
 		}
+		matcher.init();
+
+		return new RangerServiceResourceMatcher(serviceResource, matcher);
+	}
+
+	private static Set<RangerTagForEval> getTagsForEmptyResourceAndAnyAccess(ServiceTags serviceTags) {
+		Set<RangerTagForEval> ret = new HashSet<>();
+
+		for (Map.Entry<Long, RangerTag> entry : serviceTags.getTags().entrySet()) {
+			ret.add(new RangerTagForEval(entry.getValue(), RangerPolicyResourceMatcher.MatchType.DESCENDANT));
+		}
+
+		return ret;
 	}
 
 	@Override
@@ -216,13 +369,21 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	}
 
 	private Set<RangerTagForEval> findMatchingTags(final RangerAccessRequest request) {
+		// To minimize chance for race condition between Tag-Refresher thread and access-evaluation thread
+		final EnrichedServiceTags enrichedServiceTags = this.enrichedServiceTags;
+
+		return findMatchingTags(request, enrichedServiceTags, null);
+	}
+
+	/*
+	 * candidateMatchers: service resource matchers to match the request against, or null to look them up for the
+	 * resource of the request
+	 */
+	private Set<RangerTagForEval> findMatchingTags(final RangerAccessRequest request, final EnrichedServiceTags enrichedServiceTags, final List<RangerServiceResourceMatcher> candidateMatchers) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerTagEnricher.findMatchingTags(" + request + ")");
 		}
 
-		// To minimize chance for race condition between Tag-Refresher thread and access-evaluation thread
-		final EnrichedServiceTags enrichedServiceTags = this.enrichedServiceTags;
-
 		Set<RangerTagForEval> ret = null;
 
 		RangerAccessResource resource = request.getResource();
@@ -231,9 +392,10 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 			ret = enrichedServiceTags.getTagsForEmptyResourceAndAnyAccess();
 		} else {
 
-			final List<RangerServiceResourceMatcher> serviceResourceMatchers = getEvaluators(resource, enrichedServiceTags);
+			final List<RangerServiceResourceMatcher> serviceResourceMatchers = candidateMatchers != null ? candidateMatchers : getEvaluators(resource, enrichedServiceTags);
 
 			if (CollectionUtils.isNotEmpty(serviceResourceMatchers)) {
+				boolean isRetModifiable = false;
 
 				for (RangerServiceResourceMatcher resourceMatcher : serviceResourceMatchers) {
 
@@ -249,10 +411,20 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 						isMatched = matchType == RangerPolicyResourceMatcher.MatchType.SELF || matchType == RangerPolicyResourceMatcher.MatchType.ANCESTOR;
 					}
 					if (isMatched) {
-						if (ret == null) {
-							ret = new HashSet<>();
+						Set<RangerTagForEval> resourceTags = enrichedServiceTags.getTagsForServiceResource(resourceMatcher.getServiceResource(), matchType);
+
+						if (CollectionUtils.isNotEmpty(resourceTags)) {
+							if (ret == null) { // the precomputed, immutable set is shared when only one resource matches
+								ret = resourceTags;
+							} else {
+								if (!isRetModifiable) {
+									ret             = new HashSet<>(ret);
+									isRetModifiable = true;
+								}
+
+								ret.addAll(resourceTags);
+							}
 						}
-						ret.addAll(getTagsForServiceResource(enrichedServiceTags.getServiceTags(), resourceMatcher.getServiceResource(), matchType));
 					}
 				}
 			}
@@ -345,46 +517,183 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 		return ret;
 	}
 
-	private static Set<RangerTagForEval> getTagsForServiceResource(final ServiceTags serviceTags, final RangerServiceResource serviceResource, final RangerPolicyResourceMatcher.MatchType matchType) {
-		Set<RangerTagForEval> ret = new HashSet<>();
+	private static Map<Long, ResourceTags> getResourceTags(final ServiceTags serviceTags) {
+		Map<Long, ResourceTags>       ret         = new HashMap<>();
+		Map<Long, RangerTagForEval[]> tagsForEval = new HashMap<>();
+
+		for (Map.Entry<Long, List<Long>> entry : serviceTags.getResourceToTagIds().entrySet()) {
+			ResourceTags resourceTags = createResourceTags(entry.getValue(), serviceTags.getTags(), tagsForEval);
+
+			if (resourceTags != null) {
+				ret.put(entry.getKey(), resourceTags);
+			}
+		}
+
+		return ret;
+	}
+
+	// recomputes tags only for resources whose tags are changed by the delta; the rest are shared with current
+	private static Map<Long, ResourceTags> getResourceTags(final ServiceTags serviceTags, final ServiceTags delta, final Map<Long, ResourceTags> current) {
+		Map<Long, ResourceTags>       ret                = new HashMap<>(current);
+		Map<Long, RangerTagForEval[]> tagsForEval        = new HashMap<>();
+		Set<Long>                     changedResourceIds = new HashSet<>(delta.getResourceToTagIds().keySet());
+		Set<Long>                     changedTagIds      = new HashSet<>(delta.getTags().keySet());
+
+		if (delta.getDeletedServiceResourceIds() != null) {
+			changedResourceIds.addAll(delta.getDeletedServiceResourceIds());
+		}
+
+		if (delta.getDeletedTagIds() != null) {
+			changedTagIds.addAll(delta.getDeletedTagIds());
+		}
+
+		for (RangerServiceResource serviceResource : delta.getServiceResources()) {
+			changedResourceIds.add(serviceResource.getId());
+		}
+
+		if (!changedTagIds.isEmpty()) {
+			for (Map.Entry<Long, List<Long>> entry : serviceTags.getResourceToTagIds().entrySet()) {
+				if (CollectionUtils.containsAny(entry.getValue(), changedTagIds)) {
+					changedResourceIds.add(entry.getKey());
+				}
+			}
+		}
 
-		final Long resourceId = serviceResource.getId();
+		for (Long resourceId : changedResourceIds) {
+			ResourceTags resourceTags = createResourceTags(serviceTags.getResourceToTagIds().get(resourceId), serviceTags.getTags(), tagsForEval);
 
-		final Map<Long, List<Long>> resourceToTagIds = serviceTags.getResourceToTagIds();
-		final Map<Long, RangerTag> tags = serviceTags.getTags();
+			if (resourceTags != null) {
+				ret.put(resourceId, resourceTags);
+			} else {
+				ret.remove(resourceId);
+			}
+		}
 
-		if (resourceId != null && MapUtils.isNotEmpty(resourceToTagIds) && MapUtils.isNotEmpty(tags)) {
+		return ret;
+	}
 
-			List<Long> tagIds = resourceToTagIds.get(resourceId);
+	// tagsForEval: RangerTagForEval instances, by tag-id, already created for other resources - to be shared
+	private static ResourceTags createResourceTags(final List<Long> tagIds, final Map<Long, RangerTag> tags, final Map<Long, RangerTagForEval[]> tagsForEval) {
+		ResourceTags ret = null;
 
-			if (CollectionUtils.isNotEmpty(tagIds)) {
+		if (CollectionUtils.isNotEmpty(tagIds) && MapUtils.isNotEmpty(tags)) {
+			RangerPolicyResourceMatcher.MatchType[] matchTypes       = RangerPolicyResourceMatcher.MatchType.values();
+			List<RangerTagForEval[]>                resourceTagEvals = new ArrayList<>(tagIds.size());
 
-				for (Long tagId : tagIds) {
+			for (Long tagId : tagIds) {
+				RangerTagForEval[] tagForEval = tagsForEval.get(tagId);
 
+				if (tagForEval == null) {
 					RangerTag tag = tags.get(tagId);
 
-					if (tag != null) {
-						ret.add(new RangerTagForEval(tag, matchType));
+					if (tag == null) {
+						continue;
+					}
+
+					tagForEval = new RangerTagForEval[matchTypes.length];
+
+					for (RangerPolicyResourceMatcher.MatchType matchType : matchTypes) {
+						tagForEval[matchType.ordinal()] = new RangerTagForEval(tag, matchType);
 					}
+
+					tagsForEval.put(tagId, tagForEval);
 				}
+
+				resourceTagEvals.add(tagForEval);
+			}
+
+			if (!resourceTagEvals.isEmpty()) {
+				RangerTagForEvalSet[] tagsForMatchType = new RangerTagForEvalSet[matchTypes.length];
+
+				for (RangerPolicyResourceMatcher.MatchType matchType : matchTypes) {
+					Set<RangerTagForEval> resourceTags = new LinkedHashSet<>(); // tags with same type and attributes are added once
+
+					for (RangerTagForEval[] tagForEval : resourceTagEvals) {
+						resourceTags.add(tagForEval[matchType.ordinal()]);
+					}
+
+					tagsForMatchType[matchType.ordinal()] = new RangerTagForEvalSet(resourceTags.toArray(new RangerTagForEval[resourceTags.size()]));
+				}
+
+				ret = new ResourceTags(tagsForMatchType);
 			}
 		}
 
 		return ret;
 	}
 
+	// tags of a service resource for each match-type, computed when tags are updated
+	static private final class ResourceTags {
+		final private RangerTagForEvalSet[] tagsForMatchType;
+
+		ResourceTags(RangerTagForEvalSet[] tagsForMatchType) {
+			this.tagsForMatchType = tagsForMatchType;
+		}
+
+		Set<RangerTagForEval> getTags(RangerPolicyResourceMatcher.MatchType matchType) { return tagsForMatchType[matchType.ordinal()]; }
+	}
+
+	// immutable set backed by an array without duplicates; cheaper to keep for each resource than a HashSet
+	static final class RangerTagForEvalSet extends AbstractSet<RangerTagForEval> {
+		private final RangerTagForEval[] tags;
+
+		RangerTagForEvalSet(RangerTagForEval[] tags) {
+			this.tags = tags;
+		}
+
+		@Override
+		public Iterator<RangerTagForEval> iterator() {
+			return new Iterator<RangerTagForEval>() {
+				private int index = 0;
+
+				@Override
+				public boolean hasNext() {
+					return index < tags.length;
+				}
+
+				@Override
+				public RangerTagForEval next() {
+					if (index >= tags.length) {
+						throw new NoSuchElementException();
+					}
+
+					return tags[index++];
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return tags.length;
+		}
+	}
+
 	static private final class EnrichedServiceTags {
 		final private ServiceTags                        serviceTags;
 		final private List<RangerServiceResourceMatcher> serviceResourceMatchers;
 		final private Map<String, RangerResourceTrie<RangerServiceResourceMatcher>>    serviceResourceTrie;
 		final private Set<RangerTagForEval>              tagsForEmptyResourceAndAnyAccess; // Used only when accessed resource is empty and access type is 'any'
+		final private Map<Long, ResourceTags>            resourceTags;
 
 		EnrichedServiceTags(ServiceTags serviceTags, List<RangerServiceResourceMatcher> serviceResourceMatchers,
-							Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, Set<RangerTagForEval> tagsForEmptyResourceAndAnyAccess) {
+							Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, Set<RangerTagForEval> tagsForEmptyResourceAndAnyAccess,
+							Map<Long, ResourceTags> resourceTags) {
 			this.serviceTags             = serviceTags;
 			this.serviceResourceMatchers = serviceResourceMatchers;
 			this.serviceResourceTrie     = serviceResourceTrie;
 			this.tagsForEmptyResourceAndAnyAccess          = tagsForEmptyResourceAndAnyAccess;
+			this.resourceTags            = resourceTags;
+		}
+		Map<Long, ResourceTags> getResourceTags() { return resourceTags; }
+		Set<RangerTagForEval> getTagsForServiceResource(RangerServiceResource serviceResource, RangerPolicyResourceMatcher.MatchType matchType) {
+			ResourceTags tags = serviceResource.getId() == null ? null : resourceTags.get(serviceResource.getId());
+
+			return tags == null ? null : tags.getTags(matchType);
 		}
 		ServiceTags getServiceTags() {return serviceTags;}
 		List<RangerServiceResourceMatcher> getServiceResourceMatchers() { return serviceResourceMatchers;}
@@ -401,6 +710,7 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 		private long lastActivationTimeInMillis;
 
 		private final long pollingIntervalMs;
+		private final long longPollWaitMs;
 		private final String cacheFile;
 		private boolean hasProvidedTagsToReceiver;
 		private Gson gson;
@@ -410,12 +720,13 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 			return pollingIntervalMs;
 		}
 
-		RangerTagRefresher(RangerTagRetriever tagRetriever, RangerTagEnricher tagEnricher, long lastKnownVersion, String cacheFile, long pollingIntervalMs) {
+		RangerTagRefresher(RangerTagRetriever tagRetriever, RangerTagEnricher tagEnricher, long lastKnownVersion, String cacheFile, long pollingIntervalMs, long longPollWaitMs) {
 			this.tagRetriever = tagRetriever;
 			this.tagEnricher = tagEnricher;
 			this.lastKnownVersion = lastKnownVersion;
 			this.cacheFile = cacheFile;
 			this.pollingIntervalMs = pollingIntervalMs;
+			this.longPollWaitMs = longPollWaitMs;
 			try {
 				gson = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z").setPrettyPrinting().create();
 			} catch(Throwable excp) {
@@ -438,13 +749,15 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 				LOG.debug("==> RangerTagRefresher(pollingIntervalMs=" + pollingIntervalMs + ").run()");
 			}
 
+			long refreshIntervalMs = pollingIntervalMs;
+
 			while (true) {
 
 				try {
 
 					// Sleep first and then fetch tags
 					if (pollingIntervalMs > 0) {
-						Thread.sleep(pollingIntervalMs);
+						Thread.sleep(refreshIntervalMs);
 					} else {
 						break;
 					}
@@ -453,8 +766,14 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 					if(RangerPerfTracer.isPerfTraceEnabled(PERF_CONTEXTENRICHER_INIT_LOG)) {
 						perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_INIT_LOG, "RangerTagRefresher.populateTags(serviceName=" + tagRetriever.getServiceName() + ",lastKnownVersion=" + lastKnownVersion + ")");
 					}
+
+					long prevKnownVersion = lastKnownVersion;
+					long startTimeMs      = System.currentTimeMillis();
+
 					populateTags();
 
+					refreshIntervalMs = getRefreshIntervalMs(prevKnownVersion, System.currentTimeMillis() - startTimeMs);
+
 					RangerPerfTracer.log(perf);
 
 				} catch (InterruptedException excp) {
@@ -468,14 +787,48 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 			}
 		}
 
+		// same as PolicyRefresher: fetch again right away if Admin held the request open, else wait for the polling interval
+		private long getRefreshIntervalMs(long prevKnownVersion, long elapsedMs) {
+			long ret = pollingIntervalMs;
+
+			if (longPollWaitMs > 0 && (lastKnownVersion != prevKnownVersion || elapsedMs >= longPollWaitMs / 2)) {
+				ret = Math.min(pollingIntervalMs, RangerRESTUtils.LONGPOLL_MIN_REFRESH_INTERVAL_MS);
+			}
+
+			return ret;
+		}
+
 		private void populateTags() throws InterruptedException {
 
 			if (tagEnricher != null) {
 				ServiceTags serviceTags = null;
 
 				try {
+					RangerPerfTracer perf = null;
+
+					if(RangerPerfTracer.isPerfTraceEnabled(PERF_CONTEXTENRICHER_INIT_LOG)) {
+						perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_INIT_LOG, "RangerTagRefresher.retrieveTags(serviceName=" + tagRetriever.getServiceName() + ",lastKnownVersion=" + lastKnownVersion + ")");
+					}
+
 					serviceTags = tagRetriever.retrieveTags(lastKnownVersion, lastActivationTimeInMillis);
 
+					RangerPerfTracer.log(perf);
+
+					boolean isDeltaApplied = false;
+
+					if (serviceTags != null && serviceTags.getIsDelta()) {
+						ServiceTags delta = serviceTags;
+
+						serviceTags    = tagEnricher.applyServiceTagsDelta(delta);
+						isDeltaApplied = serviceTags != null;
+
+						if (!isDeltaApplied) {
+							LOG.warn("RangerTagRefresher.populateTags() - failed to apply tag-delta for version " + delta.getTagVersion() + ". Retrieving all tags");
+
+							serviceTags = tagRetriever.retrieveTags(-1L, lastActivationTimeInMillis);
+						}
+					}
+
 					if (serviceTags == null) {
 						if (!hasProvidedTagsToReceiver) {
 							serviceTags = loadFromCache();
@@ -485,7 +838,9 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 					}
 
 					if (serviceTags != null) {
-						tagEnricher.setServiceTags(serviceTags);
+						if (!isDeltaApplied) {
+							tagEnricher.setServiceTags(serviceTags);
+						}
 						LOG.info("RangerTagRefresher.populateTags() - Updated tags-cache to new version of tags, lastKnownVersion=" + lastKnownVersion + "; newVersion="
 								+ (serviceTags.getTagVersion() == null ? -1L : serviceTags.getTagVersion()));
 						hasProvidedTagsToReceiver = true;
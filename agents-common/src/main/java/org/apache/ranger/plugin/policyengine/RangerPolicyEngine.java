@@ -47,6 +47,8 @@ public interface RangerPolicyEngine {
 
 	long getPolicyVersion();
 
+	long getTagVersion();
+
 	RangerAccessResult createAccessResult(RangerAccessRequest request);
 
 	RangerDataMaskResult createDataMaskResult(RangerAccessRequest request);
@@ -63,6 +65,8 @@ public interface RangerPolicyEngine {
 
 	RangerDataMaskResult evalDataMaskPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor);
 
+	Collection<RangerDataMaskResult> evalDataMaskPolicies(Collection<RangerAccessRequest> requests, RangerAccessResultProcessor resultProcessor);
+
 	RangerRowFilterResult evalRowFilterPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor);
 
 	boolean isAccessAllowed(RangerAccessResource resource, String user, Set<String> userGroups, String accessType);
@@ -25,7 +25,9 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
+import org.apache.ranger.plugin.contextenricher.RangerAbstractContextEnricher;
 import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
 import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef;
@@ -39,9 +41,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 	private static final Log LOG = LogFactory.getLog(RangerPolicyEngineImpl.class);
@@ -65,6 +69,13 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 	private boolean  useForwardedIPAddress;
 	private String[] trustedProxyAddresses;
 
+	private final boolean    adaptiveEvaluatorOrder;
+	private final long       evaluatorReorderMinRequests;
+	private final AtomicLong requestCountSinceReorder          = new AtomicLong();
+	private final AtomicLong evaluatedPoliciesCountSinceReorder = new AtomicLong();
+	private volatile double  staticOrderEvaluationsPerRequest  = -1;
+	private volatile double  lastEvaluationsPerRequest         = -1;
+
 	public RangerPolicyEngineImpl(String appId, ServicePolicies servicePolicies, RangerPolicyEngineOptions options) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerPolicyEngineImpl(" + appId + ", " + servicePolicies + ", " + options + ")");
@@ -104,6 +115,9 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			options.evaluatorType = RangerPolicyEvaluator.EVALUATOR_TYPE_OPTIMIZED;
 		}
 
+		adaptiveEvaluatorOrder      = options.adaptiveEvaluatorOrder;
+		evaluatorReorderMinRequests = options.evaluatorReorderMinRequests;
+
 		policyRepository = new RangerPolicyRepository(appId, servicePolicies, options);
 
 		ServicePolicies.TagPolicies tagPolicies = servicePolicies.getTagPolicies();
@@ -173,6 +187,25 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		return policyRepository.getPolicyVersion();
 	}
 
+	@Override
+	public long getTagVersion() {
+		long ret = -1;
+
+		List<RangerContextEnricher> enrichers = allContextEnrichers;
+
+		if (enrichers != null) {
+			for (RangerContextEnricher enricher : enrichers) {
+				if (enricher instanceof RangerTagEnricher) {
+					ret = ((RangerTagEnricher) enricher).getServiceTagsVersion();
+
+					break;
+				}
+			}
+		}
+
+		return ret;
+	}
+
 	public RangerPolicyEvaluator getPolicyEvaluator(Long id) {
 		return policyEvaluatorsMap.get(id);
 	}
@@ -239,12 +272,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			LOG.debug("==> RangerPolicyEngineImpl.preProcess(" + request + ")");
 		}
 
-		setResourceServiceDef(request);
-		if (request instanceof RangerAccessRequestImpl) {
-			((RangerAccessRequestImpl) request).extractAndSetClientIPAddress(useForwardedIPAddress, trustedProxyAddresses);
-		}
-
-		RangerAccessRequestUtil.setCurrentUserInContext(request.getContext(), request.getUser());
+		setRequestDefaults(request);
 
 		List<RangerContextEnricher> enrichers = allContextEnrichers;
 
@@ -279,7 +307,30 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		if(CollectionUtils.isNotEmpty(requests)) {
 			for(RangerAccessRequest request : requests) {
-				preProcess(request);
+				setRequestDefaults(request);
+			}
+
+			List<RangerContextEnricher> enrichers = allContextEnrichers;
+
+			if(!CollectionUtils.isEmpty(enrichers)) {
+				for(RangerContextEnricher enricher : enrichers) {
+					RangerPerfTracer perf = null;
+
+					if(RangerPerfTracer.isPerfTraceEnabled(PERF_CONTEXTENRICHER_REQUEST_LOG)) {
+						perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_REQUEST_LOG, "RangerContextEnricher.enrich(requestCount=" + requests.size() + ", enricherName=" + enricher.getName() + ")");
+					}
+
+					// enrichers that share lookups between requests, like RangerTagEnricher, get all requests at once
+					if(enricher instanceof RangerAbstractContextEnricher) {
+						((RangerAbstractContextEnricher) enricher).enrich(requests);
+					} else {
+						for(RangerAccessRequest request : requests) {
+							enricher.enrich(request);
+						}
+					}
+
+					RangerPerfTracer.log(perf);
+				}
 			}
 		}
 
@@ -288,6 +339,15 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		}
 	}
 
+	private void setRequestDefaults(RangerAccessRequest request) {
+		setResourceServiceDef(request);
+		if (request instanceof RangerAccessRequestImpl) {
+			((RangerAccessRequestImpl) request).extractAndSetClientIPAddress(useForwardedIPAddress, trustedProxyAddresses);
+		}
+
+		RangerAccessRequestUtil.setCurrentUserInContext(request.getContext(), request.getUser());
+	}
+
 	@Override
 	public RangerAccessResult isAccessAllowed(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
 		if (LOG.isDebugEnabled()) {
@@ -377,6 +437,60 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		return ret;
 	}
 
+	/*
+	 * Evaluates requests for one table, like those for its columns, in one pass: data-mask policies are looked up once,
+	 * for the resource common to all requests, and each request is evaluated against these; tag policies are looked up
+	 * once for each distinct set of tags. Results are the same as from evalDataMaskPolicies(request) for each request,
+	 * and are passed to resultProcessor.processResult() one at a time since each result carries its own mask.
+	 */
+	@Override
+	public Collection<RangerDataMaskResult> evalDataMaskPolicies(Collection<RangerAccessRequest> requests, RangerAccessResultProcessor resultProcessor) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerPolicyEngineImpl.evalDataMaskPolicies(" + requests + ")");
+		}
+
+		Collection<RangerDataMaskResult> ret = new ArrayList<>();
+
+		if (requests != null) {
+			RangerAccessResourceImpl    commonResource     = requests.size() > 1 && hasResourcePolicies() ? RangerAccessRequestUtil.getCommonResource(requests) : null;
+			List<RangerPolicyEvaluator> evaluators         = null;
+			TagEvaluatorsCache          tagEvaluatorsCache = hasTagPolicies() ? new TagEvaluatorsCache() : null;
+
+			if (commonResource != null) {
+				commonResource.setServiceDef(getServiceDef());
+
+				evaluators = policyRepository.getDataMaskPolicyEvaluators(commonResource);
+			}
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerPolicyEngineImpl.evalDataMaskPolicies(requestCount=" + requests.size() + "): commonResource=" + commonResource + ", evaluatorCount=" + (evaluators == null ? "<per-request>" : evaluators.size()));
+			}
+
+			for (RangerAccessRequest request : requests) {
+				RangerDataMaskResult result = evalDataMaskPoliciesNoAudit(request, evaluators, tagEvaluatorsCache);
+
+				// no need to audit if mask is not enabled
+				if(! result.isMaskEnabled()) {
+					result.setIsAudited(false);
+				}
+
+				updatePolicyUsageCounts(request, result);
+
+				if (resultProcessor != null) {
+					resultProcessor.processResult(result);
+				}
+
+				ret.add(result);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerPolicyEngineImpl.evalDataMaskPolicies(" + requests + "): " + ret);
+		}
+
+		return ret;
+	}
+
 	@Override
 	public RangerRowFilterResult evalRowFilterPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
 		if (LOG.isDebugEnabled()) {
@@ -728,6 +842,14 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 	}
 
 	RangerDataMaskResult evalDataMaskPoliciesNoAudit(RangerAccessRequest request) {
+		return evalDataMaskPoliciesNoAudit(request, null, null);
+	}
+
+	/*
+	 * candidateEvaluators: data-mask policy evaluators to evaluate the request with, in evaluation order, or null to look
+	 * them up for the request. tagEvaluatorsCache: tag policy evaluators already looked up for other requests, or null
+	 */
+	private RangerDataMaskResult evalDataMaskPoliciesNoAudit(RangerAccessRequest request, List<RangerPolicyEvaluator> candidateEvaluators, TagEvaluatorsCache tagEvaluatorsCache) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerPolicyEngineImpl.evalDataMaskPoliciesNoAudit(" + request + ")");
 		}
@@ -736,7 +858,11 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		if (ret != null && request != null) {
 			if (hasTagPolicies()) {
-				evalDataMaskPoliciesForTagPolicies(request, ret);
+				if (tagEvaluatorsCache == null) {
+					evalDataMaskPoliciesForTagPolicies(request, ret);
+				} else {
+					evalDataMaskPoliciesForTagPolicies(request, ret, tagEvaluatorsCache);
+				}
 
 				if (LOG.isDebugEnabled()) {
 					if (ret.getIsAccessDetermined() && ret.getIsAuditedDetermined()) {
@@ -750,7 +876,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			if (evaluateResourcePolicies) {
 				boolean                     findAuditByResource = !ret.getIsAuditedDetermined();
 				boolean                     foundInCache        = findAuditByResource && policyRepository.setAuditEnabledFromCache(request, ret);
-				List<RangerPolicyEvaluator> evaluators          = policyRepository.getDataMaskPolicyEvaluators(request.getResource());
+				List<RangerPolicyEvaluator> evaluators          = candidateEvaluators != null ? candidateEvaluators : policyRepository.getDataMaskPolicyEvaluators(request);
 
 				for (RangerPolicyEvaluator evaluator : evaluators) {
 					ret.incrementEvaluatedPoliciesCount();
@@ -780,6 +906,10 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 	}
 
 	protected void evalDataMaskPoliciesForTagPolicies(final RangerAccessRequest request, RangerDataMaskResult result) {
+		evalDataMaskPoliciesForTagPolicies(request, result, null);
+	}
+
+	private void evalDataMaskPoliciesForTagPolicies(final RangerAccessRequest request, RangerDataMaskResult result, TagEvaluatorsCache tagEvaluatorsCache) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerPolicyEngineImpl.evalDataMaskPoliciesForTagPolicies(" + request + ", " + result + ")");
 		}
@@ -788,7 +918,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		if (CollectionUtils.isNotEmpty(tagEvaluators)) {
 			Set<RangerTagForEval>       tags               = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
-			List<PolicyEvaluatorForTag> dataMaskEvaluators = tagPolicyRepository.getDataMaskPolicyEvaluators(tags);
+			List<PolicyEvaluatorForTag> dataMaskEvaluators = tagEvaluatorsCache != null ? tagEvaluatorsCache.getDataMaskPolicyEvaluators(tags) : tagPolicyRepository.getDataMaskPolicyEvaluators(tags);
 
 			if (CollectionUtils.isNotEmpty(dataMaskEvaluators)) {
 				for (PolicyEvaluatorForTag dataMaskEvaluator : dataMaskEvaluators) {
@@ -861,7 +991,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			if (evaluateResourcePolicies) {
 				boolean                     findAuditByResource = !ret.getIsAuditedDetermined();
 				boolean                     foundInCache        = findAuditByResource && policyRepository.setAuditEnabledFromCache(request, ret);
-				List<RangerPolicyEvaluator> evaluators          = policyRepository.getRowFilterPolicyEvaluators(request.getResource());
+				List<RangerPolicyEvaluator> evaluators          = policyRepository.getRowFilterPolicyEvaluators(request);
 
 				for (RangerPolicyEvaluator evaluator : evaluators) {
 					ret.incrementEvaluatedPoliciesCount();
@@ -940,6 +1070,15 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> reorderEvaluators()");
 		}
+
+		if (adaptiveEvaluatorOrder && !updateEvaluationsPerRequest()) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("<== reorderEvaluators(): not reordered - fewer than " + evaluatorReorderMinRequests + " requests since last reorder");
+			}
+
+			return;
+		}
+
 		RangerPerfTracer perf = null;
 
 		if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_REBALANCE_LOG)) {
@@ -952,10 +1091,10 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		}
 
 		if (tagPolicyRepository != null) {
-			tagPolicyRepository.reorderPolicyEvaluators();
+			tagPolicyRepository.reorderPolicyEvaluators(adaptiveEvaluatorOrder);
 		}
 		if (policyRepository != null) {
-			policyRepository.reorderPolicyEvaluators();
+			policyRepository.reorderPolicyEvaluators(adaptiveEvaluatorOrder);
 		}
 
 		if (MapUtils.isNotEmpty(policyEvaluatorsMap)) {
@@ -971,6 +1110,24 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		}
 	}
 
+	/**
+	 * @return average number of policies evaluated per request since the reorder before last; -1 if not yet measured
+	 */
+	public double getEvaluationsPerRequest() {
+		return lastEvaluationsPerRequest;
+	}
+
+	/**
+	 * @return reduction in the average number of policies evaluated per request, compared to that measured before the
+	 * first reorder, i.e. with the evaluators in their static order
+	 */
+	public double getEvaluationsPerRequestSaved() {
+		double staticOrder = staticOrderEvaluationsPerRequest;
+		double last        = lastEvaluationsPerRequest;
+
+		return (staticOrder < 0 || last < 0) ? 0 : (staticOrder - last);
+	}
+
 	@Override
 	public boolean preCleanup() {
 
@@ -1116,10 +1273,37 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		return  Collections.unmodifiableMap(tmpPolicyEvaluatorMap);
 	}
 
+	// returns false if there were too few requests since the last reorder; counts are then retained for the next one
+	private boolean updateEvaluationsPerRequest() {
+		if (requestCountSinceReorder.get() < evaluatorReorderMinRequests) {
+			return false;
+		}
+
+		long   requestCount          = requestCountSinceReorder.getAndSet(0);
+		long   evaluatedCount        = evaluatedPoliciesCountSinceReorder.getAndSet(0);
+		double evaluationsPerRequest = requestCount == 0 ? 0 : ((double) evaluatedCount / requestCount);
+
+		if (staticOrderEvaluationsPerRequest < 0) {
+			staticOrderEvaluationsPerRequest = evaluationsPerRequest;
+		}
+
+		lastEvaluationsPerRequest = evaluationsPerRequest;
+
+		LOG.info("RangerPolicyEngineImpl.reorderPolicyEvaluators(): requests=" + requestCount + ", evaluationsPerRequest=" + String.format("%.2f", evaluationsPerRequest)
+				+ ", staticOrderEvaluationsPerRequest=" + String.format("%.2f", staticOrderEvaluationsPerRequest) + ", saved=" + String.format("%.2f", getEvaluationsPerRequestSaved()));
+
+		return true;
+	}
+
 	private void updatePolicyUsageCounts(RangerAccessRequest accessRequest, RangerAccessResult accessResult) {
 
 		boolean auditCountUpdated = false;
 
+		if (adaptiveEvaluatorOrder) {
+			requestCountSinceReorder.incrementAndGet();
+			evaluatedPoliciesCountSinceReorder.addAndGet(accessResult.getEvaluatedPoliciesCount());
+		}
+
 		if (accessResult.getIsAccessDetermined()) {
 			RangerPolicyEvaluator accessPolicy = getPolicyEvaluator(accessResult.getPolicyId());
 
@@ -1160,4 +1344,24 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			evaluator.incrementUsageCount(number);
 		}
 	}
+
+	/*
+	 * Tag policy evaluators looked up for requests evaluated together, by identity of their tag sets: requests whose
+	 * tags come from the same tagged resources share the tag set precomputed by RangerTagEnricher
+	 */
+	private final class TagEvaluatorsCache {
+		private final Map<Set<RangerTagForEval>, List<PolicyEvaluatorForTag>> dataMaskEvaluators = new IdentityHashMap<>();
+
+		List<PolicyEvaluatorForTag> getDataMaskPolicyEvaluators(Set<RangerTagForEval> tags) {
+			List<PolicyEvaluatorForTag> ret = dataMaskEvaluators.get(tags);
+
+			if (ret == null) {
+				ret = tagPolicyRepository.getDataMaskPolicyEvaluators(tags);
+
+				dataMaskEvaluators.put(tags, ret);
+			}
+
+			return ret;
+		}
+	}
 }
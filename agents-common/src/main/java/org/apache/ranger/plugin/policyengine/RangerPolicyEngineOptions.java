@@ -29,6 +29,10 @@ public class RangerPolicyEngineOptions {
 	public boolean disableTagPolicyEvaluation = true;
 	public boolean evaluateDelegateAdminOnly;
 	public boolean disableTrieLookupPrefilter;
+	public boolean disableDataMaskRowFilterIndex;
+	public boolean adaptiveEvaluatorOrder;
+	public long    evaluatorReorderIntervalMs  = 60 * 1000;
+	public long    evaluatorReorderMinRequests = 1000;
 
 	public void configureForPlugin(Configuration conf, String propertyPrefix) {
 		evaluatorType           = conf.get(propertyPrefix + ".policyengine.option.evaluator.type", RangerPolicyEvaluator.EVALUATOR_TYPE_AUTO);
@@ -37,6 +41,14 @@ public class RangerPolicyEngineOptions {
 		disableCustomConditions = conf.getBoolean(propertyPrefix + ".policyengine.option.disable.custom.conditions", false);
 		disableTagPolicyEvaluation = conf.getBoolean(propertyPrefix + ".policyengine.option.disable.tagpolicy.evaluation", false);
 		disableTrieLookupPrefilter = conf.getBoolean(propertyPrefix + ".policyengine.option.disable.trie.lookup.prefilter", false);
+
+		// lookup data-mask and row-filter policies having exact resource values by hash, instead of in resource-tries
+		disableDataMaskRowFilterIndex = conf.getBoolean(propertyPrefix + ".policyengine.option.disable.datamask.rowfilter.index", false);
+
+		// reorder evaluators, including those in resource-trie nodes, by the number of requests each determined since the last reorder
+		adaptiveEvaluatorOrder      = conf.getBoolean(propertyPrefix + ".policyengine.option.adaptive.evaluator.order", false);
+		evaluatorReorderIntervalMs  = conf.getLong(propertyPrefix + ".policy.policyReorderInterval", 60 * 1000);
+		evaluatorReorderMinRequests = conf.getLong(propertyPrefix + ".policyengine.option.adaptive.evaluator.order.min.requests", 1000);
 	}
 
 	public void configureDefaultRangerAdmin(Configuration conf, String propertyPrefix) {
@@ -32,8 +32,10 @@ import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.policyevaluator.RangerCachedPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerOptimizedPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceEvaluator;
 import org.apache.ranger.plugin.store.AbstractServiceStore;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.RangerResourceIndex;
 import org.apache.ranger.plugin.util.RangerResourceTrie;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
 import org.apache.ranger.plugin.util.ServicePolicies;
@@ -41,6 +43,7 @@ import org.apache.ranger.plugin.util.ServicePolicies;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -81,17 +84,19 @@ class RangerPolicyRepository {
     private final List<RangerPolicy>          policies;
     private final long                        policyVersion;
     private List<RangerContextEnricher>       contextEnrichers;
-    private List<RangerPolicyEvaluator>       policyEvaluators;
-    private List<RangerPolicyEvaluator>       dataMaskPolicyEvaluators;
-    private List<RangerPolicyEvaluator>       rowFilterPolicyEvaluators;
+    private volatile List<RangerPolicyEvaluator> policyEvaluators;
+    private volatile List<RangerPolicyEvaluator> dataMaskPolicyEvaluators;
+    private volatile List<RangerPolicyEvaluator> rowFilterPolicyEvaluators;
     private final AuditModeEnum               auditModeEnum;
     private final Map<String, AuditInfo>      accessAuditCache;
 
     private final String                      componentServiceName;
     private final RangerServiceDef            componentServiceDef;
-    private final Map<String, RangerResourceTrie> policyResourceTrie;
-    private final Map<String, RangerResourceTrie> dataMaskResourceTrie;
-    private final Map<String, RangerResourceTrie> rowFilterResourceTrie;
+    private volatile Map<String, RangerResourceTrie> policyResourceTrie;
+    private volatile Map<String, RangerResourceTrie> dataMaskResourceTrie;
+    private volatile Map<String, RangerResourceTrie> rowFilterResourceTrie;
+    private volatile RangerResourceIndex<RangerPolicyEvaluator> dataMaskResourceIndex;
+    private volatile RangerResourceIndex<RangerPolicyEvaluator> rowFilterResourceIndex;
 
     RangerPolicyRepository(String appId, ServicePolicies servicePolicies, RangerPolicyEngineOptions options) {
         super();
@@ -149,6 +154,15 @@ class RangerPolicyRepository {
             dataMaskResourceTrie  = createResourceTrieMap(dataMaskPolicyEvaluators);
             rowFilterResourceTrie = createResourceTrieMap(rowFilterPolicyEvaluators);
         }
+
+        // evaluators from the index are ordered as from resource-tries, which it replaces
+        if(options.disableTrieLookupPrefilter || options.disableDataMaskRowFilterIndex) {
+            dataMaskResourceIndex  = null;
+            rowFilterResourceIndex = null;
+        } else {
+            dataMaskResourceIndex  = createResourceIndex(RangerPolicy.POLICY_TYPE_DATAMASK, dataMaskPolicyEvaluators, new RangerPolicyResourceEvaluator.IdComparator());
+            rowFilterResourceIndex = createResourceIndex(RangerPolicy.POLICY_TYPE_ROWFILTER, rowFilterPolicyEvaluators, new RangerPolicyResourceEvaluator.IdComparator());
+        }
     }
 
     RangerPolicyRepository(String appId, ServicePolicies.TagPolicies tagPolicies, RangerPolicyEngineOptions options,
@@ -232,6 +246,12 @@ class RangerPolicyRepository {
         return dataMaskResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getDataMaskPolicyEvaluators() : getPolicyEvaluators(dataMaskResourceTrie, resource);
     }
 
+    List<RangerPolicyEvaluator> getDataMaskPolicyEvaluators(RangerAccessRequest request) {
+        List<RangerPolicyEvaluator> ret = getPolicyEvaluators(dataMaskResourceIndex, request);
+
+        return ret != null ? ret : getDataMaskPolicyEvaluators(request.getResource());
+    }
+
     List<PolicyEvaluatorForTag> getDataMaskPolicyEvaluators(Set<RangerTagForEval> tags) {
         return getSortedPolicyEvaluatorsForTags(tags, RangerPolicy.POLICY_TYPE_DATAMASK);
     }
@@ -246,12 +266,39 @@ class RangerPolicyRepository {
         return rowFilterResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getRowFilterPolicyEvaluators() : getPolicyEvaluators(rowFilterResourceTrie, resource);
     }
 
+    List<RangerPolicyEvaluator> getRowFilterPolicyEvaluators(RangerAccessRequest request) {
+        List<RangerPolicyEvaluator> ret = getPolicyEvaluators(rowFilterResourceIndex, request);
+
+        return ret != null ? ret : getRowFilterPolicyEvaluators(request.getResource());
+    }
+
     List<PolicyEvaluatorForTag> getRowFilterPolicyEvaluators(Set<RangerTagForEval> tags) {
         return getSortedPolicyEvaluatorsForTags(tags, RangerPolicy.POLICY_TYPE_ROWFILTER);
     }
 
     AuditModeEnum getAuditModeEnum() { return auditModeEnum; }
 
+    /*
+     * Returns null when the index can't be used for the request: the index doesn't have evaluators of policies for
+     * descendants of the requested resource, which can match requests for any access or with SELF_OR_DESCENDANTS scope
+     */
+    private List<RangerPolicyEvaluator> getPolicyEvaluators(RangerResourceIndex<RangerPolicyEvaluator> resourceIndex, RangerAccessRequest request) {
+        final List<RangerPolicyEvaluator> ret;
+
+        if(resourceIndex == null || request.getResource() == null || request.isAccessTypeAny()
+                || request.getResourceMatchingScope() == RangerAccessRequest.ResourceMatchingScope.SELF_OR_DESCENDANTS) {
+            ret = null;
+        } else {
+            ret = resourceIndex.getEvaluatorsForResource(request.getResource());
+        }
+
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("RangerPolicyRepository.getPolicyEvaluators(" + request + "): evaluatorCount=" + (ret == null ? "<not-indexed>" : ret.size()));
+        }
+
+        return ret;
+    }
+
     private List<RangerPolicyEvaluator> getPolicyEvaluators(Map<String, RangerResourceTrie> resourceTrie, RangerAccessResource resource) {
         List<RangerPolicyEvaluator> ret          = null;
         Set<String>                 resourceKeys = resource == null ? null : resource.getKeys();
@@ -780,30 +827,62 @@ class RangerPolicyRepository {
     }
 
     void reorderPolicyEvaluators() {
+        reorderPolicyEvaluators(false);
+    }
+
+    /*
+     * With reorderTrieNodes, evaluators in each resource-trie node are sorted by PolicyEvalOrderComparator, i.e. policies
+     * having deny items first, then by usage count; lookups in progress continue with the current tries, which are
+     * replaced by their reordered copies.
+     */
+    void reorderPolicyEvaluators(boolean reorderTrieNodes) {
         if (LOG.isDebugEnabled()) {
-            LOG.debug("==> reorderEvaluators()");
+            LOG.debug("==> reorderEvaluators(reorderTrieNodes=" + reorderTrieNodes + ")");
         }
 
         if(policyResourceTrie != null) {
-            reorderPolicyEvaluators(policyResourceTrie);
+            if(reorderTrieNodes) {
+                policyResourceTrie = getReorderedResourceTrieMap(policyResourceTrie);
+                policyEvaluators   = getReorderedPolicyEvaluators(policyEvaluators);
+            } else {
+                reorderPolicyEvaluators(policyResourceTrie);
+            }
         } else {
             policyEvaluators = getReorderedPolicyEvaluators(policyEvaluators);
         }
 
         if(dataMaskResourceTrie != null) {
-            reorderPolicyEvaluators(dataMaskResourceTrie);
+            if(reorderTrieNodes) {
+                dataMaskResourceTrie     = getReorderedResourceTrieMap(dataMaskResourceTrie);
+                dataMaskPolicyEvaluators = getReorderedPolicyEvaluators(dataMaskPolicyEvaluators);
+
+                if(dataMaskResourceIndex != null) {
+                    dataMaskResourceIndex = createResourceIndex(RangerPolicy.POLICY_TYPE_DATAMASK, dataMaskPolicyEvaluators, null);
+                }
+            } else {
+                reorderPolicyEvaluators(dataMaskResourceTrie);
+            }
         } else {
             dataMaskPolicyEvaluators = getReorderedPolicyEvaluators(dataMaskPolicyEvaluators);
         }
 
         if(rowFilterResourceTrie != null) {
-            reorderPolicyEvaluators(rowFilterResourceTrie);
+            if(reorderTrieNodes) {
+                rowFilterResourceTrie     = getReorderedResourceTrieMap(rowFilterResourceTrie);
+                rowFilterPolicyEvaluators = getReorderedPolicyEvaluators(rowFilterPolicyEvaluators);
+
+                if(rowFilterResourceIndex != null) {
+                    rowFilterResourceIndex = createResourceIndex(RangerPolicy.POLICY_TYPE_ROWFILTER, rowFilterPolicyEvaluators, null);
+                }
+            } else {
+                reorderPolicyEvaluators(rowFilterResourceTrie);
+            }
         } else {
             rowFilterPolicyEvaluators = getReorderedPolicyEvaluators(rowFilterPolicyEvaluators);
         }
 
         if (LOG.isDebugEnabled()) {
-            LOG.debug("<== reorderEvaluators()");
+            LOG.debug("<== reorderEvaluators(reorderTrieNodes=" + reorderTrieNodes + ")");
         }
     }
 
@@ -819,6 +898,19 @@ class RangerPolicyRepository {
         }
     }
 
+    private Map<String, RangerResourceTrie> getReorderedResourceTrieMap(Map<String, RangerResourceTrie> trieMap) {
+        Map<String, RangerResourceTrie>                 ret        = new HashMap<>();
+        RangerPolicyEvaluator.PolicyEvalOrderComparator comparator = new RangerPolicyEvaluator.PolicyEvalOrderComparator();
+
+        for(Map.Entry<String, RangerResourceTrie> entry : trieMap.entrySet()) {
+            RangerResourceTrie trie = entry.getValue();
+
+            ret.put(entry.getKey(), trie == null ? null : trie.copyWithReorderedEvaluators(comparator));
+        }
+
+        return ret;
+    }
+
     private List<RangerPolicyEvaluator> getReorderedPolicyEvaluators(List<RangerPolicyEvaluator> evaluators) {
         List<RangerPolicyEvaluator> ret = evaluators;
 
@@ -848,6 +940,36 @@ class RangerPolicyRepository {
         return ret;
     }
 
+    // evaluators are indexed in the order given by comparator, or in their current order if comparator is null
+    private RangerResourceIndex<RangerPolicyEvaluator> createResourceIndex(int policyType, List<RangerPolicyEvaluator> evaluators, Comparator<? super RangerPolicyEvaluator> comparator) {
+        final RangerResourceIndex<RangerPolicyEvaluator> ret;
+        final List<RangerServiceDef.RangerResourceDef>   resourceDefs;
+
+        if (serviceDef == null) {
+            resourceDefs = null;
+        } else if (policyType == RangerPolicy.POLICY_TYPE_DATAMASK && serviceDef.getDataMaskDef() != null) {
+            resourceDefs = serviceDef.getDataMaskDef().getResources();
+        } else if (policyType == RangerPolicy.POLICY_TYPE_ROWFILTER && serviceDef.getRowFilterDef() != null) {
+            resourceDefs = serviceDef.getRowFilterDef().getResources();
+        } else {
+            resourceDefs = serviceDef.getResources();
+        }
+
+        if (CollectionUtils.isNotEmpty(resourceDefs)) {
+            List<RangerPolicyEvaluator> orderedEvaluators = evaluators == null ? new ArrayList<RangerPolicyEvaluator>() : new ArrayList<>(evaluators);
+
+            if (comparator != null) {
+                Collections.sort(orderedEvaluators, comparator);
+            }
+
+            ret = new RangerResourceIndex<>(resourceDefs, orderedEvaluators);
+        } else {
+            ret = null;
+        }
+
+        return ret;
+    }
+
     @Override
     public String toString( ) {
         StringBuilder sb = new StringBuilder();
@@ -21,8 +21,10 @@ package org.apache.ranger.plugin.service;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -48,6 +50,9 @@ import org.apache.ranger.plugin.policyengine.RangerRowFilterResult;
 import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.PolicyRefresher;
+import org.apache.ranger.plugin.util.RangerPerfMetrics;
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.RangerUserStoreRefresher;
 import org.apache.ranger.plugin.util.ServicePolicies;
 
 
@@ -67,6 +72,9 @@ public class RangerBasePlugin {
 	private boolean                   useForwardedIPAddress;
 	private String[]                  trustedProxyAddresses;
 	private Timer                     policyEngineRefreshTimer;
+	private RangerUserStoreRefresher  userStoreRefresher;
+	private volatile RangerUserStore  userStore;
+	private boolean                   augmentRequestGroups;
 
 	Map<String, LogHistory> logHistoryList = new Hashtable<String, RangerBasePlugin.LogHistory>();
 	int logInterval = 30000; // 30 seconds
@@ -101,6 +109,18 @@ public class RangerBasePlugin {
 		return serviceDef != null && serviceDef.getId() != null ? serviceDef.getId().intValue() : -1;
 	}
 
+	public long getPolicyVersion() {
+		RangerPolicyEngine policyEngine = this.policyEngine;
+
+		return policyEngine == null ? -1L : policyEngine.getPolicyVersion();
+	}
+
+	public long getTagVersion() {
+		RangerPolicyEngine policyEngine = this.policyEngine;
+
+		return policyEngine == null ? -1L : policyEngine.getTagVersion();
+	}
+
 	public String getAppId() {
 		return appId;
 	}
@@ -143,13 +163,27 @@ public class RangerBasePlugin {
 
 		policyEngineOptions.configureForPlugin(configuration, propertyPrefix);
 
+		RangerPerfMetrics.init(configuration, propertyPrefix);
+
 		RangerAdminClient admin = createAdminClient(serviceName, appId, propertyPrefix);
 
 		refresher = new PolicyRefresher(this, serviceType, appId, serviceName, admin, pollingIntervalMs, cacheDir);
 		refresher.setDaemon(true);
 		refresher.startRefresher();
 
-		long policyReorderIntervalMs = configuration.getLong(propertyPrefix + ".policy.policyReorderInterval", 60 * 1000);
+		if (configuration.getBoolean(propertyPrefix + ".userstore.enabled", false)) {
+			long userStorePollingIntervalMs = configuration.getLong(propertyPrefix + ".userstore.pollIntervalMs", pollingIntervalMs);
+
+			augmentRequestGroups = configuration.getBoolean(propertyPrefix + ".userstore.augment.request.groups", true);
+
+			userStoreRefresher = new RangerUserStoreRefresher(this, serviceType, appId, serviceName, admin, userStorePollingIntervalMs, cacheDir);
+			userStoreRefresher.setDaemon(true);
+			userStoreRefresher.startRefresher();
+
+			LOG.info(propertyPrefix + ".userstore.enabled=true; pollIntervalMs=" + userStorePollingIntervalMs + ", augmentRequestGroups=" + augmentRequestGroups);
+		}
+
+		long policyReorderIntervalMs = policyEngineOptions.evaluatorReorderIntervalMs;
 		if (policyReorderIntervalMs >= 0 && policyReorderIntervalMs < 15 * 1000) {
 			policyReorderIntervalMs = 15 * 1000;
 		}
@@ -203,10 +237,40 @@ public class RangerBasePlugin {
 		}
 	}
 
+	/**
+	 * Sets the user-store downloaded from Ranger Admin, used to find groups of users without a lookup on the host.
+	 */
+	public void setUserStore(RangerUserStore userStore) {
+		this.userStore = userStore;
+	}
+
+	// set in init() from <propertyPrefix>.userstore.augment.request.groups
+	void setAugmentRequestGroups(boolean augmentRequestGroups) {
+		this.augmentRequestGroups = augmentRequestGroups;
+	}
+
+	public long getUserStoreVersion() {
+		RangerUserStore userStore = this.userStore;
+
+		return userStore == null || userStore.getUserStoreVersion() == null ? -1L : userStore.getUserStoreVersion();
+	}
+
+	/**
+	 * @return groups of the user in the user-store downloaded from Ranger Admin; null if the user-store is not enabled
+	 *         or not loaded, or if the user is not in the user-store - in which case the host should resolve the groups
+	 */
+	public Set<String> getGroupsForUser(String userName) {
+		RangerUserStore userStore = this.userStore;
+
+		return userStore == null ? null : userStore.getGroupsForUser(userName);
+	}
+
 	public void cleanup() {
 
 		PolicyRefresher refresher = this.refresher;
 
+		RangerUserStoreRefresher userStoreRefresher = this.userStoreRefresher;
+
 		RangerPolicyEngine policyEngine = this.policyEngine;
 
 		Timer policyEngineRefreshTimer = this.policyEngineRefreshTimer;
@@ -215,11 +279,17 @@ public class RangerBasePlugin {
 		this.policyEngine = null;
 		this.refresher    = null;
 		this.policyEngineRefreshTimer = null;
+		this.userStoreRefresher = null;
+		this.userStore    = null;
 
 		if (refresher != null) {
 			refresher.stopRefresher();
 		}
 
+		if (userStoreRefresher != null) {
+			userStoreRefresher.stopRefresher();
+		}
+
 		if (policyEngineRefreshTimer != null) {
 			policyEngineRefreshTimer.cancel();
 		}
@@ -250,6 +320,7 @@ public class RangerBasePlugin {
 		RangerPolicyEngine policyEngine = this.policyEngine;
 
 		if(policyEngine != null) {
+			augmentUserGroups(request);
 			policyEngine.preProcess(request);
 
 			return policyEngine.isAccessAllowed(request, resultProcessor);
@@ -262,6 +333,7 @@ public class RangerBasePlugin {
 		RangerPolicyEngine policyEngine = this.policyEngine;
 
 		if(policyEngine != null) {
+			augmentUserGroups(requests);
 			policyEngine.preProcess(requests);
 
 			return policyEngine.isAccessAllowed(requests, resultProcessor);
@@ -274,6 +346,7 @@ public class RangerBasePlugin {
 		RangerPolicyEngine policyEngine = this.policyEngine;
 
 		if(policyEngine != null) {
+			augmentUserGroups(request);
 			policyEngine.preProcess(request);
 
 			return policyEngine.evalDataMaskPolicies(request, resultProcessor);
@@ -282,10 +355,24 @@ public class RangerBasePlugin {
 		return null;
 	}
 
+	public Collection<RangerDataMaskResult> evalDataMaskPolicies(Collection<RangerAccessRequest> requests, RangerAccessResultProcessor resultProcessor) {
+		RangerPolicyEngine policyEngine = this.policyEngine;
+
+		if(policyEngine != null) {
+			augmentUserGroups(requests);
+			policyEngine.preProcess(requests);
+
+			return policyEngine.evalDataMaskPolicies(requests, resultProcessor);
+		}
+
+		return null;
+	}
+
 	public RangerRowFilterResult evalRowFilterPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
 		RangerPolicyEngine policyEngine = this.policyEngine;
 
 		if(policyEngine != null) {
+			augmentUserGroups(request);
 			policyEngine.preProcess(request);
 
 			return policyEngine.evalRowFilterPolicies(request, resultProcessor);
@@ -298,6 +385,7 @@ public class RangerBasePlugin {
 		RangerPolicyEngine policyEngine = this.policyEngine;
 
 		if(policyEngine != null) {
+			augmentUserGroups(request);
 			policyEngine.preProcess(request);
 
 			return policyEngine.getResourceAccessInfo(request);
@@ -358,6 +446,36 @@ public class RangerBasePlugin {
 		}
 	}
 
+	private void augmentUserGroups(Collection<RangerAccessRequest> requests) {
+		if (userStore != null && augmentRequestGroups && requests != null) {
+			for (RangerAccessRequest request : requests) {
+				augmentUserGroups(request);
+			}
+		}
+	}
+
+	private void augmentUserGroups(RangerAccessRequest request) {
+		RangerUserStore userStore = this.userStore;
+
+		if (userStore != null && augmentRequestGroups && request instanceof RangerAccessRequestImpl) {
+			Set<String> storeGroups = userStore.getGroupsForUser(request.getUser());
+
+			if (storeGroups != null && !storeGroups.isEmpty()) {
+				Set<String> requestGroups = request.getUserGroups();
+
+				if (requestGroups == null || requestGroups.isEmpty()) {
+					((RangerAccessRequestImpl) request).setUserGroups(storeGroups);
+				} else if (!requestGroups.containsAll(storeGroups)) {
+					Set<String> userGroups = new HashSet<>(requestGroups);
+
+					userGroups.addAll(storeGroups);
+
+					((RangerAccessRequestImpl) request).setUserGroups(userGroups);
+				}
+			}
+		}
+	}
+
 	public static RangerAdminClient createAdminClient(String rangerServiceName, String applicationId, String propertyPrefix) {
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerBasePlugin.createAdminClient(" + rangerServiceName + ", " + applicationId + ", " + propertyPrefix + ")");
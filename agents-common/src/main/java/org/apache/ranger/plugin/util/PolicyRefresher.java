@@ -49,6 +49,7 @@ public class PolicyRefresher extends Thread {
 	private final String            cacheDir;
 	private final Gson              gson;
 	private final boolean           disableCacheIfServiceNotFound;
+	private final long              longPollWaitMs;
 
 	private long 	pollingIntervalMs   = 30 * 1000;
 	private long 	lastKnownVersion    = -1L;
@@ -88,6 +89,7 @@ public class PolicyRefresher extends Thread {
 
 		String propertyPrefix    = "ranger.plugin." + serviceType;
 		disableCacheIfServiceNotFound = RangerConfiguration.getInstance().getBoolean(propertyPrefix + ".disable.cache.if.servicenotfound", true);
+		longPollWaitMs                = new RangerRESTUtils().getLongPollWaitMs(propertyPrefix);
 
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== PolicyRefresher(serviceName=" + serviceName + ").PolicyRefresher()");
@@ -168,9 +170,15 @@ public class PolicyRefresher extends Thread {
 		}
 
 		while(true) {
+			long prevKnownVersion = lastKnownVersion;
+			long startTimeMs      = System.currentTimeMillis();
+
 			loadPolicy();
+
+			long refreshIntervalMs = getRefreshIntervalMs(prevKnownVersion, System.currentTimeMillis() - startTimeMs);
+
 			try {
-				Thread.sleep(pollingIntervalMs);
+				Thread.sleep(refreshIntervalMs);
 			} catch(InterruptedException excp) {
 				LOG.info("PolicyRefresher(serviceName=" + serviceName + ").run(): interrupted! Exiting thread", excp);
 				break;
@@ -182,6 +190,22 @@ public class PolicyRefresher extends Thread {
 		}
 	}
 
+	/*
+	 * When Admin supports long-poll, a download returns either on a new version or after holding the request for
+	 * up to longPollWaitMs; in both cases the next download can be issued right away instead of after pollingIntervalMs.
+	 * A quick "not modified" response means Admin did not wait (older Admin, or too many waiters), so the regular
+	 * polling interval is used.
+	 */
+	private long getRefreshIntervalMs(long prevKnownVersion, long elapsedMs) {
+		long ret = pollingIntervalMs;
+
+		if(longPollWaitMs > 0 && (lastKnownVersion != prevKnownVersion || elapsedMs >= longPollWaitMs / 2)) {
+			ret = Math.min(pollingIntervalMs, RangerRESTUtils.LONGPOLL_MIN_REFRESH_INTERVAL_MS);
+		}
+
+		return ret;
+	}
+
 	private void loadPolicy() {
 
 		if(LOG.isDebugEnabled()) {
@@ -19,16 +19,21 @@
 
 package org.apache.ranger.plugin.util;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 
 public class RangerAccessRequestUtil {
 	private static final Log LOG = LogFactory.getLog(RangerAccessRequestUtil.class);
@@ -145,4 +150,48 @@ public class RangerAccessRequestUtil {
 		String tokenNameWithNamespace = KEY_TOKEN_NAMESPACE + tokenName;
 		return MapUtils.isNotEmpty(context) ? context.get(tokenNameWithNamespace) : null;
 	}
+
+	/*
+	 * Returns a resource with the values that are the same in the resources of all the given requests - like database and
+	 * table, for requests for columns of a table; or null if there are no such values. Since resource-tries are looked up
+	 * by each value of the resource, the evaluators found for this resource include those found for each request.
+	 */
+	public static RangerAccessResourceImpl getCommonResource(Collection<RangerAccessRequest> requests) {
+		Map<String, String> commonValues = null;
+
+		if (CollectionUtils.isNotEmpty(requests)) {
+			for (RangerAccessRequest request : requests) {
+				RangerAccessResource resource = request == null ? null : request.getResource();
+				Set<String>          keys     = resource == null ? null : resource.getKeys();
+
+				if (CollectionUtils.isEmpty(keys)) {
+					commonValues = null;
+
+					break;
+				}
+
+				if (commonValues == null) {
+					commonValues = new HashMap<>();
+
+					for (String key : keys) {
+						commonValues.put(key, resource.getValue(key));
+					}
+				} else {
+					for (Iterator<Map.Entry<String, String>> iter = commonValues.entrySet().iterator(); iter.hasNext(); ) {
+						Map.Entry<String, String> entry = iter.next();
+
+						if (!resource.exists(entry.getKey()) || !StringUtils.equals(entry.getValue(), resource.getValue(entry.getKey()))) {
+							iter.remove();
+						}
+					}
+				}
+
+				if (commonValues.isEmpty()) {
+					break;
+				}
+			}
+		}
+
+		return MapUtils.isEmpty(commonValues) ? null : new RangerAccessResourceImpl(commonValues);
+	}
 }
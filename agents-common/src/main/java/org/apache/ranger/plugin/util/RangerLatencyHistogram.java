@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram: values (in microseconds) are
+ * bucketed by their highest bit, and each such range is split into SUB_BUCKET_COUNT linear sub-buckets - giving a
+ * relative error of at most 1/SUB_BUCKET_COUNT for the reported percentiles. Recording is a few atomic increments.
+ */
+public class RangerLatencyHistogram {
+	private static final int SUB_BUCKET_BITS  = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_VALUE_BITS   = 40; // ~12 days in microseconds
+	private static final int BUCKET_COUNT     = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+	private final String          name;
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong      total  = new AtomicLong();
+	private final AtomicLong      max    = new AtomicLong();
+
+	public RangerLatencyHistogram(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void recordNanos(long elapsedNanos) {
+		recordMicros(elapsedNanos / 1000);
+	}
+
+	public void recordMicros(long elapsedMicros) {
+		long value = elapsedMicros < 0 ? 0 : elapsedMicros;
+
+		counts.incrementAndGet(getBucketIndex(value));
+		total.addAndGet(value);
+
+		for (long currMax = max.get(); value > currMax && !max.compareAndSet(currMax, value); currMax = max.get()) {
+			// retry until max is updated, or another thread records a larger value
+		}
+	}
+
+	public Snapshot getSnapshot() {
+		long[] snapshotCounts = new long[BUCKET_COUNT];
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshotCounts[i] = counts.get(i);
+		}
+
+		return new Snapshot(name, snapshotCounts, total.get(), max.get());
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+
+		total.set(0);
+		max.set(0);
+	}
+
+	static int getBucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+
+		int highestBit = 63 - Long.numberOfLeadingZeros(value);
+		int shift      = highestBit - SUB_BUCKET_BITS;
+		int subBucket  = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+		int ret        = (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+
+		return ret < BUCKET_COUNT ? ret : (BUCKET_COUNT - 1);
+	}
+
+	/**
+	 * @return the largest value that is recorded in the given bucket
+	 */
+	static long getBucketUpperBound(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+
+		int shift     = index / SUB_BUCKET_COUNT - 1;
+		int subBucket = index % SUB_BUCKET_COUNT;
+
+		return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+	}
+
+	public static class Snapshot {
+		private final String name;
+		private final long[] counts;
+		private final long   count;
+		private final long   total;
+		private final long   max;
+
+		Snapshot(String name, long[] counts, long total, long max) {
+			long count = 0;
+
+			for (long c : counts) {
+				count += c;
+			}
+
+			this.name   = name;
+			this.counts = counts;
+			this.count  = count;
+			this.total  = total;
+			this.max    = max;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getMaxMicros() {
+			return max;
+		}
+
+		public double getMeanMicros() {
+			return count == 0 ? 0 : ((double) total / count);
+		}
+
+		/**
+		 * @param percentile in range 0.0 - 100.0
+		 * @return value (in microseconds) at or below which the given percentile of recorded values fall
+		 */
+		public long getPercentileMicros(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+
+			long rank       = (long) Math.ceil((Math.min(Math.max(percentile, 0.0), 100.0) / 100.0) * count);
+			long cumulative = 0;
+
+			if (rank < 1) {
+				rank = 1;
+			}
+
+			for (int i = 0; i < counts.length; i++) {
+				cumulative += counts[i];
+
+				if (cumulative >= rank) {
+					return Math.min(getBucketUpperBound(i), max);
+				}
+			}
+
+			return max;
+		}
+
+		@Override
+		public String toString() {
+			return name + ": count=" + count + ", meanUs=" + Math.round(getMeanMicros()) + ", p50Us=" + getPercentileMicros(50)
+			       + ", p90Us=" + getPercentileMicros(90) + ", p99Us=" + getPercentileMicros(99) + ", p999Us=" + getPercentileMicros(99.9)
+			       + ", maxUs=" + max;
+		}
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * In-process registry of latency histograms, one per perf-tracer tag (like "RangerPolicyEngine.isAccessAllowed" or
+ * "RangerContextEnricher.enrich"), fed by RangerPerfTracer. When enabled, 1 in sampleRate of the traced calls are
+ * recorded, even when the perf loggers are not enabled; histogram counts are therefore of the sampled calls.
+ *
+ * Histograms are made available by the configured exporters - JMX (RangerPerfMetricsJmxExporter) and a text endpoint
+ * (RangerPerfMetricsHttpExporter), or any other implementation of RangerPerfMetricsExporter.
+ */
+public class RangerPerfMetrics {
+	private static final Log LOG = LogFactory.getLog(RangerPerfMetrics.class);
+
+	public static final String PROP_ENABLED       = ".perf.metrics.enabled";
+	public static final String PROP_SAMPLE_RATE   = ".perf.metrics.sample.rate";
+	public static final String PROP_PER_EVALUATOR = ".perf.metrics.per.evaluator";
+	public static final String PROP_EXPORTERS     = ".perf.metrics.exporters";
+
+	public static final int    DEFAULT_SAMPLE_RATE = 100;
+	public static final String DEFAULT_EXPORTERS   = RangerPerfMetricsJmxExporter.class.getName();
+
+	private static final String POLICY_ID_MARKER = "policyId=";
+
+	private static final ConcurrentMap<String, RangerLatencyHistogram> histograms = new ConcurrentHashMap<>();
+	private static final List<RangerPerfMetricsExporter>               exporters  = new ArrayList<>();
+
+	private static volatile boolean isEnabled      = false;
+	private static volatile int     sampleRate     = DEFAULT_SAMPLE_RATE;
+	private static volatile boolean isPerEvaluator = false;
+	private static          boolean isInitialized  = false;
+
+	/**
+	 * Enables metrics collection and starts the exporters, per configuration under propertyPrefix. The registry is
+	 * shared by all plugins in the JVM: only the first call has effect.
+	 */
+	public static synchronized void init(Configuration conf, String propertyPrefix) {
+		if (isInitialized) {
+			return;
+		}
+
+		isInitialized = true;
+
+		if (!conf.getBoolean(propertyPrefix + PROP_ENABLED, false)) {
+			return;
+		}
+
+		sampleRate     = Math.max(1, conf.getInt(propertyPrefix + PROP_SAMPLE_RATE, DEFAULT_SAMPLE_RATE));
+		isPerEvaluator = conf.getBoolean(propertyPrefix + PROP_PER_EVALUATOR, false);
+		isEnabled      = true;
+
+		LOG.info("RangerPerfMetrics: enabled with sampleRate=" + sampleRate + ", perEvaluator=" + isPerEvaluator);
+
+		for (String exporterClassName : StringUtils.split(conf.get(propertyPrefix + PROP_EXPORTERS, DEFAULT_EXPORTERS), ',')) {
+			exporterClassName = exporterClassName.trim();
+
+			if (StringUtils.isEmpty(exporterClassName)) {
+				continue;
+			}
+
+			try {
+				RangerPerfMetricsExporter exporter = (RangerPerfMetricsExporter) Class.forName(exporterClassName).newInstance();
+
+				exporter.init(conf, propertyPrefix);
+				exporter.start();
+
+				exporters.add(exporter);
+
+				LOG.info("RangerPerfMetrics: started exporter " + exporterClassName);
+			} catch (Throwable excp) {
+				LOG.error("RangerPerfMetrics: failed to start exporter " + exporterClassName, excp);
+			}
+		}
+	}
+
+	public static synchronized void shutdown() {
+		for (RangerPerfMetricsExporter exporter : exporters) {
+			try {
+				exporter.stop();
+			} catch (Throwable excp) {
+				LOG.warn("RangerPerfMetrics: failed to stop exporter " + exporter.getClass().getName(), excp);
+			}
+		}
+
+		exporters.clear();
+
+		isEnabled     = false;
+		isInitialized = false;
+	}
+
+	public static boolean isEnabled() {
+		return isEnabled;
+	}
+
+	/**
+	 * @return true if the current call should be traced for metrics
+	 */
+	public static boolean isSampled() {
+		return isEnabled && (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0);
+	}
+
+	public static void setEnabled(boolean enabled, int rate) {
+		sampleRate = Math.max(1, rate);
+		isEnabled  = enabled;
+	}
+
+	public static void setPerEvaluator(boolean perEvaluator) {
+		isPerEvaluator = perEvaluator;
+	}
+
+	public static void record(String tag, String data, long elapsedNanos) {
+		if (!isEnabled || tag == null) {
+			return;
+		}
+
+		getHistogram(tag).recordNanos(elapsedNanos);
+
+		if (isPerEvaluator && data != null) {
+			String policyId = getPolicyId(data);
+
+			if (policyId != null) {
+				getHistogram(tag + "[" + POLICY_ID_MARKER + policyId + "]").recordNanos(elapsedNanos);
+			}
+		}
+	}
+
+	public static RangerLatencyHistogram getHistogram(String name) {
+		RangerLatencyHistogram ret = histograms.get(name);
+
+		if (ret == null) {
+			RangerLatencyHistogram newHistogram = new RangerLatencyHistogram(name);
+
+			ret = histograms.putIfAbsent(name, newHistogram);
+
+			if (ret == null) {
+				ret = newHistogram;
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @return snapshot of the named histogram, or null if there is no such histogram
+	 */
+	public static RangerLatencyHistogram.Snapshot getSnapshot(String name) {
+		RangerLatencyHistogram histogram = histograms.get(name);
+
+		return histogram == null ? null : histogram.getSnapshot();
+	}
+
+	/**
+	 * @return snapshots of all histograms, sorted by name
+	 */
+	public static Map<String, RangerLatencyHistogram.Snapshot> getSnapshots() {
+		Map<String, RangerLatencyHistogram.Snapshot> ret = new TreeMap<>();
+
+		for (RangerLatencyHistogram histogram : histograms.values()) {
+			ret.put(histogram.getName(), histogram.getSnapshot());
+		}
+
+		return ret;
+	}
+
+	public static void clear() {
+		histograms.clear();
+	}
+
+	/**
+	 * @return all histograms, one per line, as: name count=N mean_us=N p50_us=N p90_us=N p99_us=N p999_us=N max_us=N
+	 */
+	public static String toText() {
+		StringBuilder sb = new StringBuilder();
+
+		for (RangerLatencyHistogram.Snapshot snapshot : getSnapshots().values()) {
+			sb.append(snapshot.getName())
+			  .append(" count=").append(snapshot.getCount())
+			  .append(" mean_us=").append(Math.round(snapshot.getMeanMicros()))
+			  .append(" p50_us=").append(snapshot.getPercentileMicros(50))
+			  .append(" p90_us=").append(snapshot.getPercentileMicros(90))
+			  .append(" p99_us=").append(snapshot.getPercentileMicros(99))
+			  .append(" p999_us=").append(snapshot.getPercentileMicros(99.9))
+			  .append(" max_us=").append(snapshot.getMaxMicros())
+			  .append('\n');
+		}
+
+		return sb.toString();
+	}
+
+	private static String getPolicyId(String data) {
+		int start = data.indexOf(POLICY_ID_MARKER);
+
+		if (start == -1) {
+			return null;
+		}
+
+		start += POLICY_ID_MARKER.length();
+
+		int end = start;
+
+		while (end < data.length() && Character.isDigit(data.charAt(end))) {
+			end++;
+		}
+
+		return end > start ? data.substring(start, end) : null;
+	}
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Makes the histograms in RangerPerfMetrics available outside the process. Implementations are instantiated by
+ * RangerPerfMetrics.init() from the class names listed in property <prefix>.perf.metrics.exporters.
+ */
+public interface RangerPerfMetricsExporter {
+	void init(Configuration conf, String propertyPrefix);
+
+	void start() throws Exception;
+
+	void stop() throws Exception;
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves RangerPerfMetrics.toText() over HTTP, at http://<host>:<port>/metrics. Binds to localhost by default, as the
+ * endpoint is unauthenticated; it is not started unless a port is configured.
+ */
+public class RangerPerfMetricsHttpExporter implements RangerPerfMetricsExporter {
+	private static final Log LOG = LogFactory.getLog(RangerPerfMetricsHttpExporter.class);
+
+	public static final String PROP_HOST    = ".perf.metrics.http.host";
+	public static final String PROP_PORT    = ".perf.metrics.http.port";
+	public static final String DEFAULT_HOST = "127.0.0.1";
+	public static final String CONTEXT_PATH = "/metrics";
+
+	private String     host;
+	private int        port;
+	private HttpServer server;
+
+	@Override
+	public void init(Configuration conf, String propertyPrefix) {
+		host = conf.get(propertyPrefix + PROP_HOST, DEFAULT_HOST);
+		port = conf.getInt(propertyPrefix + PROP_PORT, -1);
+	}
+
+	@Override
+	public void start() throws Exception {
+		if (port < 0) {
+			LOG.warn("RangerPerfMetricsHttpExporter: port not configured; not starting");
+
+			return;
+		}
+
+		server = HttpServer.create(new InetSocketAddress(host, port), 0);
+
+		server.createContext(CONTEXT_PATH, new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] response = RangerPerfMetrics.toText().getBytes(Charset.forName("UTF-8"));
+
+				exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+				exchange.sendResponseHeaders(200, response.length);
+
+				OutputStream out = exchange.getResponseBody();
+
+				try {
+					out.write(response);
+				} finally {
+					out.close();
+				}
+			}
+		});
+
+		server.start();
+
+		LOG.info("RangerPerfMetricsHttpExporter: serving metrics at http://" + host + ":" + server.getAddress().getPort() + CONTEXT_PATH);
+	}
+
+	@Override
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+
+			server = null;
+		}
+	}
+
+	public int getPort() {
+		return server != null ? server.getAddress().getPort() : port;
+	}
+}
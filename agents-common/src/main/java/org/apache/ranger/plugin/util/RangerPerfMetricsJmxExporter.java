@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Exports RangerPerfMetrics histograms as attributes of MBean org.apache.ranger:type=PerfMetrics - one attribute per
+ * histogram and statistic, like "RangerPolicyEngine.isAccessAllowed.p99Micros". Attributes are computed on each read,
+ * so histograms created after the MBean is registered are included.
+ */
+public class RangerPerfMetricsJmxExporter implements RangerPerfMetricsExporter, DynamicMBean {
+	public static final String PROP_OBJECT_NAME    = ".perf.metrics.jmx.object.name";
+	public static final String DEFAULT_OBJECT_NAME = "org.apache.ranger:type=PerfMetrics";
+
+	private static final String[] STATISTICS = { "count", "meanMicros", "p50Micros", "p90Micros", "p99Micros", "p999Micros", "maxMicros" };
+
+	private ObjectName objectName;
+
+	@Override
+	public void init(Configuration conf, String propertyPrefix) {
+		try {
+			objectName = new ObjectName(conf.get(propertyPrefix + PROP_OBJECT_NAME, DEFAULT_OBJECT_NAME));
+		} catch (Exception excp) {
+			throw new IllegalArgumentException("invalid value for " + propertyPrefix + PROP_OBJECT_NAME, excp);
+		}
+	}
+
+	@Override
+	public void start() throws Exception {
+		MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+		if (!mbeanServer.isRegistered(objectName)) {
+			mbeanServer.registerMBean(this, objectName);
+		}
+	}
+
+	@Override
+	public void stop() throws Exception {
+		MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+		if (mbeanServer.isRegistered(objectName)) {
+			mbeanServer.unregisterMBean(objectName);
+		}
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		int idx = attribute.lastIndexOf('.');
+
+		if (idx != -1) {
+			RangerLatencyHistogram.Snapshot snapshot = RangerPerfMetrics.getSnapshot(attribute.substring(0, idx));
+
+			if (snapshot != null) {
+				Long ret = getStatistic(snapshot, attribute.substring(idx + 1));
+
+				if (ret != null) {
+					return ret;
+				}
+			}
+		}
+
+		throw new AttributeNotFoundException(attribute);
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList ret = new AttributeList();
+
+		for (String attribute : attributes) {
+			try {
+				ret.add(new Attribute(attribute, getAttribute(attribute)));
+			} catch (AttributeNotFoundException excp) {
+				// skip attributes of histograms that no longer exist
+			}
+		}
+
+		return ret;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException(attribute.getName() + ": read-only attribute");
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) {
+		if ("reset".equals(actionName)) {
+			RangerPerfMetrics.clear();
+		}
+
+		return null;
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		Map<String, RangerLatencyHistogram.Snapshot> snapshots = RangerPerfMetrics.getSnapshots();
+		List<MBeanAttributeInfo>                     attrs     = new ArrayList<>(snapshots.size() * STATISTICS.length);
+
+		for (String name : snapshots.keySet()) {
+			for (String statistic : STATISTICS) {
+				attrs.add(new MBeanAttributeInfo(name + "." + statistic, Long.class.getName(), statistic + " of " + name, true, false, false));
+			}
+		}
+
+		MBeanOperationInfo[] ops = new MBeanOperationInfo[] {
+			new MBeanOperationInfo("reset", "remove all histograms", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION)
+		};
+
+		return new MBeanInfo(getClass().getName(), "Ranger perf metrics: latency histograms of sampled calls",
+		                     attrs.toArray(new MBeanAttributeInfo[attrs.size()]), null, ops, null);
+	}
+
+	private static Long getStatistic(RangerLatencyHistogram.Snapshot snapshot, String statistic) {
+		switch (statistic) {
+			case "count":
+				return snapshot.getCount();
+			case "meanMicros":
+				return Math.round(snapshot.getMeanMicros());
+			case "p50Micros":
+				return snapshot.getPercentileMicros(50);
+			case "p90Micros":
+				return snapshot.getPercentileMicros(90);
+			case "p99Micros":
+				return snapshot.getPercentileMicros(99);
+			case "p999Micros":
+				return snapshot.getPercentileMicros(99.9);
+			case "maxMicros":
+				return snapshot.getMaxMicros();
+			default:
+				return null;
+		}
+	}
+}
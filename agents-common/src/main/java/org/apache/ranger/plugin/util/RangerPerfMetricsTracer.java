@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Tracer used when the perf logger is not enabled but RangerPerfMetrics is: elapsed time is recorded only in the
+ * metrics registry.
+ */
+public class RangerPerfMetricsTracer extends RangerPerfTracer {
+
+	public RangerPerfMetricsTracer(Log logger, String tag, String data) {
+		super(logger, tag, data);
+	}
+
+	@Override
+	public void log() {
+		RangerPerfMetrics.record(tag, data, getElapsedTimeNanos());
+	}
+
+	@Override
+	public void logAlways() {
+		RangerPerfMetrics.record(tag, data, getElapsedTimeNanos());
+	}
+}
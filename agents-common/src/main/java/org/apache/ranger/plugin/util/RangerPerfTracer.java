@@ -28,6 +28,7 @@ public class RangerPerfTracer {
 	protected final String tag;
 	protected final String data;
 	private final long   startTimeMs;
+	private final long   startTimeNanos;
 
 	private static long reportingThresholdMs;
 
@@ -42,7 +43,7 @@ public class RangerPerfTracer {
 	}
 
 	public static boolean isPerfTraceEnabled(Log logger) {
-		return logger.isDebugEnabled();
+		return logger.isDebugEnabled() || RangerPerfMetrics.isSampled();
 	}
 
 	public static RangerPerfTracer getPerfTracer(Log logger, String tag) {
@@ -81,6 +82,7 @@ public class RangerPerfTracer {
 		this.tag    = tag;
 		this.data	= data;
 		startTimeMs = System.currentTimeMillis();
+		startTimeNanos = System.nanoTime();
 	}
 
 	public final String getTag() {
@@ -95,13 +97,21 @@ public class RangerPerfTracer {
 		return System.currentTimeMillis() - startTimeMs;
 	}
 
+	public final long getElapsedTimeNanos() {
+		return System.nanoTime() - startTimeNanos;
+	}
+
 	public void log() {
+		RangerPerfMetrics.record(tag, data, getElapsedTimeNanos());
+
 		long elapsedTime = getElapsedTime();
 		if (elapsedTime > reportingThresholdMs) {
 			logger.debug("[PERF] " + tag + data + ": " + elapsedTime);
 		}
 	}
 	public void logAlways() {
+		RangerPerfMetrics.record(tag, data, getElapsedTimeNanos());
+
 		long elapsedTime = getElapsedTime();
 		logger.debug("[PERF] " + tag + data + ": " + elapsedTime);
 	}
@@ -31,6 +31,8 @@ public class RangerPerfTracerFactory {
 			ret = new RangerPerfCollectorTracer(logger, tag, data);
 		} else if (logger.isDebugEnabled()) {
 			ret = new RangerPerfTracer(logger, tag, data);
+		} else if (RangerPerfMetrics.isEnabled()) {
+			ret = new RangerPerfMetricsTracer(logger, tag, data);
 		}
 		return ret;
 	}
@@ -31,6 +31,8 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.KeyManager;
@@ -96,11 +98,17 @@ public class RangerRESTClient {
 	private String mTrustStoreFile;
 	private String mTrustStoreType;
 
+	// clients are shared by RangerRESTClient instances having the same configuration: connections kept alive by
+	// the JDK are reused only with the same SSLSocketFactory, and auth cookies are reused only within a client
+	private static final Map<String, Client> SHARED_CLIENTS = new HashMap<String, Client>();
+
 	private Gson   gsonBuilder;
 	private volatile Client client;
+	private volatile RangerRESTClientFilter clientFilter;
 
 	private int  mRestClientConnTimeOutMs;
 	private int  mRestClientReadTimeOutMs;
+	private int  mMaxConcurrentRequests;
 
 	public RangerRESTClient() {
 		this(RangerConfiguration.getInstance().get(RANGER_PROP_POLICYMGR_URL),
@@ -146,6 +154,17 @@ public class RangerRESTClient {
 		this.mRestClientReadTimeOutMs = mRestClientReadTimeOutMs;
 	}
 
+	public int getMaxConcurrentRequests() {
+		return mMaxConcurrentRequests;
+	}
+
+	/**
+	 * Limits the number of requests in progress at a time, across RangerRESTClient instances sharing the client; 0 for no limit.
+	 */
+	public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+		this.mMaxConcurrentRequests = maxConcurrentRequests;
+	}
+
 	public void setBasicAuthInfo(String username, String password) {
 		mUsername = username;
 		mPassword = password;
@@ -172,7 +191,7 @@ public class RangerRESTClient {
 			synchronized(this) {
                 result = client;
 				if(result == null) {
-					client = result = buildClient();
+					client = result = getSharedClient();
 				}
 			}
 		}
@@ -180,6 +199,35 @@ public class RangerRESTClient {
 		return result;
 	}
 
+	/**
+	 * @return request metrics of the client used by this instance; null if the client has not been created yet
+	 */
+	public RangerRESTClientFilter getClientFilter() {
+		return clientFilter;
+	}
+
+	private Client getSharedClient() {
+		String key = mIsSSL + "|" + mSslConfigFileName + "|" + mUsername + "|" + mPassword + "|" + mRestClientConnTimeOutMs + "|" + mRestClientReadTimeOutMs + "|" + mMaxConcurrentRequests;
+
+		synchronized (SHARED_CLIENTS) {
+			Client ret = SHARED_CLIENTS.get(key);
+
+			if (ret == null) {
+				ret = buildClient();
+
+				SHARED_CLIENTS.put(key, ret);
+
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("RangerRESTClient: created client for url=" + mUrl + ", sslConfigFile=" + mSslConfigFileName + ", username=" + mUsername);
+				}
+			}
+
+			clientFilter = (RangerRESTClientFilter) ret.getProperties().get(RangerRESTClientFilter.class.getName());
+
+			return ret;
+		}
+	}
+
 	private Client buildClient() {
 		Client client = null;
 
@@ -214,6 +262,12 @@ public class RangerRESTClient {
 			client.addFilter(new HTTPBasicAuthFilter(mUsername, mPassword));
 		}
 
+		// added last, so that it runs first and covers the time taken by the other filters as well
+		RangerRESTClientFilter filter = new RangerRESTClientFilter(mMaxConcurrentRequests, mRestClientConnTimeOutMs);
+
+		client.addFilter(filter);
+		client.getProperties().put(RangerRESTClientFilter.class.getName(), filter);
+
 		// Set Connection Timeout and ReadTime for the PolicyRefresh
 		client.setConnectTimeout(mRestClientConnTimeOutMs);
 		client.setReadTimeout(mRestClientReadTimeOutMs);
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.net.URI;
+import java.security.AccessController;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.security.auth.Subject;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+/**
+ * Filter added to REST clients that talk to Ranger Admin:
+ * <ul>
+ * <li>reuses the authentication cookies set by the server (hadoop.auth, session id), so that each call doesn't need
+ * a SPNEGO negotiation or basic-auth verification. Cookies are kept per server and per JAAS subject</li>
+ * <li>limits the number of concurrent requests, when maxConcurrentRequests is > 0</li>
+ * <li>counts requests, failures and time taken; each request is traced in the rest.client perf log</li>
+ * </ul>
+ */
+public class RangerRESTClientFilter extends ClientFilter {
+	private static final Log LOG      = LogFactory.getLog(RangerRESTClientFilter.class);
+	private static final Log PERF_LOG = RangerPerfTracer.getPerfLogger("rest.client");
+
+	public static final Set<String> AUTH_COOKIE_NAMES = new HashSet<>(Arrays.asList("hadoop.auth", "RANGERADMINSESSIONID", "JSESSIONID"));
+
+	private static final String HEADER_COOKIE     = "Cookie";
+	private static final String HEADER_SET_COOKIE = "Set-Cookie";
+
+	private final Semaphore                                  requestPermits;
+	private final long                                       requestPermitWaitMs;
+	private final ConcurrentMap<String, Map<String, String>> authCookies          = new ConcurrentHashMap<>(); // subject@server => (name => name=value)
+	private final AtomicLong                                 requestCount         = new AtomicLong();
+	private final AtomicLong                                 failedRequestCount   = new AtomicLong();
+	private final AtomicLong                                 authCookieReuseCount = new AtomicLong();
+	private final AtomicLong                                 totalRequestTimeMs   = new AtomicLong();
+
+	public RangerRESTClientFilter(int maxConcurrentRequests, long requestPermitWaitMs) {
+		this.requestPermits      = maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests, true) : null;
+		this.requestPermitWaitMs = requestPermitWaitMs;
+	}
+
+	@Override
+	public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+		String cookieKey = getCookieKey(request.getURI());
+		String cookie    = getCookieHeader(cookieKey);
+
+		if (cookie != null) {
+			request.getHeaders().putSingle(HEADER_COOKIE, cookie);
+
+			authCookieReuseCount.incrementAndGet();
+		}
+
+		acquirePermit(request);
+
+		RangerPerfTracer perf      = null;
+		long             startTime = System.currentTimeMillis();
+		boolean          isFailed  = true;
+
+		try {
+			if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+				perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerRESTClient.request(method=" + request.getMethod() + ", path=" + request.getURI().getPath() + ")");
+			}
+
+			ClientResponse response = getNext().handle(request);
+			int            status   = response.getStatus();
+
+			if (status == HttpServletResponse.SC_UNAUTHORIZED) {
+				authCookies.remove(cookieKey);
+			} else {
+				updateAuthCookies(cookieKey, response.getHeaders().get(HEADER_SET_COOKIE));
+			}
+
+			isFailed = status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+
+			return response;
+		} finally {
+			if (requestPermits != null) {
+				requestPermits.release();
+			}
+
+			requestCount.incrementAndGet();
+			totalRequestTimeMs.addAndGet(System.currentTimeMillis() - startTime);
+
+			if (isFailed) {
+				failedRequestCount.incrementAndGet();
+			}
+
+			RangerPerfTracer.log(perf);
+		}
+	}
+
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	public long getFailedRequestCount() {
+		return failedRequestCount.get();
+	}
+
+	public long getAuthCookieReuseCount() {
+		return authCookieReuseCount.get();
+	}
+
+	public long getTotalRequestTimeMs() {
+		return totalRequestTimeMs.get();
+	}
+
+	public int getAvailablePermits() {
+		return requestPermits == null ? -1 : requestPermits.availablePermits();
+	}
+
+	@Override
+	public String toString() {
+		return "RangerRESTClientFilter={requestCount=" + requestCount + ", failedRequestCount=" + failedRequestCount
+				+ ", authCookieReuseCount=" + authCookieReuseCount + ", totalRequestTimeMs=" + totalRequestTimeMs
+				+ ", availablePermits=" + getAvailablePermits() + "}";
+	}
+
+	private void acquirePermit(ClientRequest request) throws ClientHandlerException {
+		if (requestPermits == null) {
+			return;
+		}
+
+		boolean isAcquired = false;
+
+		try {
+			isAcquired = requestPermitWaitMs > 0 ? requestPermits.tryAcquire(requestPermitWaitMs, TimeUnit.MILLISECONDS) : requestPermits.tryAcquire();
+		} catch (InterruptedException excp) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (!isAcquired) {
+			failedRequestCount.incrementAndGet();
+
+			throw new ClientHandlerException("too many concurrent requests; failed to send " + request.getMethod() + " " + request.getURI().getPath());
+		}
+	}
+
+	private String getCookieHeader(String cookieKey) {
+		Map<String, String> cookies = authCookies.get(cookieKey);
+
+		if (cookies == null) {
+			return null;
+		}
+
+		synchronized (cookies) {
+			return cookies.isEmpty() ? null : StringUtils.join(cookies.values(), "; ");
+		}
+	}
+
+	private void updateAuthCookies(String cookieKey, List<String> setCookies) {
+		if (setCookies == null || setCookies.isEmpty()) {
+			return;
+		}
+
+		Map<String, String> cookies = authCookies.get(cookieKey);
+
+		if (cookies == null) {
+			Map<String, String> newCookies = new LinkedHashMap<>();
+
+			cookies = authCookies.putIfAbsent(cookieKey, newCookies); // another request might have added one
+
+			if (cookies == null) {
+				cookies = newCookies;
+			}
+		}
+
+		synchronized (cookies) {
+			for (String setCookie : setCookies) {
+				// name=value; Path=/; HttpOnly: the cookie is sent back as name=value, value as received (quotes included)
+				String nameValue = StringUtils.substringBefore(setCookie, ";").trim();
+				String name      = StringUtils.substringBefore(nameValue, "=").trim();
+				String value     = StringUtils.substringAfter(nameValue, "=").trim();
+
+				if (!AUTH_COOKIE_NAMES.contains(name)) {
+					continue;
+				}
+
+				if (value.isEmpty() || value.equals("\"\"") || StringUtils.containsIgnoreCase(setCookie, "Max-Age=0")) {
+					cookies.remove(name);
+				} else {
+					cookies.put(name, name + "=" + value);
+				}
+
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("RangerRESTClientFilter: " + (cookies.containsKey(name) ? "updated" : "removed") + " cookie " + name + " for " + cookieKey);
+				}
+			}
+		}
+	}
+
+	private static String getCookieKey(URI uri) {
+		StringBuilder sb      = new StringBuilder();
+		Subject       subject = Subject.getSubject(AccessController.getContext());
+
+		if (subject != null) {
+			for (Principal principal : subject.getPrincipals()) {
+				sb.append(principal.getName()).append(',');
+			}
+		}
+
+		sb.append('@').append(uri.getScheme()).append("://").append(uri.getHost()).append(':').append(uri.getPort());
+
+		return sb.toString();
+	}
+}
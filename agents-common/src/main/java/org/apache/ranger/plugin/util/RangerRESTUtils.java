@@ -52,12 +52,20 @@ public class RangerRESTUtils {
 
 	public static final String REST_URL_LOOKUP_TAG_NAMES = "/service/tags/lookup";
 
+	public static final String REST_URL_GET_SECURE_USERSTORE_IF_UPDATED = "/service/plugins/secure/userstore/download/";
+	public static final String LAST_KNOWN_USERSTORE_VERSION_PARAM       = "lastKnownUserStoreVersion";
+
 	public static final String REST_EXPECTED_MIME_TYPE = "application/json";
 	public static final String REST_MIME_TYPE_JSON     = "application/json";
 
 	public static final String REST_PARAM_LAST_KNOWN_POLICY_VERSION = "lastKnownVersion";
 	public static final String REST_PARAM_LAST_ACTIVATION_TIME = "lastActivationTime";
 	public static final String REST_PARAM_PLUGIN_ID                 = "pluginId";
+	public static final String REST_PARAM_WAIT_FOR_UPDATE_MS        = "waitForUpdateMs";
+	public static final String REST_PARAM_SUPPORTS_TAG_DELTAS       = "supportsTagDeltas";
+
+	public static final long DEFAULT_LONGPOLL_WAIT_MS         = 20 * 1000;
+	public static final long LONGPOLL_MIN_REFRESH_INTERVAL_MS = 500;
 
 	private static final int MAX_PLUGIN_ID_LEN = 255;
 	
@@ -83,6 +91,19 @@ public class RangerRESTUtils {
 		return sslConfigFileName;
 	}
 	
+	/**
+	 * Returns how long Ranger Admin may hold a policy/tag download request open waiting for a new version; 0 disables long-poll.
+	 */
+	public long getLongPollWaitMs(String propertyPrefix) {
+		long ret = RangerConfiguration.getInstance().getLong(propertyPrefix + ".policy.rest.client.longpoll.waitMs", DEFAULT_LONGPOLL_WAIT_MS);
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerRESTUtils.getLongPollWaitMs(" + ret + ")");
+		}
+
+		return ret < 0 ? 0 : ret;
+	}
+
 	public String getUrlForPolicyUpdate(String baseUrl, String serviceName) {
 		String url = baseUrl + REST_URL_POLICY_GET_FOR_SERVICE_IF_UPDATED + serviceName;
 		
@@ -0,0 +1,411 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyresourcematcher.RangerDefaultPolicyResourceMatcher;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceEvaluator;
+import org.apache.ranger.plugin.resourcematcher.RangerAbstractResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerDefaultResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/*
+ * Index of policy evaluators by the exact values of their resources, like (database, table, column). Evaluators are
+ * indexed by each combination of values of their resources having only exact values - i.e. no match-any, excludes,
+ * wildcards or tokens; evaluators without such resources are kept in a wildcard list, which is part of every lookup
+ * result.
+ *
+ * A lookup returns, in the order of the evaluators given to the constructor, the evaluators in the wildcard list and
+ * the indexed evaluators whose every exact-valued resource is present in the given resource with an equal value.
+ * Evaluators for descendants of the resource are not returned; hence the lookup is suitable only for requests that
+ * match policies for the resource or for its ancestors.
+ */
+public class RangerResourceIndex<T extends RangerPolicyResourceEvaluator> {
+    private static final Log LOG = LogFactory.getLog(RangerResourceIndex.class);
+
+    private static final String DEFAULT_WILDCARD_CHARS = "*?";
+    private static final int    MAX_KEYS_PER_EVALUATOR = 64;
+
+    private final Map<String, ResourceDefInfo>  resourceDefs     = new HashMap<>();
+    private final List<List<String>>            resourceNameSets = new ArrayList<>();
+    private final Map<List<String>, Bucket<T>>  exactEvaluators  = new HashMap<>();
+    private final Bucket<T>                     wildcardEvaluators;
+
+    /*
+     * resourceDefs should be those used by the matchers of the evaluators, i.e. from the dataMaskDef or rowFilterDef for
+     * evaluators of data-mask or row-filter policies
+     */
+    public RangerResourceIndex(List<RangerServiceDef.RangerResourceDef> resourceDefs, List<T> evaluators) {
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerResourceIndex(evaluatorCount=" + evaluators.size() + ")");
+        }
+
+        if(resourceDefs != null) {
+            for(RangerServiceDef.RangerResourceDef resourceDef : resourceDefs) {
+                this.resourceDefs.put(resourceDef.getName(), new ResourceDefInfo(resourceDef));
+            }
+        }
+
+
+        Map<List<String>, BucketBuilder<T>> exactBuilders    = new LinkedHashMap<>();
+        BucketBuilder<T>                    wildcardBuilder  = new BucketBuilder<>();
+        Set<List<String>>                   resourceNameSets = new LinkedHashSet<>();
+
+        for(int position = 0; position < evaluators.size(); position++) {
+            T                 evaluator     = evaluators.get(position);
+            List<String>      resourceNames = new ArrayList<>();
+            Set<List<String>> keys          = getKeys(evaluator, resourceNames);
+
+            if(keys == null) {
+                wildcardBuilder.add(evaluator, position);
+            } else {
+                resourceNameSets.add(resourceNames);
+
+                for(List<String> key : keys) {
+                    BucketBuilder<T> builder = exactBuilders.get(key);
+
+                    if(builder == null) {
+                        builder = new BucketBuilder<>();
+
+                        exactBuilders.put(key, builder);
+                    }
+
+                    builder.add(evaluator, position);
+                }
+            }
+        }
+
+        for(Map.Entry<List<String>, BucketBuilder<T>> entry : exactBuilders.entrySet()) {
+            exactEvaluators.put(entry.getKey(), entry.getValue().build());
+        }
+
+        this.resourceNameSets.addAll(resourceNameSets);
+        this.wildcardEvaluators = wildcardBuilder.build();
+
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerResourceIndex(evaluatorCount=" + evaluators.size() + "): " + toString());
+        }
+    }
+
+    /*
+     * Returns the evaluators that can match the given resource or its ancestors, or an empty list.
+     */
+    public List<T> getEvaluatorsForResource(RangerAccessResource resource) {
+        final List<T> ret;
+
+        Bucket<T>       firstBucket = wildcardEvaluators.isEmpty() ? null : wildcardEvaluators;
+        List<Bucket<T>> buckets     = null;
+
+        for(List<String> resourceNames : resourceNameSets) {
+            List<String> key    = getLookupKey(resourceNames, resource);
+            Bucket<T>    bucket = key != null ? exactEvaluators.get(key) : null;
+
+            if(bucket == null) {
+                continue;
+            }
+
+            if(firstBucket == null) {
+                firstBucket = bucket;
+            } else {
+                if(buckets == null) {
+                    buckets = new ArrayList<>(resourceNameSets.size() + 1);
+
+                    buckets.add(firstBucket);
+                }
+
+                buckets.add(bucket);
+            }
+        }
+
+        if(buckets != null) {
+            ret = merge(buckets);
+        } else if(firstBucket != null) {
+            ret = firstBucket.evaluators;
+        } else {
+            ret = Collections.emptyList();
+        }
+
+        return ret;
+    }
+
+    public int getIndexedKeyCount() {
+        return exactEvaluators.size();
+    }
+
+    public int getWildcardEvaluatorCount() {
+        return wildcardEvaluators.evaluators.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("RangerResourceIndex={");
+        sb.append("resourceNameSets=").append(resourceNameSets);
+        sb.append("; indexedKeyCount=").append(getIndexedKeyCount());
+        sb.append("; wildcardEvaluatorCount=").append(getWildcardEvaluatorCount());
+        sb.append("}");
+
+        return sb.toString();
+    }
+
+    /*
+     * Returns keys of the evaluator for its resources having exact values, or null if it has no such resource; resourceNames
+     * is populated with names of these resources. Other resources of the evaluator, like table=* or column=ssn* in a
+     * policy for database=hr, don't affect the lookup: the matcher can't match a resource with a value different from
+     * the exact value, or a resource without the exact-valued resource-name, for SELF or ANCESTOR.
+     */
+    private Set<List<String>> getKeys(T evaluator, List<String> resourceNames) {
+        Map<String, RangerPolicyResource> policyResources = evaluator.getPolicyResource();
+
+        if(policyResources == null || policyResources.isEmpty() || evaluator.getPolicyResourceMatcher() == null
+                || evaluator.getPolicyResourceMatcher().getClass() != RangerDefaultPolicyResourceMatcher.class) {
+            return null;
+        }
+
+        Map<String, List<String>> exactValues = new HashMap<>();
+        int                       keyCount    = 1;
+
+        for(String resourceName : new TreeSet<>(policyResources.keySet())) {
+            List<String> values = getExactValues(evaluator, resourceName, policyResources.get(resourceName));
+
+            if(values != null) {
+                resourceNames.add(resourceName);
+                exactValues.put(resourceName, values);
+
+                keyCount *= values.size();
+            }
+        }
+
+        // limit the number of keys, by not indexing resources having most values
+        while(keyCount > MAX_KEYS_PER_EVALUATOR) {
+            String resourceWithMostValues = null;
+
+            for(String resourceName : resourceNames) {
+                if(resourceWithMostValues == null || exactValues.get(resourceName).size() > exactValues.get(resourceWithMostValues).size()) {
+                    resourceWithMostValues = resourceName;
+                }
+            }
+
+            resourceNames.remove(resourceWithMostValues);
+
+            keyCount /= exactValues.remove(resourceWithMostValues).size();
+        }
+
+        if(resourceNames.isEmpty()) {
+            return null;
+        }
+
+        List<List<String>> valuesList = new ArrayList<>(resourceNames.size());
+
+        for(String resourceName : resourceNames) {
+            valuesList.add(exactValues.get(resourceName));
+        }
+
+        Set<List<String>> ret = new LinkedHashSet<>();
+
+        addKeys(resourceNames, valuesList, 0, new ArrayList<String>(resourceNames.size() * 2), ret);
+
+        return ret;
+    }
+
+    // returns null if the policy-resource matches a value other than its values
+    private List<String> getExactValues(T evaluator, String resourceName, RangerPolicyResource policyResource) {
+        ResourceDefInfo       resourceDef     = resourceDefs.get(resourceName);
+        RangerResourceMatcher resourceMatcher = evaluator.getResourceMatcher(resourceName);
+
+        if(resourceDef == null || policyResource == null || policyResource.getIsExcludes() || policyResource.getIsRecursive()
+                || resourceMatcher == null || resourceMatcher.getClass() != RangerDefaultResourceMatcher.class || resourceMatcher.isMatchAny()) {
+            return null;
+        }
+
+        List<String> ret = new ArrayList<>();
+
+        if(policyResource.getValues() != null) {
+            for(String value : policyResource.getValues()) {
+                if(StringUtils.isEmpty(value)) { // ignored by the matcher
+                    continue;
+                }
+
+                if(StringUtils.containsAny(value, resourceDef.specialChars)) {
+                    return null;
+                }
+
+                String key = resourceDef.getKey(value);
+
+                if(!ret.contains(key)) {
+                    ret.add(key);
+                }
+            }
+        }
+
+        return ret.isEmpty() ? null : ret;
+    }
+
+    private void addKeys(List<String> resourceNames, List<List<String>> valuesList, int index, List<String> prefix, Set<List<String>> keys) {
+        if(index == resourceNames.size()) {
+            keys.add(new ArrayList<>(prefix));
+        } else {
+            for(String value : valuesList.get(index)) {
+                prefix.add(resourceNames.get(index));
+                prefix.add(value);
+
+                addKeys(resourceNames, valuesList, index + 1, prefix, keys);
+
+                prefix.remove(prefix.size() - 1);
+                prefix.remove(prefix.size() - 1);
+            }
+        }
+    }
+
+    private List<String> getLookupKey(List<String> resourceNames, RangerAccessResource resource) {
+        List<String> ret = new ArrayList<>(resourceNames.size() * 2);
+
+        for(String resourceName : resourceNames) {
+            String value = resource.getValue(resourceName);
+
+            if(value == null) {
+                return null;
+            }
+
+            ret.add(resourceName);
+            ret.add(resourceDefs.get(resourceName).getKey(value));
+        }
+
+        return ret;
+    }
+
+    // merges buckets into a list ordered by position
+    private List<T> merge(List<Bucket<T>> buckets) {
+        int   size    = 0;
+        int[] offsets = new int[buckets.size()];
+
+        for(Bucket<T> bucket : buckets) {
+            size += bucket.evaluators.size();
+        }
+
+        List<T> ret = new ArrayList<>(size);
+
+        while(ret.size() < size) {
+            int minIdx      = -1;
+            int minPosition = Integer.MAX_VALUE;
+
+            for(int i = 0; i < offsets.length; i++) {
+                Bucket<T> bucket = buckets.get(i);
+
+                if(offsets[i] < bucket.positions.length && bucket.positions[offsets[i]] < minPosition) {
+                    minIdx      = i;
+                    minPosition = bucket.positions[offsets[i]];
+                }
+            }
+
+            ret.add(buckets.get(minIdx).evaluators.get(offsets[minIdx]));
+
+            offsets[minIdx]++;
+        }
+
+        return ret;
+    }
+
+    private static class ResourceDefInfo {
+        final boolean optIgnoreCase;
+        final String  specialChars;
+
+        ResourceDefInfo(RangerServiceDef.RangerResourceDef resourceDef) {
+            Map<String, String> matcherOptions = resourceDef.getMatcherOptions();
+
+            String specialChars = RangerAbstractResourceMatcher.getOptionWildCard(matcherOptions) ? DEFAULT_WILDCARD_CHARS : "";
+
+            if(RangerAbstractResourceMatcher.getOptionReplaceTokens(matcherOptions)) {
+                specialChars += RangerAbstractResourceMatcher.getOptionDelimiterStart(matcherOptions);
+                specialChars += RangerAbstractResourceMatcher.getOptionDelimiterEnd(matcherOptions);
+                specialChars += RangerAbstractResourceMatcher.getOptionDelimiterEscape(matcherOptions);
+            }
+
+            this.optIgnoreCase = RangerAbstractResourceMatcher.getOptionIgnoreCase(matcherOptions);
+            this.specialChars  = specialChars;
+        }
+
+        // values equal per String.equalsIgnoreCase(), as used by the matcher, have the same key
+        String getKey(String value) {
+            if(!optIgnoreCase) {
+                return value;
+            }
+
+            char[] chars = value.toCharArray();
+
+            for(int i = 0; i < chars.length; i++) {
+                chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+            }
+
+            return new String(chars);
+        }
+    }
+
+    private static class Bucket<T> {
+        final List<T> evaluators;
+        final int[]   positions;
+
+        Bucket(List<T> evaluators, int[] positions) {
+            this.evaluators = Collections.unmodifiableList(evaluators);
+            this.positions  = positions;
+        }
+
+        boolean isEmpty() {
+            return evaluators.isEmpty();
+        }
+    }
+
+    private static class BucketBuilder<T> {
+        final List<T>       evaluators = new ArrayList<>();
+        final List<Integer> positions  = new ArrayList<>();
+
+        void add(T evaluator, int position) {
+            evaluators.add(evaluator);
+            positions.add(position);
+        }
+
+        Bucket<T> build() {
+            int[] positions = new int[this.positions.size()];
+
+            for(int i = 0; i < positions.length; i++) {
+                positions[i] = this.positions.get(i);
+            }
+
+            return new Bucket<>(evaluators, positions);
+        }
+    }
+}
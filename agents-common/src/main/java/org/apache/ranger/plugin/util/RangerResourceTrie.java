@@ -30,10 +30,14 @@ import org.apache.ranger.plugin.resourcematcher.RangerAbstractResourceMatcher;
 import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 
 public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
@@ -112,10 +116,69 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         }
     }
 
+    private RangerResourceTrie(RangerResourceTrie<T> other, TrieNode root) {
+        this.resourceName  = other.resourceName;
+        this.optIgnoreCase = other.optIgnoreCase;
+        this.optWildcard   = other.optWildcard;
+        this.wildcardChars = other.wildcardChars;
+        this.root          = root;
+    }
+
     public String getResourceName() {
         return resourceName;
     }
 
+    /**
+     * Returns a trie having removedEvaluators removed from, and addedEvaluators added to, the evaluators of this trie.
+     * Only nodes along the values of the changed evaluators are copied; all other nodes are shared with this trie,
+     * which is not modified and can continue to be used for lookups.
+     *
+     * @return null if any changed evaluator is a wildcard evaluator for this resource (i.e. has wildcard/recursive/excludes
+     * values, matches any value or is for a parent resource), as these are merged into the lists of all descendant nodes.
+     * The caller should build a new trie in this case.
+     */
+    public RangerResourceTrie<T> copyWithChanges(RangerServiceDef.RangerResourceDef resourceDef, Collection<T> removedEvaluators, Collection<T> addedEvaluators) {
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerResourceTrie.copyWithChanges(" + resourceName + ", removedCount=" + removedEvaluators.size() + ", addedCount=" + addedEvaluators.size() + ")");
+        }
+
+        RangerResourceTrie<T> ret = null;
+
+        Map<T, List<String>> removedValues = getExactValues(resourceDef, removedEvaluators);
+        Map<T, List<String>> addedValues   = removedValues != null ? getExactValues(resourceDef, addedEvaluators) : null;
+
+        if(removedValues != null && addedValues != null) {
+            TrieNode      newRoot     = root.copy();
+            Set<TrieNode> copiedNodes = new HashSet<>();
+
+            copiedNodes.add(newRoot);
+
+            for(Map.Entry<T, List<String>> entry : removedValues.entrySet()) {
+                for(String value : entry.getValue()) {
+                    TrieNode node = copyPath(newRoot, value, false, copiedNodes);
+
+                    if(node != null) {
+                        node.removeEvaluator(entry.getKey());
+                    }
+                }
+            }
+
+            for(Map.Entry<T, List<String>> entry : addedValues.entrySet()) {
+                for(String value : entry.getValue()) {
+                    copyPath(newRoot, value, true, copiedNodes).addEvaluatorAndSort(entry.getKey());
+                }
+            }
+
+            ret = new RangerResourceTrie<>(this, newRoot);
+        }
+
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerResourceTrie.copyWithChanges(" + resourceName + ", removedCount=" + removedEvaluators.size() + ", addedCount=" + addedEvaluators.size() + "): " + (ret == null ? "not copied" : "copied"));
+        }
+
+        return ret;
+    }
+
     public List<T> getEvaluatorsForResource(String resource) {
         if(LOG.isDebugEnabled()) {
             LOG.debug("==> RangerResourceTrie.getEvaluatorsForResource(" + resource + ")");
@@ -169,6 +232,24 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         root.reorderEvaluators(null);
     }
 
+    /**
+     * Returns a copy of this trie with the evaluators in each node sorted by the given comparator; this trie is not
+     * modified and can continue to be used for lookups until the caller replaces it with the copy.
+     */
+    public RangerResourceTrie<T> copyWithReorderedEvaluators(Comparator<? super T> comparator) {
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerResourceTrie.copyWithReorderedEvaluators(" + resourceName + ")");
+        }
+
+        RangerResourceTrie<T> ret = new RangerResourceTrie<>(this, root.copyWithReorderedEvaluators(null, comparator));
+
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerResourceTrie.copyWithReorderedEvaluators(" + resourceName + ")");
+        }
+
+        return ret;
+    }
+
     private final Character getLookupChar(char ch) {
         if(optIgnoreCase) {
             ch = Character.toLowerCase(ch);
@@ -202,6 +283,86 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         }
     }
 
+    // returns null if any of the evaluators is a wildcard evaluator for this resource; see constructor for how evaluators are inserted
+    private Map<T, List<String>> getExactValues(RangerServiceDef.RangerResourceDef resourceDef, Collection<T> evaluators) {
+        Map<T, List<String>> ret = new HashMap<>();
+
+        for(T evaluator : evaluators) {
+            Map<String, RangerPolicyResource> policyResources = evaluator.getPolicyResource();
+            RangerPolicyResource              policyResource  = policyResources != null ? policyResources.get(resourceName) : null;
+
+            if(policyResource == null) {
+                if(evaluator.getLeafResourceLevel() != null && resourceDef.getLevel() != null && evaluator.getLeafResourceLevel() < resourceDef.getLevel()) {
+                    return null;
+                }
+
+                continue;
+            }
+
+            if(CollectionUtils.isEmpty(policyResource.getValues())) {
+                continue;
+            }
+
+            RangerResourceMatcher resourceMatcher = evaluator.getResourceMatcher(resourceName);
+
+            if(policyResource.getIsExcludes() || policyResource.getIsRecursive() || (resourceMatcher != null && resourceMatcher.isMatchAny())) {
+                return null;
+            }
+
+            for(String value : policyResource.getValues()) {
+                if(isWildcardValue(value)) {
+                    return null;
+                }
+            }
+
+            ret.put(evaluator, policyResource.getValues());
+        }
+
+        return ret;
+    }
+
+    private boolean isWildcardValue(String value) {
+        if(optWildcard) {
+            final int len = value.length();
+
+            for(int i = 0; i < len; i++) {
+                if(wildcardChars.indexOf(getLookupChar(value.charAt(i))) != -1) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // copies nodes from newRoot to the node for the value, unless already copied; returns null if the node doesn't exist and create is false
+    private TrieNode copyPath(TrieNode newRoot, String value, boolean create, Set<TrieNode> copiedNodes) {
+        TrieNode curr = newRoot;
+
+        final int len = value.length();
+        for(int i = 0; i < len; i++) {
+            Character ch    = getLookupChar(value.charAt(i));
+            TrieNode  child = curr.getChild(ch);
+
+            if(child == null) {
+                if(!create) {
+                    return null;
+                }
+
+                child = curr.createChildSharingWildcardEvaluators(ch);
+                copiedNodes.add(child);
+            } else if(!copiedNodes.contains(child)) {
+                child = child.copy();
+                curr.setChild(ch, child);
+                copiedNodes.add(child);
+            }
+
+            curr = child;
+        }
+
+        return curr;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -336,6 +497,61 @@ class TrieNode<T extends RangerPolicyResourceEvaluator> {
         return child;
     }
 
+    TrieNode copy() {
+        TrieNode ret = new TrieNode(c);
+
+        ret.children                          = children == null ? null : new HashMap<>(children);
+        ret.evaluators                        = evaluators;
+        ret.wildcardEvaluators                = wildcardEvaluators;
+        ret.isSharingParentWildcardEvaluators = isSharingParentWildcardEvaluators;
+
+        return ret;
+    }
+
+    void setChild(Character c, TrieNode child) {
+        if(children == null) {
+            children = new HashMap<>();
+        }
+
+        children.put(c, child);
+    }
+
+    // creates a child like postSetup() would for a node without evaluators of its own
+    TrieNode createChildSharingWildcardEvaluators(Character c) {
+        TrieNode child = new TrieNode(c);
+
+        child.wildcardEvaluators                = wildcardEvaluators;
+        child.evaluators                        = wildcardEvaluators;
+        child.isSharingParentWildcardEvaluators = true;
+
+        setChild(c, child);
+
+        return child;
+    }
+
+    // evaluator lists can be shared with other nodes and tries, hence are replaced instead of being updated in place
+    void addEvaluatorAndSort(T evaluator) {
+        if(evaluators == null || !evaluators.contains(evaluator)) {
+            List<T> newEvaluators = evaluators == null ? new ArrayList<T>() : new ArrayList<>(evaluators);
+
+            newEvaluators.add(evaluator);
+
+            Collections.sort(newEvaluators, new RangerPolicyResourceEvaluator.IdComparator());
+
+            evaluators = newEvaluators;
+        }
+    }
+
+    void removeEvaluator(T evaluator) {
+        if(evaluators != null && evaluators != wildcardEvaluators && evaluators.contains(evaluator)) {
+            List<T> newEvaluators = new ArrayList<>(evaluators);
+
+            newEvaluators.remove(evaluator);
+
+            evaluators = newEvaluators.size() == (wildcardEvaluators == null ? 0 : wildcardEvaluators.size()) ? wildcardEvaluators : newEvaluators;
+        }
+    }
+
     void addEvaluator(T evaluator) {
         if(evaluators == null) {
             evaluators = new ArrayList<>();
@@ -422,6 +638,27 @@ class TrieNode<T extends RangerPolicyResourceEvaluator> {
         }
     }
 
+    // copies this node and its descendants, retaining the sharing of evaluator lists done in postSetup()
+    TrieNode<T> copyWithReorderedEvaluators(List<T> parentWildcardEvaluators, Comparator<? super T> comparator) {
+        TrieNode<T> ret = new TrieNode<>(c);
+
+        ret.isSharingParentWildcardEvaluators = isSharingParentWildcardEvaluators;
+        ret.wildcardEvaluators                = isSharingParentWildcardEvaluators ? parentWildcardEvaluators : getSortedCopy(wildcardEvaluators, comparator);
+        ret.evaluators                        = evaluators == wildcardEvaluators ? ret.wildcardEvaluators : getSortedCopy(evaluators, comparator);
+
+        if(children != null) {
+            ret.children = new HashMap<>(children.size());
+
+            for(Map.Entry<Character, TrieNode> entry : children.entrySet()) {
+                TrieNode<T> child = entry.getValue();
+
+                ret.children.put(entry.getKey(), child.copyWithReorderedEvaluators(ret.wildcardEvaluators, comparator));
+            }
+        }
+
+        return ret;
+    }
+
     public void toString(String prefix, StringBuilder sb) {
         String nodeValue = prefix;
 
@@ -464,12 +701,16 @@ class TrieNode<T extends RangerPolicyResourceEvaluator> {
     }
 
     private List<T> getSortedCopy(List<T> evaluators) {
+        return getSortedCopy(evaluators, new RangerPolicyResourceEvaluator.IdComparator());
+    }
+
+    private List<T> getSortedCopy(List<T> evaluators, Comparator<? super T> comparator) {
         final List<T> ret;
 
         if(CollectionUtils.isNotEmpty(evaluators)) {
             ret = new ArrayList<>(evaluators);
 
-            Collections.sort(ret, new RangerPolicyResourceEvaluator.IdComparator());
+            Collections.sort(ret, comparator);
         } else {
             ret = evaluators;
         }
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.codehaus.jackson.annotate.JsonAutoDetect;
+import org.codehaus.jackson.annotate.JsonAutoDetect.Visibility;
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+/**
+ * Groups of users, as known to Ranger Admin. To keep the download compact, each group name is sent once in groupNames;
+ * userGroups maps each user to indexes into groupNames.
+ */
+@JsonAutoDetect(fieldVisibility=Visibility.ANY)
+@JsonSerialize(include=JsonSerialize.Inclusion.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown=true)
+@XmlRootElement
+@XmlAccessorType(XmlAccessType.FIELD)
+public class RangerUserStore implements java.io.Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private String              serviceName;
+	private Long                userStoreVersion;
+	private Date                userStoreUpdateTime;
+	private List<String>        groupNames;
+	private Map<String, int[]>  userGroups;
+
+	public RangerUserStore() {
+		this(null, -1L, null, null, null);
+	}
+
+	public RangerUserStore(String serviceName, Long userStoreVersion, Date userStoreUpdateTime, List<String> groupNames, Map<String, int[]> userGroups) {
+		setServiceName(serviceName);
+		setUserStoreVersion(userStoreVersion);
+		setUserStoreUpdateTime(userStoreUpdateTime);
+		setGroupNames(groupNames);
+		setUserGroups(userGroups);
+	}
+
+	public String getServiceName() {
+		return serviceName;
+	}
+
+	public void setServiceName(String serviceName) {
+		this.serviceName = serviceName;
+	}
+
+	public Long getUserStoreVersion() {
+		return userStoreVersion;
+	}
+
+	public void setUserStoreVersion(Long userStoreVersion) {
+		this.userStoreVersion = userStoreVersion;
+	}
+
+	public Date getUserStoreUpdateTime() {
+		return userStoreUpdateTime;
+	}
+
+	public void setUserStoreUpdateTime(Date userStoreUpdateTime) {
+		this.userStoreUpdateTime = userStoreUpdateTime;
+	}
+
+	public List<String> getGroupNames() {
+		return groupNames;
+	}
+
+	public void setGroupNames(List<String> groupNames) {
+		this.groupNames = groupNames;
+	}
+
+	public Map<String, int[]> getUserGroups() {
+		return userGroups;
+	}
+
+	public void setUserGroups(Map<String, int[]> userGroups) {
+		this.userGroups = userGroups;
+	}
+
+	/**
+	 * @return names of groups the user belongs to; null if the user is not in this store
+	 */
+	public Set<String> getGroupsForUser(String userName) {
+		int[] groupIdxs = (userName == null || userGroups == null) ? null : userGroups.get(userName);
+
+		if (groupIdxs == null) {
+			return null;
+		}
+
+		Set<String> ret = new HashSet<>(groupIdxs.length);
+
+		for (int groupIdx : groupIdxs) {
+			if (groupNames != null && groupIdx >= 0 && groupIdx < groupNames.size()) {
+				ret.add(groupNames.get(groupIdx));
+			}
+		}
+
+		return ret;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("RangerUserStore={")
+		  .append("serviceName=").append(serviceName).append(", ")
+		  .append("userStoreVersion=").append(userStoreVersion).append(", ")
+		  .append("userStoreUpdateTime=").append(userStoreUpdateTime).append(", ")
+		  .append("groupCount=").append(groupNames == null ? 0 : groupNames.size()).append(", ")
+		  .append("userCount=").append(userGroups == null ? 0 : userGroups.size())
+		  .append("}");
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.Reader;
+import java.io.Writer;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.admin.client.RangerAdminClient;
+import org.apache.ranger.plugin.service.RangerBasePlugin;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Keeps the user-store of the plugin up to date, by downloading it from Ranger Admin whenever its version changes.
+ * The last downloaded user-store is saved in the policy cache directory, to be used when Ranger Admin is not
+ * reachable at startup.
+ */
+public class RangerUserStoreRefresher extends Thread {
+	private static final Log LOG = LogFactory.getLog(RangerUserStoreRefresher.class);
+
+	private final RangerBasePlugin  plugIn;
+	private final String            serviceName;
+	private final RangerAdminClient rangerAdmin;
+	private final long              pollingIntervalMs;
+	private final String            cacheFileName;
+	private final String            cacheDir;
+	private final Gson              gson;
+
+	private long    lastKnownVersion = -1L;
+	private long    lastActivationTimeInMillis;
+	private boolean userStoreSetInPlugin;
+
+	public RangerUserStoreRefresher(RangerBasePlugin plugIn, String serviceType, String appId, String serviceName, RangerAdminClient rangerAdmin, long pollingIntervalMs, String cacheDir) {
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerUserStoreRefresher(serviceName=" + serviceName + ").RangerUserStoreRefresher()");
+		}
+
+		this.plugIn            = plugIn;
+		this.serviceName       = serviceName;
+		this.rangerAdmin       = rangerAdmin;
+		this.pollingIntervalMs = pollingIntervalMs;
+		this.cacheDir          = cacheDir;
+
+		if(StringUtils.isEmpty(appId)) {
+			appId = serviceType;
+		}
+
+		String cacheFilename = String.format("%s_%s_userstore.json", appId, serviceName);
+		cacheFilename = cacheFilename.replace(File.separatorChar,  '_');
+		cacheFilename = cacheFilename.replace(File.pathSeparatorChar,  '_');
+
+		this.cacheFileName = cacheFilename;
+
+		Gson gson = null;
+		try {
+			gson = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z").create();
+		} catch(Throwable excp) {
+			LOG.fatal("RangerUserStoreRefresher(): failed to create GsonBuilder object", excp);
+		}
+		this.gson = gson;
+
+		setName("UserStoreRefresher(serviceName=" + serviceName + ")-" + getId());
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerUserStoreRefresher(serviceName=" + serviceName + ").RangerUserStoreRefresher()");
+		}
+	}
+
+	public long getLastKnownVersion() {
+		return lastKnownVersion;
+	}
+
+	public void startRefresher() {
+		loadUserStore();
+
+		super.start();
+	}
+
+	public void stopRefresher() {
+		super.interrupt();
+
+		try {
+			super.join();
+		} catch (InterruptedException excp) {
+			LOG.warn("RangerUserStoreRefresher(serviceName=" + serviceName + "): error while waiting for thread to exit", excp);
+		}
+	}
+
+	public void run() {
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerUserStoreRefresher(serviceName=" + serviceName + ").run()");
+		}
+
+		while(true) {
+			try {
+				Thread.sleep(pollingIntervalMs);
+			} catch(InterruptedException excp) {
+				LOG.info("RangerUserStoreRefresher(serviceName=" + serviceName + ").run(): interrupted! Exiting thread", excp);
+				break;
+			}
+
+			loadUserStore();
+		}
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerUserStoreRefresher(serviceName=" + serviceName + ").run()");
+		}
+	}
+
+	// Not designed for public access - only for testability
+	void loadUserStore() {
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerUserStoreRefresher(serviceName=" + serviceName + ").loadUserStore()");
+		}
+
+		RangerUserStore userStore = loadFromAdmin();
+
+		if (userStore == null) {
+			if (!userStoreSetInPlugin) {
+				userStore = loadFromCache();
+			}
+		} else {
+			saveToCache(userStore);
+		}
+
+		if (userStore != null) {
+			plugIn.setUserStore(userStore);
+
+			userStoreSetInPlugin       = true;
+			lastActivationTimeInMillis = System.currentTimeMillis();
+			lastKnownVersion           = userStore.getUserStoreVersion() == null ? -1 : userStore.getUserStoreVersion().longValue();
+		}
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerUserStoreRefresher(serviceName=" + serviceName + ").loadUserStore(): lastKnownVersion=" + lastKnownVersion);
+		}
+	}
+
+	private RangerUserStore loadFromAdmin() {
+		RangerUserStore ret = null;
+
+		try {
+			ret = rangerAdmin.getUserStoreIfUpdated(lastKnownVersion, lastActivationTimeInMillis);
+
+			if (ret != null) {
+				LOG.info("RangerUserStoreRefresher(serviceName=" + serviceName + "): found updated version. lastKnownVersion=" + lastKnownVersion + "; newVersion=" + ret.getUserStoreVersion());
+			} else if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerUserStoreRefresher(serviceName=" + serviceName + "): no update found. lastKnownVersion=" + lastKnownVersion);
+			}
+		} catch (Exception excp) {
+			LOG.error("RangerUserStoreRefresher(serviceName=" + serviceName + "): failed to refresh user-store. Will continue to use last known version (" + lastKnownVersion + ")", excp);
+		}
+
+		return ret;
+	}
+
+	private RangerUserStore loadFromCache() {
+		RangerUserStore ret       = null;
+		File            cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
+
+		if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
+			try (Reader reader = new FileReader(cacheFile)) {
+				ret = gson.fromJson(reader, RangerUserStore.class);
+
+				if (ret != null && !StringUtils.equals(serviceName, ret.getServiceName())) {
+					LOG.warn("ignoring unexpected serviceName '" + ret.getServiceName() + "' in cache file '" + cacheFile.getAbsolutePath() + "'");
+
+					ret.setServiceName(serviceName);
+				}
+			} catch (Exception excp) {
+				LOG.error("failed to load user-store from cache file " + cacheFile.getAbsolutePath(), excp);
+			}
+		} else {
+			LOG.warn("user-store cache file does not exist or not readable '" + (cacheFile == null ? null : cacheFile.getAbsolutePath()) + "'");
+		}
+
+		return ret;
+	}
+
+	private void saveToCache(RangerUserStore userStore) {
+		if (cacheDir == null) {
+			return;
+		}
+
+		File cacheDirTmp = new File(cacheDir);
+
+		if (!cacheDirTmp.exists()) {
+			try {
+				cacheDirTmp.mkdirs();
+			} catch (SecurityException ex) {
+				LOG.error("Cannot create cache directory", ex);
+
+				return;
+			}
+		}
+
+		File cacheFile = new File(cacheDir + File.separator + cacheFileName);
+
+		try (Writer writer = new FileWriter(cacheFile)) {
+			gson.toJson(userStore, writer);
+		} catch (Exception excp) {
+			LOG.error("failed to save user-store to cache file '" + cacheFile.getAbsolutePath() + "'", excp);
+		}
+	}
+}
@@ -58,6 +58,9 @@ public class ServiceTags implements java.io.Serializable {
 	private Map<Long, RangerTag>        tags;
 	private List<RangerServiceResource> serviceResources;
 	private Map<Long, List<Long>>       resourceToTagIds;
+	private boolean                     isDelta;
+	private List<Long>                  deletedServiceResourceIds;
+	private List<Long>                  deletedTagIds;
 
 	public ServiceTags() {
 		this(OP_ADD_OR_UPDATE, null, 0L, null, null, null, null, null);
@@ -162,6 +165,34 @@ public class ServiceTags implements java.io.Serializable {
 		this.resourceToTagIds = resourceToTagIds == null ? new HashMap<Long, List<Long>>() : resourceToTagIds;
 	}
 
+	/**
+	 * @return true if this contains only the changes since the version known to the plugin; in a delta serviceResources,
+	 * tags and resourceToTagIds have only the added/updated entries
+	 */
+	public boolean getIsDelta() {
+		return isDelta;
+	}
+
+	public void setIsDelta(boolean isDelta) {
+		this.isDelta = isDelta;
+	}
+
+	public List<Long> getDeletedServiceResourceIds() {
+		return deletedServiceResourceIds;
+	}
+
+	public void setDeletedServiceResourceIds(List<Long> deletedServiceResourceIds) {
+		this.deletedServiceResourceIds = deletedServiceResourceIds;
+	}
+
+	public List<Long> getDeletedTagIds() {
+		return deletedTagIds;
+	}
+
+	public void setDeletedTagIds(List<Long> deletedTagIds) {
+		this.deletedTagIds = deletedTagIds;
+	}
+
 	@Override
 	public String toString( ) {
 		StringBuilder sb = new StringBuilder();
@@ -176,7 +207,8 @@ public class ServiceTags implements java.io.Serializable {
 				.append("op=").append(op).append(", ")
 				.append("serviceName=").append(serviceName).append(", ")
 				.append("tagVersion=").append(tagVersion).append(", ")
-				.append("tagUpdateTime={").append(tagUpdateTime).append("}")
+				.append("tagUpdateTime={").append(tagUpdateTime).append("}, ")
+				.append("isDelta=").append(isDelta)
 				.append("}");
 
 		return sb;
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Computes, merges and applies tag deltas - ServiceTags with getIsDelta() true, that carry only the service-resources,
+ * tags and resource-to-tag mappings added or updated since a version, along with the ids of deleted resources and tags.
+ * ServiceTags passed to these methods are not modified.
+ */
+public class ServiceTagsDeltaUtil {
+	private static final Log LOG = LogFactory.getLog(ServiceTagsDeltaUtil.class);
+
+	/**
+	 * @return changes needed to get from 'from' to 'to'
+	 */
+	public static ServiceTags getDelta(ServiceTags from, ServiceTags to) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceTagsDeltaUtil.getDelta(fromVersion=" + from.getTagVersion() + ", toVersion=" + to.getTagVersion() + ")");
+		}
+
+		ServiceTags ret = createDelta(to);
+
+		Map<Long, RangerServiceResource> fromResources = getServiceResourcesById(from.getServiceResources());
+		Set<Long>                        toResourceIds = new LinkedHashSet<>();
+
+		for (RangerServiceResource toResource : to.getServiceResources()) {
+			RangerServiceResource fromResource = fromResources.get(toResource.getId());
+
+			toResourceIds.add(toResource.getId());
+
+			if (fromResource == null || !Objects.equals(fromResource.getResourceElements(), toResource.getResourceElements())) {
+				ret.getServiceResources().add(toResource);
+			}
+		}
+
+		for (Long resourceId : fromResources.keySet()) {
+			if (!toResourceIds.contains(resourceId)) {
+				ret.getDeletedServiceResourceIds().add(resourceId);
+			}
+		}
+
+		for (Map.Entry<Long, List<Long>> entry : to.getResourceToTagIds().entrySet()) {
+			if (!Objects.equals(entry.getValue(), from.getResourceToTagIds().get(entry.getKey()))) {
+				ret.getResourceToTagIds().put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		for (Long resourceId : from.getResourceToTagIds().keySet()) {
+			if (toResourceIds.contains(resourceId) && !to.getResourceToTagIds().containsKey(resourceId)) {
+				ret.getResourceToTagIds().put(resourceId, new ArrayList<Long>());
+			}
+		}
+
+		for (Map.Entry<Long, RangerTag> entry : to.getTags().entrySet()) {
+			if (!Objects.equals(entry.getValue(), from.getTags().get(entry.getKey()))) {
+				ret.getTags().put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		for (Long tagId : from.getTags().keySet()) {
+			if (!to.getTags().containsKey(tagId)) {
+				ret.getDeletedTagIds().add(tagId);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceTagsDeltaUtil.getDelta(fromVersion=" + from.getTagVersion() + ", toVersion=" + to.getTagVersion() + "): " + toString(ret));
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @return a single delta having the changes of 'older' followed by those of 'newer'
+	 */
+	public static ServiceTags mergeDeltas(ServiceTags older, ServiceTags newer) {
+		ServiceTags ret = createDelta(newer);
+
+		Map<Long, RangerServiceResource> serviceResources = getServiceResourcesById(older.getServiceResources());
+		Set<Long>                        deletedResources = new LinkedHashSet<>(getIds(older.getDeletedServiceResourceIds()));
+		Set<Long>                        deletedTags      = new LinkedHashSet<>(getIds(older.getDeletedTagIds()));
+
+		ret.getResourceToTagIds().putAll(older.getResourceToTagIds());
+		ret.getTags().putAll(older.getTags());
+
+		for (Long resourceId : getIds(newer.getDeletedServiceResourceIds())) {
+			serviceResources.remove(resourceId);
+			ret.getResourceToTagIds().remove(resourceId);
+			deletedResources.add(resourceId);
+		}
+
+		for (RangerServiceResource serviceResource : newer.getServiceResources()) {
+			serviceResources.put(serviceResource.getId(), serviceResource);
+			deletedResources.remove(serviceResource.getId());
+		}
+
+		ret.getResourceToTagIds().putAll(newer.getResourceToTagIds());
+
+		for (Long tagId : getIds(newer.getDeletedTagIds())) {
+			ret.getTags().remove(tagId);
+			deletedTags.add(tagId);
+		}
+
+		for (Long tagId : newer.getTags().keySet()) {
+			deletedTags.remove(tagId);
+		}
+
+		ret.getTags().putAll(newer.getTags());
+		ret.getServiceResources().addAll(serviceResources.values());
+		ret.getDeletedServiceResourceIds().addAll(deletedResources);
+		ret.getDeletedTagIds().addAll(deletedTags);
+
+		return ret;
+	}
+
+	/**
+	 * @return new ServiceTags having the contents of 'base' updated with the changes in 'delta'
+	 */
+	public static ServiceTags applyDelta(ServiceTags base, ServiceTags delta) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceTagsDeltaUtil.applyDelta(baseVersion=" + base.getTagVersion() + ", " + toString(delta) + ")");
+		}
+
+		Set<Long>                   removedResourceIds = new HashSet<Long>(getIds(delta.getDeletedServiceResourceIds()));
+		Map<Long, RangerTag>        tags               = new HashMap<>(base.getTags());
+		Map<Long, List<Long>>       resourceToTagIds   = new HashMap<>(base.getResourceToTagIds());
+		List<RangerServiceResource> serviceResources   = new ArrayList<>(base.getServiceResources().size() + delta.getServiceResources().size());
+
+		for (RangerServiceResource serviceResource : delta.getServiceResources()) {
+			removedResourceIds.add(serviceResource.getId());
+		}
+
+		for (RangerServiceResource serviceResource : base.getServiceResources()) {
+			if (!removedResourceIds.contains(serviceResource.getId())) {
+				serviceResources.add(serviceResource);
+			}
+		}
+
+		serviceResources.addAll(delta.getServiceResources());
+
+		for (Long resourceId : getIds(delta.getDeletedServiceResourceIds())) {
+			resourceToTagIds.remove(resourceId);
+		}
+
+		for (Map.Entry<Long, List<Long>> entry : delta.getResourceToTagIds().entrySet()) {
+			if (CollectionUtils.isEmpty(entry.getValue())) {
+				resourceToTagIds.remove(entry.getKey());
+			} else {
+				resourceToTagIds.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		for (Long tagId : getIds(delta.getDeletedTagIds())) {
+			tags.remove(tagId);
+		}
+
+		tags.putAll(delta.getTags());
+
+		ServiceTags ret = new ServiceTags(base.getOp(), delta.getServiceName(), delta.getTagVersion(), delta.getTagUpdateTime(), delta.getTagDefinitions(), tags, serviceResources, resourceToTagIds);
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceTagsDeltaUtil.applyDelta(baseVersion=" + base.getTagVersion() + ", " + toString(delta) + "): resourceCount=" + serviceResources.size() + ", tagCount=" + tags.size());
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @return number of resources and tags in the delta - a rough measure of the work needed to apply it
+	 */
+	public static int getChangeCount(ServiceTags delta) {
+		return delta.getServiceResources().size() + getIds(delta.getDeletedServiceResourceIds()).size() + delta.getResourceToTagIds().size()
+		       + delta.getTags().size() + getIds(delta.getDeletedTagIds()).size();
+	}
+
+	private static ServiceTags createDelta(ServiceTags to) {
+		ServiceTags ret = new ServiceTags(to.getOp(), to.getServiceName(), to.getTagVersion(), to.getTagUpdateTime(), to.getTagDefinitions(), null, null, null);
+
+		ret.setIsDelta(true);
+		ret.setDeletedServiceResourceIds(new ArrayList<Long>());
+		ret.setDeletedTagIds(new ArrayList<Long>());
+
+		return ret;
+	}
+
+	private static List<Long> getIds(List<Long> ids) {
+		return ids == null ? Collections.<Long>emptyList() : ids;
+	}
+
+	private static Map<Long, RangerServiceResource> getServiceResourcesById(List<RangerServiceResource> serviceResources) {
+		Map<Long, RangerServiceResource> ret = new LinkedHashMap<>();
+
+		for (RangerServiceResource serviceResource : serviceResources) {
+			ret.put(serviceResource.getId(), serviceResource);
+		}
+
+		return ret;
+	}
+
+	private static String toString(ServiceTags delta) {
+		return "tagVersion=" + delta.getTagVersion()
+		       + ", updatedResources=" + delta.getServiceResources().size() + ", deletedResources=" + getIds(delta.getDeletedServiceResourceIds()).size()
+		       + ", updatedTags=" + delta.getTags().size() + ", deletedTags=" + getIds(delta.getDeletedTagIds()).size()
+		       + ", updatedResourceToTagIds=" + delta.getResourceToTagIds().size();
+	}
+}
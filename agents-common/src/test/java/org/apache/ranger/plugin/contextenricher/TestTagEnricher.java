@@ -26,6 +26,7 @@ import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import org.apache.ranger.plugin.contextenricher.TestTagEnricher.TagEnricherTestCase.TestData;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.plugin.model.RangerTag;
@@ -33,6 +34,7 @@ import org.apache.ranger.plugin.model.RangerTagDef;
 import org.apache.ranger.plugin.policyengine.*;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.plugin.util.ServiceTagsDeltaUtil;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -42,6 +44,8 @@ import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -68,19 +72,26 @@ public class TestTagEnricher {
     public void testTagEnricher_hive() {
         String[] hiveTestResourceFiles = { "/contextenricher/test_tagenricher_hive.json" };
 
-        runTestsFromResourceFiles(hiveTestResourceFiles);
+        runTestsFromResourceFiles(hiveTestResourceFiles, false);
     }
 
-    private void runTestsFromResourceFiles(String[] resourceNames) {
+    @Test
+    public void testTagEnricher_hive_delta() {
+        String[] hiveTestResourceFiles = { "/contextenricher/test_tagenricher_hive.json" };
+
+        runTestsFromResourceFiles(hiveTestResourceFiles, true);
+    }
+
+    private void runTestsFromResourceFiles(String[] resourceNames, boolean applyAsDelta) {
         for(String resourceName : resourceNames) {
             InputStream       inStream = this.getClass().getResourceAsStream(resourceName);
             InputStreamReader reader   = new InputStreamReader(inStream);
 
-            runTests(reader, resourceName);
+            runTests(reader, resourceName, applyAsDelta);
         }
     }
 
-    private void runTests(InputStreamReader reader, String testName) {
+    private void runTests(InputStreamReader reader, String testName, boolean applyAsDelta) {
         TagEnricherTestCase testCase = gsonBuilder.fromJson(reader, TagEnricherTestCase.class);
 
         assertTrue("invalid input: " + testName, testCase != null && testCase.serviceDef != null && testCase.serviceResources != null && testCase.tests != null);
@@ -96,38 +107,123 @@ public class TestTagEnricher {
 
         tagEnricher.setServiceName(testCase.serviceName);
         tagEnricher.setServiceDef(testCase.serviceDef);
-        tagEnricher.setServiceTags(serviceTags);
+        if (applyAsDelta) {
+            // start with different tags, and get to the tags of the test-case by applying the changes
+            ServiceTags oldServiceTags = getModifiedServiceTags(serviceTags);
 
-        List<String> expectedTags = new ArrayList<>();
-        List<String> resultTags   = new ArrayList<>();
+            tagEnricher.setServiceTags(oldServiceTags);
+
+            ServiceTags delta = ServiceTagsDeltaUtil.getDelta(oldServiceTags, serviceTags);
+
+            assertTrue(delta.getIsDelta());
+            assertEquals(serviceTags.getServiceResources().size(), tagEnricher.applyServiceTagsDelta(delta).getServiceResources().size());
+        } else {
+            tagEnricher.setServiceTags(serviceTags);
+        }
+
+        Map<String, List<RangerAccessRequest>> requestsByDatabase = new HashMap<>();
+        Map<RangerAccessRequest, TestData>     testsByRequest     = new IdentityHashMap<>();
 
         for (TestData test : testCase.tests) {
             RangerAccessRequestImpl request = new RangerAccessRequestImpl(test.resource, test.accessType, "testUser", null);
 
             tagEnricher.enrich(request);
 
-            List<RangerTag> expected = test.result;
+            assertTags(test, RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext()));
 
-            Set<RangerTagForEval> result   = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+            RangerAccessRequestImpl   batchRequest = new RangerAccessRequestImpl(test.resource, test.accessType, "testUser", null);
+            List<RangerAccessRequest> batch        = requestsByDatabase.get(test.resource.getValue("database"));
 
-            expectedTags.clear();
-            if(expected != null) {
-                for (RangerTag tag : expected) {
-                    expectedTags.add(tag.getType());
-                }
-                Collections.sort(expectedTags);
+            if (batch == null) {
+                batch = new ArrayList<>();
+
+                requestsByDatabase.put(test.resource.getValue("database"), batch);
             }
 
-            resultTags.clear();
-            if(result != null) {
-                for(RangerTagForEval tag : result) {
-                    resultTags.add(tag.getType());
-                }
-                Collections.sort(resultTags);
+            batch.add(batchRequest);
+            testsByRequest.put(batchRequest, test);
+        }
+
+        // requests enriched together, which share lookups of the common resource, must get the same tags
+        for (List<RangerAccessRequest> batch : requestsByDatabase.values()) {
+            tagEnricher.enrich(batch);
+
+            for (RangerAccessRequest request : batch) {
+                assertTags(testsByRequest.get(request), RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext()));
             }
+        }
+    }
 
-            assertEquals(test.name, expectedTags, resultTags);
+    private void assertTags(TestData test, Set<RangerTagForEval> result) {
+        List<String> expectedTags = new ArrayList<>();
+        List<String> resultTags   = new ArrayList<>();
+
+        if(test.result != null) {
+            for (RangerTag tag : test.result) {
+                expectedTags.add(tag.getType());
+            }
+            Collections.sort(expectedTags);
         }
+
+        if(result != null) {
+            for(RangerTagForEval tag : result) {
+                resultTags.add(tag.getType());
+            }
+            Collections.sort(resultTags);
+        }
+
+        assertEquals(test.name, expectedTags, resultTags);
+    }
+
+    // removes a resource and a tag, updates a resource and a resource-to-tag mapping, and adds a resource and a tag
+    private ServiceTags getModifiedServiceTags(ServiceTags serviceTags) {
+        ServiceTags                 ret              = new ServiceTags();
+        List<RangerServiceResource> serviceResources = new ArrayList<>();
+        Map<Long, List<Long>>       resourceToTagIds = new HashMap<>(serviceTags.getResourceToTagIds());
+        Map<Long, RangerTag>        tags             = new HashMap<>(serviceTags.getTags());
+
+        for (RangerServiceResource serviceResource : serviceTags.getServiceResources()) {
+            if (serviceResource.getId() == 1L) {
+                Map<String, RangerPolicyResource> resourceElements = new HashMap<>(serviceResource.getResourceElements());
+
+                resourceElements.put("table", new RangerPolicyResource("payroll"));
+
+                serviceResources.add(new RangerServiceResource(serviceResource.getGuid(), serviceResource.getServiceName(), resourceElements));
+                serviceResources.get(serviceResources.size() - 1).setId(serviceResource.getId());
+            } else if (serviceResource.getId() != 4L) {
+                serviceResources.add(serviceResource);
+            }
+        }
+
+        Map<String, RangerPolicyResource> resourceElements = new HashMap<>();
+
+        resourceElements.put("database", new RangerPolicyResource("hr"));
+        resourceElements.put("table", new RangerPolicyResource("salary"));
+        resourceElements.put("column", new RangerPolicyResource("amount"));
+
+        RangerServiceResource addedResource = new RangerServiceResource(null, serviceTags.getServiceName(), resourceElements);
+
+        addedResource.setId(100L);
+        serviceResources.add(addedResource);
+
+        resourceToTagIds.remove(4L);
+        resourceToTagIds.put(3L, Collections.singletonList(1L));
+        resourceToTagIds.put(100L, Collections.singletonList(100L));
+
+        RangerTag addedTag = new RangerTag("ADDED_TAG", null);
+
+        addedTag.setId(100L);
+        tags.put(100L, addedTag);
+        tags.remove(4L);
+
+        ret.setServiceName(serviceTags.getServiceName());
+        ret.setTagVersion(serviceTags.getTagVersion() - 1);
+        ret.setTagDefinitions(serviceTags.getTagDefinitions());
+        ret.setTags(tags);
+        ret.setServiceResources(serviceResources);
+        ret.setResourceToTagIds(resourceToTagIds);
+
+        return ret;
     }
 
     static class TagEnricherTestCase {
@@ -34,6 +34,9 @@ import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
 import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
 import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.policyengine.TestPolicyEngine.PolicyEngineTestCase.TestData;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
@@ -50,6 +53,11 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -295,16 +303,92 @@ public class TestPolicyEngine {
 		runTestsFromResourceFiles(resourceFiles);
 	}
 
+	@Test
+	public void testPolicyEngine_adaptiveEvaluatorOrder() {
+		String[] resourceFiles = { "/policyengine/test_policyengine_hdfs.json", "/policyengine/test_policyengine_hive.json",
+		                           "/policyengine/test_policyengine_hbase_multiple_matching_policies.json", "/policyengine/test_policyengine_hive_mask_filter.json" };
+
+		runTestsFromResourceFiles(resourceFiles, true);
+	}
+
+	@Test
+	public void testPolicyEngine_adaptiveEvaluatorOrderReducesEvaluations() {
+		InputStream          inStream = this.getClass().getResourceAsStream("/policyengine/test_policyengine_hdfs.json");
+		PolicyEngineTestCase testCase = gsonBuilder.fromJson(new InputStreamReader(inStream), PolicyEngineTestCase.class);
+		List<RangerPolicy>   policies = new ArrayList<RangerPolicy>();
+
+		// two policies on the same resource: with the static order, policy for user1 is evaluated first but access for
+		// user2 is always determined by the second policy
+		for (long id = 1; id <= 2; id++) {
+			RangerPolicyItem item   = new RangerPolicyItem();
+			RangerPolicy     policy = new RangerPolicy();
+
+			item.getUsers().add("user" + id);
+			item.getAccesses().add(new RangerPolicyItemAccess("read", true));
+
+			policy.setId(id);
+			policy.setName("policy-" + id);
+			policy.setService(testCase.serviceName);
+			policy.getResources().put("path", new RangerPolicyResource("/finance/*", false, false));
+			policy.getPolicyItems().add(item);
+
+			policies.add(policy);
+		}
+
+		ServicePolicies servicePolicies = new ServicePolicies();
+
+		servicePolicies.setServiceName(testCase.serviceName);
+		servicePolicies.setServiceDef(testCase.serviceDef);
+		servicePolicies.setPolicies(policies);
+
+		RangerPolicyEngineOptions policyEngineOptions = new RangerPolicyEngineOptions();
+
+		policyEngineOptions.adaptiveEvaluatorOrder      = true;
+		policyEngineOptions.evaluatorReorderMinRequests = 10;
+
+		RangerPolicyEngineImpl policyEngine = new RangerPolicyEngineImpl("test-adaptive-order", servicePolicies, policyEngineOptions);
+		RangerAccessRequest    request      = new RangerAccessRequestImpl(new RangerAccessResourceImpl(Collections.singletonMap("path", "/finance/q1.txt")),
+		                                                                  "read", "user2", new HashSet<String>());
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(policyEngine.isAccessAllowed(request, null).getIsAllowed());
+		}
+
+		policyEngine.reorderPolicyEvaluators();
+
+		assertEquals(2.0, policyEngine.getEvaluationsPerRequest(), 0.0);
+
+		for (int i = 0; i < 9; i++) {
+			assertTrue(policyEngine.isAccessAllowed(request, null).getIsAllowed());
+		}
+
+		policyEngine.reorderPolicyEvaluators(); // too few requests since last reorder: not measured
+
+		assertEquals(2.0, policyEngine.getEvaluationsPerRequest(), 0.0);
+
+		assertTrue(policyEngine.isAccessAllowed(request, null).getIsAllowed());
+
+		policyEngine.reorderPolicyEvaluators();
+
+		// the policy that determines access is now evaluated first
+		assertEquals(1.0, policyEngine.getEvaluationsPerRequest(), 0.0);
+		assertEquals(1.0, policyEngine.getEvaluationsPerRequestSaved(), 0.0);
+	}
+
 	private void runTestsFromResourceFiles(String[] resourceNames) {
+		runTestsFromResourceFiles(resourceNames, false);
+	}
+
+	private void runTestsFromResourceFiles(String[] resourceNames, boolean adaptiveEvaluatorOrder) {
 		for(String resourceName : resourceNames) {
 			InputStream inStream = this.getClass().getResourceAsStream(resourceName);
 			InputStreamReader reader   = new InputStreamReader(inStream);
 
-			runTests(reader, resourceName);
+			runTests(reader, resourceName, adaptiveEvaluatorOrder);
 		}
 	}
 
-	private void runTests(InputStreamReader reader, String testName) {
+	private void runTests(InputStreamReader reader, String testName, boolean adaptiveEvaluatorOrder) {
 		PolicyEngineTestCase testCase = gsonBuilder.fromJson(reader, PolicyEngineTestCase.class);
 
 		assertTrue("invalid input: " + testName, testCase != null && testCase.serviceDef != null && testCase.policies != null && testCase.tests != null);
@@ -333,6 +417,8 @@ public class TestPolicyEngine {
 		RangerPolicyEngineOptions policyEngineOptions = new RangerPolicyEngineOptions();
 
 		policyEngineOptions.disableTagPolicyEvaluation = false;
+		policyEngineOptions.adaptiveEvaluatorOrder      = adaptiveEvaluatorOrder;
+		policyEngineOptions.evaluatorReorderMinRequests = 0;
 
 		boolean useForwardedIPAddress = RangerConfiguration.getInstance().getBoolean("ranger.plugin.hive.use.x-forwarded-for.ipaddress", false);
 		String trustedProxyAddressString = RangerConfiguration.getInstance().get("ranger.plugin.hive.trusted.proxy.ipaddresses");
@@ -349,6 +435,9 @@ public class TestPolicyEngine {
 
 		RangerAccessRequest request = null;
 
+		List<RangerAccessRequest> dataMaskRequests = new ArrayList<RangerAccessRequest>();
+		List<TestData>            dataMaskTests    = new ArrayList<TestData>();
+
 		for(TestData test : testCase.tests) {
 			request = test.request;
 			if ((requestCount++ % 10) == 1) {
@@ -444,6 +533,9 @@ public class TestPolicyEngine {
 				assertEquals("maskCondition mismatched! - " + test.name, expected.getMaskCondition(), result.getMaskCondition());
 				assertEquals("maskedValue mismatched! - " + test.name, expected.getMaskedValue(), result.getMaskedValue());
 				assertEquals("policyId mismatched! - " + test.name, expected.getPolicyId(), result.getPolicyId());
+
+				dataMaskRequests.add(request);
+				dataMaskTests.add(test);
 			}
 
 			if(test.rowFilterResult != null) {
@@ -466,6 +558,58 @@ public class TestPolicyEngine {
 				assertEquals("deniedGroups mismatched! - " + test.name, expected.getDeniedGroups(), result.getDeniedGroups());
 			}
 		}
+
+		if(!dataMaskRequests.isEmpty()) {
+			// batch evaluation must return the same results as evaluation of each request: for all requests, and for
+			// requests of each table, which are evaluated against the policies looked up for the table
+			assertDataMaskBatch(policyEngine, dataMaskRequests, dataMaskTests, testName);
+
+			Map<String, List<Integer>> indexesByTable = new LinkedHashMap<String, List<Integer>>();
+
+			for(int i = 0; i < dataMaskRequests.size(); i++) {
+				RangerAccessResource resource = dataMaskRequests.get(i).getResource();
+				String               table    = resource.getValue("database") + "." + resource.getValue("table");
+				List<Integer>        indexes  = indexesByTable.get(table);
+
+				if(indexes == null) {
+					indexes = new ArrayList<Integer>();
+
+					indexesByTable.put(table, indexes);
+				}
+
+				indexes.add(i);
+			}
+
+			for(List<Integer> indexes : indexesByTable.values()) {
+				List<RangerAccessRequest> requests = new ArrayList<RangerAccessRequest>();
+				List<TestData>            tests    = new ArrayList<TestData>();
+
+				for(Integer i : indexes) {
+					requests.add(dataMaskRequests.get(i));
+					tests.add(dataMaskTests.get(i));
+				}
+
+				assertDataMaskBatch(policyEngine, requests, tests, testName);
+			}
+		}
+	}
+
+	private void assertDataMaskBatch(RangerPolicyEngine policyEngine, List<RangerAccessRequest> requests, List<TestData> tests, String testName) {
+		Collection<RangerDataMaskResult> results = policyEngine.evalDataMaskPolicies(requests, new RangerDefaultAuditHandler());
+
+		assertEquals("dataMask batch result count mismatched! - " + testName, requests.size(), results.size());
+
+		int i = 0;
+
+		for(RangerDataMaskResult result : results) {
+			TestData             test     = tests.get(i++);
+			RangerDataMaskResult expected = test.dataMaskResult;
+
+			assertEquals("batch maskType mismatched! - " + test.name, expected.getMaskType(), result.getMaskType());
+			assertEquals("batch maskCondition mismatched! - " + test.name, expected.getMaskCondition(), result.getMaskCondition());
+			assertEquals("batch maskedValue mismatched! - " + test.name, expected.getMaskedValue(), result.getMaskedValue());
+			assertEquals("batch policyId mismatched! - " + test.name, expected.getPolicyId(), result.getPolicyId());
+		}
 	}
 
 	static class PolicyEngineTestCase {
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemRowFilterInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerRowFilterPolicyItem;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+
+/*
+ * Verifies that data-mask and row-filter results with the exact-value index are the same as with resource-tries
+ */
+public class TestPolicyEngineResourceIndex {
+	private static final String   TEST_FILE = "/policyengine/test_policyengine_hive_mask_filter.json";
+	private static final String[] USERS     = { "user1", "user2", "user3", "hive" };
+	private static final String[] DATABASES = { "employee", "hr", "db_0", "db_1", "DB_2", "db_3", "db_4", "db_5" };
+	private static final String[] TABLES    = { "personal", "employee", "tbl_0", "TBL_1", "tbl_2", "tbl_3", "tbl_4", "other" };
+	private static final String[] COLUMNS   = { "ssn", "date_of_birth", "col_0", "col_1", "Col_2", "col_3", "col_4", "other" };
+
+	private final Gson gson = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z").create();
+
+	@Test
+	public void testIndexAsTrie() throws Exception {
+		long[] evaluatedCounts = runTests(getServiceDef(false));
+
+		// without wildcards, all data-mask and row-filter policies are indexed by their exact-valued resources
+		Assert.assertTrue("index evaluated more policies than trie: " + Arrays.toString(evaluatedCounts), evaluatedCounts[1] <= evaluatedCounts[0]);
+	}
+
+	@Test
+	public void testIndexAsTrieWithWildcards() throws Exception {
+		runTests(getServiceDef(true));
+	}
+
+	@Test
+	public void testIndexAsTrieAfterAdaptiveReorder() throws Exception {
+		RangerServiceDef serviceDef = getServiceDef(true);
+		ServicePolicies  policies   = getServicePolicies(serviceDef);
+
+		RangerPolicyEngineOptions trieOptions  = getOptions(true);
+		RangerPolicyEngineOptions indexOptions = getOptions(false);
+
+		trieOptions.adaptiveEvaluatorOrder       = true;
+		trieOptions.evaluatorReorderMinRequests  = 0;
+		indexOptions.adaptiveEvaluatorOrder      = true;
+		indexOptions.evaluatorReorderMinRequests = 0;
+
+		RangerPolicyEngineImpl trieEngine  = new RangerPolicyEngineImpl("test-resource-index", policies, trieOptions);
+		RangerPolicyEngineImpl indexEngine = new RangerPolicyEngineImpl("test-resource-index", policies, indexOptions);
+
+		compareResults(serviceDef, trieEngine, indexEngine);
+
+		trieEngine.reorderPolicyEvaluators();
+		indexEngine.reorderPolicyEvaluators();
+
+		compareResults(serviceDef, trieEngine, indexEngine);
+	}
+
+	// returns number of policies evaluated with trie and with index
+	private long[] runTests(RangerServiceDef serviceDef) throws Exception {
+		ServicePolicies policies = getServicePolicies(serviceDef);
+
+		RangerPolicyEngineImpl trieEngine  = new RangerPolicyEngineImpl("test-resource-index", policies, getOptions(true));
+		RangerPolicyEngineImpl indexEngine = new RangerPolicyEngineImpl("test-resource-index", policies, getOptions(false));
+
+		return compareResults(serviceDef, trieEngine, indexEngine);
+	}
+
+	// returns number of policies evaluated with trieEngine and indexEngine
+	private long[] compareResults(RangerServiceDef serviceDef, RangerPolicyEngine trieEngine, RangerPolicyEngine indexEngine) {
+		long[] ret            = new long[2];
+		int    maskCount      = 0;
+		int    rowFilterCount = 0;
+
+		for (String user : USERS) {
+			for (String database : DATABASES) {
+				for (String table : TABLES) {
+					RangerAccessRequest   tableRequest = createRequest(serviceDef, user, database, table, null);
+					RangerRowFilterResult expected     = trieEngine.evalRowFilterPolicies(tableRequest, null);
+					RangerRowFilterResult result       = indexEngine.evalRowFilterPolicies(tableRequest, null);
+					String                name         = user + ":" + database + "/" + table;
+
+					Assert.assertEquals("filterExpr mismatched! - " + name, expected.getFilterExpr(), result.getFilterExpr());
+					Assert.assertEquals("policyId mismatched! - " + name, expected.getPolicyId(), result.getPolicyId());
+					Assert.assertEquals("isAccessDetermined mismatched! - " + name, expected.getIsAccessDetermined(), result.getIsAccessDetermined());
+					Assert.assertEquals("isAudited mismatched! - " + name, expected.getIsAudited(), result.getIsAudited());
+
+					ret[0] += expected.getEvaluatedPoliciesCount();
+					ret[1] += result.getEvaluatedPoliciesCount();
+
+					if (expected.isRowFilterEnabled()) {
+						rowFilterCount++;
+					}
+
+					for (String column : COLUMNS) {
+						RangerAccessRequest  columnRequest = createRequest(serviceDef, user, database, table, column);
+						RangerDataMaskResult expectedMask  = trieEngine.evalDataMaskPolicies(columnRequest, null);
+						RangerDataMaskResult resultMask    = indexEngine.evalDataMaskPolicies(columnRequest, null);
+
+						name = user + ":" + database + "/" + table + "/" + column;
+
+						Assert.assertEquals("maskType mismatched! - " + name, expectedMask.getMaskType(), resultMask.getMaskType());
+						Assert.assertEquals("maskCondition mismatched! - " + name, expectedMask.getMaskCondition(), resultMask.getMaskCondition());
+						Assert.assertEquals("maskedValue mismatched! - " + name, expectedMask.getMaskedValue(), resultMask.getMaskedValue());
+						Assert.assertEquals("policyId mismatched! - " + name, expectedMask.getPolicyId(), resultMask.getPolicyId());
+						Assert.assertEquals("isAccessDetermined mismatched! - " + name, expectedMask.getIsAccessDetermined(), resultMask.getIsAccessDetermined());
+						Assert.assertEquals("isAudited mismatched! - " + name, expectedMask.getIsAudited(), resultMask.getIsAudited());
+
+						ret[0] += expectedMask.getEvaluatedPoliciesCount();
+						ret[1] += resultMask.getEvaluatedPoliciesCount();
+
+						if (expectedMask.isMaskEnabled()) {
+							maskCount++;
+						}
+					}
+				}
+			}
+		}
+
+		Assert.assertTrue("no column was masked", maskCount > 0);
+		Assert.assertTrue("no row-filter was applied", rowFilterCount > 0);
+
+		return ret;
+	}
+
+	private RangerPolicyEngineOptions getOptions(boolean disableIndex) {
+		RangerPolicyEngineOptions ret = new RangerPolicyEngineOptions();
+
+		ret.disableTagPolicyEvaluation    = true;
+		ret.disableDataMaskRowFilterIndex = disableIndex;
+
+		return ret;
+	}
+
+	private RangerAccessRequest createRequest(RangerServiceDef serviceDef, String user, String database, String table, String column) {
+		RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+		resource.setServiceDef(serviceDef);
+		resource.setValue("database", database);
+		resource.setValue("table", table);
+
+		if (column != null) {
+			resource.setValue("column", column);
+		}
+
+		return new RangerAccessRequestImpl(resource, "select", user, new HashSet<>(Collections.singletonList(user.equals("user3") ? "analysts" : "public")));
+	}
+
+	// with wildcards, policy values like "tbl_*" in data-mask and row-filter policies are matched as wildcards
+	private RangerServiceDef getServiceDef(boolean withWildcards) throws Exception {
+		InputStream inStream = this.getClass().getResourceAsStream(TEST_FILE);
+		JsonObject  testCase = new JsonParser().parse(new InputStreamReader(inStream)).getAsJsonObject();
+
+		RangerServiceDef ret = gson.fromJson(testCase.get("serviceDef"), RangerServiceDef.class);
+
+		if (withWildcards) {
+			List<RangerResourceDef> resourceDefs = new ArrayList<>(ret.getDataMaskDef().getResources());
+
+			resourceDefs.addAll(ret.getRowFilterDef().getResources());
+
+			for (RangerResourceDef resourceDef : resourceDefs) {
+				resourceDef.setMatcherOptions(Collections.singletonMap("wildCard", "true"));
+			}
+		}
+
+		return ret;
+	}
+
+	private ServicePolicies getServicePolicies(RangerServiceDef serviceDef) throws Exception {
+		InputStream        inStream = this.getClass().getResourceAsStream(TEST_FILE);
+		JsonObject         testCase = new JsonParser().parse(new InputStreamReader(inStream)).getAsJsonObject();
+		Type               listType = new TypeToken<List<RangerPolicy>>() {}.getType();
+		List<RangerPolicy> policies = gson.fromJson(testCase.get("policies"), listType);
+		long               policyId = 1000;
+
+		for (int i = 0; i < 5; i++) {
+			for (int j = 0; j < 5; j++) {
+				policies.add(createRowFilterPolicy(policyId++, values("db_" + i), values("tbl_" + j), "user" + ((i + j) % 3 + 1), "id = " + (i * 10 + j)));
+
+				for (int k = 0; k < 5; k++) {
+					policies.add(createDataMaskPolicy(policyId++, values("db_" + i), values("tbl_" + j), values("col_" + k), "user" + ((i + j + k) % 3 + 1), "MASK"));
+				}
+			}
+		}
+
+		// multiple values, in a different case than requested
+		policies.add(createDataMaskPolicy(policyId++, values("DB_0", "db_1"), values("tbl_1"), values("COL_2", "col_3"), "user3", "SHUFFLE"));
+		policies.add(createRowFilterPolicy(policyId++, values("db_2", "DB_3"), values("TBL_1", "tbl_4"), "user1", "dept = 'sales'"));
+
+		// wildcards, excludes and match-any - which are not indexed
+		policies.add(createDataMaskPolicy(policyId++, values("db_1"), values("*"), values("col_2"), "user1", "NULL"));
+		policies.add(createDataMaskPolicy(policyId++, values("db_*"), values("tbl_?"), values("col_*"), "analysts", "NULL"));
+		policies.add(createDataMaskPolicy(policyId++, values("db_3"), values("tbl_3"), excludes("col_0", "col_1"), "user2", "SHUFFLE"));
+		policies.add(createRowFilterPolicy(policyId++, values("db_0"), values("tbl_*"), "user2", "1 = 0"));
+		policies.add(createRowFilterPolicy(policyId++, values("*"), values("other"), "analysts", "dept = 'none'"));
+
+		ServicePolicies ret = new ServicePolicies();
+
+		ret.setServiceName("hivedev");
+		ret.setServiceDef(serviceDef);
+		ret.setPolicies(policies);
+		ret.setPolicyVersion(1L);
+
+		return ret;
+	}
+
+	private RangerPolicy createDataMaskPolicy(long id, RangerPolicyResource database, RangerPolicyResource table, RangerPolicyResource column, String principal, String maskType) {
+		RangerPolicy ret = createPolicy(id, RangerPolicy.POLICY_TYPE_DATAMASK, database, table);
+
+		ret.getResources().put("column", column);
+		ret.getDataMaskPolicyItems().add(new RangerDataMaskPolicyItem(accesses(), new RangerPolicyItemDataMaskInfo(maskType, null, null),
+		                                                              users(principal), groups(principal), new ArrayList<RangerPolicyItemCondition>(), false));
+
+		return ret;
+	}
+
+	private RangerPolicy createRowFilterPolicy(long id, RangerPolicyResource database, RangerPolicyResource table, String principal, String filterExpr) {
+		RangerPolicy ret = createPolicy(id, RangerPolicy.POLICY_TYPE_ROWFILTER, database, table);
+
+		ret.getRowFilterPolicyItems().add(new RangerRowFilterPolicyItem(new RangerPolicyItemRowFilterInfo(filterExpr), accesses(),
+		                                                                users(principal), groups(principal), new ArrayList<RangerPolicyItemCondition>(), false));
+
+		return ret;
+	}
+
+	private RangerPolicy createPolicy(long id, int policyType, RangerPolicyResource database, RangerPolicyResource table) {
+		Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+		resources.put("database", database);
+		resources.put("table", table);
+
+		RangerPolicy ret = new RangerPolicy("hivedev", "policy-" + id, policyType, "", resources, null, null);
+
+		ret.setId(id);
+		ret.setIsEnabled(true);
+		ret.setIsAuditEnabled(true);
+
+		return ret;
+	}
+
+	private RangerPolicyResource values(String... values) {
+		return new RangerPolicyResource(Arrays.asList(values), false, false);
+	}
+
+	private RangerPolicyResource excludes(String... values) {
+		return new RangerPolicyResource(Arrays.asList(values), true, false);
+	}
+
+	private List<RangerPolicyItemAccess> accesses() {
+		return new ArrayList<>(Collections.singletonList(new RangerPolicyItemAccess("select", true)));
+	}
+
+	private List<String> users(String principal) {
+		return principal.startsWith("user") ? new ArrayList<>(Collections.singletonList(principal)) : new ArrayList<String>();
+	}
+
+	private List<String> groups(String principal) {
+		return principal.startsWith("user") ? new ArrayList<String>() : new ArrayList<>(Collections.singletonList(principal));
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestRangerBasePlugin {
+	private static final String SERVICE_NAME = "cl1_hdfs";
+
+	private RangerBasePlugin plugin;
+
+	@Before
+	public void setUp() throws Exception {
+		RangerPolicy policy = new RangerPolicy();
+
+		policy.setId(1L);
+		policy.setService(SERVICE_NAME);
+		policy.setName("finance");
+		policy.setResources(Collections.singletonMap("path", new RangerPolicyResource("/finance/*", false, true)));
+		policy.setPolicyItems(Arrays.asList(new RangerPolicyItem(Arrays.asList(new RangerPolicyItemAccess("read")), null, Arrays.asList("finance"), null, false)));
+
+		ServicePolicies policies = new ServicePolicies();
+
+		policies.setServiceName(SERVICE_NAME);
+		policies.setServiceDef(EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef("hdfs"));
+		policies.setPolicyVersion(1L);
+		policies.setPolicies(Arrays.asList(policy));
+
+		Map<String, int[]> userGroups = new HashMap<String, int[]>();
+
+		userGroups.put("user1", new int[] { 0 });
+
+		plugin = new RangerBasePlugin("hdfs", "test");
+
+		plugin.setPolicies(policies);
+		plugin.setUserStore(new RangerUserStore(SERVICE_NAME, 1L, new Date(), Arrays.asList("finance"), userGroups));
+	}
+
+	@Test
+	public void testRequestGroupsMergedWithUserStore() {
+		plugin.setAugmentRequestGroups(true);
+
+		RangerAccessRequestImpl request = createRequest("user1", "staff");
+		RangerAccessResult      result  = plugin.isAccessAllowed(request, null);
+
+		Assert.assertTrue(result.getIsAllowed());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("staff", "finance")), request.getUserGroups());
+
+		// no groups in the request
+		request = createRequest("user1");
+		request.setUserGroups(null);
+
+		Assert.assertTrue(plugin.isAccessAllowed(request, null).getIsAllowed());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("finance")), request.getUserGroups());
+
+		// user not in the user-store
+		request = createRequest("user2", "staff");
+
+		Assert.assertFalse(plugin.isAccessAllowed(request, null).getIsAllowed());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("staff")), request.getUserGroups());
+	}
+
+	@Test
+	public void testRequestGroupsNotAugmented() {
+		plugin.setAugmentRequestGroups(false);
+
+		RangerAccessRequestImpl request = createRequest("user1", "staff");
+		RangerAccessResult      result  = plugin.isAccessAllowed(request, null);
+
+		Assert.assertFalse(result.getIsAllowed());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("staff")), request.getUserGroups());
+
+		// user-store groups are still available to the host
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("finance")), plugin.getGroupsForUser("user1"));
+	}
+
+	private static RangerAccessRequestImpl createRequest(String user, String... groups) {
+		RangerAccessResourceImpl resource = new RangerAccessResourceImpl(Collections.singletonMap("path", "/finance/q1.csv"));
+
+		return new RangerAccessRequestImpl(resource, "read", user, new HashSet<String>(Arrays.asList(groups)));
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRangerPerfMetrics {
+
+	@After
+	public void tearDown() {
+		RangerPerfMetrics.setEnabled(false, RangerPerfMetrics.DEFAULT_SAMPLE_RATE);
+		RangerPerfMetrics.setPerEvaluator(false);
+		RangerPerfMetrics.clear();
+	}
+
+	@Test
+	public void testBucketBounds() {
+		for (long value = 0; value < 100000; value++) {
+			int  idx        = RangerLatencyHistogram.getBucketIndex(value);
+			long upperBound = RangerLatencyHistogram.getBucketUpperBound(idx);
+
+			Assert.assertTrue("value=" + value + ", upperBound=" + upperBound, value <= upperBound);
+			Assert.assertTrue("value=" + value + ", upperBound=" + upperBound, upperBound - value <= Math.max(1, value / 8));
+
+			if (idx > 0) {
+				Assert.assertTrue("value=" + value, RangerLatencyHistogram.getBucketUpperBound(idx - 1) < value);
+			}
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		RangerLatencyHistogram histogram = new RangerLatencyHistogram("test");
+
+		for (long i = 1; i <= 1000; i++) {
+			histogram.recordMicros(i);
+		}
+
+		RangerLatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+		Assert.assertEquals(1000, snapshot.getCount());
+		Assert.assertEquals(1000, snapshot.getMaxMicros());
+		Assert.assertEquals(500.5, snapshot.getMeanMicros(), 0.01);
+		assertWithin(500, snapshot.getPercentileMicros(50));
+		assertWithin(990, snapshot.getPercentileMicros(99));
+		Assert.assertEquals(1000, snapshot.getPercentileMicros(100));
+
+		histogram.reset();
+
+		Assert.assertEquals(0, histogram.getSnapshot().getCount());
+		Assert.assertEquals(0, histogram.getSnapshot().getPercentileMicros(99));
+	}
+
+	@Test
+	public void testTracerRecordsWhenEnabled() {
+		Log logger = LogFactory.getLog("org.apache.ranger.perf.test.metrics");
+
+		Assert.assertFalse(RangerPerfMetrics.isSampled());
+		Assert.assertNull(RangerPerfTracer.getPerfTracer(logger, "Test.disabled(id=1)"));
+
+		RangerPerfMetrics.setEnabled(true, 1);
+		RangerPerfMetrics.setPerEvaluator(true);
+
+		Assert.assertTrue(RangerPerfTracer.isPerfTraceEnabled(logger));
+
+		for (int i = 0; i < 10; i++) {
+			RangerPerfTracer perf = RangerPerfTracer.getPerfTracer(logger, "RangerPolicyEvaluator.evaluate(requestHashCode=1,policyId=" + (i % 2) + ", policyName=p)");
+
+			Assert.assertNotNull(perf);
+
+			RangerPerfTracer.log(perf);
+		}
+
+		Map<String, RangerLatencyHistogram.Snapshot> snapshots = RangerPerfMetrics.getSnapshots();
+
+		Assert.assertEquals(10, snapshots.get("RangerPolicyEvaluator.evaluate").getCount());
+		Assert.assertEquals(5, snapshots.get("RangerPolicyEvaluator.evaluate[policyId=0]").getCount());
+		Assert.assertEquals(5, snapshots.get("RangerPolicyEvaluator.evaluate[policyId=1]").getCount());
+		Assert.assertNull(snapshots.get("Test.disabled"));
+		Assert.assertTrue(RangerPerfMetrics.toText().startsWith("RangerPolicyEvaluator.evaluate count=10 "));
+	}
+
+	private void assertWithin(long expected, long actual) {
+		Assert.assertTrue("expected=" + expected + ", actual=" + actual, actual >= expected && actual <= expected + expected / 8);
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandler;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.core.header.InBoundHeaders;
+
+public class TestRangerRESTClientFilter {
+	private static final String URL = "http://admin-host:6080/service/plugins/policies/download/cl1_hdfs";
+
+	@Test
+	public void testAuthCookieReuse() {
+		StubHandler            handler = new StubHandler();
+		RangerRESTClientFilter filter  = new RangerRESTClientFilter(0, 0);
+		Client                 client  = new Client(handler);
+
+		client.addFilter(filter);
+
+		handler.respond(200, "hadoop.auth=\"u=hdfs&t=kerberos&e=1\"; Path=/; HttpOnly", "other=1", "RANGERADMINSESSIONID=abc; Path=/");
+		client.resource(URL).get(ClientResponse.class);
+		Assert.assertNull(handler.cookies.get(0));
+
+		handler.respond(304);
+		client.resource(URL).get(ClientResponse.class);
+		Assert.assertEquals("hadoop.auth=\"u=hdfs&t=kerberos&e=1\"; RANGERADMINSESSIONID=abc", handler.cookies.get(1));
+
+		// cookies are per server
+		handler.respond(304);
+		client.resource("http://other-host:6080/service/plugins/policies/download/cl1_hdfs").get(ClientResponse.class);
+		Assert.assertNull(handler.cookies.get(2));
+
+		// rejected cookies are not sent again
+		handler.respond(401);
+		client.resource(URL).get(ClientResponse.class);
+		handler.respond(304);
+		client.resource(URL).get(ClientResponse.class);
+		Assert.assertNull(handler.cookies.get(4));
+
+		Assert.assertEquals(5, filter.getRequestCount());
+		Assert.assertEquals(0, filter.getFailedRequestCount());
+		Assert.assertEquals(2, filter.getAuthCookieReuseCount());
+	}
+
+	@Test
+	public void testMaxConcurrentRequests() throws Exception {
+		final CountDownLatch   started  = new CountDownLatch(1);
+		final CountDownLatch   release  = new CountDownLatch(1);
+		final Client           client   = new Client(new ClientHandler() {
+			@Override
+			public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+				started.countDown();
+
+				try {
+					release.await();
+				} catch (InterruptedException excp) {
+					// ignore
+				}
+
+				return new ClientResponse(500, new InBoundHeaders(), new ByteArrayInputStream(new byte[0]), null);
+			}
+		});
+		final RangerRESTClientFilter filter   = new RangerRESTClientFilter(1, 10);
+
+		client.addFilter(filter);
+
+		Thread inProgress = new Thread() {
+			@Override
+			public void run() {
+				client.resource(URL).get(ClientResponse.class);
+			}
+		};
+
+		inProgress.start();
+		started.await();
+
+		try {
+			client.resource(URL).get(ClientResponse.class);
+
+			Assert.fail("expected request to be rejected");
+		} catch (ClientHandlerException excp) {
+			// expected
+		}
+
+		release.countDown();
+		inProgress.join();
+
+		Assert.assertEquals(1, filter.getAvailablePermits());
+		Assert.assertEquals(1, filter.getRequestCount());
+		Assert.assertEquals(2, filter.getFailedRequestCount()); // rejected and HTTP 500
+	}
+
+	private static class StubHandler implements ClientHandler {
+		final List<String>         cookies   = new ArrayList<>();
+		final LinkedList<Object[]> responses = new LinkedList<>();
+
+		void respond(int status, String... setCookies) {
+			responses.add(new Object[] { status, setCookies });
+		}
+
+		@Override
+		public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+			Object         cookie   = request.getHeaders().getFirst("Cookie");
+			Object[]       response = responses.removeFirst();
+			InBoundHeaders headers  = new InBoundHeaders();
+
+			cookies.add(cookie == null ? null : cookie.toString());
+
+			for (String setCookie : (String[]) response[1]) {
+				headers.add("Set-Cookie", setCookie);
+			}
+
+			return new ClientResponse((Integer) response[0], headers, new ByteArrayInputStream(new byte[0]), null);
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.apache.ranger.admin.client.RangerAdminClient;
+import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+public class TestRangerUserStoreRefresher {
+	private static final String SERVICE_NAME = "cl1_hdfs";
+
+	@Rule
+	public TemporaryFolder cacheDir = new TemporaryFolder();
+
+	@Test
+	public void testLoadFromAdminAndCache() throws Exception {
+		RangerAdminClient admin  = Mockito.mock(RangerAdminClient.class);
+		RangerBasePlugin  plugin = new RangerBasePlugin("hdfs", "test");
+
+		Mockito.when(admin.getUserStoreIfUpdated(-1L, 0L)).thenReturn(createUserStore(5L));
+
+		RangerUserStoreRefresher refresher = new RangerUserStoreRefresher(plugin, "hdfs", "test", SERVICE_NAME, admin, 1000, cacheDir.getRoot().getAbsolutePath());
+
+		Assert.assertNull(plugin.getGroupsForUser("user1")); // not loaded yet
+
+		refresher.loadUserStore();
+
+		Assert.assertEquals(5L, refresher.getLastKnownVersion());
+		Assert.assertEquals(5L, plugin.getUserStoreVersion());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("group1", "group2")), plugin.getGroupsForUser("user1"));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("group2")), plugin.getGroupsForUser("user2"));
+		Assert.assertTrue(plugin.getGroupsForUser("user3").isEmpty());
+		Assert.assertNull(plugin.getGroupsForUser("unknown"));
+		Assert.assertTrue(new File(cacheDir.getRoot(), "test_" + SERVICE_NAME + "_userstore.json").isFile());
+
+		refresher.loadUserStore(); // not modified: admin returns null
+
+		Assert.assertEquals(5L, plugin.getUserStoreVersion());
+
+		// cold start, with admin not reachable
+		RangerAdminClient unreachableAdmin = Mockito.mock(RangerAdminClient.class);
+		RangerBasePlugin  plugin2          = new RangerBasePlugin("hdfs", "test");
+
+		Mockito.when(unreachableAdmin.getUserStoreIfUpdated(Mockito.anyLong(), Mockito.anyLong())).thenThrow(new RuntimeException("connection refused"));
+
+		new RangerUserStoreRefresher(plugin2, "hdfs", "test", SERVICE_NAME, unreachableAdmin, 1000, cacheDir.getRoot().getAbsolutePath()).loadUserStore();
+
+		Assert.assertEquals(5L, plugin2.getUserStoreVersion());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("group1", "group2")), plugin2.getGroupsForUser("user1"));
+	}
+
+	private static RangerUserStore createUserStore(long version) {
+		Map<String, int[]> userGroups = new HashMap<String, int[]>();
+
+		userGroups.put("user1", new int[] { 0, 1 });
+		userGroups.put("user2", new int[] { 1 });
+		userGroups.put("user3", new int[0]);
+
+		return new RangerUserStore(SERVICE_NAME, version, new Date(), Arrays.asList("group1", "group2"), userGroups);
+	}
+}
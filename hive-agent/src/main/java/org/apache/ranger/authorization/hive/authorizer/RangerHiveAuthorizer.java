@@ -556,16 +556,14 @@ public class RangerHiveAuthorizer extends RangerHiveAuthorizerBase {
 					if (CollectionUtils.isNotEmpty(hiveObj.getColumns())) {
 						List<String> columnTransformers = new ArrayList<String>();
 
-						for (String column : hiveObj.getColumns()) {
-							boolean isColumnTransformed = addCellValueTransformerAndCheckIfTransformed(queryContext, database, table, column, columnTransformers);
+						boolean isAnyColumnTransformed = addCellValueTransformersAndCheckIfTransformed(queryContext, database, table, hiveObj.getColumns(), columnTransformers);
 
-							if(LOG.isDebugEnabled()) {
-								LOG.debug("addCellValueTransformerAndCheckIfTransformed(database=" + database + ", table=" + table + ", column=" + column + "): " + isColumnTransformed);
-							}
-
-							needToTransform = needToTransform || isColumnTransformed;
+						if(LOG.isDebugEnabled()) {
+							LOG.debug("addCellValueTransformersAndCheckIfTransformed(database=" + database + ", table=" + table + ", columns=" + hiveObj.getColumns() + "): " + isAnyColumnTransformed);
 						}
 
+						needToTransform = needToTransform || isAnyColumnTransformed;
+
 						hiveObj.setCellValueTransformers(columnTransformers);
 					}
 				}
@@ -648,7 +646,20 @@ public class RangerHiveAuthorizer extends RangerHiveAuthorizerBase {
 			RangerHiveResource      resource       = new RangerHiveResource(objectType, databaseName, tableOrViewName);
 			RangerHiveAccessRequest request        = new RangerHiveAccessRequest(resource, user, groups, objectType.name(), HiveAccessType.SELECT, context, sessionContext, clusterName);
 
-			RangerRowFilterResult result = hivePlugin.evalRowFilterPolicies(request, auditHandler);
+			RangerHiveRowFilterMaskCache cache         = hivePlugin.getRowFilterMaskCache();
+			long                         policyVersion = hivePlugin.getPolicyVersion();
+			long                         tagVersion    = hivePlugin.getTagVersion();
+			RangerRowFilterResult        result        = cache == null ? null : cache.getRowFilterResult(request, policyVersion, tagVersion);
+
+			if(result != null) {
+				auditHandler.processResult(result);
+			} else {
+				result = hivePlugin.evalRowFilterPolicies(request, auditHandler);
+
+				if(cache != null) {
+					cache.putRowFilterResult(request, result, policyVersion, tagVersion);
+				}
+			}
 
 			if(isRowFilterEnabled(result)) {
 				ret = result.getFilterExpr();
@@ -664,7 +675,11 @@ public class RangerHiveAuthorizer extends RangerHiveAuthorizerBase {
 		return ret;
 	}
 
-	private boolean addCellValueTransformerAndCheckIfTransformed(HiveAuthzContext context, String databaseName, String tableOrViewName, String columnName, List<String> columnTransformers) throws SemanticException {
+	/*
+	 * Data-mask results of all the columns not found in the row-filter/mask cache are evaluated with a single call to the
+	 * policy engine; columnTransformers gets the transformer of each column, in the order of columnNames
+	 */
+	private boolean addCellValueTransformersAndCheckIfTransformed(HiveAuthzContext context, String databaseName, String tableOrViewName, List<String> columnNames, List<String> columnTransformers) throws SemanticException {
 		UserGroupInformation ugi = getCurrentUserGroupInfo();
 
 		String clusterName = hivePlugin.getClusterName();
@@ -673,70 +688,111 @@ public class RangerHiveAuthorizer extends RangerHiveAuthorizerBase {
 		}
 
 		if(LOG.isDebugEnabled()) {
-			LOG.debug("==> addCellValueTransformerAndCheckIfTransformed(" + databaseName + ", " + tableOrViewName + ", " + columnName + ")");
+			LOG.debug("==> addCellValueTransformersAndCheckIfTransformed(" + databaseName + ", " + tableOrViewName + ", " + columnNames + ")");
 		}
 
 		boolean ret = false;
-		String columnTransformer = columnName;
 
 		RangerHiveAuditHandler auditHandler = new RangerHiveAuditHandler();
 
 		try {
-			HiveAuthzSessionContext sessionContext = getHiveAuthzSessionContext();
-			String                  user           = ugi.getShortUserName();
-			Set<String>             groups         = Sets.newHashSet(ugi.getGroupNames());
-			HiveObjectType          objectType     = HiveObjectType.COLUMN;
-			RangerHiveResource      resource       = new RangerHiveResource(objectType, databaseName, tableOrViewName, columnName);
-			RangerHiveAccessRequest request        = new RangerHiveAccessRequest(resource, user, groups, objectType.name(), HiveAccessType.SELECT, context, sessionContext, clusterName);
-
-			RangerDataMaskResult result = hivePlugin.evalDataMaskPolicies(request, auditHandler);
+			HiveAuthzSessionContext           sessionContext = getHiveAuthzSessionContext();
+			String                            user           = ugi.getShortUserName();
+			Set<String>                       groups         = Sets.newHashSet(ugi.getGroupNames());
+			HiveObjectType                    objectType     = HiveObjectType.COLUMN;
+			RangerHiveRowFilterMaskCache      cache          = hivePlugin.getRowFilterMaskCache();
+			long                              policyVersion  = hivePlugin.getPolicyVersion();
+			long                              tagVersion     = hivePlugin.getTagVersion();
+			Map<String, RangerDataMaskResult> results        = new HashMap<String, RangerDataMaskResult>();
+			List<RangerAccessRequest>         requestsToEval = new ArrayList<RangerAccessRequest>();
+
+			for (String columnName : columnNames) {
+				RangerHiveResource      resource = new RangerHiveResource(objectType, databaseName, tableOrViewName, columnName);
+				RangerHiveAccessRequest request  = new RangerHiveAccessRequest(resource, user, groups, objectType.name(), HiveAccessType.SELECT, context, sessionContext, clusterName);
+				RangerDataMaskResult    result   = cache == null ? null : cache.getDataMaskResult(request, policyVersion, tagVersion);
+
+				if(result != null) {
+					auditHandler.processResult(result);
+
+					results.put(columnName, result);
+				} else {
+					requestsToEval.add(request);
+				}
+			}
 
-			ret = isDataMaskEnabled(result);
+			if(!requestsToEval.isEmpty()) {
+				Collection<RangerDataMaskResult> evalResults = hivePlugin.evalDataMaskPolicies(requestsToEval, auditHandler);
 
-			if(ret) {
-				String                maskType    = result.getMaskType();
-				RangerDataMaskTypeDef maskTypeDef = result.getMaskTypeDef();
-				String transformer	= null;
-				if (maskTypeDef != null) {
-					transformer = maskTypeDef.getTransformer();
-				}
+				if(evalResults != null) {
+					for (RangerDataMaskResult result : evalResults) {
+						RangerAccessRequest request = result.getAccessRequest();
 
-				if(StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_NULL)) {
-					columnTransformer = "NULL";
-				} else if(StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_CUSTOM)) {
-					String maskedValue = result.getMaskedValue();
+						if(cache != null) {
+							cache.putDataMaskResult(request, result, policyVersion, tagVersion);
+						}
 
-					if(maskedValue == null) {
-						columnTransformer = "NULL";
-					} else {
-						columnTransformer = maskedValue.replace("{col}", columnName);
+						results.put(request.getResource().getValue(RangerHiveResource.KEY_COLUMN), result);
 					}
-
-				} else if(StringUtils.isNotEmpty(transformer)) {
-					columnTransformer = transformer.replace("{col}", columnName);
 				}
+			}
 
-				/*
-				String maskCondition = result.getMaskCondition();
+			for (String columnName : columnNames) {
+				RangerDataMaskResult result = results.get(columnName);
 
-				if(StringUtils.isNotEmpty(maskCondition)) {
-					ret = "if(" + maskCondition + ", " + ret + ", " + columnName + ")";
+				if(isDataMaskEnabled(result)) {
+					ret = true;
+
+					columnTransformers.add(getCellValueTransformer(result, columnName));
+				} else {
+					columnTransformers.add(columnName);
 				}
-				*/
 			}
 		} finally {
 			auditHandler.flushAudit();
 		}
 
-		columnTransformers.add(columnTransformer);
-
 		if(LOG.isDebugEnabled()) {
-			LOG.debug("<== addCellValueTransformerAndCheckIfTransformed(" + databaseName + ", " + tableOrViewName + ", " + columnName + "): " + ret);
+			LOG.debug("<== addCellValueTransformersAndCheckIfTransformed(" + databaseName + ", " + tableOrViewName + ", " + columnNames + "): " + ret);
 		}
 
 		return ret;
 	}
 
+	private String getCellValueTransformer(RangerDataMaskResult result, String columnName) {
+		String                ret         = columnName;
+		String                maskType    = result.getMaskType();
+		RangerDataMaskTypeDef maskTypeDef = result.getMaskTypeDef();
+		String transformer	= null;
+		if (maskTypeDef != null) {
+			transformer = maskTypeDef.getTransformer();
+		}
+
+		if(StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_NULL)) {
+			ret = "NULL";
+		} else if(StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_CUSTOM)) {
+			String maskedValue = result.getMaskedValue();
+
+			if(maskedValue == null) {
+				ret = "NULL";
+			} else {
+				ret = maskedValue.replace("{col}", columnName);
+			}
+
+		} else if(StringUtils.isNotEmpty(transformer)) {
+			ret = transformer.replace("{col}", columnName);
+		}
+
+		/*
+		String maskCondition = result.getMaskCondition();
+
+		if(StringUtils.isNotEmpty(maskCondition)) {
+			ret = "if(" + maskCondition + ", " + ret + ", " + columnName + ")";
+		}
+		*/
+
+		return ret;
+	}
+
 	RangerHiveResource createHiveResource(HivePrivilegeObject privilegeObject) {
 		RangerHiveResource resource = null;
 
@@ -1558,7 +1614,12 @@ class RangerHivePlugin extends RangerBasePlugin {
 	private static String RANGER_PLUGIN_HIVE_ULRAUTH_FILESYSTEM_SCHEMES = "ranger.plugin.hive.urlauth.filesystem.schemes";
 	private static String RANGER_PLUGIN_HIVE_ULRAUTH_FILESYSTEM_SCHEMES_DEFAULT = "hdfs:,file:";
 	private static String FILESYSTEM_SCHEMES_SEPARATOR_CHAR = ",";
+	private static String RANGER_PLUGIN_HIVE_ROWFILTER_MASK_CACHE_SIZE = "ranger.plugin.hive.rowfilter.mask.cache.size";
+	private static String RANGER_PLUGIN_HIVE_ROWFILTER_MASK_CACHE_TTL_MS = "ranger.plugin.hive.rowfilter.mask.cache.ttl.ms";
+	private static int    RANGER_PLUGIN_HIVE_ROWFILTER_MASK_CACHE_SIZE_DEFAULT = 1000;
+	private static long   RANGER_PLUGIN_HIVE_ROWFILTER_MASK_CACHE_TTL_MS_DEFAULT = 30 * 1000;
 	private String[] fsScheme = null;
+	private RangerHiveRowFilterMaskCache rowFilterMaskCache = null;
 
 	public RangerHivePlugin(String appType) {
 		super("hive", appType);
@@ -1580,9 +1641,20 @@ class RangerHivePlugin extends RangerBasePlugin {
 				fsScheme[i] = fsScheme[i].trim();
 			}
 		}
+
+		int  rowFilterMaskCacheSize  = RangerConfiguration.getInstance().getInt(RANGER_PLUGIN_HIVE_ROWFILTER_MASK_CACHE_SIZE, RANGER_PLUGIN_HIVE_ROWFILTER_MASK_CACHE_SIZE_DEFAULT);
+		long rowFilterMaskCacheTtlMs = RangerConfiguration.getInstance().getLong(RANGER_PLUGIN_HIVE_ROWFILTER_MASK_CACHE_TTL_MS, RANGER_PLUGIN_HIVE_ROWFILTER_MASK_CACHE_TTL_MS_DEFAULT);
+
+		if (rowFilterMaskCacheSize > 0 && rowFilterMaskCacheTtlMs > 0) {
+			rowFilterMaskCache = new RangerHiveRowFilterMaskCache(rowFilterMaskCacheSize, rowFilterMaskCacheTtlMs);
+		}
 	}
 
 	public String[] getFSScheme() {
 		return fsScheme;
 	}
+
+	public RangerHiveRowFilterMaskCache getRowFilterMaskCache() {
+		return rowFilterMaskCache;
+	}
 }
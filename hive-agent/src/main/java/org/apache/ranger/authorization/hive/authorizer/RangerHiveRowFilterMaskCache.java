@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.hive.authorizer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ranger.plugin.policyengine.CacheMap;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerDataMaskResult;
+import org.apache.ranger.plugin.policyengine.RangerRowFilterResult;
+
+/**
+ * Cache of row-filter and column data-mask results, per user, groups, client addresses and table. An entry holds the row-filter
+ * result for the table and the data-mask results of its columns evaluated so far; it is used only with the policy and tag
+ * versions it was evaluated with, and only until ttlMs after it was created - to bound the staleness of results of
+ * policies having conditions on access time.
+ *
+ * Results returned are copies bound to the given request, so that they can be audited as if evaluated for it.
+ */
+class RangerHiveRowFilterMaskCache {
+	private final long                 ttlMs;
+	private final Map<TableKey, Entry> cache;
+
+	RangerHiveRowFilterMaskCache(int maxSize, long ttlMs) {
+		this.ttlMs = ttlMs;
+		this.cache = Collections.synchronizedMap(new CacheMap<TableKey, Entry>(maxSize));
+	}
+
+	RangerRowFilterResult getRowFilterResult(RangerAccessRequest request, long policyVersion, long tagVersion) {
+		Entry                 entry  = getEntry(new TableKey(request), policyVersion, tagVersion, false);
+		RangerRowFilterResult cached = entry == null ? null : entry.rowFilterResult;
+
+		return cached == null ? null : copyOf(cached, request);
+	}
+
+	void putRowFilterResult(RangerAccessRequest request, RangerRowFilterResult result, long policyVersion, long tagVersion) {
+		if (result != null) {
+			getEntry(new TableKey(request), policyVersion, tagVersion, true).rowFilterResult = result;
+		}
+	}
+
+	RangerDataMaskResult getDataMaskResult(RangerAccessRequest request, long policyVersion, long tagVersion) {
+		Entry                entry  = getEntry(new TableKey(request), policyVersion, tagVersion, false);
+		RangerDataMaskResult cached = entry == null ? null : entry.columnMaskResults.get(getColumnName(request));
+
+		return cached == null ? null : copyOf(cached, request);
+	}
+
+	void putDataMaskResult(RangerAccessRequest request, RangerDataMaskResult result, long policyVersion, long tagVersion) {
+		if (result != null) {
+			getEntry(new TableKey(request), policyVersion, tagVersion, true).columnMaskResults.put(getColumnName(request), result);
+		}
+	}
+
+	int size() {
+		return cache.size();
+	}
+
+	void clear() {
+		cache.clear();
+	}
+
+	// returns null if there is no valid entry for the key, unless create is true
+	private Entry getEntry(TableKey key, long policyVersion, long tagVersion, boolean create) {
+		synchronized (cache) {
+			Entry ret = cache.get(key);
+
+			if (ret != null && !ret.isValid(policyVersion, tagVersion)) {
+				cache.remove(key);
+
+				ret = null;
+			}
+
+			if (ret == null && create) {
+				ret = new Entry(policyVersion, tagVersion, System.currentTimeMillis() + ttlMs);
+
+				cache.put(key, ret);
+			}
+
+			return ret;
+		}
+	}
+
+	private static String getColumnName(RangerAccessRequest request) {
+		String ret = request.getResource().getValue(RangerHiveResource.KEY_COLUMN);
+
+		return ret == null ? "" : ret;
+	}
+
+	private static RangerRowFilterResult copyOf(RangerRowFilterResult result, RangerAccessRequest request) {
+		RangerRowFilterResult ret = new RangerRowFilterResult(result.getServiceName(), result.getServiceDef(), request);
+
+		copyResult(result, ret);
+
+		ret.setFilterExpr(result.getFilterExpr());
+
+		return ret;
+	}
+
+	private static RangerDataMaskResult copyOf(RangerDataMaskResult result, RangerAccessRequest request) {
+		RangerDataMaskResult ret = new RangerDataMaskResult(result.getServiceName(), result.getServiceDef(), request);
+
+		copyResult(result, ret);
+
+		ret.setMaskType(result.getMaskType());
+		ret.setMaskCondition(result.getMaskCondition());
+		ret.setMaskedValue(result.getMaskedValue());
+
+		return ret;
+	}
+
+	private static void copyResult(RangerAccessResult from, RangerAccessResult to) {
+		to.setAccessResultFrom(from);
+		to.setAuditResultFrom(from);
+	}
+
+	private static class Entry {
+		final long                                        policyVersion;
+		final long                                        tagVersion;
+		final long                                        expiryTime;
+		final ConcurrentMap<String, RangerDataMaskResult> columnMaskResults = new ConcurrentHashMap<>();
+		volatile RangerRowFilterResult                    rowFilterResult;
+
+		Entry(long policyVersion, long tagVersion, long expiryTime) {
+			this.policyVersion = policyVersion;
+			this.tagVersion    = tagVersion;
+			this.expiryTime    = expiryTime;
+		}
+
+		boolean isValid(long policyVersion, long tagVersion) {
+			return this.policyVersion == policyVersion && this.tagVersion == tagVersion && expiryTime > System.currentTimeMillis();
+		}
+	}
+
+	private static class TableKey {
+		final String       user;
+		final Set<String>  userGroups;
+		final String       remoteIPAddress;
+		final List<String> forwardedAddresses;
+		final String       database;
+		final String       table;
+		final int          hashCode;
+
+		TableKey(RangerAccessRequest request) {
+			this.user               = request.getUser();
+			this.userGroups         = request.getUserGroups();
+			this.remoteIPAddress    = request.getRemoteIPAddress();
+			this.forwardedAddresses = request.getForwardedAddresses();
+			this.database           = request.getResource().getValue(RangerHiveResource.KEY_DATABASE);
+			this.table              = request.getResource().getValue(RangerHiveResource.KEY_TABLE);
+			this.hashCode           = Objects.hash(user, userGroups, remoteIPAddress, forwardedAddresses, database, table);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof TableKey)) {
+				return false;
+			}
+
+			TableKey other = (TableKey) obj;
+
+			return hashCode == other.hashCode
+			       && Objects.equals(user, other.user)
+			       && Objects.equals(database, other.database)
+			       && Objects.equals(table, other.table)
+			       && Objects.equals(remoteIPAddress, other.remoteIPAddress)
+			       && Objects.equals(forwardedAddresses, other.forwardedAddresses)
+			       && Objects.equals(userGroups, other.userGroups);
+		}
+	}
+}
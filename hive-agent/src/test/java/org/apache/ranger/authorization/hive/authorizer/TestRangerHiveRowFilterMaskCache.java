@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.hive.authorizer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerDataMaskResult;
+import org.apache.ranger.plugin.policyengine.RangerRowFilterResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRangerHiveRowFilterMaskCache {
+	private static final long TTL_MS = 60 * 1000L;
+
+	@Test
+	public void testKeyedOnUserGroupsAndAddress() {
+		RangerHiveRowFilterMaskCache cache   = new RangerHiveRowFilterMaskCache(100, TTL_MS);
+		RangerAccessRequestImpl      request = createRequest("user1", "10.0.0.1", null, "group1");
+
+		cache.putRowFilterResult(request, createRowFilterResult(request, "id > 10"), 1, 1);
+
+		RangerAccessRequestImpl sameRequest = createRequest("user1", "10.0.0.1", null, "group1");
+		RangerRowFilterResult   result      = cache.getRowFilterResult(sameRequest, 1, 1);
+
+		Assert.assertNotNull(result);
+		Assert.assertEquals("id > 10", result.getFilterExpr());
+		Assert.assertSame("cached result must be bound to the given request", sameRequest, result.getAccessRequest());
+
+		Assert.assertNull(cache.getRowFilterResult(createRequest("user2", "10.0.0.1", null, "group1"), 1, 1));
+		Assert.assertNull(cache.getRowFilterResult(createRequest("user1", "10.0.0.1", null, "group2"), 1, 1));
+		Assert.assertNull(cache.getRowFilterResult(createRequest("user1", "10.0.0.1", null, "group1", "group2"), 1, 1));
+		Assert.assertNull(cache.getRowFilterResult(createRequest("user1", "10.0.0.2", null, "group1"), 1, 1));
+		Assert.assertNull(cache.getRowFilterResult(createRequest("user1", "10.0.0.1", "10.0.0.3", "group1"), 1, 1));
+		Assert.assertNull(cache.getRowFilterResult(createColumnRequest("user1", "10.0.0.1", null, "sales", "orders", null, "group1"), 1, 1));
+	}
+
+	@Test
+	public void testColumnMaskResults() {
+		RangerHiveRowFilterMaskCache cache = new RangerHiveRowFilterMaskCache(100, TTL_MS);
+		RangerAccessRequestImpl      ssn   = createColumnRequest("user1", "10.0.0.1", null, "finance", "employee", "ssn", "group1");
+		RangerAccessRequestImpl      name  = createColumnRequest("user1", "10.0.0.1", null, "finance", "employee", "name", "group1");
+
+		cache.putDataMaskResult(ssn, createDataMaskResult(ssn, "MASK_SHOW_LAST_4"), 1, 1);
+
+		RangerDataMaskResult result = cache.getDataMaskResult(createColumnRequest("user1", "10.0.0.1", null, "finance", "employee", "ssn", "group1"), 1, 1);
+
+		Assert.assertNotNull(result);
+		Assert.assertEquals("MASK_SHOW_LAST_4", result.getMaskType());
+		Assert.assertNull("no result yet for another column", cache.getDataMaskResult(name, 1, 1));
+
+		// column results of a table share one entry
+		cache.putDataMaskResult(name, createDataMaskResult(name, "MASK_NULL"), 1, 1);
+
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals("MASK_NULL", cache.getDataMaskResult(name, 1, 1).getMaskType());
+		Assert.assertEquals("MASK_SHOW_LAST_4", cache.getDataMaskResult(ssn, 1, 1).getMaskType());
+	}
+
+	@Test
+	public void testInvalidatedOnVersionChange() {
+		RangerHiveRowFilterMaskCache cache   = new RangerHiveRowFilterMaskCache(100, TTL_MS);
+		RangerAccessRequestImpl      request = createRequest("user1", "10.0.0.1", null, "group1");
+
+		cache.putRowFilterResult(request, createRowFilterResult(request, "id > 10"), 1, 1);
+
+		Assert.assertNotNull(cache.getRowFilterResult(request, 1, 1));
+		Assert.assertNull("policy version changed", cache.getRowFilterResult(request, 2, 1));
+		Assert.assertEquals("stale entry must be removed", 0, cache.size());
+
+		cache.putRowFilterResult(request, createRowFilterResult(request, "id > 10"), 2, 1);
+
+		Assert.assertNotNull(cache.getRowFilterResult(request, 2, 1));
+		Assert.assertNull("tag version changed", cache.getRowFilterResult(request, 2, 2));
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testExpiry() throws Exception {
+		RangerHiveRowFilterMaskCache cache   = new RangerHiveRowFilterMaskCache(100, 50);
+		RangerAccessRequestImpl      request = createRequest("user1", "10.0.0.1", null, "group1");
+
+		cache.putRowFilterResult(request, createRowFilterResult(request, "id > 10"), 1, 1);
+
+		Assert.assertNotNull(cache.getRowFilterResult(request, 1, 1));
+
+		Thread.sleep(100);
+
+		Assert.assertNull(cache.getRowFilterResult(request, 1, 1));
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testMaxSize() {
+		RangerHiveRowFilterMaskCache cache = new RangerHiveRowFilterMaskCache(2, TTL_MS);
+
+		for (int i = 0; i < 5; i++) {
+			RangerAccessRequestImpl request = createRequest("user" + i, "10.0.0.1", null, "group1");
+
+			cache.putRowFilterResult(request, createRowFilterResult(request, "id > " + i), 1, 1);
+		}
+
+		Assert.assertEquals(2, cache.size());
+	}
+
+	private static RangerAccessRequestImpl createRequest(String user, String remoteIP, String forwardedAddress, String... groups) {
+		return createColumnRequest(user, remoteIP, forwardedAddress, "finance", "employee", null, groups);
+	}
+
+	private static RangerAccessRequestImpl createColumnRequest(String user, String remoteIP, String forwardedAddress, String database, String table, String column, String... groups) {
+		Map<String, String> elements = new HashMap<>();
+
+		elements.put(RangerHiveResource.KEY_DATABASE, database);
+		elements.put(RangerHiveResource.KEY_TABLE, table);
+
+		if (column != null) {
+			elements.put(RangerHiveResource.KEY_COLUMN, column);
+		}
+
+		RangerAccessRequestImpl ret = new RangerAccessRequestImpl(new RangerAccessResourceImpl(elements), "select", user, new HashSet<>(Arrays.asList(groups)));
+
+		ret.setRemoteIPAddress(remoteIP);
+
+		if (forwardedAddress != null) {
+			ret.setForwardedAddresses(Arrays.asList(forwardedAddress));
+		}
+
+		return ret;
+	}
+
+	private static RangerRowFilterResult createRowFilterResult(RangerAccessRequestImpl request, String filterExpr) {
+		RangerRowFilterResult ret = new RangerRowFilterResult("cl1_hive", null, request);
+
+		ret.setFilterExpr(filterExpr);
+
+		return ret;
+	}
+
+	private static RangerDataMaskResult createDataMaskResult(RangerAccessRequestImpl request, String maskType) {
+		RangerDataMaskResult ret = new RangerDataMaskResult("cl1_hive", null, request);
+
+		ret.setMaskType(maskType);
+
+		return ret;
+	}
+}
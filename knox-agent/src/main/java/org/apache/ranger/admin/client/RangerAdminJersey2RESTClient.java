@@ -346,6 +346,59 @@ public class RangerAdminJersey2RESTClient implements RangerAdminClient {
 		throw new Exception("RangerAdminjersey2RESTClient.getTagTypes() -- *** NOT IMPLEMENTED *** ");
 	}
 
+	@Override
+	public RangerUserStore getUserStoreIfUpdated(final long lastKnownUserStoreVersion, final long lastActivationTimeInMillis) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerAdminJersey2RESTClient.getUserStoreIfUpdated(" + lastKnownUserStoreVersion + ", " + lastActivationTimeInMillis + ")");
+		}
+
+		UserGroupInformation user = MiscUtil.getUGILoginUser();
+		boolean isSecureMode = user != null && UserGroupInformation.isSecurityEnabled();
+
+		// the user-store is served only on the secure path: Admin rejects the download unless the plugin user is authenticated
+		final String url = _baseUrl + RangerRESTUtils.REST_URL_GET_SECURE_USERSTORE_IF_UPDATED + _serviceName;
+		RangerUserStore userStore = null;
+		Response response = null;
+		PrivilegedAction<Response> action = new PrivilegedAction<Response>() {
+			public Response run() {
+				return _client.target(url)
+						.queryParam(RangerRESTUtils.LAST_KNOWN_USERSTORE_VERSION_PARAM, Long.toString(lastKnownUserStoreVersion))
+						.queryParam(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis))
+						.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, _pluginId)
+						.request(MediaType.APPLICATION_JSON_TYPE)
+						.get();
+			}
+		};
+
+		if (isSecureMode) {
+			response = user.doAs(action);
+		} else {
+			response = action.run();
+		}
+
+		int httpResponseCode = response == null ? -1 : response.getStatus();
+
+		switch (httpResponseCode) {
+			case 200:
+				userStore = getGson().fromJson(response.readEntity(String.class), RangerUserStore.class);
+				break;
+			case 304:
+				LOG.debug("Got response: 304. Ok. Returning null");
+				break;
+			case -1:
+				LOG.warn("Unexpected: Null response from admin server while trying to get user-store! Returning null!");
+				break;
+			default:
+				LOG.warn(String.format("Unexpected: Received status[%d] with body[%s] form url[%s]", httpResponseCode, response.readEntity(String.class), url));
+				break;
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerAdminJersey2RESTClient.getUserStoreIfUpdated(" + lastKnownUserStoreVersion + ", " + lastActivationTimeInMillis + "): " + userStore);
+		}
+		return userStore;
+	}
+
 	// We get date from the policy manager as unix long!  This deserializer exists to deal with it.  Remove this class once we start send date/time per RFC 3339
 	public static class GsonUnixDateDeserializer implements JsonDeserializer<Date> {
 
@@ -136,8 +136,11 @@ public class RangerKafkaAuthorizer implements Authorizer {
 			userName = StringUtils.substringBefore(userName, "/");
 			userName = StringUtils.substringBefore(userName, "@");
 		}
-		java.util.Set<String> userGroups = MiscUtil
-				.getGroupsForRequestUser(userName);
+		// groups from the user-store downloaded from Ranger Admin, if enabled; saves a group lookup per request
+		java.util.Set<String> userGroups = rangerPlugin.getGroupsForUser(userName);
+		if (userGroups == null) {
+			userGroups = MiscUtil.getGroupsForRequestUser(userName);
+		}
 		String ip = session.clientAddress().getHostAddress();
 
 		// skip leading slash
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.kms.authorizer;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.ranger.plugin.policyengine.CacheMap;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+
+/**
+ * Short-lived cache of policy-engine results for KMS access requests, keyed on user, groups, key name, access type and
+ * client IP. Entries expire after ttlMs, and all entries are dropped by clear() when policies are refreshed.
+ */
+class RangerKMSAccessResultCache {
+	private final long                 ttlMs;
+	private final Map<CacheKey, Entry> cache;
+	private volatile long              generation = 0;
+
+	RangerKMSAccessResultCache(int maxSize, long ttlMs) {
+		this.ttlMs = ttlMs;
+		this.cache = Collections.synchronizedMap(new CacheMap<CacheKey, Entry>(maxSize));
+	}
+
+	/**
+	 * @return result of an earlier evaluation of an equivalent request, or null if none is available
+	 */
+	RangerAccessResult get(RangerAccessRequest request) {
+		RangerAccessResult ret   = null;
+		CacheKey           key   = new CacheKey(request);
+		Entry              entry = cache.get(key);
+
+		if (entry != null) {
+			if (entry.expiryTime > System.currentTimeMillis()) {
+				ret = new RangerAccessResult(entry.result.getServiceName(), entry.result.getServiceDef(), request);
+
+				ret.setAccessResultFrom(entry.result);
+				ret.setAuditResultFrom(entry.result);
+			} else {
+				cache.remove(key);
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @param generation value of getGeneration() before the request was evaluated; the result is not cached if the
+	 *                   cache was cleared since, as it could have been computed with policies that are now replaced
+	 */
+	void put(RangerAccessRequest request, RangerAccessResult result, long generation) {
+		if (result != null && result.getIsAccessDetermined()) {
+			synchronized (cache) {
+				if (generation == this.generation) {
+					cache.put(new CacheKey(request), new Entry(result, System.currentTimeMillis() + ttlMs));
+				}
+			}
+		}
+	}
+
+	long getGeneration() {
+		return generation;
+	}
+
+	void clear() {
+		synchronized (cache) {
+			generation++;
+
+			cache.clear();
+		}
+	}
+
+	int size() {
+		return cache.size();
+	}
+
+	private static class Entry {
+		final RangerAccessResult result;
+		final long               expiryTime;
+
+		Entry(RangerAccessResult result, long expiryTime) {
+			this.result     = result;
+			this.expiryTime = expiryTime;
+		}
+	}
+
+	private static class CacheKey {
+		final String      user;
+		final Set<String> userGroups;
+		final String      keyName;
+		final String      accessType;
+		final String      clientIPAddress;
+		final int         hashCode;
+
+		CacheKey(RangerAccessRequest request) {
+			this.user            = request.getUser();
+			this.userGroups      = request.getUserGroups();
+			this.keyName         = request.getResource().getValue(RangerKMSResource.KEY_NAME);
+			this.accessType      = request.getAccessType();
+			this.clientIPAddress = request.getClientIPAddress();
+			this.hashCode        = Objects.hash(user, userGroups, keyName, accessType, clientIPAddress);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+
+			CacheKey other = (CacheKey) obj;
+
+			return hashCode == other.hashCode
+			       && Objects.equals(user, other.user)
+			       && Objects.equals(keyName, other.keyName)
+			       && Objects.equals(accessType, other.accessType)
+			       && Objects.equals(clientIPAddress, other.clientIPAddress)
+			       && Objects.equals(userGroups, other.userGroups);
+		}
+	}
+}
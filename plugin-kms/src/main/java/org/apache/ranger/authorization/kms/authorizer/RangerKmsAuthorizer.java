@@ -41,11 +41,15 @@ import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.security.authorize.AccessControlList;
 import org.apache.hadoop.security.authorize.AuthorizationException;
 import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerAccessResultProcessor;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.apache.ranger.plugin.util.ServicePolicies;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -331,6 +335,11 @@ public class RangerKmsAuthorizer implements Runnable, KeyACLs {
 
 	
 	class RangerKMSPlugin extends RangerBasePlugin {
+		private static final String PROP_ACCESS_CACHE_SIZE   = "ranger.plugin.kms.access.cache.size";
+		private static final String PROP_ACCESS_CACHE_TTL_MS = "ranger.plugin.kms.access.cache.ttl.ms";
+
+		private volatile RangerKMSAccessResultCache accessResultCache;
+
 		public RangerKMSPlugin() {
 			super("kms", "kms");
 		}
@@ -342,11 +351,67 @@ public class RangerKmsAuthorizer implements Runnable, KeyACLs {
 			RangerDefaultAuditHandler auditHandler = new RangerDefaultAuditHandler();
 
 			super.setResultProcessor(auditHandler);
+
+			int  cacheSize  = RangerConfiguration.getInstance().getInt(PROP_ACCESS_CACHE_SIZE, 10000);
+			long cacheTtlMs = RangerConfiguration.getInstance().getLong(PROP_ACCESS_CACHE_TTL_MS, 10 * 1000);
+
+			if (cacheSize > 0 && cacheTtlMs > 0) {
+				accessResultCache = new RangerKMSAccessResultCache(cacheSize, cacheTtlMs);
+			} else {
+				accessResultCache = null;
+			}
+		}
+
+		@Override
+		public void setPolicies(ServicePolicies policies) {
+			super.setPolicies(policies);
+
+			RangerKMSAccessResultCache accessResultCache = this.accessResultCache;
+
+			if (accessResultCache != null) {
+				accessResultCache.clear();
+			}
+		}
+
+		/**
+		 * decrypteek and generateeek are called for every open and create of a file in an HDFS encryption zone; results for
+		 * these are served from accessResultCache when available. Cached results are still sent to the result processor, so
+		 * that the access is audited as usual.
+		 */
+		@Override
+		public RangerAccessResult isAccessAllowed(RangerAccessRequest request) {
+			RangerKMSAccessResultCache accessResultCache = this.accessResultCache;
+
+			if (accessResultCache == null || !isCacheableAccessType(request.getAccessType())) {
+				return super.isAccessAllowed(request);
+			}
+
+			RangerAccessResult ret = accessResultCache.get(request);
+
+			if (ret != null) {
+				RangerAccessResultProcessor resultProcessor = getResultProcessor();
+
+				if (resultProcessor != null) {
+					resultProcessor.processResult(ret);
+				}
+			} else {
+				long generation = accessResultCache.getGeneration();
+
+				ret = super.isAccessAllowed(request);
+
+				accessResultCache.put(request, ret, generation);
+			}
+
+			return ret;
+		}
+
+		private boolean isCacheableAccessType(String accessType) {
+			return RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK.equals(accessType) || RangerKmsAuthorizer.ACCESS_TYPE_GENERATE_EEK.equals(accessType);
 		}
 	}
 
 	class RangerKMSResource extends RangerAccessResourceImpl {
-		private static final String KEY_NAME = "keyname";
+		static final String KEY_NAME = "keyname";
 
 		public RangerKMSResource(String keyname) {			
 			setValue(KEY_NAME, keyname != null ? keyname : null);
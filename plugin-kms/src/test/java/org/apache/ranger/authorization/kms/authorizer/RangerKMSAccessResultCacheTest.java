@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ranger.authorization.kms.authorizer;
+
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RangerKMSAccessResultCacheTest {
+
+    @Test
+    public void testCachedResult() {
+        RangerKMSAccessResultCache cache   = new RangerKMSAccessResultCache(100, 60 * 1000);
+        RangerKMSAccessRequest     request = createRequest("bob", new String[] { "IT" }, "key1", RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK);
+
+        Assert.assertNull(cache.get(request));
+
+        cache.put(request, createResult(request, true), cache.getGeneration());
+
+        RangerKMSAccessRequest sameRequest = createRequest("bob", new String[] { "IT" }, "key1", RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK);
+        RangerAccessResult     result      = cache.get(sameRequest);
+
+        Assert.assertNotNull(result);
+        Assert.assertTrue(result.getIsAllowed());
+        Assert.assertTrue(result.getIsAudited());
+        Assert.assertEquals(10L, result.getPolicyId());
+        Assert.assertSame(sameRequest, result.getAccessRequest());
+
+        Assert.assertNull(cache.get(createRequest("bob", new String[] { "IT", "finance" }, "key1", RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK)));
+        Assert.assertNull(cache.get(createRequest("bob", new String[] { "IT" }, "key2", RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK)));
+        Assert.assertNull(cache.get(createRequest("bob", new String[] { "IT" }, "key1", RangerKmsAuthorizer.ACCESS_TYPE_GENERATE_EEK)));
+        Assert.assertNull(cache.get(createRequest("alice", new String[] { "IT" }, "key1", RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK)));
+    }
+
+    @Test
+    public void testClear() {
+        RangerKMSAccessResultCache cache      = new RangerKMSAccessResultCache(100, 60 * 1000);
+        RangerKMSAccessRequest     request    = createRequest("bob", new String[] { "IT" }, "key1", RangerKmsAuthorizer.ACCESS_TYPE_GENERATE_EEK);
+        long                       generation = cache.getGeneration();
+
+        cache.put(request, createResult(request, false), generation);
+
+        Assert.assertFalse(cache.get(request).getIsAllowed());
+
+        cache.clear();
+
+        Assert.assertNull(cache.get(request));
+
+        // result evaluated before the clear() must not be cached
+        cache.put(request, createResult(request, false), generation);
+
+        Assert.assertNull(cache.get(request));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        RangerKMSAccessResultCache cache   = new RangerKMSAccessResultCache(100, 1);
+        RangerKMSAccessRequest     request = createRequest("bob", new String[] { "IT" }, "key1", RangerKmsAuthorizer.ACCESS_TYPE_DECRYPT_EEK);
+
+        cache.put(request, createResult(request, true), cache.getGeneration());
+
+        Thread.sleep(10);
+
+        Assert.assertNull(cache.get(request));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private RangerKMSAccessRequest createRequest(String user, String[] groups, String keyName, String accessType) {
+        return new RangerKMSAccessRequest(keyName, accessType, UserGroupInformation.createUserForTesting(user, groups), "127.0.0.1", "");
+    }
+
+    private RangerAccessResult createResult(RangerKMSAccessRequest request, boolean isAllowed) {
+        RangerAccessResult ret = new RangerAccessResult("kms", null, request);
+
+        ret.setIsAllowed(isAllowed);
+        ret.setIsAccessDetermined(true);
+        ret.setIsAudited(true);
+        ret.setPolicyId(10L);
+
+        return ret;
+    }
+}
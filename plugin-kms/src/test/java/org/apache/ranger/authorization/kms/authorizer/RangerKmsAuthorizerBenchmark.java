@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ranger.authorization.kms.authorizer;
+
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+
+import org.apache.hadoop.crypto.key.kms.server.KMS.KMSOp;
+import org.apache.hadoop.crypto.key.kms.server.KMSACLsType.Type;
+import org.apache.hadoop.crypto.key.kms.server.KMSConfiguration;
+import org.apache.hadoop.crypto.key.kms.server.KMSWebApp;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
+import org.mockito.Mockito;
+
+/**
+ * Load benchmark for the KMS authorizer: runs the authorization and audit steps of generateeek/decrypteek calls, as done
+ * by KMS for every file create/open in an HDFS encryption zone, from multiple threads against a KMS started with the
+ * local (Derby) key store and policies used by RangerKmsAuthorizerTest.
+ *
+ * Usage: RangerKmsAuthorizerBenchmark [threads] [durationSeconds] [userCount] [accessCacheSize]
+ *
+ * Run with accessCacheSize 0 to measure without the access result cache.
+ */
+public class RangerKmsAuthorizerBenchmark {
+	public static void main(String[] args) throws Exception {
+		final int  threadCount     = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		final long durationMs      = (args.length > 1 ? Long.parseLong(args[1]) : 30) * 1000;
+		final int  userCount       = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		final int  accessCacheSize = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+
+		RangerConfiguration.getInstance().setInt("ranger.plugin.kms.access.cache.size", accessCacheSize);
+
+		DerbyTestUtils.startDerby();
+
+		try {
+			System.setProperty(KMSConfiguration.KMS_CONFIG_DIR, Paths.get("src/test/resources/kms").toFile().getAbsolutePath());
+
+			ServletContextEvent servletContextEvent = Mockito.mock(ServletContextEvent.class);
+			ServletContext      servletContext      = Mockito.mock(ServletContext.class);
+
+			Mockito.when(servletContextEvent.getServletContext()).thenReturn(servletContext);
+
+			KMSWebApp kmsWebapp = new KMSWebApp();
+
+			kmsWebapp.contextInitialized(servletContextEvent);
+
+			final UserGroupInformation[] users     = new UserGroupInformation[userCount];
+			final AtomicLong             allowed   = new AtomicLong();
+			final AtomicLong             denied    = new AtomicLong();
+			final long                   startTime = System.currentTimeMillis();
+
+			for (int i = 0; i < userCount; i++) {
+				// "bob" is allowed all operations; others are denied generateeek/decrypteek
+				users[i] = UserGroupInformation.createUserForTesting(i == 0 ? "bob" : ("user" + i), new String[] { "IT", "group" + (i % 10) });
+			}
+
+			Thread[] threads = new Thread[threadCount];
+
+			for (int i = 0; i < threadCount; i++) {
+				final int threadIdx = i;
+
+				threads[i] = new Thread() {
+					@Override
+					public void run() {
+						for (long count = threadIdx; System.currentTimeMillis() - startTime < durationMs; count++) {
+							UserGroupInformation ugi    = (count % 2 == 0) ? users[0] : users[(int) (count % userCount)];
+							boolean              isDecr = (count % 4) < 2;
+							Type                 type   = isDecr ? Type.DECRYPT_EEK : Type.GENERATE_EEK;
+							KMSOp                op     = isDecr ? KMSOp.DECRYPT_EEK : KMSOp.GENERATE_EEK;
+
+							try {
+								KMSWebApp.getACLs().assertAccess(type, ugi, op, "newkey1", "127.0.0.1");
+								KMSWebApp.getKMSAudit().ok(ugi, op, "newkey1", "");
+
+								allowed.incrementAndGet();
+							} catch (Exception excp) {
+								denied.incrementAndGet();
+							}
+						}
+					}
+				};
+
+				threads[i].start();
+			}
+
+			for (Thread thread : threads) {
+				thread.join();
+			}
+
+			long elapsedMs = System.currentTimeMillis() - startTime;
+			long total     = allowed.get() + denied.get();
+
+			System.out.println("threads=" + threadCount + ", users=" + userCount + ", accessCacheSize=" + accessCacheSize
+			                   + ": " + total + " requests in " + elapsedMs + "ms (allowed=" + allowed.get() + ", denied=" + denied.get() + ")"
+			                   + "; throughput=" + (total * 1000 / Math.max(elapsedMs, 1)) + " requests/sec");
+
+			kmsWebapp.contextDestroyed(servletContextEvent);
+		} finally {
+			DerbyTestUtils.stopDerby();
+		}
+
+		System.exit(0);
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RangerPolicyEngineImpl.isAccessAllowed() for HDFS/Hive/HBase/Kafka service-defs, and construction of the policy engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PolicyEngineBenchmark {
+	private static final int REQUEST_COUNT = 10000;
+
+	@Param({ "hdfs", "hive", "hbase", "kafka" })
+	public String serviceType;
+
+	@Param({ "100", "1000", "10000" })
+	public int policyCount;
+
+	@Param({ "0.1", "0.5" })
+	public double wildcardRatio;
+
+	@Param({ "1", "10" })
+	public int groupFanOut;
+
+	private ServicePolicies           servicePolicies;
+	private RangerPolicyEngineOptions options;
+	private RangerPolicyEngine        policyEngine;
+	private RangerAccessRequest[]     requests;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		SyntheticPolicyGenerator generator = new SyntheticPolicyGenerator(serviceType, policyCount, wildcardRatio, groupFanOut);
+
+		List<RangerAccessRequest> requestList = generator.createAccessRequests(REQUEST_COUNT);
+
+		servicePolicies = generator.createServicePolicies();
+		options         = new RangerPolicyEngineOptions();
+		requests        = requestList.toArray(new RangerAccessRequest[requestList.size()]);
+
+		options.disableContextEnrichers = true;
+
+		policyEngine = new RangerPolicyEngineImpl("benchmark", servicePolicies, options);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (policyEngine != null) {
+			policyEngine.cleanup();
+		}
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public RangerAccessResult isAccessAllowed(RequestCursor cursor) {
+		return policyEngine.isAccessAllowed(requests[cursor.next(requests.length)], null);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public RangerPolicyEngine createPolicyEngine() {
+		RangerPolicyEngine ret = new RangerPolicyEngineImpl("benchmark", servicePolicies, options);
+
+		ret.cleanup();
+
+		return ret;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.benchmark;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyresourcematcher.RangerDefaultPolicyResourceMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RangerDefaultPolicyResourceMatcher.isMatch() of policy resources against access resources. Each matcher is evaluated
+ * against the resource it covers and against the resource of the next policy, which it does not cover unless it has
+ * wildcards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PolicyResourceMatcherBenchmark {
+	private static final int MATCHER_COUNT = 1000;
+
+	@Param({ "hdfs", "hive", "hbase", "kafka" })
+	public String serviceType;
+
+	@Param({ "0.0", "0.5", "1.0" })
+	public double wildcardRatio;
+
+	private RangerDefaultPolicyResourceMatcher[] matchers;
+	private RangerAccessResource[]               resources;
+	private Map<String, Object>                  evalContext;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		SyntheticPolicyGenerator generator = new SyntheticPolicyGenerator(serviceType, MATCHER_COUNT, wildcardRatio, 1);
+		List<RangerPolicy>       policies  = generator.createPolicies();
+
+		matchers    = new RangerDefaultPolicyResourceMatcher[policies.size()];
+		resources   = new RangerAccessResource[policies.size() + 1];
+		evalContext = new HashMap<>();
+
+		for (int i = 0; i < matchers.length; i++) {
+			matchers[i] = new RangerDefaultPolicyResourceMatcher();
+
+			matchers[i].setServiceDef(generator.getServiceDef());
+			matchers[i].setPolicy(policies.get(i));
+			matchers[i].init();
+		}
+
+		for (int i = 0; i < resources.length; i++) {
+			resources[i] = generator.createAccessResource(i);
+		}
+	}
+
+	@Benchmark
+	public boolean isMatch(RequestCursor cursor) {
+		int idx = cursor.next(matchers.length);
+
+		return matchers[idx].isMatch(resources[idx], evalContext);
+	}
+
+	@Benchmark
+	public boolean isMatchMiss(RequestCursor cursor) {
+		int idx = cursor.next(matchers.length);
+
+		return matchers[idx].isMatch(resources[idx + 1], evalContext);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.benchmark;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.resourcematcher.RangerDefaultResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * isMatch() of the resource matchers: RangerPathResourceMatcher (HDFS path, recursive) and RangerDefaultResourceMatcher
+ * (Hive database), with exact and wildcard policy values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResourceMatcherBenchmark {
+	private static final int MATCHER_COUNT = 1000;
+
+	@Param({ "path", "default" })
+	public String matcherType;
+
+	@Param({ "0.0", "1.0" })
+	public double wildcardRatio;
+
+	private RangerResourceMatcher[] matchers;
+	private String[]                values;
+	private Map<String, Object>     evalContext;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		boolean                  isPath       = "path".equals(matcherType);
+		String                   serviceType  = isPath ? SyntheticPolicyGenerator.SERVICE_TYPE_HDFS : SyntheticPolicyGenerator.SERVICE_TYPE_HIVE;
+		SyntheticPolicyGenerator generator    = new SyntheticPolicyGenerator(serviceType, MATCHER_COUNT, wildcardRatio, 1);
+		String                   resourceName = generator.getResourceNames().get(0);
+		RangerResourceDef        resourceDef  = generator.getResourceDef(resourceName);
+		List<RangerPolicy>       policies     = generator.createPolicies();
+
+		matchers    = new RangerResourceMatcher[policies.size()];
+		values      = new String[policies.size() + 1];
+		evalContext = new HashMap<>();
+
+		for (int i = 0; i < matchers.length; i++) {
+			matchers[i] = isPath ? new RangerPathResourceMatcher() : new RangerDefaultResourceMatcher();
+
+			matchers[i].setResourceDef(resourceDef);
+			matchers[i].setPolicyResource(policies.get(i).getResources().get(resourceName));
+			matchers[i].init();
+		}
+
+		for (int i = 0; i < values.length; i++) {
+			values[i] = generator.createAccessResource(i).getValue(resourceName);
+		}
+	}
+
+	@Benchmark
+	public boolean isMatch(RequestCursor cursor) {
+		int idx = cursor.next(matchers.length);
+
+		return matchers[idx].isMatch(values[idx], evalContext);
+	}
+
+	@Benchmark
+	public boolean isMatchMiss(RequestCursor cursor) {
+		int idx = cursor.next(matchers.length);
+
+		return matchers[idx].isMatch(values[idx + 1], evalContext);
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.plugin.contextenricher.RangerServiceResourceMatcher;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyresourcematcher.RangerDefaultPolicyResourceMatcher;
+import org.apache.ranger.plugin.util.RangerResourceTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RangerResourceTrie.getEvaluatorsForResource() lookup of the top-level resource (path, database, table or topic).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResourceTrieBenchmark {
+	private static final int REQUEST_COUNT = 10000;
+
+	@Param({ "hdfs", "hive" })
+	public String serviceType;
+
+	@Param({ "1000", "10000", "100000" })
+	public int policyCount;
+
+	@Param({ "0.0", "0.1", "0.5" })
+	public double wildcardRatio;
+
+	private RangerResourceTrie<RangerServiceResourceMatcher> trie;
+	private String[]                                         resourceValues;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		SyntheticPolicyGenerator           generator    = new SyntheticPolicyGenerator(serviceType, policyCount, wildcardRatio, 1);
+		String                             resourceName = generator.getResourceNames().get(0);
+		RangerResourceDef                  resourceDef  = generator.getResourceDef(resourceName);
+		List<RangerServiceResourceMatcher> evaluators   = new ArrayList<>(policyCount);
+
+		for (RangerServiceResource serviceResource : generator.createServiceTags().getServiceResources()) {
+			RangerDefaultPolicyResourceMatcher matcher = new RangerDefaultPolicyResourceMatcher();
+
+			matcher.setServiceDef(generator.getServiceDef());
+			matcher.setPolicyResources(serviceResource.getResourceElements());
+			matcher.init();
+
+			evaluators.add(new RangerServiceResourceMatcher(serviceResource, matcher));
+		}
+
+		trie = new RangerResourceTrie<>(resourceDef, evaluators);
+
+		List<RangerAccessRequest> requests = generator.createAccessRequests(REQUEST_COUNT);
+
+		resourceValues = new String[requests.size()];
+
+		for (int i = 0; i < resourceValues.length; i++) {
+			resourceValues[i] = requests.get(i).getResource().getValue(resourceName);
+		}
+	}
+
+	@Benchmark
+	public List<RangerServiceResourceMatcher> getEvaluatorsForResource(RequestCursor cursor) {
+		return trie.getEvaluatorsForResource(resourceValues[cursor.next(resourceValues.length)]);
+	}
+}
@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerAccessTypeDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Generates policies, tags and access requests for a service-type, to drive the benchmarks with data of a given shape:
+ * - policyCount:   number of policies; policy i covers resources named after i
+ * - wildcardRatio: fraction (0.0 - 1.0) of policies whose resource values have wildcards
+ * - groupFanOut:   number of groups in each policy item, and the number of groups each requesting user belongs to
+ *
+ * Data is generated from a fixed seed, so that runs with the same parameters evaluate the same requests.
+ */
+public class SyntheticPolicyGenerator {
+	public static final String SERVICE_TYPE_HDFS  = "hdfs";
+	public static final String SERVICE_TYPE_HIVE  = "hive";
+	public static final String SERVICE_TYPE_HBASE = "hbase";
+	public static final String SERVICE_TYPE_KAFKA = "kafka";
+
+	private static final int  GROUP_COUNT     = 1000;
+	private static final int  USER_COUNT      = 100;
+	private static final int  TAG_TYPE_COUNT  = 20;
+	private static final int  BRANCH_COUNT    = 10;
+	private static final long RANDOM_SEED     = 20170101L;
+
+	private static final Map<String, List<String>> RESOURCE_HIERARCHIES = new HashMap<>();
+
+	static {
+		RESOURCE_HIERARCHIES.put(SERVICE_TYPE_HDFS, Arrays.asList("path"));
+		RESOURCE_HIERARCHIES.put(SERVICE_TYPE_HIVE, Arrays.asList("database", "table", "column"));
+		RESOURCE_HIERARCHIES.put(SERVICE_TYPE_HBASE, Arrays.asList("table", "column-family", "column"));
+		RESOURCE_HIERARCHIES.put(SERVICE_TYPE_KAFKA, Arrays.asList("topic"));
+	}
+
+	private final String           serviceName;
+	private final RangerServiceDef serviceDef;
+	private final List<String>     resourceNames;
+	private final List<String>     accessTypes;
+	private final int              policyCount;
+	private final double           wildcardRatio;
+	private final int              groupFanOut;
+
+	public SyntheticPolicyGenerator(String serviceType, int policyCount, double wildcardRatio, int groupFanOut) throws Exception {
+		this.serviceName   = "benchmark_" + serviceType;
+		this.serviceDef    = loadServiceDef(serviceType);
+		this.resourceNames = RESOURCE_HIERARCHIES.get(serviceType);
+		this.accessTypes   = new ArrayList<>();
+		this.policyCount   = policyCount;
+		this.wildcardRatio = wildcardRatio;
+		this.groupFanOut   = groupFanOut;
+
+		if (resourceNames == null) {
+			throw new IllegalArgumentException(serviceType + ": unsupported service-type. Supported: " + RESOURCE_HIERARCHIES.keySet());
+		}
+
+		for (RangerAccessTypeDef accessTypeDef : serviceDef.getAccessTypes()) {
+			accessTypes.add(accessTypeDef.getName());
+
+			if (accessTypes.size() == 2) {
+				break;
+			}
+		}
+	}
+
+	public static RangerServiceDef loadServiceDef(String serviceType) throws Exception {
+		Gson        gson     = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z").create();
+		String      resource = "/service-defs/ranger-servicedef-" + serviceType + ".json";
+		InputStream in       = SyntheticPolicyGenerator.class.getResourceAsStream(resource);
+
+		if (in == null) {
+			throw new IllegalArgumentException(resource + ": service-def not found");
+		}
+
+		try {
+			return gson.fromJson(new InputStreamReader(in, Charset.forName("UTF-8")), RangerServiceDef.class);
+		} finally {
+			in.close();
+		}
+	}
+
+	public String getServiceName() {
+		return serviceName;
+	}
+
+	public RangerServiceDef getServiceDef() {
+		return serviceDef;
+	}
+
+	public RangerResourceDef getResourceDef(String resourceName) {
+		for (RangerResourceDef resourceDef : serviceDef.getResources()) {
+			if (resourceDef.getName().equals(resourceName)) {
+				return resourceDef;
+			}
+		}
+
+		return null;
+	}
+
+	public List<String> getResourceNames() {
+		return resourceNames;
+	}
+
+	public ServicePolicies createServicePolicies() {
+		ServicePolicies ret = new ServicePolicies();
+
+		ret.setServiceName(serviceName);
+		ret.setServiceId(1L);
+		ret.setPolicyVersion(1L);
+		ret.setServiceDef(serviceDef);
+		ret.setPolicies(createPolicies());
+
+		return ret;
+	}
+
+	public List<RangerPolicy> createPolicies() {
+		List<RangerPolicy> ret = new ArrayList<>(policyCount);
+
+		for (int i = 0; i < policyCount; i++) {
+			ret.add(createPolicy(i));
+		}
+
+		return ret;
+	}
+
+	public RangerPolicy createPolicy(int idx) {
+		RangerPolicy ret = new RangerPolicy();
+
+		ret.setId((long) idx + 1);
+		ret.setService(serviceName);
+		ret.setName("policy-" + idx);
+		ret.setIsEnabled(true);
+		ret.setIsAuditEnabled(true);
+		ret.setResources(createPolicyResources(idx));
+
+		List<RangerPolicyItemAccess> accesses = new ArrayList<>();
+
+		for (String accessType : accessTypes) {
+			accesses.add(new RangerPolicyItemAccess(accessType, Boolean.TRUE));
+		}
+
+		ret.getPolicyItems().add(new RangerPolicyItem(accesses, Collections.singletonList(getUserName(idx)), getGroupNames(idx), null, Boolean.FALSE));
+
+		return ret;
+	}
+
+	/**
+	 * @return resources of policy 'idx'; these have wildcards for wildcardRatio of the policies
+	 */
+	public Map<String, RangerPolicyResource> createPolicyResources(int idx) {
+		Map<String, RangerPolicyResource> ret        = new LinkedHashMap<>();
+		boolean                           isWildcard = isWildcardPolicy(idx);
+
+		for (int level = 0; level < resourceNames.size(); level++) {
+			String resourceName = resourceNames.get(level);
+
+			if (resourceName.equals("path")) {
+				String path = "/data/dept" + (idx % BRANCH_COUNT) + "/project" + idx;
+
+				ret.put(resourceName, new RangerPolicyResource(isWildcard ? (path + "*") : path, Boolean.FALSE, Boolean.TRUE));
+			} else {
+				String value;
+
+				if (!isWildcard) {
+					value = getResourceValue(resourceName, level, idx);
+				} else if (level == 0) {
+					// drop the last digit of idx: matches the top-level resource of the BRANCH_COUNT policies around idx
+					String idxStr = Integer.toString(idx);
+
+					value = getResourceValuePrefix(resourceName) + idxStr.substring(0, idxStr.length() - 1) + "*";
+				} else {
+					value = "*";
+				}
+
+				ret.put(resourceName, new RangerPolicyResource(value));
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @return resource that is covered by policy 'idx', when idx < policyCount
+	 */
+	public RangerAccessResourceImpl createAccessResource(int idx) {
+		RangerAccessResourceImpl ret = new RangerAccessResourceImpl();
+
+		for (int level = 0; level < resourceNames.size(); level++) {
+			String resourceName = resourceNames.get(level);
+
+			if (resourceName.equals("path")) {
+				ret.setValue(resourceName, "/data/dept" + (idx % BRANCH_COUNT) + "/project" + idx + "/part-" + (idx % BRANCH_COUNT));
+			} else {
+				ret.setValue(resourceName, getResourceValue(resourceName, level, idx));
+			}
+		}
+
+		ret.setServiceDef(serviceDef);
+
+		return ret;
+	}
+
+	/**
+	 * @return requests from users with groupFanOut groups each; about half of the requests are for resources not
+	 *         covered by any policy, as idx is picked from [0, 2 * policyCount)
+	 */
+	public List<RangerAccessRequest> createAccessRequests(int count) {
+		List<RangerAccessRequest> ret    = new ArrayList<>(count);
+		Random                    random = new Random(RANDOM_SEED);
+
+		for (int i = 0; i < count; i++) {
+			int    idx        = random.nextInt(Math.max(policyCount, 1) * 2);
+			String accessType = accessTypes.get(random.nextInt(accessTypes.size()));
+
+			ret.add(new RangerAccessRequestImpl(createAccessResource(idx), accessType, getUserName(random.nextInt(USER_COUNT)), getUserGroups(random.nextInt(GROUP_COUNT))));
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @return tags for resources of the policies, one tag per resource, with TAG_TYPE_COUNT tag types
+	 */
+	public ServiceTags createServiceTags() {
+		ServiceTags                 ret              = new ServiceTags();
+		Map<Long, RangerTag>        tags             = new HashMap<>();
+		List<RangerServiceResource> serviceResources = new ArrayList<>(policyCount);
+		Map<Long, List<Long>>       resourceToTagIds = new HashMap<>();
+
+		for (long i = 0; i < TAG_TYPE_COUNT; i++) {
+			RangerTag tag = new RangerTag("TAG_" + i, Collections.<String, String>emptyMap());
+
+			tag.setId(i);
+
+			tags.put(i, tag);
+		}
+
+		for (int i = 0; i < policyCount; i++) {
+			RangerServiceResource serviceResource = new RangerServiceResource(serviceName, createPolicyResources(i));
+
+			serviceResource.setId((long) i);
+
+			serviceResources.add(serviceResource);
+			resourceToTagIds.put((long) i, Collections.singletonList((long) (i % TAG_TYPE_COUNT)));
+		}
+
+		ret.setServiceName(serviceName);
+		ret.setTagVersion(1L);
+		ret.setTags(tags);
+		ret.setServiceResources(serviceResources);
+		ret.setResourceToTagIds(resourceToTagIds);
+
+		return ret;
+	}
+
+	private boolean isWildcardPolicy(int idx) {
+		// spread wildcard policies evenly, instead of having them all at one end
+		return ((idx * 37L) % 100) < (wildcardRatio * 100);
+	}
+
+	private String getResourceValue(String resourceName, int level, int idx) {
+		return getResourceValuePrefix(resourceName) + (level == 0 ? idx : (idx % BRANCH_COUNT));
+	}
+
+	private String getResourceValuePrefix(String resourceName) {
+		return resourceName.replace("-", "_") + "_";
+	}
+
+	private String getUserName(int idx) {
+		return "user" + (idx % USER_COUNT);
+	}
+
+	private List<String> getGroupNames(int idx) {
+		List<String> ret = new ArrayList<>(groupFanOut);
+
+		for (int i = 0; i < groupFanOut; i++) {
+			ret.add("group" + ((idx + i * 7) % GROUP_COUNT));
+		}
+
+		return ret;
+	}
+
+	private Set<String> getUserGroups(int idx) {
+		return new HashSet<>(getGroupNames(idx));
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.benchmark;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RangerTagEnricher.enrich() - lookup of tags for the resource in the request, with one tagged service-resource for
+ * each generated policy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TagEnricherBenchmark {
+	private static final int REQUEST_COUNT = 10000;
+
+	@Param({ "hdfs", "hive" })
+	public String serviceType;
+
+	@Param({ "1000", "10000", "100000" })
+	public int resourceCount;
+
+	@Param({ "0.0", "0.1" })
+	public double wildcardRatio;
+
+	private RangerTagEnricher     tagEnricher;
+	private RangerAccessRequest[] requests;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		SyntheticPolicyGenerator  generator   = new SyntheticPolicyGenerator(serviceType, resourceCount, wildcardRatio, 1);
+		List<RangerAccessRequest> requestList = generator.createAccessRequests(REQUEST_COUNT);
+
+		tagEnricher = new RangerTagEnricher();
+		requests    = requestList.toArray(new RangerAccessRequest[requestList.size()]);
+
+		tagEnricher.setServiceName(generator.getServiceName());
+		tagEnricher.setServiceDef(generator.getServiceDef());
+		tagEnricher.setServiceTags(generator.createServiceTags());
+	}
+
+	@Benchmark
+	public Set<RangerTagForEval> enrich(RequestCursor cursor) {
+		RangerAccessRequest request = requests[cursor.next(requests.length)];
+
+		tagEnricher.enrich(request);
+
+		return RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+	}
+}
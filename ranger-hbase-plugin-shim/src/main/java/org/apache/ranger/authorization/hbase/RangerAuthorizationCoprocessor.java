@@ -1073,6 +1073,8 @@ public class RangerAuthorizationCoprocessor implements MasterObserver, RegionObs
 		} finally {
 			deactivatePluginClassLoader();
 		}
+
+		setImplInitialized();
 		
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerAuthorizationCoprocessor.start()");
@@ -3772,6 +3774,12 @@ public class RangerAuthorizationCoprocessor implements MasterObserver, RegionObs
 		}
 	}
 
+	private void setImplInitialized() {
+		if(rangerPluginClassLoader != null) {
+			rangerPluginClassLoader.setImplInitialized();
+		}
+	}
+
 
 
   // TODO : need override annotations for all of the following methods
@@ -88,6 +88,8 @@ public class RangerHdfsAuthorizer extends INodeAttributeProvider {
 			deactivatePluginClassLoader();
 		}
 
+		setImplInitialized();
+
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerHdfsAuthorizer.start()");
 		}
@@ -186,5 +188,11 @@ public class RangerHdfsAuthorizer extends INodeAttributeProvider {
 			rangerPluginClassLoader.deactivate();
 		}
 	}
+
+	private void setImplInitialized() {
+		if(rangerPluginClassLoader != null) {
+			rangerPluginClassLoader.setImplInitialized();
+		}
+	}
 }
 
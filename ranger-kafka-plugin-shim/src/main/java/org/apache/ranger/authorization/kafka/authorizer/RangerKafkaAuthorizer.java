@@ -96,6 +96,8 @@ public class RangerKafkaAuthorizer implements Authorizer {
 			deactivatePluginClassLoader();
 		}
 
+		setImplInitialized();
+
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerKafkaAuthorizer.configure(Map<String, ?>)");
 		}
@@ -285,5 +287,11 @@ public class RangerKafkaAuthorizer implements Authorizer {
 			rangerPluginClassLoader.deactivate();
 		}
 	}
+
+	private void setImplInitialized() {
+		if(rangerPluginClassLoader != null) {
+			rangerPluginClassLoader.setImplInitialized();
+		}
+	}
 		
 }
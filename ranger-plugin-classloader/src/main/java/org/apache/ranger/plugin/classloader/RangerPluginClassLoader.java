@@ -26,16 +26,29 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedExceptionAction;
 import java.util.Enumeration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class RangerPluginClassLoader extends URLClassLoader {
 	private static final Logger LOG = LoggerFactory.getLogger(RangerPluginClassLoader.class);
-	
+
+	public static final String PROP_SKIP_CONTEXT_SWITCH_AFTER_INIT = "ranger.plugin.classloader.context.switch.skip.after.init";
+
 	private static volatile RangerPluginClassLoader me 	             = null;
 	private static  MyClassLoader				componentClassLoader = null;
-		
+
+	private final ConcurrentMap<String, Class<?>> loadedClasses      = new ConcurrentHashMap<String, Class<?>>();
+	private final boolean                         skipContextSwitchAfterInit = Boolean.getBoolean(PROP_SKIP_CONTEXT_SWITCH_AFTER_INIT);
+	private volatile boolean                      isImplInitialized  = false;
+
+	static {
+		// loadClass() is guarded by per-class-name locks, so that concurrent lookups don't serialize on this instance
+		ClassLoader.registerAsParallelCapable();
+	}
+
 	public RangerPluginClassLoader(String pluginType, Class<?> pluginClass ) throws Exception {
 		super(RangerPluginClassLoaderUtil.getInstance().getPluginFilesForServiceTypeAndPluginclass(pluginType, pluginClass), null);
 		componentClassLoader = AccessController.doPrivileged(
@@ -100,11 +113,35 @@ public class RangerPluginClassLoader extends URLClassLoader {
     }
 
     @Override
-    public synchronized Class<?> loadClass(String name) throws ClassNotFoundException {
+    public Class<?> loadClass(String name) throws ClassNotFoundException {
         if (LOG.isDebugEnabled()) {
              LOG.debug("==> RangerPluginClassLoader.loadClass(" + name + ")" );
         }
 
+        Class<?> ret = loadedClasses.get(name);
+
+        if (ret == null) {
+            synchronized (getClassLoadingLock(name)) {
+                ret = loadedClasses.get(name);
+
+                if (ret == null) {
+                    ret = loadClassUsingChildOrComponentClassLoader(name);
+
+                    if (ret != null) {
+                        loadedClasses.put(name, ret);
+                    }
+                }
+            }
+        }
+
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerPluginClassLoader.loadClass(" + name + "): " + ret);
+        }
+
+        return ret;
+    }
+
+    private Class<?> loadClassUsingChildOrComponentClassLoader(String name) throws ClassNotFoundException {
         Class<?> ret = null;
 
         try {
@@ -126,10 +163,6 @@ public class RangerPluginClassLoader extends URLClassLoader {
             }
         }
 
-        if(LOG.isDebugEnabled()) {
-            LOG.debug("<== RangerPluginClassLoader.loadClass" + name + "): " + ret);
-        }
-
         return ret;
     }
 
@@ -231,7 +264,9 @@ public class RangerPluginClassLoader extends URLClassLoader {
 
         //componentClassLoader.set(new MyClassLoader(Thread.currentThread().getContextClassLoader()));
 
-        Thread.currentThread().setContextClassLoader(this);
+        if (isContextSwitchRequired()) {
+            Thread.currentThread().setContextClassLoader(this);
+        }
 
         if(LOG.isDebugEnabled()) {
            LOG.debug("<== RangerPluginClassLoader.activate()");
@@ -244,6 +279,15 @@ public class RangerPluginClassLoader extends URLClassLoader {
           LOG.debug("==> RangerPluginClassLoader.deactivate()");
        }
 
+       if (!isContextSwitchRequired() && Thread.currentThread().getContextClassLoader() != this) {
+          // activate() skipped the switch for this call; nothing to restore
+          if(LOG.isDebugEnabled()) {
+             LOG.debug("<== RangerPluginClassLoader.deactivate(): context classloader not switched");
+          }
+
+          return;
+       }
+
        MyClassLoader savedClassLoader = getComponentClassLoader();
 
        if(savedClassLoader != null && savedClassLoader.getParent() != null) {
@@ -257,6 +301,29 @@ public class RangerPluginClassLoader extends URLClassLoader {
        }
     }
 
+    /**
+     * Called by the shims once the plugin implementation has completed its initialization. When system property
+     * ranger.plugin.classloader.context.switch.skip.after.init=true, activate()/deactivate() no longer swap the thread
+     * context classloader from then on; classes of the plugin implementation are already linked against this
+     * classloader, but host code called from the plugin that resolves classes via the context classloader won't
+     * find plugin classes. By default the context classloader is switched on every call.
+     */
+    public void setImplInitialized() {
+        if(LOG.isDebugEnabled()) {
+           LOG.debug("RangerPluginClassLoader.setImplInitialized(): skipContextSwitchAfterInit=" + skipContextSwitchAfterInit);
+        }
+
+        isImplInitialized = true;
+    }
+
+    public boolean isImplInitialized() {
+        return isImplInitialized;
+    }
+
+    public boolean isContextSwitchRequired() {
+        return !(skipContextSwitchAfterInit && isImplInitialized);
+    }
+
     private MyClassLoader getComponentClassLoader() {
     	return  componentClassLoader;
         //return componentClassLoader.get();
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.classloader;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRangerPluginClassLoader {
+	private static final String[] CLASS_NAMES = new String[] { "java.lang.String", "java.util.HashMap", "org.apache.ranger.plugin.classloader.test.TestPlugin" };
+
+	@After
+	public void tearDown() {
+		System.clearProperty(RangerPluginClassLoader.PROP_SKIP_CONTEXT_SWITCH_AFTER_INIT);
+	}
+
+	@Test
+	public void testContextSwitchByDefault() throws Exception {
+		RangerPluginClassLoader classLoader = new RangerPluginClassLoader("test", TestRangerPluginClassLoader.class);
+		ClassLoader             original    = Thread.currentThread().getContextClassLoader();
+
+		classLoader.setImplInitialized();
+
+		Assert.assertTrue(classLoader.isContextSwitchRequired());
+		assertActivation(classLoader, classLoader, original);
+
+		classLoader.close();
+	}
+
+	@Test
+	public void testSkipContextSwitchAfterInit() throws Exception {
+		System.setProperty(RangerPluginClassLoader.PROP_SKIP_CONTEXT_SWITCH_AFTER_INIT, "true");
+
+		RangerPluginClassLoader classLoader = new RangerPluginClassLoader("test", TestRangerPluginClassLoader.class);
+		ClassLoader             original    = Thread.currentThread().getContextClassLoader();
+
+		assertActivation(classLoader, classLoader, original); // before init: switched
+
+		classLoader.setImplInitialized();
+
+		Assert.assertFalse(classLoader.isContextSwitchRequired());
+		assertActivation(classLoader, original, original);
+
+		classLoader.close();
+	}
+
+	@Test
+	public void testConcurrentLoadClass() throws Exception {
+		final RangerPluginClassLoader        classLoader = new RangerPluginClassLoader("test", TestRangerPluginClassLoader.class);
+		final ConcurrentMap<String, Class<?>> loaded      = new ConcurrentHashMap<String, Class<?>>();
+		final AtomicReference<Throwable>      error       = new AtomicReference<Throwable>();
+		final CountDownLatch                  startSignal = new CountDownLatch(1);
+		final int                             numThreads  = 8;
+		final CountDownLatch                  doneSignal  = new CountDownLatch(numThreads);
+
+		for (int t = 0; t < numThreads; t++) {
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						startSignal.await();
+
+						for (int i = 0; i < 10000; i++) {
+							String   className = CLASS_NAMES[i % CLASS_NAMES.length];
+							Class<?> clz       = classLoader.loadClass(className);
+							Class<?> prev      = loaded.putIfAbsent(className, clz);
+
+							if (prev != null && prev != clz) {
+								throw new AssertionError("different classes loaded for " + className);
+							}
+						}
+					} catch (Throwable excp) {
+						error.compareAndSet(null, excp);
+					} finally {
+						doneSignal.countDown();
+					}
+				}
+			}.start();
+		}
+
+		startSignal.countDown();
+		doneSignal.await();
+
+		Assert.assertNull(error.get());
+		Assert.assertEquals(CLASS_NAMES.length, loaded.size());
+
+		classLoader.close();
+	}
+
+	private void assertActivation(RangerPluginClassLoader classLoader, ClassLoader expectedWhenActive, ClassLoader expectedAfter) {
+		try {
+			classLoader.activate();
+
+			Assert.assertSame(expectedWhenActive, Thread.currentThread().getContextClassLoader());
+		} finally {
+			classLoader.deactivate();
+		}
+
+		Assert.assertSame(expectedAfter, Thread.currentThread().getContextClassLoader());
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.classloader.test.Impl;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.ranger.plugin.classloader.RangerPluginClassLoader;
+
+/**
+ * Micro-benchmark for the per-call overhead the shims add around each authorizer call: activate()/deactivate()
+ * with the default context classloader switch and with the opt-in skip after init, and concurrent loadClass().
+ *
+ * Usage: TestPluginClassLoaderPerf [iterations] [threads]
+ */
+public class TestPluginClassLoaderPerf {
+	private static final String[] CLASS_NAMES = new String[] { "java.lang.String", "java.util.HashMap", "org.apache.ranger.plugin.classloader.test.TestPlugin" };
+
+	public static void main(String[] args) throws Exception {
+		final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final int numThreads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+		System.clearProperty(RangerPluginClassLoader.PROP_SKIP_CONTEXT_SWITCH_AFTER_INIT);
+
+		RangerPluginClassLoader switchingClassLoader = new RangerPluginClassLoader("perf", TestPluginClassLoaderPerf.class);
+
+		System.setProperty(RangerPluginClassLoader.PROP_SKIP_CONTEXT_SWITCH_AFTER_INIT, "true");
+
+		RangerPluginClassLoader skippingClassLoader = new RangerPluginClassLoader("perf", TestPluginClassLoaderPerf.class);
+
+		System.clearProperty(RangerPluginClassLoader.PROP_SKIP_CONTEXT_SWITCH_AFTER_INIT);
+
+		switchingClassLoader.setImplInitialized();
+		skippingClassLoader.setImplInitialized();
+
+		timeActivation(switchingClassLoader, iterations); // warm-up
+		timeActivation(skippingClassLoader, iterations);  // warm-up
+
+		System.out.println("activate/deactivate, context switch (default): " + timeActivation(switchingClassLoader, iterations) + " ns/call");
+		System.out.println("activate/deactivate, skip after init:          " + timeActivation(skippingClassLoader, iterations) + " ns/call");
+
+		timeLoadClass(switchingClassLoader, iterations, numThreads); // warm-up
+		System.out.println("loadClass, " + numThreads + " threads:                          " + timeLoadClass(switchingClassLoader, iterations, numThreads) + " ns/call");
+
+		switchingClassLoader.close();
+		skippingClassLoader.close();
+	}
+
+	private static double timeActivation(RangerPluginClassLoader classLoader, int iterations) {
+		long startTime = System.nanoTime();
+
+		for(int i = 0; i < iterations; i++) {
+			try {
+				classLoader.activate();
+			} finally {
+				classLoader.deactivate();
+			}
+		}
+
+		return (System.nanoTime() - startTime) / (double)iterations;
+	}
+
+	private static double timeLoadClass(final RangerPluginClassLoader classLoader, final int iterations, int numThreads) throws InterruptedException {
+		final CountDownLatch startSignal = new CountDownLatch(1);
+		final CountDownLatch doneSignal  = new CountDownLatch(numThreads);
+
+		for(int t = 0; t < numThreads; t++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						startSignal.await();
+
+						for(int i = 0; i < iterations; i++) {
+							classLoader.loadClass(CLASS_NAMES[i % CLASS_NAMES.length]);
+						}
+					} catch(Exception excp) {
+						excp.printStackTrace();
+					} finally {
+						doneSignal.countDown();
+					}
+				}
+			};
+
+			thread.start();
+		}
+
+		long startTime = System.nanoTime();
+
+		startSignal.countDown();
+		doneSignal.await();
+
+		return (System.nanoTime() - startTime) / ((double)iterations * numThreads);
+	}
+}
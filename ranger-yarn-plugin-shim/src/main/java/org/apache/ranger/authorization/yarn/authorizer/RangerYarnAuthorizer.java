@@ -96,6 +96,8 @@ public class RangerYarnAuthorizer extends YarnAuthorizationProvider {
 			deactivatePluginClassLoader();
 		}
 
+		setImplInitialized();
+
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerYarnAuthorizer.start()");
 		}
@@ -200,5 +202,11 @@ public class RangerYarnAuthorizer extends YarnAuthorizationProvider {
 		}
 	}
 
+	private void setImplInitialized() {
+		if(rangerPluginClassLoader != null) {
+			rangerPluginClassLoader.setImplInitialized();
+		}
+	}
+
 	
 }
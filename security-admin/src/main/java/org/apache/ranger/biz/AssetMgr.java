@@ -66,6 +66,7 @@ import org.apache.ranger.service.XTrxLogService;
 import org.apache.ranger.service.XUserService;
 import org.apache.ranger.solr.SolrAccessAuditsService;
 import org.apache.ranger.util.RestUtil;
+import org.apache.ranger.view.VXAccessAuditAggregates;
 import org.apache.ranger.view.VXAccessAuditList;
 import org.apache.ranger.view.VXAsset;
 import org.apache.ranger.view.VXAuditMap;
@@ -950,41 +951,57 @@ public class AssetMgr extends AssetMgrBase {
 
 	public VXAccessAuditList getAccessLogs(SearchCriteria searchCriteria) {
 
-        if (searchCriteria == null) {
-            searchCriteria = new SearchCriteria();
-        }
-        if (searchCriteria.getParamList() != null
-                && !searchCriteria.getParamList().isEmpty()) {
-            int clientTimeOffsetInMinute = RestUtil.getClientTimeOffset();
-            Date temp = null;
-            DateUtil dateUtil = new DateUtil();
-            if (searchCriteria.getParamList().containsKey("startDate")) {
-                temp = (Date) searchCriteria.getParamList().get(
-                        "startDate");
-                temp = dateUtil.getDateFromGivenDate(temp, 0, 0, 0, 0);
-                temp = dateUtil.addTimeOffset(temp, clientTimeOffsetInMinute);
-                searchCriteria.getParamList().put("startDate", temp);
-            }
-            if (searchCriteria.getParamList().containsKey("endDate")) {
-                temp = (Date) searchCriteria.getParamList().get(
-                        "endDate");
-                temp = dateUtil.getDateFromGivenDate(temp, 0, 23, 59, 59);
-                temp = dateUtil.addTimeOffset(temp, clientTimeOffsetInMinute);
-                searchCriteria.getParamList().put("endDate", temp);
-            }
+		if (searchCriteria == null) {
+			searchCriteria = new SearchCriteria();
+		}
+		applyClientTimeOffset(searchCriteria);
+		if (searchCriteria.getSortType() == null) {
+			searchCriteria.setSortType("desc");
+		} else if (!"asc".equalsIgnoreCase(searchCriteria.getSortType()) && !"desc".equalsIgnoreCase(searchCriteria.getSortType())) {
+			searchCriteria.setSortType("desc");
+		}
+		if (RangerBizUtil.AUDIT_STORE_SOLR.equalsIgnoreCase(xaBizUtil.getAuditDBType())) {
+			return solrAccessAuditsService.searchXAccessAudits(searchCriteria);
+		} else {
+			return xAccessAuditService.searchXAccessAudits(searchCriteria);
+		}
+	}
 
-        }
-        if (searchCriteria.getSortType() == null) {
-            searchCriteria.setSortType("desc");
-        } else if (!"asc".equalsIgnoreCase(searchCriteria.getSortType()) && !"desc".equalsIgnoreCase(searchCriteria.getSortType())) {
-            searchCriteria.setSortType("desc");
-        }
-        if (RangerBizUtil.AUDIT_STORE_SOLR.equalsIgnoreCase(xaBizUtil.getAuditDBType())) {
-            return solrAccessAuditsService.searchXAccessAudits(searchCriteria);
-        } else {
-            return xAccessAuditService.searchXAccessAudits(searchCriteria);
-        }
-    }
+	public VXAccessAuditAggregates getAccessLogAggregates(SearchCriteria searchCriteria, String groupBy, String timeGap, int limit) {
+		if (searchCriteria == null) {
+			searchCriteria = new SearchCriteria();
+		}
+		applyClientTimeOffset(searchCriteria);
+		if (RangerBizUtil.AUDIT_STORE_SOLR.equalsIgnoreCase(xaBizUtil.getAuditDBType())) {
+			return solrAccessAuditsService.getAccessAuditAggregates(searchCriteria, groupBy, timeGap, limit);
+		} else {
+			throw restErrorUtil.createRESTException("Access audit aggregates are supported only with Solr audit store", MessageEnums.OPER_NOT_ALLOWED_FOR_STATE);
+		}
+	}
+
+	private void applyClientTimeOffset(SearchCriteria searchCriteria) {
+		if (searchCriteria.getParamList() != null
+				&& !searchCriteria.getParamList().isEmpty()) {
+			int clientTimeOffsetInMinute = RestUtil.getClientTimeOffset();
+			Date temp = null;
+			DateUtil dateUtil = new DateUtil();
+			if (searchCriteria.getParamList().containsKey("startDate")) {
+				temp = (Date) searchCriteria.getParamList().get(
+						"startDate");
+				temp = dateUtil.getDateFromGivenDate(temp, 0, 0, 0, 0);
+				temp = dateUtil.addTimeOffset(temp, clientTimeOffsetInMinute);
+				searchCriteria.getParamList().put("startDate", temp);
+			}
+			if (searchCriteria.getParamList().containsKey("endDate")) {
+				temp = (Date) searchCriteria.getParamList().get(
+						"endDate");
+				temp = dateUtil.getDateFromGivenDate(temp, 0, 23, 59, 59);
+				temp = dateUtil.addTimeOffset(temp, clientTimeOffsetInMinute);
+				searchCriteria.getParamList().put("endDate", temp);
+			}
+
+		}
+	}
 
 
 	public VXTrxLogList getTransactionReport(String transactionId) {
@@ -1314,6 +1314,14 @@ public class RangerBizUtil {
 	}
 
 	public void createTrxLog(List<XXTrxLog> trxLogList) {
+		createTrxLog(trxLogList, false);
+	}
+
+	/**
+	 * @param isBatch when true, the logs are persisted without flushing; the caller must flush - to write many logs in
+	 *                JDBC batches
+	 */
+	public void createTrxLog(List<XXTrxLog> trxLogList, boolean isBatch) {
 		if (trxLogList == null) {
 			return;
 		}
@@ -1347,7 +1355,11 @@ public class RangerBizUtil {
 				}
 				xTrxLog.setSessionType("Spring Authenticated Session");
 				xTrxLog.setRequestId(trxId.toString());
-				daoManager.getXXTrxLog().create(xTrxLog);
+				if (isBatch) {
+					daoManager.getXXTrxLog().batchCreate(xTrxLog);
+				} else {
+					daoManager.getXXTrxLog().create(xTrxLog);
+				}
 			}
 		}
 		}
@@ -20,16 +20,24 @@
 package org.apache.ranger.biz;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.authorization.utils.StringUtil;
+import org.apache.ranger.common.PropertiesUtil;
 import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.entity.*;
 import org.apache.ranger.plugin.model.RangerPolicy;
@@ -49,12 +57,22 @@ public class RangerPolicyRetriever {
 	static final Log LOG      = LogFactory.getLog(RangerPolicyRetriever.class);
 	static final Log PERF_LOG = RangerPerfTracer.getPerfLogger("db.RangerPolicyRetriever");
 
+	static final String PROP_BULK_RETRIEVAL_ENABLED = "ranger.admin.policy.retriever.bulk.enabled";
+	static final String PROP_RETRIEVER_THREADS      = "ranger.admin.policy.retriever.threads";
+	static final String PROP_RETRIEVER_FETCH_SIZE   = "ranger.admin.policy.retriever.fetch.size";
+
+	private static ExecutorService executor = null;
+
 	final RangerDaoManager daoMgr;
 	final LookupCache      lookupCache;
+	final boolean          isBulkRetrievalEnabled;
+	final int              fetchSize;
 
 	public RangerPolicyRetriever(RangerDaoManager daoMgr) {
-		this.daoMgr      = daoMgr;
-		this.lookupCache = new LookupCache();
+		this.daoMgr                 = daoMgr;
+		this.lookupCache            = new LookupCache();
+		this.isBulkRetrievalEnabled = PropertiesUtil.getBooleanProperty(PROP_BULK_RETRIEVAL_ENABLED, true);
+		this.fetchSize              = PropertiesUtil.getIntProperty(PROP_RETRIEVER_FETCH_SIZE, 1000);
 	}
 
 	public List<RangerPolicy> getServicePolicies(Long serviceId) {
@@ -109,9 +127,15 @@ public class RangerPolicyRetriever {
 		}
 
 		if(xService != null) {
-			RetrieverContext ctx = new RetrieverContext(xService);
+			if(isBulkRetrievalEnabled) {
+				ret = new BulkRetrieverContext(xService).getAllPolicies();
+			}
+
+			if(ret == null) {
+				RetrieverContext ctx = new RetrieverContext(xService);
 
-			ret = ctx.getAllPolicies();
+				ret = ctx.getAllPolicies();
+			}
 		} else {
 			if(LOG.isDebugEnabled()) {
 				LOG.debug("RangerPolicyRetriever.getServicePolicies(xService=" + xService + "): invalid parameter");
@@ -127,6 +151,77 @@ public class RangerPolicyRetriever {
 		return ret;
 	}
 
+	/**
+	 * Returns policies of the service by reusing the given cached policies whose id and version match the database,
+	 * and by retrieving only the policies that were added or updated since; policies deleted since are dropped. The
+	 * cached list and its policies are not modified. Returns null when more than maxChangedPolicies policies were
+	 * changed, in which case retrieving all policies is expected to be cheaper.
+	 */
+	public List<RangerPolicy> getServicePolicies(XXService xService, List<RangerPolicy> cachedPolicies, int maxChangedPolicies) {
+		String serviceName = xService == null ? null : xService.getName();
+		Long   serviceId   = xService == null ? null : xService.getId();
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerPolicyRetriever.getServicePolicies(serviceName=" + serviceName + ", serviceId=" + serviceId + ", cachedPolicyCount=" + (cachedPolicies == null ? 0 : cachedPolicies.size()) + ", maxChangedPolicies=" + maxChangedPolicies + ")");
+		}
+
+		List<RangerPolicy> ret          = null;
+		int                changedCount = 0;
+		RangerPerfTracer   perf         = null;
+
+		if(RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+			perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerPolicyRetriever.getServicePolicies(serviceName=" + serviceName + ",serviceId=" + serviceId + ",incremental)");
+		}
+
+		if(xService != null && cachedPolicies != null) {
+			Map<Long, RangerPolicy> cachedPolicyMap = new HashMap<Long, RangerPolicy>(cachedPolicies.size());
+
+			for(RangerPolicy cachedPolicy : cachedPolicies) {
+				cachedPolicyMap.put(cachedPolicy.getId(), cachedPolicy);
+			}
+
+			List<Object[]> rows = daoMgr.getXXPolicy().findIdAndVersionByServiceId(serviceId, fetchSize);
+
+			ret = new ArrayList<RangerPolicy>(rows.size());
+
+			for(Object[] row : rows) {
+				Long         policyId     = (Long)row[0];
+				Long         version      = (Long)row[1];
+				RangerPolicy cachedPolicy = cachedPolicyMap.get(policyId);
+
+				if(cachedPolicy != null && version != null && version.equals(cachedPolicy.getVersion())) {
+					ret.add(cachedPolicy);
+
+					continue;
+				}
+
+				if(++changedCount > maxChangedPolicies) {
+					ret = null;
+
+					break;
+				}
+
+				RangerPolicy policy = getPolicy(getXXPolicy(policyId), xService);
+
+				if(policy != null) { // null if the policy got deleted after the id was read
+					ret.add(policy);
+				}
+			}
+		} else {
+			if(LOG.isDebugEnabled()) {
+				LOG.debug("RangerPolicyRetriever.getServicePolicies(xService=" + xService + ", cachedPolicies=" + cachedPolicies + "): invalid parameter");
+			}
+		}
+
+		RangerPerfTracer.log(perf);
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerPolicyRetriever.getServicePolicies(serviceName=" + serviceName + ", serviceId=" + serviceId + ", cachedPolicyCount=" + (cachedPolicies == null ? 0 : cachedPolicies.size()) + ", maxChangedPolicies=" + maxChangedPolicies + "): changedCount=" + changedCount + ", policyCount=" + (ret == null ? 0 : ret.size()));
+		}
+
+		return ret;
+	}
+
 	public RangerPolicy getPolicy(Long policyId) {
 		RangerPolicy ret = null;
 
@@ -266,19 +361,7 @@ public class RangerPolicyRetriever {
 					XXPortalUser user = daoMgr.getXXPortalUser().getById(userId);
 
 					if(user != null) {
-						ret = user.getPublicScreenName();
-
-						if (StringUtil.isEmpty(ret)) {
-							ret = user.getFirstName();
-
-							if(StringUtil.isEmpty(ret)) {
-								ret = user.getLoginId();
-							} else {
-								if(!StringUtil.isEmpty(user.getLastName())) {
-									ret += (" " + user.getLastName());
-								}
-							}
-						}
+						ret = getScreenName(user.getPublicScreenName(), user.getFirstName(), user.getLastName(), user.getLoginId());
 
 						if(ret != null) {
 							userScreenNames.put(userId, ret);
@@ -290,6 +373,26 @@ public class RangerPolicyRetriever {
 			return ret;
 		}
 
+		// rows of: id, publicScreenName, firstName, lastName, loginId
+		void addUserScreenNames(List<Object[]> rows) {
+			for(Object[] row : rows) {
+				String screenName = getScreenName((String) row[1], (String) row[2], (String) row[3], (String) row[4]);
+
+				if(screenName != null) {
+					userScreenNames.put((Long) row[0], screenName);
+				}
+			}
+		}
+
+		// rows of: id, name
+		void addNames(Map<Long, String> names, List<Object[]> rows) {
+			for(Object[] row : rows) {
+				if(row[1] != null) {
+					names.put((Long) row[0], (String) row[1]);
+				}
+			}
+		}
+
 		String getGroupName(Long groupId) {
 			String ret = null;
 
@@ -391,6 +494,79 @@ public class RangerPolicyRetriever {
 		}
 	}
 
+	static String getScreenName(String publicScreenName, String firstName, String lastName, String loginId) {
+		String ret = publicScreenName;
+
+		if (StringUtil.isEmpty(ret)) {
+			ret = firstName;
+
+			if(StringUtil.isEmpty(ret)) {
+				ret = loginId;
+			} else {
+				if(!StringUtil.isEmpty(lastName)) {
+					ret += (" " + lastName);
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	static RangerPolicyItem newPolicyItem(Integer itemType) {
+		final RangerPolicyItem ret;
+
+		if(itemType != null && itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DATAMASK) {
+			ret = new RangerDataMaskPolicyItem();
+		} else if(itemType != null && itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ROWFILTER) {
+			ret = new RangerRowFilterPolicyItem();
+		} else {
+			ret = new RangerPolicyItem();
+		}
+
+		return ret;
+	}
+
+	static void addPolicyItem(RangerPolicy policy, Integer xItemType, RangerPolicyItem policyItem) {
+		int itemType = xItemType == null ? RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW : xItemType;
+
+		if(itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW) {
+			policy.getPolicyItems().add(policyItem);
+		} else if(itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY) {
+			policy.getDenyPolicyItems().add(policyItem);
+		} else if(itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW_EXCEPTIONS) {
+			policy.getAllowExceptions().add(policyItem);
+		} else if(itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY_EXCEPTIONS) {
+			policy.getDenyExceptions().add(policyItem);
+		} else if(itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DATAMASK) {
+			policy.getDataMaskPolicyItems().add((RangerDataMaskPolicyItem) policyItem);
+		} else if(itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ROWFILTER) {
+			policy.getRowFilterPolicyItems().add((RangerRowFilterPolicyItem) policyItem);
+		} else { // unknown itemType
+			LOG.warn("RangerPolicyRetriever.getPolicy(policyId=" + policy.getId() + "): ignoring unknown policyItemType " + itemType);
+		}
+	}
+
+	static synchronized ExecutorService getExecutor() {
+		if(executor == null) {
+			int threadCount = Math.max(1, PropertiesUtil.getIntProperty(PROP_RETRIEVER_THREADS, 4));
+
+			executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+				private final AtomicInteger threadNum = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread ret = new Thread(r, "RangerPolicyRetriever-" + threadNum.incrementAndGet());
+
+					ret.setDaemon(true);
+
+					return ret;
+				}
+			});
+		}
+
+		return executor;
+	}
+
 	static List<XXPolicy> asList(XXPolicy policy) {
 		List<XXPolicy> ret = new ArrayList<XXPolicy>();
 
@@ -723,23 +899,7 @@ public class RangerPolicyRetriever {
 					}
 
 
-					int itemType = xPolicyItem.getItemType() == null ? RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW : xPolicyItem.getItemType();
-
-					if(itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW) {
-						policy.getPolicyItems().add(policyItem);
-					} else if(itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY) {
-						policy.getDenyPolicyItems().add(policyItem);
-					} else if(itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW_EXCEPTIONS) {
-						policy.getAllowExceptions().add(policyItem);
-					} else if(itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY_EXCEPTIONS) {
-						policy.getDenyExceptions().add(policyItem);
-					} else if(itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DATAMASK) {
-						policy.getDataMaskPolicyItems().add(dataMaskPolicyItem);
-					} else if(itemType == RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ROWFILTER) {
-						policy.getRowFilterPolicyItems().add(rowFilterPolicyItem);
-					} else { // unknown itemType
-						LOG.warn("RangerPolicyRetriever.getPolicy(policyId=" + policy.getId() + "): ignoring unknown policyItemType " + itemType);
-					}
+					addPolicyItem(policy, xPolicyItem.getItemType(), policyItem);
 				} else if(xPolicyItem.getPolicyid().compareTo(policy.getId()) > 0) {
 					if(iterPolicyItems.hasPrevious()) {
 						iterPolicyItems.previous();
@@ -749,5 +909,312 @@ public class RangerPolicyRetriever {
 			}
 		}
 	}
-}
 
+	/*
+	 * Retrieves policies of a service from rows of columns - not entities, selected by queries that run in parallel in
+	 * executor threads. Rows are ordered by policy-id and merged as in RetrieverContext. getAllPolicies() returns null
+	 * if retrieval failed, or if rows of the queries don't match - like when policies are updated during retrieval.
+	 */
+	class BulkRetrieverContext {
+		static final int POLICIES        = 0;
+		static final int RESOURCES       = 1;
+		static final int RESOURCE_MAPS   = 2;
+		static final int POLICY_ITEMS    = 3;
+		static final int USER_PERMS      = 4;
+		static final int GROUP_PERMS     = 5;
+		static final int ACCESSES        = 6;
+		static final int CONDITIONS      = 7;
+		static final int DATAMASK_INFOS  = 8;
+		static final int ROWFILTER_INFOS = 9;
+		static final int USER_NAMES      = 10;
+		static final int GROUP_NAMES     = 11;
+		static final int SCREEN_NAMES    = 12;
+		static final int QUERY_COUNT     = 13;
+
+		final XXService   service;
+		final RowCursor[] cursors = new RowCursor[QUERY_COUNT];
+
+		BulkRetrieverContext(XXService xService) {
+			this.service = xService;
+		}
+
+		List<RangerPolicy> getAllPolicies() {
+			List<RangerPolicy> ret = null;
+
+			try {
+				load();
+
+				RowCursor          policies = cursors[POLICIES];
+				List<RangerPolicy> policyList = new ArrayList<RangerPolicy>(policies.rows.size());
+
+				for(Object[] row : policies.rows) {
+					policyList.add(getPolicy(row));
+				}
+
+				if(isConsistent()) {
+					ret = policyList;
+				} else {
+					LOG.warn("BulkRetrieverContext.getAllPolicies(serviceName=" + service.getName() + "): perhaps one or more policies got updated during retrieval. Falling back to secondary method");
+				}
+			} catch(InterruptedException excp) {
+				LOG.warn("BulkRetrieverContext.getAllPolicies(serviceName=" + service.getName() + "): interrupted");
+
+				Thread.currentThread().interrupt();
+			} catch(Exception excp) {
+				LOG.warn("BulkRetrieverContext.getAllPolicies(serviceName=" + service.getName() + "): failed. Falling back to secondary method", excp);
+			}
+
+			return ret;
+		}
+
+		private void load() throws Exception {
+			ExecutorService             executor = getExecutor();
+			List<Future<List<Object[]>>> futures  = new ArrayList<Future<List<Object[]>>>(QUERY_COUNT);
+
+			for(int i = 0; i < QUERY_COUNT; i++) {
+				futures.add(executor.submit(new RowsLoader(i)));
+			}
+
+			// definitions of the service-def are few; load them while the queries run
+			Long serviceDefId = service.getType();
+
+			for(XXAccessTypeDef xAccessTypeDef : daoMgr.getXXAccessTypeDef().findByServiceDefId(serviceDefId)) {
+				lookupCache.accessTypes.put(xAccessTypeDef.getId(), xAccessTypeDef.getName());
+			}
+
+			for(XXResourceDef xResourceDef : daoMgr.getXXResourceDef().findByServiceDefId(serviceDefId)) {
+				lookupCache.resourceDefs.put(xResourceDef.getId(), xResourceDef.getName());
+			}
+
+			for(XXPolicyConditionDef xConditionDef : daoMgr.getXXPolicyConditionDef().findByServiceDefId(serviceDefId)) {
+				lookupCache.conditions.put(xConditionDef.getId(), xConditionDef.getName());
+			}
+
+			for(XXDataMaskTypeDef xDataMaskDef : daoMgr.getXXDataMaskTypeDef().findByServiceDefId(serviceDefId)) {
+				lookupCache.dataMasks.put(xDataMaskDef.getId(), xDataMaskDef.getName());
+			}
+
+			try {
+				for(int i = 0; i < QUERY_COUNT; i++) {
+					List<Object[]> rows = futures.get(i).get();
+
+					cursors[i] = new RowCursor(rows == null ? new ArrayList<Object[]>() : rows);
+				}
+			} finally {
+				for(Future<List<Object[]>> future : futures) {
+					future.cancel(true);
+				}
+			}
+
+			lookupCache.addNames(lookupCache.userNames, cursors[USER_NAMES].rows);
+			lookupCache.addNames(lookupCache.groupNames, cursors[GROUP_NAMES].rows);
+			lookupCache.addUserScreenNames(cursors[SCREEN_NAMES].rows);
+		}
+
+		private List<Object[]> loadRows(int query) {
+			Long serviceId = service.getId();
+
+			switch(query) {
+				case POLICIES:        return daoMgr.getXXPolicy().findRowsByServiceId(serviceId, fetchSize);
+				case RESOURCES:       return daoMgr.getXXPolicyResource().findRowsByServiceId(serviceId, fetchSize);
+				case RESOURCE_MAPS:   return daoMgr.getXXPolicyResourceMap().findRowsByServiceId(serviceId, fetchSize);
+				case POLICY_ITEMS:    return daoMgr.getXXPolicyItem().findRowsByServiceId(serviceId, fetchSize);
+				case USER_PERMS:      return daoMgr.getXXPolicyItemUserPerm().findRowsByServiceId(serviceId, fetchSize);
+				case GROUP_PERMS:     return daoMgr.getXXPolicyItemGroupPerm().findRowsByServiceId(serviceId, fetchSize);
+				case ACCESSES:        return daoMgr.getXXPolicyItemAccess().findRowsByServiceId(serviceId, fetchSize);
+				case CONDITIONS:      return daoMgr.getXXPolicyItemCondition().findRowsByServiceId(serviceId, fetchSize);
+				case DATAMASK_INFOS:  return daoMgr.getXXPolicyItemDataMaskInfo().findRowsByServiceId(serviceId, fetchSize);
+				case ROWFILTER_INFOS: return daoMgr.getXXPolicyItemRowFilterInfo().findRowsByServiceId(serviceId, fetchSize);
+				case USER_NAMES:      return daoMgr.getXXUser().findNamesByServiceId(serviceId, fetchSize);
+				case GROUP_NAMES:     return daoMgr.getXXGroup().findNamesByServiceId(serviceId, fetchSize);
+				case SCREEN_NAMES:    return daoMgr.getXXPortalUser().findScreenNamesByServiceId(serviceId, fetchSize);
+				default:              return null;
+			}
+		}
+
+		private boolean isConsistent() {
+			for(int i = 0; i <= ROWFILTER_INFOS; i++) {
+				if(!cursors[i].isConsumed()) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		// row: id, guid, isEnabled, addedByUserId, updatedByUserId, createTime, updateTime, version, name, policyType, description, resourceSignature, isAuditEnabled
+		private RangerPolicy getPolicy(Object[] row) {
+			RangerPolicy ret      = new RangerPolicy();
+			Long         policyId = (Long) row[0];
+
+			cursors[POLICIES].skip();
+
+			ret.setId(policyId);
+			ret.setGuid((String) row[1]);
+			ret.setIsEnabled(toBoolean(row[2]));
+			ret.setCreatedBy(lookupCache.getUserScreenName((Long) row[3]));
+			ret.setUpdatedBy(lookupCache.getUserScreenName((Long) row[4]));
+			ret.setCreateTime((Date) row[5]);
+			ret.setUpdateTime((Date) row[6]);
+			ret.setVersion((Long) row[7]);
+			ret.setService(service.getName());
+			ret.setName(StringUtils.trim((String) row[8]));
+			ret.setPolicyType(row[9] == null ? RangerPolicy.POLICY_TYPE_ACCESS : (Integer) row[9]);
+			ret.setDescription((String) row[10]);
+			ret.setResourceSignature((String) row[11]);
+			ret.setIsAuditEnabled(toBoolean(row[12]));
+
+			// resource row: policyId, id, resDefId, isExcludes, isRecursive
+			for(Object[] xResource = cursors[RESOURCES].next(policyId, null); xResource != null; xResource = cursors[RESOURCES].next(policyId, null)) {
+				Long                 resourceId = (Long) xResource[1];
+				RangerPolicyResource resource   = new RangerPolicyResource();
+
+				resource.setIsExcludes(toBoolean(xResource[3]));
+				resource.setIsRecursive(toBoolean(xResource[4]));
+
+				// resource-map row: policyId, resourceId, value
+				for(Object[] xResourceMap = cursors[RESOURCE_MAPS].next(policyId, resourceId); xResourceMap != null; xResourceMap = cursors[RESOURCE_MAPS].next(policyId, resourceId)) {
+					resource.getValues().add((String) xResourceMap[2]);
+				}
+
+				ret.getResources().put(lookupCache.getResourceName((Long) xResource[2]), resource);
+			}
+
+			// policy-item row: policyId, id, itemType, delegateAdmin
+			for(Object[] xPolicyItem = cursors[POLICY_ITEMS].next(policyId, null); xPolicyItem != null; xPolicyItem = cursors[POLICY_ITEMS].next(policyId, null)) {
+				addPolicyItem(ret, (Integer) xPolicyItem[2], getPolicyItem(policyId, xPolicyItem));
+			}
+
+			return ret;
+		}
+
+		private RangerPolicyItem getPolicyItem(Long policyId, Object[] xPolicyItem) {
+			Long             itemId = (Long) xPolicyItem[1];
+			RangerPolicyItem ret    = newPolicyItem((Integer) xPolicyItem[2]);
+
+			// access row: policyId, policyItemId, type, isAllowed
+			for(Object[] xAccess = cursors[ACCESSES].next(policyId, itemId); xAccess != null; xAccess = cursors[ACCESSES].next(policyId, itemId)) {
+				ret.getAccesses().add(new RangerPolicyItemAccess(lookupCache.getAccessType((Long) xAccess[2]), (Boolean) xAccess[3]));
+			}
+
+			// user-perm row: policyId, policyItemId, userId
+			for(Object[] xUserPerm = cursors[USER_PERMS].next(policyId, itemId); xUserPerm != null; xUserPerm = cursors[USER_PERMS].next(policyId, itemId)) {
+				String userName = lookupCache.getUserName((Long) xUserPerm[2]);
+
+				if(userName != null) {
+					ret.getUsers().add(userName);
+				}
+			}
+
+			// group-perm row: policyId, policyItemId, groupId
+			for(Object[] xGroupPerm = cursors[GROUP_PERMS].next(policyId, itemId); xGroupPerm != null; xGroupPerm = cursors[GROUP_PERMS].next(policyId, itemId)) {
+				String groupName = lookupCache.getGroupName((Long) xGroupPerm[2]);
+
+				if(groupName != null) {
+					ret.getGroups().add(groupName);
+				}
+			}
+
+			// condition row: policyId, policyItemId, type, value
+			RangerPolicyItemCondition condition         = null;
+			Long                      prevConditionType = null;
+
+			for(Object[] xCondition = cursors[CONDITIONS].next(policyId, itemId); xCondition != null; xCondition = cursors[CONDITIONS].next(policyId, itemId)) {
+				Long conditionType = (Long) xCondition[2];
+
+				if(! conditionType.equals(prevConditionType)) {
+					condition = new RangerPolicyItemCondition();
+					condition.setType(lookupCache.getConditionType(conditionType));
+
+					ret.getConditions().add(condition);
+
+					prevConditionType = conditionType;
+				}
+
+				condition.getValues().add((String) xCondition[3]);
+			}
+
+			ret.setDelegateAdmin((Boolean) xPolicyItem[3]);
+
+			// data-mask-info row: policyId, policyItemId, type, conditionExpr, valueExpr
+			for(Object[] xDataMaskInfo = cursors[DATAMASK_INFOS].next(policyId, itemId); xDataMaskInfo != null; xDataMaskInfo = cursors[DATAMASK_INFOS].next(policyId, itemId)) {
+				if(ret instanceof RangerDataMaskPolicyItem) {
+					((RangerDataMaskPolicyItem) ret).setDataMaskInfo(new RangerPolicyItemDataMaskInfo(lookupCache.getDataMaskName((Long) xDataMaskInfo[2]), (String) xDataMaskInfo[3], (String) xDataMaskInfo[4]));
+				}
+			}
+
+			// row-filter-info row: policyId, policyItemId, filterExpr
+			for(Object[] xRowFilterInfo = cursors[ROWFILTER_INFOS].next(policyId, itemId); xRowFilterInfo != null; xRowFilterInfo = cursors[ROWFILTER_INFOS].next(policyId, itemId)) {
+				if(ret instanceof RangerRowFilterPolicyItem) {
+					((RangerRowFilterPolicyItem) ret).setRowFilterInfo(new RangerPolicyItemRowFilterInfo((String) xRowFilterInfo[2]));
+				}
+			}
+
+			return ret;
+		}
+
+		private boolean toBoolean(Object value) {
+			return value != null && (Boolean) value;
+		}
+
+		class RowsLoader implements Callable<List<Object[]>> {
+			final int query;
+
+			RowsLoader(int query) {
+				this.query = query;
+			}
+
+			@Override
+			public List<Object[]> call() throws Exception {
+				return loadRows(query);
+			}
+		}
+	}
+
+	/*
+	 * Cursor over rows ordered by policy-id (column 0) and parent-id (column 1)
+	 */
+	static class RowCursor {
+		final List<Object[]> rows;
+		int                  nextIdx   = 0;
+		int                  skipCount = 0;
+
+		RowCursor(List<Object[]> rows) {
+			this.rows = rows;
+		}
+
+		// returns the next row having the given ids, after skipping rows with smaller ids; null if there is no such row
+		Object[] next(Long policyId, Long parentId) {
+			while(nextIdx < rows.size()) {
+				Object[] row = rows.get(nextIdx);
+				int      cmp = ((Long) row[0]).compareTo(policyId);
+
+				if(cmp == 0 && parentId != null) {
+					cmp = ((Long) row[1]).compareTo(parentId);
+				}
+
+				if(cmp > 0) {
+					return null;
+				}
+
+				nextIdx++;
+
+				if(cmp == 0) {
+					return row;
+				}
+
+				skipCount++;
+			}
+
+			return null;
+		}
+
+		void skip() {
+			nextIdx++;
+		}
+
+		boolean isConsumed() {
+			return skipCount == 0 && nextIdx == rows.size();
+		}
+	}
+}
@@ -66,9 +66,11 @@ import org.apache.ranger.common.PropertiesUtil;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerFactory;
 import org.apache.ranger.common.RangerServicePoliciesCache;
+import org.apache.ranger.common.RangerServicePoliciesIndex;
 import org.apache.ranger.common.RangerVersionInfo;
 import org.apache.ranger.common.StringUtil;
 import org.apache.ranger.common.UserSessionBase;
+import org.apache.ranger.common.db.BaseDao;
 import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.db.XXAccessTypeDefDao;
 import org.apache.ranger.db.XXAccessTypeDefGrantsDao;
@@ -1810,6 +1812,90 @@ public class ServiceDBStore extends AbstractServiceStore {
 			throw new Exception("service-def does not exist - name=" + service.getType());
 		}
 
+		XXPolicy xCreatedPolicy = createPolicyInDB(policy, service, xServiceDef, new PolicyRefLookup(false));
+
+		handlePolicyUpdate(service, true);
+		RangerPolicy createdPolicy = policyService.getPopulatedViewObject(xCreatedPolicy);
+		dataHistService.createObjectDataHistory(createdPolicy, RangerDataHistService.ACTION_CREATE);
+
+		List<XXTrxLog> trxLogList = policyService.getTransactionLog(createdPolicy, RangerPolicyService.OPERATION_CREATE_CONTEXT);
+		bizUtil.createTrxLog(trxLogList);
+
+		return createdPolicy;
+	}
+
+	/**
+	 * Creates the given policies - for example, those imported from a file - in the current transaction. Unlike calling
+	 * createPolicy() for each policy: users, groups and definitions referred by the policies are looked up once; the
+	 * policy version of each affected service is updated only once, after all policies are created; and data history
+	 * and transaction logs are written together at the end. Policies are expected to be validated by the caller.
+	 */
+	public List<RangerPolicy> createPolicies(List<RangerPolicy> policies) throws Exception {
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceDBStore.createPolicies(count=" + policies.size() + ")");
+		}
+
+		Map<String, RangerService> services    = new LinkedHashMap<String, RangerService>();
+		Map<String, XXServiceDef>  serviceDefs = new HashMap<String, XXServiceDef>();
+		PolicyRefLookup            lookup      = new PolicyRefLookup(true);
+		List<XXPolicy>             xPolicies   = new ArrayList<XXPolicy>(policies.size());
+		List<RangerPolicy>         ret         = new ArrayList<RangerPolicy>(policies.size());
+		List<XXTrxLog>             trxLogList  = new ArrayList<XXTrxLog>();
+
+		for(RangerPolicy policy : policies) {
+			RangerService service = services.get(policy.getService());
+
+			if(service == null) {
+				service = getServiceByName(policy.getService());
+
+				if(service == null) {
+					throw new Exception("service does not exist - name=" + policy.getService());
+				}
+
+				services.put(policy.getService(), service);
+			}
+
+			XXServiceDef xServiceDef = serviceDefs.get(service.getType());
+
+			if(xServiceDef == null) {
+				xServiceDef = daoMgr.getXXServiceDef().findByName(service.getType());
+
+				if(xServiceDef == null) {
+					throw new Exception("service-def does not exist - name=" + service.getType());
+				}
+
+				serviceDefs.put(service.getType(), xServiceDef);
+			}
+
+			xPolicies.add(createPolicyInDB(policy, service, xServiceDef, lookup));
+		}
+
+		for(RangerService service : services.values()) {
+			handlePolicyUpdate(service, true);
+		}
+
+		for(XXPolicy xCreatedPolicy : xPolicies) {
+			RangerPolicy createdPolicy = policyService.getPopulatedViewObject(xCreatedPolicy);
+
+			trxLogList.addAll(policyService.getTransactionLog(createdPolicy, RangerPolicyService.OPERATION_CREATE_CONTEXT));
+
+			ret.add(createdPolicy);
+		}
+
+		dataHistService.createObjectDataHistory(ret, RangerDataHistService.ACTION_CREATE);
+		bizUtil.createTrxLog(trxLogList, true);
+
+		// rows created with batchCreate() during the import are written here, in JDBC batches
+		daoMgr.getXXPolicy().flush();
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceDBStore.createPolicies(count=" + policies.size() + "): services=" + services.keySet());
+		}
+
+		return ret;
+	}
+
+	private XXPolicy createPolicyInDB(RangerPolicy policy, RangerService service, XXServiceDef xServiceDef, PolicyRefLookup lookup) throws Exception {
 		XXPolicy existing = daoMgr.getXXPolicy().findByNameAndServiceId(policy.getName(), service.getId());
 
 		if(existing != null) {
@@ -1842,21 +1928,15 @@ public class ServiceDBStore extends AbstractServiceStore {
 
 		XXPolicy xCreatedPolicy = daoMgr.getXXPolicy().getById(policy.getId());
 
-		createNewResourcesForPolicy(policy, xCreatedPolicy, resources);
-		createNewPolicyItemsForPolicy(policy, xCreatedPolicy, policyItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW);
-		createNewPolicyItemsForPolicy(policy, xCreatedPolicy, denyPolicyItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY);
-		createNewPolicyItemsForPolicy(policy, xCreatedPolicy, allowExceptions, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW_EXCEPTIONS);
-		createNewPolicyItemsForPolicy(policy, xCreatedPolicy, denyExceptions, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY_EXCEPTIONS);
-		createNewDataMaskPolicyItemsForPolicy(policy, xCreatedPolicy, dataMaskItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DATAMASK);
-		createNewRowFilterPolicyItemsForPolicy(policy, xCreatedPolicy, rowFilterItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ROWFILTER);
-		handlePolicyUpdate(service, true);
-		RangerPolicy createdPolicy = policyService.getPopulatedViewObject(xCreatedPolicy);
-		dataHistService.createObjectDataHistory(createdPolicy, RangerDataHistService.ACTION_CREATE);
-
-		List<XXTrxLog> trxLogList = policyService.getTransactionLog(createdPolicy, RangerPolicyService.OPERATION_CREATE_CONTEXT);
-		bizUtil.createTrxLog(trxLogList);
+		createNewResourcesForPolicy(policy, xCreatedPolicy, resources, lookup);
+		createNewPolicyItemsForPolicy(policy, xCreatedPolicy, policyItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW, lookup);
+		createNewPolicyItemsForPolicy(policy, xCreatedPolicy, denyPolicyItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY, lookup);
+		createNewPolicyItemsForPolicy(policy, xCreatedPolicy, allowExceptions, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW_EXCEPTIONS, lookup);
+		createNewPolicyItemsForPolicy(policy, xCreatedPolicy, denyExceptions, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY_EXCEPTIONS, lookup);
+		createNewDataMaskPolicyItemsForPolicy(policy, xCreatedPolicy, dataMaskItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DATAMASK, lookup);
+		createNewRowFilterPolicyItemsForPolicy(policy, xCreatedPolicy, rowFilterItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ROWFILTER, lookup);
 
-		return createdPolicy;
+		return xCreatedPolicy;
 	}
 
 	@Override
@@ -1923,13 +2003,15 @@ public class ServiceDBStore extends AbstractServiceStore {
 		deleteExistingPolicyResources(policy);
 		deleteExistingPolicyItems(policy);
 		
-		createNewResourcesForPolicy(policy, newUpdPolicy, newResources);
-		createNewPolicyItemsForPolicy(policy, newUpdPolicy, policyItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW);
-		createNewPolicyItemsForPolicy(policy, newUpdPolicy, denyPolicyItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY);
-		createNewPolicyItemsForPolicy(policy, newUpdPolicy, allowExceptions, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW_EXCEPTIONS);
-		createNewPolicyItemsForPolicy(policy, newUpdPolicy, denyExceptions, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY_EXCEPTIONS);
-		createNewDataMaskPolicyItemsForPolicy(policy, newUpdPolicy, dataMaskPolicyItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DATAMASK);
-		createNewRowFilterPolicyItemsForPolicy(policy, newUpdPolicy, rowFilterItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ROWFILTER);
+		PolicyRefLookup lookup = new PolicyRefLookup(false);
+
+		createNewResourcesForPolicy(policy, newUpdPolicy, newResources, lookup);
+		createNewPolicyItemsForPolicy(policy, newUpdPolicy, policyItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW, lookup);
+		createNewPolicyItemsForPolicy(policy, newUpdPolicy, denyPolicyItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY, lookup);
+		createNewPolicyItemsForPolicy(policy, newUpdPolicy, allowExceptions, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW_EXCEPTIONS, lookup);
+		createNewPolicyItemsForPolicy(policy, newUpdPolicy, denyExceptions, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY_EXCEPTIONS, lookup);
+		createNewDataMaskPolicyItemsForPolicy(policy, newUpdPolicy, dataMaskPolicyItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DATAMASK, lookup);
+		createNewRowFilterPolicyItemsForPolicy(policy, newUpdPolicy, rowFilterItems, xServiceDef, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ROWFILTER, lookup);
 
 		handlePolicyUpdate(service, isTagVersionUpdateNeeded);
 		RangerPolicy updPolicy = policyService.getPopulatedViewObject(newUpdPolicy);
@@ -2167,7 +2249,10 @@ public class ServiceDBStore extends AbstractServiceStore {
 				LOG.debug("Using" + (useLegacyResourceSearch ? " old " : " new ") + "way of filtering service-policies");
 			}
 
-			ret = new ArrayList<RangerPolicy>(policies);
+			RangerServicePoliciesIndex policiesIndex = RangerServicePoliciesCache.getInstance().getServicePoliciesIndex(service.getName(), servicePolicies);
+
+			// the index narrows down the candidates; predicates are still applied on them
+			ret = policiesIndex != null ? policiesIndex.getCandidatePolicies(filter) : new ArrayList<RangerPolicy>(policies);
 			predicateUtil.applyFilter(ret, filter);
 
 			if (!useLegacyResourceSearch && CollectionUtils.isNotEmpty(ret)) {
@@ -2318,14 +2403,22 @@ public class ServiceDBStore extends AbstractServiceStore {
 		return ret;
 	}
 
-	private List<RangerPolicy> getServicePoliciesFromDb(XXService service) throws Exception {
+	private List<RangerPolicy> getServicePoliciesFromDb(XXService service, List<RangerPolicy> cachedPolicies, int maxChangedPolicies) throws Exception {
 		if(LOG.isDebugEnabled()) {
-			LOG.debug("==> ServiceDBStore.getServicePoliciesFromDb(" + service.getName() + ")");
+			LOG.debug("==> ServiceDBStore.getServicePoliciesFromDb(" + service.getName() + ", cachedPolicyCount=" + (cachedPolicies == null ? 0 : cachedPolicies.size()) + ")");
 		}
 
 		RangerPolicyRetriever policyRetriever = new RangerPolicyRetriever(daoMgr);
 
-		List<RangerPolicy> ret = policyRetriever.getServicePolicies(service);
+		List<RangerPolicy> ret = null;
+
+		if (cachedPolicies != null) {
+			ret = policyRetriever.getServicePolicies(service, cachedPolicies, maxChangedPolicies);
+		}
+
+		if (ret == null) {
+			ret = policyRetriever.getServicePolicies(service);
+		}
 
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== ServiceDBStore.getServicePoliciesFromDb(" + service.getName() + "): count=" + ((ret == null) ? 0 : ret.size()));
@@ -2405,8 +2498,17 @@ public class ServiceDBStore extends AbstractServiceStore {
 
 	@Override
 	public ServicePolicies getServicePolicies(String serviceName) throws Exception {
+		return getServicePolicies(serviceName, null, 0);
+	}
+
+	/**
+	 * Returns policies of the service. When cachedServicePolicies is not null, its policies (and its tag policies) whose
+	 * versions are unchanged in the database are reused, and only added/updated policies are retrieved; if more than
+	 * maxChangedPolicies policies were changed, all policies are retrieved. cachedServicePolicies is not modified.
+	 */
+	public ServicePolicies getServicePolicies(String serviceName, ServicePolicies cachedServicePolicies, int maxChangedPolicies) throws Exception {
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("==> ServiceDBStore.getServicePolicies(" + serviceName  + ")");
+			LOG.debug("==> ServiceDBStore.getServicePolicies(" + serviceName  + ", cachedPolicyVersion=" + (cachedServicePolicies == null ? null : cachedServicePolicies.getPolicyVersion()) + ")");
 		}
 
 		ServicePolicies ret = null;
@@ -2455,13 +2557,13 @@ public class ServiceDBStore extends AbstractServiceStore {
 					tagPolicies.setServiceName(tagServiceDbObj.getName());
 					tagPolicies.setPolicyVersion(tagServiceVersionInfoDbObj == null ? null : tagServiceVersionInfoDbObj.getPolicyVersion());
 					tagPolicies.setPolicyUpdateTime(tagServiceVersionInfoDbObj == null ? null : tagServiceVersionInfoDbObj.getPolicyUpdateTime());
-					tagPolicies.setPolicies(getServicePoliciesFromDb(tagServiceDbObj));
+					tagPolicies.setPolicies(getServicePoliciesFromDb(tagServiceDbObj, getCachedPolicies(cachedServicePolicies == null ? null : cachedServicePolicies.getTagPolicies(), tagServiceDbObj.getId()), maxChangedPolicies));
 					tagPolicies.setServiceDef(tagServiceDef);
 					tagPolicies.setAuditMode(auditMode);
 				}
 			}
 
-			policies = getServicePoliciesFromDb(serviceDbObj);
+			policies = getServicePoliciesFromDb(serviceDbObj, getCachedPolicies(cachedServicePolicies, serviceDbObj.getId()), maxChangedPolicies);
 
 		} else {
 			policies = new ArrayList<RangerPolicy>();
@@ -2479,12 +2581,20 @@ public class ServiceDBStore extends AbstractServiceStore {
 		ret.setTagPolicies(tagPolicies);
 
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("<== ServiceDBStore.getServicePolicies(" + serviceName  + "): count=" + ((ret == null || ret.getPolicies() == null) ? 0 : ret.getPolicies().size()));
+			LOG.debug("<== ServiceDBStore.getServicePolicies(" + serviceName  + ", cachedPolicyVersion=" + (cachedServicePolicies == null ? null : cachedServicePolicies.getPolicyVersion()) + "): count=" + ((ret == null || ret.getPolicies() == null) ? 0 : ret.getPolicies().size()));
 		}
 
 		return ret;
 	}
 
+	private List<RangerPolicy> getCachedPolicies(ServicePolicies cachedServicePolicies, Long serviceId) {
+		return (cachedServicePolicies != null && serviceId.equals(cachedServicePolicies.getServiceId())) ? cachedServicePolicies.getPolicies() : null;
+	}
+
+	private List<RangerPolicy> getCachedPolicies(ServicePolicies.TagPolicies cachedTagPolicies, Long tagServiceId) {
+		return (cachedTagPolicies != null && tagServiceId.equals(cachedTagPolicies.getServiceId())) ? cachedTagPolicies.getPolicies() : null;
+	}
+
 	void createDefaultPolicies(RangerService createdService) throws Exception {
 
 		RangerBaseService svc = serviceMgr.getRangerServiceByService(createdService, this);
@@ -2718,7 +2828,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 		}
 	}
 
-	private XXPolicyItem createNewPolicyItemForPolicy(RangerPolicy policy, XXPolicy xPolicy, RangerPolicyItem policyItem, XXServiceDef xServiceDef, int itemOrder, int policyItemType) throws Exception {
+	private XXPolicyItem createNewPolicyItemForPolicy(RangerPolicy policy, XXPolicy xPolicy, RangerPolicyItem policyItem, XXServiceDef xServiceDef, int itemOrder, int policyItemType, PolicyRefLookup lookup) throws Exception {
 		XXPolicyItem xPolicyItem = new XXPolicyItem();
 
 		xPolicyItem = rangerAuditFields.populateAuditFields(xPolicyItem, xPolicy);
@@ -2735,9 +2845,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 		for (int i = 0; i < accesses.size(); i++) {
 			RangerPolicyItemAccess access = accesses.get(i);
 
-			XXAccessTypeDef xAccTypeDef = daoMgr.getXXAccessTypeDef()
-					.findByNameAndServiceId(access.getType(),
-							xPolicy.getService());
+			XXAccessTypeDef xAccTypeDef = lookup.getAccessTypeDef(access.getType(), xPolicy.getService());
 			if (xAccTypeDef == null) {
 				throw new Exception(access.getType() + ": is not a valid access-type. policy='" + policy.getName() + "' service='" + policy.getService() + "'");
 			}
@@ -2750,7 +2858,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 			xPolItemAcc.setPolicyitemid(xPolicyItem.getId());
 			xPolItemAcc.setOrder(i);
 
-			daoMgr.getXXPolicyItemAccess().create(xPolItemAcc);
+			lookup.create(daoMgr.getXXPolicyItemAccess(), xPolItemAcc);
 		}
 
 		List<String> users = policyItem.getUsers();
@@ -2759,7 +2867,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 			if (StringUtils.isBlank(user)) {
 				continue;
 			}
-			XXUser xUser = daoMgr.getXXUser().findByUserName(user);
+			XXUser xUser = lookup.getUser(user);
 			if(xUser == null) {
 				throw new Exception(user + ": user does not exist. policy='"+  policy.getName() + "' service='"+ policy.getService() + "' user='" + user +"'");
 			}
@@ -2768,7 +2876,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 			xUserPerm.setUserId(xUser.getId());
 			xUserPerm.setPolicyItemId(xPolicyItem.getId());
 			xUserPerm.setOrder(i);
-			xUserPerm = daoMgr.getXXPolicyItemUserPerm().create(xUserPerm);
+			lookup.create(daoMgr.getXXPolicyItemUserPerm(), xUserPerm);
 		}
 
 		List<String> groups = policyItem.getGroups();
@@ -2777,7 +2885,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 			if (StringUtils.isBlank(group)) {
 				continue;
 			}
-			XXGroup xGrp = daoMgr.getXXGroup().findByGroupName(group);
+			XXGroup xGrp = lookup.getGroup(group);
 			if(xGrp == null) {
 				throw new Exception(group + ": group does not exist. policy='"+  policy.getName() + "' service='"+ policy.getService() + "' group='" + group + "'");
 			}
@@ -2786,14 +2894,12 @@ public class ServiceDBStore extends AbstractServiceStore {
 			xGrpPerm.setGroupId(xGrp.getId());
 			xGrpPerm.setPolicyItemId(xPolicyItem.getId());
 			xGrpPerm.setOrder(i);
-			xGrpPerm = daoMgr.getXXPolicyItemGroupPerm().create(xGrpPerm);
+			lookup.create(daoMgr.getXXPolicyItemGroupPerm(), xGrpPerm);
 		}
 
 		List<RangerPolicyItemCondition> conditions = policyItem.getConditions();
 		for(RangerPolicyItemCondition condition : conditions) {
-			XXPolicyConditionDef xPolCond = daoMgr
-					.getXXPolicyConditionDef().findByServiceDefIdAndName(
-							xServiceDef.getId(), condition.getType());
+			XXPolicyConditionDef xPolCond = lookup.getPolicyConditionDef(condition.getType(), xServiceDef.getId());
 
 			if(xPolCond == null) {
 				throw new Exception(condition.getType() + ": is not a valid condition-type. policy='"+  xPolicy.getName() + "' service='"+ xPolicy.getService() + "'");
@@ -2808,33 +2914,33 @@ public class ServiceDBStore extends AbstractServiceStore {
 				xPolItemCond.setValue(value);
 				xPolItemCond.setOrder(i);
 
-				daoMgr.getXXPolicyItemCondition().create(xPolItemCond);
+				lookup.create(daoMgr.getXXPolicyItemCondition(), xPolItemCond);
 			}
 		}
 
 		return xPolicyItem;
 	}
 
-	private void createNewPolicyItemsForPolicy(RangerPolicy policy, XXPolicy xPolicy, List<RangerPolicyItem> policyItems, XXServiceDef xServiceDef, int policyItemType) throws Exception {
+	private void createNewPolicyItemsForPolicy(RangerPolicy policy, XXPolicy xPolicy, List<RangerPolicyItem> policyItems, XXServiceDef xServiceDef, int policyItemType, PolicyRefLookup lookup) throws Exception {
 		if(CollectionUtils.isNotEmpty(policyItems)) {
 			for (int itemOrder = 0; itemOrder < policyItems.size(); itemOrder++) {
 				RangerPolicyItem policyItem = policyItems.get(itemOrder);
-				createNewPolicyItemForPolicy(policy, xPolicy, policyItem, xServiceDef, itemOrder, policyItemType);
+				createNewPolicyItemForPolicy(policy, xPolicy, policyItem, xServiceDef, itemOrder, policyItemType, lookup);
 			}
 		}
 	}
 
-	private void createNewDataMaskPolicyItemsForPolicy(RangerPolicy policy, XXPolicy xPolicy, List<RangerDataMaskPolicyItem> policyItems, XXServiceDef xServiceDef, int policyItemType) throws Exception {
+	private void createNewDataMaskPolicyItemsForPolicy(RangerPolicy policy, XXPolicy xPolicy, List<RangerDataMaskPolicyItem> policyItems, XXServiceDef xServiceDef, int policyItemType, PolicyRefLookup lookup) throws Exception {
 		if(CollectionUtils.isNotEmpty(policyItems)) {
 			for (int itemOrder = 0; itemOrder < policyItems.size(); itemOrder++) {
 				RangerDataMaskPolicyItem policyItem = policyItems.get(itemOrder);
 
-				XXPolicyItem xPolicyItem = createNewPolicyItemForPolicy(policy, xPolicy, policyItem, xServiceDef, itemOrder, policyItemType);
+				XXPolicyItem xPolicyItem = createNewPolicyItemForPolicy(policy, xPolicy, policyItem, xServiceDef, itemOrder, policyItemType, lookup);
 
 				RangerPolicyItemDataMaskInfo dataMaskInfo = policyItem.getDataMaskInfo();
 
 				if(dataMaskInfo != null) {
-					XXDataMaskTypeDef dataMaskDef = daoMgr.getXXDataMaskTypeDef().findByNameAndServiceId(dataMaskInfo.getDataMaskType(), xPolicy.getService());
+					XXDataMaskTypeDef dataMaskDef = lookup.getDataMaskTypeDef(dataMaskInfo.getDataMaskType(), xPolicy.getService());
 
 					if(dataMaskDef == null) {
 						throw new Exception(dataMaskInfo.getDataMaskType() + ": is not a valid datamask-type. policy='" + policy.getName() + "' service='" + policy.getService() + "'");
@@ -2847,18 +2953,18 @@ public class ServiceDBStore extends AbstractServiceStore {
 					xxDataMaskInfo.setConditionExpr(dataMaskInfo.getConditionExpr());
 					xxDataMaskInfo.setValueExpr(dataMaskInfo.getValueExpr());
 
-					daoMgr.getXXPolicyItemDataMaskInfo().create(xxDataMaskInfo);
+					lookup.create(daoMgr.getXXPolicyItemDataMaskInfo(), xxDataMaskInfo);
 				}
 			}
 		}
 	}
 
-	private void createNewRowFilterPolicyItemsForPolicy(RangerPolicy policy, XXPolicy xPolicy, List<RangerRowFilterPolicyItem> policyItems, XXServiceDef xServiceDef, int policyItemType) throws Exception {
+	private void createNewRowFilterPolicyItemsForPolicy(RangerPolicy policy, XXPolicy xPolicy, List<RangerRowFilterPolicyItem> policyItems, XXServiceDef xServiceDef, int policyItemType, PolicyRefLookup lookup) throws Exception {
 		if(CollectionUtils.isNotEmpty(policyItems)) {
 			for (int itemOrder = 0; itemOrder < policyItems.size(); itemOrder++) {
 				RangerRowFilterPolicyItem policyItem = policyItems.get(itemOrder);
 
-				XXPolicyItem xPolicyItem = createNewPolicyItemForPolicy(policy, xPolicy, policyItem, xServiceDef, itemOrder, policyItemType);
+				XXPolicyItem xPolicyItem = createNewPolicyItemForPolicy(policy, xPolicy, policyItem, xServiceDef, itemOrder, policyItemType, lookup);
 
 				RangerPolicyItemRowFilterInfo dataMaskInfo = policyItem.getRowFilterInfo();
 
@@ -2868,19 +2974,18 @@ public class ServiceDBStore extends AbstractServiceStore {
 					xxRowFilterInfo.setPolicyItemId(xPolicyItem.getId());
 					xxRowFilterInfo.setFilterExpr(dataMaskInfo.getFilterExpr());
 
-					xxRowFilterInfo = daoMgr.getXXPolicyItemRowFilterInfo().create(xxRowFilterInfo);
+					lookup.create(daoMgr.getXXPolicyItemRowFilterInfo(), xxRowFilterInfo);
 				}
 			}
 		}
 	}
 
-	private void createNewResourcesForPolicy(RangerPolicy policy, XXPolicy xPolicy, Map<String, RangerPolicyResource> resources) throws Exception {
+	private void createNewResourcesForPolicy(RangerPolicy policy, XXPolicy xPolicy, Map<String, RangerPolicyResource> resources, PolicyRefLookup lookup) throws Exception {
 		
 		for (Entry<String, RangerPolicyResource> resource : resources.entrySet()) {
 			RangerPolicyResource policyRes = resource.getValue();
 
-			XXResourceDef xResDef = daoMgr.getXXResourceDef()
-					.findByNameAndPolicyId(resource.getKey(), policy.getId());
+			XXResourceDef xResDef = lookup.getResourceDef(resource.getKey(), policy.getId(), xPolicy.getService());
 			if (xResDef == null) {
 				throw new Exception(resource.getKey() + ": is not a valid resource-type. policy='"+  policy.getName() + "' service='"+ policy.getService() + "'");
 			}
@@ -2903,7 +3008,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 						xPolResMap.setResourceId(xPolRes.getId());
 						xPolResMap.setValue(values.get(i));
 						xPolResMap.setOrder(i);
-						xPolResMap = daoMgr.getXXPolicyResourceMap().create(xPolResMap);
+						lookup.create(daoMgr.getXXPolicyResourceMap(), xPolResMap);
 					}
 				}
 			}
@@ -3867,4 +3972,116 @@ public class ServiceDBStore extends AbstractServiceStore {
 		genericUser.setDescription(RangerPolicyEngine.RESOURCE_OWNER);
 		xUserService.createXUserWithOutLogin(genericUser);
 	}
+
+	/**
+	 * Caches users, groups and definitions looked up while creating policy items and resources, so that they are read
+	 * from the database once per policy - or once per import, when many policies are created by createPolicies(). For
+	 * an import, rows that are not referred by other rows are persisted without a flush, to be written together - in
+	 * JDBC batches - by the flush at the end of the import.
+	 */
+	private class PolicyRefLookup {
+		private final boolean                           isBatch;
+		private final Map<String, XXUser>               users               = new HashMap<String, XXUser>();
+		private final Map<String, XXGroup>              groups              = new HashMap<String, XXGroup>();
+		private final Map<String, XXAccessTypeDef>      accessTypeDefs      = new HashMap<String, XXAccessTypeDef>();
+		private final Map<String, XXResourceDef>        resourceDefs        = new HashMap<String, XXResourceDef>();
+		private final Map<String, XXPolicyConditionDef> policyConditionDefs = new HashMap<String, XXPolicyConditionDef>();
+		private final Map<String, XXDataMaskTypeDef>    dataMaskTypeDefs    = new HashMap<String, XXDataMaskTypeDef>();
+
+		PolicyRefLookup(boolean isBatch) {
+			this.isBatch = isBatch;
+		}
+
+		<T> T create(BaseDao<T> dao, T obj) {
+			return isBatch ? dao.batchCreate(obj) : dao.create(obj);
+		}
+
+		XXUser getUser(String userName) {
+			XXUser ret = users.get(userName);
+
+			if(ret == null) {
+				ret = daoMgr.getXXUser().findByUserName(userName);
+
+				if(ret != null) {
+					users.put(userName, ret);
+				}
+			}
+
+			return ret;
+		}
+
+		XXGroup getGroup(String groupName) {
+			XXGroup ret = groups.get(groupName);
+
+			if(ret == null) {
+				ret = daoMgr.getXXGroup().findByGroupName(groupName);
+
+				if(ret != null) {
+					groups.put(groupName, ret);
+				}
+			}
+
+			return ret;
+		}
+
+		XXAccessTypeDef getAccessTypeDef(String name, Long serviceId) {
+			String          key = serviceId + ":" + name;
+			XXAccessTypeDef ret = accessTypeDefs.get(key);
+
+			if(ret == null) {
+				ret = daoMgr.getXXAccessTypeDef().findByNameAndServiceId(name, serviceId);
+
+				if(ret != null) {
+					accessTypeDefs.put(key, ret);
+				}
+			}
+
+			return ret;
+		}
+
+		XXResourceDef getResourceDef(String name, Long policyId, Long serviceId) {
+			String        key = serviceId + ":" + name;
+			XXResourceDef ret = resourceDefs.get(key);
+
+			if(ret == null) {
+				ret = daoMgr.getXXResourceDef().findByNameAndPolicyId(name, policyId);
+
+				if(ret != null) {
+					resourceDefs.put(key, ret);
+				}
+			}
+
+			return ret;
+		}
+
+		XXPolicyConditionDef getPolicyConditionDef(String name, Long serviceDefId) {
+			String               key = serviceDefId + ":" + name;
+			XXPolicyConditionDef ret = policyConditionDefs.get(key);
+
+			if(ret == null) {
+				ret = daoMgr.getXXPolicyConditionDef().findByServiceDefIdAndName(serviceDefId, name);
+
+				if(ret != null) {
+					policyConditionDefs.put(key, ret);
+				}
+			}
+
+			return ret;
+		}
+
+		XXDataMaskTypeDef getDataMaskTypeDef(String name, Long serviceId) {
+			String            key = serviceId + ":" + name;
+			XXDataMaskTypeDef ret = dataMaskTypeDefs.get(key);
+
+			if(ret == null) {
+				ret = daoMgr.getXXDataMaskTypeDef().findByNameAndServiceId(name, serviceId);
+
+				if(ret != null) {
+					dataMaskTypeDefs.put(key, ret);
+				}
+			}
+
+			return ret;
+		}
+	}
 }
@@ -155,7 +155,7 @@ public class SessionMgr {
 								gjAuthSession = storeAuthSession(gjAuthSession);
 								session.setAttribute("auditLoginId", gjAuthSession.getId());
 							}
-							else if (!StringUtils.isEmpty(httpRequest.getRequestURI()) && !(httpRequest.getRequestURI().contains("/secure/policies/download/") || httpRequest.getRequestURI().contains("/secure/download/"))){
+							else if (!StringUtils.isEmpty(httpRequest.getRequestURI()) && !(httpRequest.getRequestURI().contains("/secure/policies/download/") || httpRequest.getRequestURI().contains("/secure/userstore/download/") || httpRequest.getRequestURI().contains("/secure/download/"))){
 								gjAuthSession = storeAuthSession(gjAuthSession);
 								session.setAttribute("auditLoginId", gjAuthSession.getId());
 							}else if (StringUtils.isEmpty(httpRequest.getRequestURI())){
@@ -902,8 +902,16 @@ public class TagDBStore extends AbstractTagStore {
 
 	@Override
 	public ServiceTags getServiceTagsIfUpdated(String serviceName, Long lastKnownVersion) throws Exception {
+		return getServiceTagsIfUpdated(serviceName, lastKnownVersion, false);
+	}
+
+	/**
+	 * Same as getServiceTagsIfUpdated(serviceName, lastKnownVersion), but when supportsTagDeltas is true only the changes
+	 * since lastKnownVersion may be returned - see ServiceTags.getIsDelta()
+	 */
+	public ServiceTags getServiceTagsIfUpdated(String serviceName, Long lastKnownVersion, boolean supportsTagDeltas) throws Exception {
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("==> TagDBStore.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ")");
+			LOG.debug("==> TagDBStore.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + supportsTagDeltas + ")");
 		}
 
 		ServiceTags ret = null;
@@ -923,7 +931,7 @@ public class TagDBStore extends AbstractTagStore {
 		}
 
 		if (lastKnownVersion == null || serviceVersionInfoDbObj == null || serviceVersionInfoDbObj.getTagVersion() == null || !lastKnownVersion.equals(serviceVersionInfoDbObj.getTagVersion())) {
-			ret = RangerServiceTagsCache.getInstance().getServiceTags(serviceName, xxService.getId(), this);
+			ret = RangerServiceTagsCache.getInstance().getServiceTags(serviceName, xxService.getId(), lastKnownVersion, supportsTagDeltas, this);
 		}
 
 		if (ret != null && lastKnownVersion != null && lastKnownVersion.equals(ret.getTagVersion())) {
@@ -936,7 +944,7 @@ public class TagDBStore extends AbstractTagStore {
 		}
 
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("<== TagDBStore.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + "): count=" + ((ret == null || ret.getTags() == null) ? 0 : ret.getTags().size()));
+			LOG.debug("<== TagDBStore.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + supportsTagDeltas + "): count=" + ((ret == null || ret.getTags() == null) ? 0 : ret.getTags().size()));
 		}
 
 		return ret;
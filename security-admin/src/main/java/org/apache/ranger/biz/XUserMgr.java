@@ -53,6 +53,7 @@ import org.apache.ranger.common.AppConstants;
 import org.apache.ranger.common.MessageEnums;
 import org.apache.ranger.common.PropertiesUtil;
 import org.apache.ranger.common.RangerConstants;
+import org.apache.ranger.common.RangerUserGroupCache;
 import org.apache.ranger.common.SearchCriteria;
 import org.apache.ranger.common.UserSessionBase;
 import org.apache.ranger.db.RangerDaoManager;
@@ -156,6 +157,9 @@ public class XUserMgr extends XUserMgrBase {
 	@Autowired
 	GUIDUtil guidUtil;
 
+	@Autowired
+	RangerUserGroupCache userGroupCache;
+
 	static final Logger logger = Logger.getLogger(XUserMgr.class);
 
 
@@ -248,6 +252,8 @@ public class XUserMgr extends XUserMgrBase {
 			assignPermissionToUser(vXPortalUser, true);
 		}
 
+		userGroupCache.onUserChanged(createdXUser.getId());
+
 		return createdXUser;
 	}
 
@@ -508,6 +514,8 @@ public class XUserMgr extends XUserMgrBase {
 			xGroupUserService.deleteResource(groupUserId);
 		}
 
+		userGroupCache.onUserChanged(vXUser.getId());
+
 		return vXUser;
 	}
 
@@ -540,6 +548,8 @@ public class XUserMgr extends XUserMgrBase {
 		}
 		vxUGInfo.setXgroupInfo(vxg);
 
+		userGroupCache.onUserChanged(vXUser.getId());
+
 		return vxUGInfo;
 	}
 	
@@ -570,6 +580,8 @@ public class XUserMgr extends XUserMgrBase {
 				vXGroupUser.setName(vXGroup.getName());
 				vXGroupUser = xGroupUserService
 						.createXGroupUserWithOutLogin(vXGroupUser);
+
+				userGroupCache.onUserChanged(xUser.getId());
 			}
 		}
 
@@ -614,7 +626,9 @@ public class XUserMgr extends XUserMgrBase {
 
 	public VXUser createXUserWithOutLogin(VXUser vXUser) {
 		checkAdminAccess();
-		return xUserService.createXUserWithOutLogin(vXUser);
+		vXUser = xUserService.createXUserWithOutLogin(vXUser);
+		userGroupCache.onUserChanged(vXUser.getId());
+		return vXUser;
 	}
 
 	public VXGroup createXGroup(VXGroup vXGroup) {
@@ -627,18 +641,22 @@ public class XUserMgr extends XUserMgrBase {
 		List<XXTrxLog> trxLogList = xGroupService.getTransactionLog(vXGroup,
 				"create");
 		xaBizUtil.createTrxLog(trxLogList);
+		userGroupCache.onUserGroupChanged();
 		return vXGroup;
 	}
 
 	public VXGroup createXGroupWithoutLogin(VXGroup vXGroup) {
 		checkAdminAccess();
-		return xGroupService.createXGroupWithOutLogin(vXGroup);
+		vXGroup = xGroupService.createXGroupWithOutLogin(vXGroup);
+		userGroupCache.onUserGroupChanged();
+		return vXGroup;
 	}
 
 	public VXGroupUser createXGroupUser(VXGroupUser vXGroupUser) {
 		checkAdminAccess();
 		vXGroupUser = xGroupUserService
 				.createXGroupUserWithOutLogin(vXGroupUser);
+		userGroupCache.onUserChanged(vXGroupUser.getUserId());
 		return vXGroupUser;
 	}
 
@@ -702,6 +720,7 @@ public class XUserMgr extends XUserMgrBase {
 		for (VXGroupUser vxGroupUser : vxGroupUserList.getList()) {
 			daoManager.getXXGroupUser().remove(vxGroupUser.getId());
 		}
+		userGroupCache.onUserChanged(vxUser.getId());
 	}
 
 	public VXGroupList getXUserGroups(Long xUserId) {
@@ -729,7 +748,13 @@ public class XUserMgr extends XUserMgrBase {
 	}
 
 	public Set<String> getGroupsForUser(String userName) {
-		Set<String> ret = new HashSet<String>();
+		Set<String> ret = userGroupCache.getGroupsForUser(userName);
+
+		if (ret != null) {
+			return ret;
+		}
+
+		ret = new HashSet<String>();
 
 		try {
 			VXUser user = getXUserByUserName(userName);
@@ -800,16 +825,20 @@ public class XUserMgr extends XUserMgrBase {
 				xGroup, "update");
 		xaBizUtil.createTrxLog(trxLogList);
 		vXGroup = (VXGroup) xGroupService.updateResource(vXGroup);
+		userGroupCache.onUserGroupChanged();
 		return vXGroup;
 	}
 	public VXGroupUser updateXGroupUser(VXGroupUser vXGroupUser) {
 		checkAdminAccess();
-		return super.updateXGroupUser(vXGroupUser);
+		vXGroupUser = super.updateXGroupUser(vXGroupUser);
+		userGroupCache.onUserChanged(vXGroupUser.getUserId());
+		return vXGroupUser;
 	}
 
 	public void deleteXGroupUser(Long id, boolean force) {
 		checkAdminAccess();
 		super.deleteXGroupUser(id, force);
+		userGroupCache.onUserGroupChanged();
 	}
 
 	public VXGroupGroup createXGroupGroup(VXGroupGroup vXGroupGroup){
@@ -1689,6 +1718,7 @@ public class XUserMgr extends XUserMgrBase {
 
 	public void deleteXGroup(Long id, boolean force) {
 		checkAdminAccess();
+		userGroupCache.onUserGroupChanged();
 		XXGroupDao xXGroupDao = daoManager.getXXGroup();
 		XXGroup xXGroup = xXGroupDao.getById(id);
 		VXGroup vXGroup = xGroupService.populateViewBean(xXGroup);
@@ -1857,6 +1887,7 @@ public class XUserMgr extends XUserMgrBase {
 
 	public void deleteXUser(Long id, boolean force) {
 		checkAdminAccess();
+		userGroupCache.onUserChanged(id);
 		XXUserDao xXUserDao = daoManager.getXXUser();
 		XXUser xXUser =	xXUserDao.getById(id);
 		VXUser vXUser =	xUserService.populateViewBean(xXUser);
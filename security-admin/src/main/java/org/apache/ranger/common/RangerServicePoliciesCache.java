@@ -22,13 +22,18 @@ package org.apache.ranger.common;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
+import org.apache.ranger.biz.ServiceDBStore;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.store.ServiceStore;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.util.ServicePolicies;
+import org.codehaus.jackson.map.ObjectMapper;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -36,15 +41,21 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
 
 public class RangerServicePoliciesCache {
 	private static final Log LOG = LogFactory.getLog(RangerServicePoliciesCache.class);
 
-	private static final int MAX_WAIT_TIME_FOR_UPDATE = 10;
+	private static final int  MAX_WAIT_TIME_FOR_UPDATE       = 10;
+	private static final long FULL_REFRESH_INTERVAL_MS       = 60 * 60 * 1000L;
+	private static final int  MAX_CHANGED_POLICIES_FOR_DELTA = 100;
 
 	private static volatile RangerServicePoliciesCache sInstance = null;
 	private final boolean useServicePoliciesCache;
 	private final int waitTimeInSeconds;
+	private final boolean useIncrementalRefresh;
+	private final long fullRefreshIntervalMs;
+	private final int maxChangedPoliciesForDelta;
 
 	private final Map<String, ServicePoliciesWrapper> servicePoliciesMap = new HashMap<String, ServicePoliciesWrapper>();
 
@@ -62,6 +73,9 @@ public class RangerServicePoliciesCache {
 	private RangerServicePoliciesCache() {
 		useServicePoliciesCache = RangerConfiguration.getInstance().getBoolean("ranger.admin.policy.download.usecache", true);
 		waitTimeInSeconds = RangerConfiguration.getInstance().getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+		useIncrementalRefresh = RangerConfiguration.getInstance().getBoolean("ranger.admin.policy.download.cache.incremental.refresh", true);
+		fullRefreshIntervalMs = RangerConfiguration.getInstance().getLong("ranger.admin.policy.download.cache.full.refresh.interval.ms", FULL_REFRESH_INTERVAL_MS);
+		maxChangedPoliciesForDelta = RangerConfiguration.getInstance().getInt("ranger.admin.policy.download.cache.incremental.max.changed.policies", MAX_CHANGED_POLICIES_FOR_DELTA);
 	}
 
 	public void dump() {
@@ -164,11 +178,209 @@ public class RangerServicePoliciesCache {
 		return ret;
 	}
 
+	/**
+	 * Returns search index for the given policies, when they are the ones currently cached for the service; the
+	 * index is built on first use after each policy-version change.
+	 */
+	public RangerServicePoliciesIndex getServicePoliciesIndex(String serviceName, ServicePolicies servicePolicies) {
+		RangerServicePoliciesIndex ret = null;
+
+		if (useServicePoliciesCache && servicePolicies != null) {
+			ServicePoliciesWrapper servicePoliciesWrapper = null;
+
+			synchronized (this) {
+				servicePoliciesWrapper = servicePoliciesMap.get(serviceName);
+			}
+
+			if (servicePoliciesWrapper != null) {
+				ret = servicePoliciesWrapper.getServicePoliciesIndex(servicePolicies);
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns the policies to be sent to plugins, i.e. without disabled policies. For the currently cached version of
+	 * policies the same instance is returned on each call, so that its serialized form can be reused - see
+	 * getSerializedServicePolicies().
+	 */
+	public ServicePolicies getServicePoliciesForDownload(ServicePolicies servicePolicies) {
+		ServicePolicies ret = null;
+
+		if (servicePolicies != null) {
+			ServicePoliciesWrapper servicePoliciesWrapper = useServicePoliciesCache ? getServicePoliciesWrapper(servicePolicies.getServiceName()) : null;
+
+			if (servicePoliciesWrapper != null) {
+				ret = servicePoliciesWrapper.getServicePoliciesForDownload(servicePolicies);
+			} else {
+				ret = filterDisabledPolicies(servicePolicies);
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns serialized (JSON, and gzip-compressed on demand) form of the given policies, if they are the ones returned by
+	 * getServicePoliciesForDownload() for the currently cached version; null otherwise. The serialization is done once per
+	 * version, no matter how many plugins download it.
+	 */
+	public SerializedServicePolicies getSerializedServicePolicies(ServicePolicies servicePoliciesForDownload) {
+		SerializedServicePolicies ret = null;
+
+		if (useServicePoliciesCache && servicePoliciesForDownload != null) {
+			ServicePoliciesWrapper servicePoliciesWrapper = getServicePoliciesWrapper(servicePoliciesForDownload.getServiceName());
+
+			if (servicePoliciesWrapper != null) {
+				ret = servicePoliciesWrapper.getSerializedServicePolicies(servicePoliciesForDownload);
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * ETag of the policies sent to plugins. Policies are identified by service-id and policy-version; the ETag is weak
+	 * since the same policies are sent with and without compression.
+	 */
+	public static String getETag(ServicePolicies servicePolicies) {
+		return "W/\"" + servicePolicies.getServiceId() + "-" + servicePolicies.getPolicyVersion() + "\"";
+	}
+
+	private synchronized ServicePoliciesWrapper getServicePoliciesWrapper(String serviceName) {
+		return serviceName != null ? servicePoliciesMap.get(serviceName) : null;
+	}
+
+	static ServicePolicies filterDisabledPolicies(ServicePolicies servicePolicies) {
+		ServicePolicies ret = null;
+		boolean containsDisabledResourcePolicies = false;
+		boolean containsDisabledTagPolicies = false;
+
+		if (servicePolicies != null) {
+			List<RangerPolicy> policies = null;
+
+			policies = servicePolicies.getPolicies();
+			if (CollectionUtils.isNotEmpty(policies)) {
+				for (RangerPolicy policy : policies) {
+					if (!policy.getIsEnabled()) {
+						containsDisabledResourcePolicies = true;
+						break;
+					}
+				}
+			}
+
+			if (servicePolicies.getTagPolicies() != null) {
+				policies = servicePolicies.getTagPolicies().getPolicies();
+				if (CollectionUtils.isNotEmpty(policies)) {
+					for (RangerPolicy policy : policies) {
+						if (!policy.getIsEnabled()) {
+							containsDisabledTagPolicies = true;
+							break;
+						}
+					}
+				}
+			}
+
+			if (!containsDisabledResourcePolicies && !containsDisabledTagPolicies) {
+				ret = servicePolicies;
+			} else {
+				ret = new ServicePolicies();
+
+				ret.setServiceDef(servicePolicies.getServiceDef());
+				ret.setServiceId(servicePolicies.getServiceId());
+				ret.setServiceName(servicePolicies.getServiceName());
+				ret.setPolicyVersion(servicePolicies.getPolicyVersion());
+				ret.setPolicyUpdateTime(servicePolicies.getPolicyUpdateTime());
+				ret.setPolicies(servicePolicies.getPolicies());
+				ret.setTagPolicies(servicePolicies.getTagPolicies());
+
+				if (containsDisabledResourcePolicies) {
+					List<RangerPolicy> filteredPolicies = new ArrayList<RangerPolicy>();
+					for (RangerPolicy policy : servicePolicies.getPolicies()) {
+						if (policy.getIsEnabled()) {
+							filteredPolicies.add(policy);
+						}
+					}
+					ret.setPolicies(filteredPolicies);
+				}
+
+				if (containsDisabledTagPolicies) {
+					ServicePolicies.TagPolicies tagPolicies = new ServicePolicies.TagPolicies();
+
+					tagPolicies.setServiceDef(servicePolicies.getTagPolicies().getServiceDef());
+					tagPolicies.setServiceId(servicePolicies.getTagPolicies().getServiceId());
+					tagPolicies.setServiceName(servicePolicies.getTagPolicies().getServiceName());
+					tagPolicies.setPolicyVersion(servicePolicies.getTagPolicies().getPolicyVersion());
+					tagPolicies.setPolicyUpdateTime(servicePolicies.getTagPolicies().getPolicyUpdateTime());
+
+					List<RangerPolicy> filteredPolicies = new ArrayList<RangerPolicy>();
+					for (RangerPolicy policy : servicePolicies.getTagPolicies().getPolicies()) {
+						if (policy.getIsEnabled()) {
+							filteredPolicies.add(policy);
+						}
+					}
+					tagPolicies.setPolicies(filteredPolicies);
+
+					ret.setTagPolicies(tagPolicies);
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	public static class SerializedServicePolicies {
+		private final String eTag;
+		private final byte[] json;
+		private byte[]       gzippedJson;
+
+		SerializedServicePolicies(String eTag, byte[] json) {
+			this.eTag = eTag;
+			this.json = json;
+		}
+
+		public String getETag() {
+			return eTag;
+		}
+
+		public byte[] getJson() {
+			return json;
+		}
+
+		public synchronized byte[] getGzippedJson() throws IOException {
+			if (gzippedJson == null) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+				GZIPOutputStream      gzip  = new GZIPOutputStream(bytes);
+
+				try {
+					gzip.write(json);
+				} finally {
+					gzip.close();
+				}
+
+				gzippedJson = bytes.toByteArray();
+
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("compressed serialized policies " + eTag + ": " + json.length + " bytes => " + gzippedJson.length + " bytes");
+				}
+			}
+
+			return gzippedJson;
+		}
+	}
+
 	private class ServicePoliciesWrapper {
 		final Long serviceId;
 		ServicePolicies servicePolicies;
+		RangerServicePoliciesIndex servicePoliciesIndex;
+		ServicePolicies servicePoliciesForIndex;
+		ServicePolicies servicePoliciesForDownload;
+		ServicePolicies servicePoliciesForDownloadSource;
+		SerializedServicePolicies serializedServicePolicies;
 		Date updateTime = null;
 		long longestDbLoadTimeInMs = -1;
+		long lastFullLoadTimeMs = -1;
 
 		ReentrantLock lock = new ReentrantLock();
 
@@ -187,6 +399,64 @@ public class RangerServicePoliciesCache {
 			return updateTime;
 		}
 
+		synchronized RangerServicePoliciesIndex getServicePoliciesIndex(ServicePolicies servicePolicies) {
+			if (servicePolicies != this.servicePolicies) {
+				return null;
+			}
+
+			if (servicePoliciesForIndex != servicePolicies) {
+				long startTimeMs = System.currentTimeMillis();
+
+				servicePoliciesIndex    = new RangerServicePoliciesIndex(servicePolicies.getPolicies());
+				servicePoliciesForIndex = servicePolicies;
+
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("built search index for " + servicePoliciesIndex.getPolicyCount() + " policies of version " + servicePolicies.getPolicyVersion() + " in " + (System.currentTimeMillis() - startTimeMs) + "ms");
+				}
+			}
+
+			return servicePoliciesIndex;
+		}
+
+		synchronized ServicePolicies getServicePoliciesForDownload(ServicePolicies servicePolicies) {
+			if (servicePolicies != this.servicePolicies) {
+				return filterDisabledPolicies(servicePolicies);
+			}
+
+			if (servicePoliciesForDownloadSource != servicePolicies) {
+				servicePoliciesForDownload       = filterDisabledPolicies(servicePolicies);
+				servicePoliciesForDownloadSource = servicePolicies;
+				serializedServicePolicies        = null;
+			}
+
+			return servicePoliciesForDownload;
+		}
+
+		synchronized SerializedServicePolicies getSerializedServicePolicies(ServicePolicies servicePoliciesForDownload) {
+			if (servicePoliciesForDownload != this.servicePoliciesForDownload || servicePoliciesForDownloadSource != this.servicePolicies) {
+				return null;
+			}
+
+			if (serializedServicePolicies == null) {
+				long startTimeMs = System.currentTimeMillis();
+
+				try {
+					byte[] json = new ObjectMapper().writeValueAsBytes(servicePoliciesForDownload);
+					String eTag = getETag(servicePoliciesForDownload);
+
+					serializedServicePolicies = new SerializedServicePolicies(eTag, json);
+
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("serialized policies of version " + servicePoliciesForDownload.getPolicyVersion() + " in " + (System.currentTimeMillis() - startTimeMs) + "ms: " + json.length + " bytes");
+					}
+				} catch (IOException excp) {
+					LOG.error("failed to serialize policies of version " + servicePoliciesForDownload.getPolicyVersion(), excp);
+				}
+			}
+
+			return serializedServicePolicies;
+		}
+
 		long getLongestDbLoadTimeInMs() {
 			return longestDbLoadTimeInMs;
 		}
@@ -229,10 +499,26 @@ public class RangerServicePoliciesCache {
 
 				long startTimeMs = System.currentTimeMillis();
 
-				ServicePolicies servicePoliciesFromDb = serviceStore.getServicePolicies(serviceName);
+				// policies with unchanged version are reused from the cached copy, which is not modified; all policies
+				// are reloaded periodically to pick up changes that don't update policy version, like rename of users
+				boolean isIncremental = useIncrementalRefresh && servicePolicies != null && serviceStore instanceof ServiceDBStore
+										&& (startTimeMs - lastFullLoadTimeMs) < fullRefreshIntervalMs;
+
+				ServicePolicies servicePoliciesFromDb;
+
+				if (isIncremental) {
+					servicePoliciesFromDb = ((ServiceDBStore) serviceStore).getServicePolicies(serviceName, servicePolicies, maxChangedPoliciesForDelta);
+				} else {
+					servicePoliciesFromDb = serviceStore.getServicePolicies(serviceName);
+					lastFullLoadTimeMs    = startTimeMs;
+				}
 
 				long dbLoadTime = System.currentTimeMillis() - startTimeMs;
 
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("loaded servicePolicies from db: isIncremental=" + isIncremental + ", dbLoadTime=" + dbLoadTime + "ms");
+				}
+
 				if (dbLoadTime > longestDbLoadTimeInMs) {
 					longestDbLoadTimeInMs = dbLoadTime;
 				}
@@ -283,6 +569,7 @@ public class RangerServicePoliciesCache {
 
 			sb.append("updateTime=").append(updateTime)
 					.append(", longestDbLoadTimeInMs=").append(longestDbLoadTimeInMs)
+					.append(", lastFullLoadTime=").append(lastFullLoadTimeMs > 0 ? new Date(lastFullLoadTimeMs) : null)
 					.append(", Service-Version:").append(servicePolicies != null ? servicePolicies.getPolicyVersion() : "null")
 					.append(", Number-Of-Policies:").append(servicePolicies != null ? servicePolicies.getPolicies().size() : 0);
 
@@ -0,0 +1,368 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.util.SearchFilter;
+
+/**
+ * Inverted indexes over the policies of one version of a service, used to narrow down the policies to be
+ * evaluated by the search predicates. Candidates returned by getCandidatePolicies() are a superset of the
+ * policies matching the filter, in the original order; callers still apply the predicates on them.
+ */
+public class RangerServicePoliciesIndex {
+	private static final Log LOG = LogFactory.getLog(RangerServicePoliciesIndex.class);
+
+	private static final int[] EMPTY_POSITIONS = new int[0];
+
+	private final List<RangerPolicy>                   policies;
+	private final Map<String, int[]>                   userIndex               = new HashMap<String, int[]>();
+	private final Map<String, int[]>                   groupIndex              = new HashMap<String, int[]>();
+	private final Map<String, int[]>                   policyNameIndex         = new HashMap<String, int[]>();
+	private final Map<String, int[]>                   policyIdIndex           = new HashMap<String, int[]>();
+	private final Map<String, int[]>                   policyTypeIndex         = new HashMap<String, int[]>();
+	private final Map<String, Map<String, int[]>>      resourceValueIndex      = new HashMap<String, Map<String, int[]>>();
+	private final Map<String, int[]>                   resourceWildcardIndex   = new HashMap<String, int[]>();
+	private final int[]                                enabledPolicies;
+	private final int[]                                disabledPolicies;
+	private final int[]                                policiesWithoutType;
+
+	public RangerServicePoliciesIndex(List<RangerPolicy> policies) {
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerServicePoliciesIndex(policyCount=" + (policies == null ? 0 : policies.size()) + ")");
+		}
+
+		this.policies = policies == null ? new ArrayList<RangerPolicy>() : new ArrayList<RangerPolicy>(policies);
+
+		Map<String, PositionList>                   users             = new HashMap<String, PositionList>();
+		Map<String, PositionList>                   groups            = new HashMap<String, PositionList>();
+		Map<String, PositionList>                   policyNames       = new HashMap<String, PositionList>();
+		Map<String, PositionList>                   policyIds         = new HashMap<String, PositionList>();
+		Map<String, PositionList>                   policyTypes       = new HashMap<String, PositionList>();
+		Map<String, Map<String, PositionList>>      resourceValues    = new HashMap<String, Map<String, PositionList>>();
+		Map<String, PositionList>                   resourceWildcards = new HashMap<String, PositionList>();
+		PositionList                                enabled           = new PositionList();
+		PositionList                                disabled          = new PositionList();
+		PositionList                                withoutType       = new PositionList();
+
+		for(int i = 0; i < this.policies.size(); i++) {
+			RangerPolicy policy = this.policies.get(i);
+
+			if(policy == null) {
+				continue;
+			}
+
+			if(policy.getIsEnabled()) {
+				enabled.add(i);
+			} else {
+				disabled.add(i);
+			}
+
+			if(policy.getPolicyType() != null) {
+				add(policyTypes, policy.getPolicyType().toString().toLowerCase(), i);
+			} else {
+				withoutType.add(i);
+			}
+
+			add(policyNames, policy.getName(), i);
+			add(policyIds, policy.getId() == null ? null : policy.getId().toString(), i);
+
+			List<?>[] policyItemsList = new List<?>[] { policy.getPolicyItems(),
+														policy.getDenyPolicyItems(),
+														policy.getAllowExceptions(),
+														policy.getDenyExceptions(),
+														policy.getDataMaskPolicyItems(),
+														policy.getRowFilterPolicyItems()
+													  };
+
+			for(List<?> policyItemsObj : policyItemsList) {
+				if(policyItemsObj == null) {
+					continue;
+				}
+
+				@SuppressWarnings("unchecked")
+				List<RangerPolicyItem> policyItems = (List<RangerPolicyItem>)policyItemsObj;
+
+				for(RangerPolicyItem policyItem : policyItems) {
+					if(policyItem.getUsers() != null) {
+						for(String user : policyItem.getUsers()) {
+							add(users, user, i);
+						}
+					}
+
+					if(policyItem.getGroups() != null) {
+						for(String group : policyItem.getGroups()) {
+							add(groups, group, i);
+						}
+					}
+				}
+			}
+
+			if(MapUtils.isNotEmpty(policy.getResources())) {
+				for(Map.Entry<String, RangerPolicyResource> entry : policy.getResources().entrySet()) {
+					RangerPolicyResource policyResource = entry.getValue();
+
+					if(policyResource == null || CollectionUtils.isEmpty(policyResource.getValues())) {
+						continue;
+					}
+
+					String                    resourceName = entry.getKey();
+					Map<String, PositionList> values       = resourceValues.get(resourceName);
+
+					if(values == null) {
+						values = new HashMap<String, PositionList>();
+
+						resourceValues.put(resourceName, values);
+					}
+
+					for(String value : policyResource.getValues()) {
+						if(value == null) {
+							continue;
+						}
+
+						if(StringUtils.containsAny(value, "*?")) {
+							add(resourceWildcards, resourceName, i);
+						} else {
+							add(values, value, i);
+						}
+					}
+				}
+			}
+		}
+
+		toIndex(users, userIndex);
+		toIndex(groups, groupIndex);
+		toIndex(policyNames, policyNameIndex);
+		toIndex(policyIds, policyIdIndex);
+		toIndex(policyTypes, policyTypeIndex);
+		toIndex(resourceWildcards, resourceWildcardIndex);
+
+		for(Map.Entry<String, Map<String, PositionList>> entry : resourceValues.entrySet()) {
+			Map<String, int[]> values = new HashMap<String, int[]>();
+
+			toIndex(entry.getValue(), values);
+
+			resourceValueIndex.put(entry.getKey(), values);
+		}
+
+		enabledPolicies     = enabled.toArray();
+		disabledPolicies    = disabled.toArray();
+		policiesWithoutType = withoutType.toArray();
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerServicePoliciesIndex(policyCount=" + this.policies.size() + "): users=" + userIndex.size() + ", groups=" + groupIndex.size() + ", resources=" + resourceValueIndex.keySet());
+		}
+	}
+
+	public int getPolicyCount() {
+		return policies.size();
+	}
+
+	/**
+	 * @param filter search filter
+	 * @return a new list with the policies that can possibly match the filter, in the order of the indexed policies
+	 */
+	public List<RangerPolicy> getCandidatePolicies(SearchFilter filter) {
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerServicePoliciesIndex.getCandidatePolicies(" + filter + ")");
+		}
+
+		int[] candidates = null;
+
+		if(filter != null && !filter.isEmpty()) {
+			candidates = intersect(candidates, filter.getParam(SearchFilter.USER), userIndex);
+			candidates = intersect(candidates, filter.getParam(SearchFilter.GROUP), groupIndex);
+			candidates = intersect(candidates, filter.getParam(SearchFilter.POLICY_NAME), policyNameIndex);
+			candidates = intersect(candidates, filter.getParam(SearchFilter.POLICY_ID), policyIdIndex);
+
+			String isEnabled = filter.getParam(SearchFilter.IS_ENABLED);
+
+			if(StringUtils.isNotEmpty(isEnabled)) {
+				candidates = intersect(candidates, Boolean.parseBoolean(isEnabled) ? enabledPolicies : disabledPolicies);
+			}
+
+			String policyType = filter.getParam(SearchFilter.POLICY_TYPE);
+
+			if(StringUtils.isNotEmpty(policyType)) {
+				// policies without a type match any policyType filter
+				candidates = intersect(candidates, union(lookup(policyTypeIndex, policyType.toLowerCase()), policiesWithoutType));
+			}
+
+			Map<String, String> resources = filter.getParamsWithPrefix(SearchFilter.RESOURCE_PREFIX, true);
+
+			if(MapUtils.isNotEmpty(resources)) {
+				for(Map.Entry<String, String> entry : resources.entrySet()) {
+					Map<String, int[]> values = resourceValueIndex.get(entry.getKey());
+					int[]              exact  = values == null ? EMPTY_POSITIONS : lookup(values, entry.getValue());
+
+					candidates = intersect(candidates, union(exact, lookup(resourceWildcardIndex, entry.getKey())));
+				}
+			}
+		}
+
+		final List<RangerPolicy> ret;
+
+		if(candidates == null) {
+			ret = new ArrayList<RangerPolicy>(policies);
+		} else {
+			ret = new ArrayList<RangerPolicy>(candidates.length);
+
+			for(int position : candidates) {
+				ret.add(policies.get(position));
+			}
+		}
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerServicePoliciesIndex.getCandidatePolicies(" + filter + "): candidates=" + ret.size() + " of " + policies.size());
+		}
+
+		return ret;
+	}
+
+	private static int[] intersect(int[] candidates, String key, Map<String, int[]> index) {
+		if(StringUtils.isEmpty(key)) {
+			return candidates;
+		}
+
+		return intersect(candidates, lookup(index, key));
+	}
+
+	private static int[] lookup(Map<String, int[]> index, String key) {
+		int[] ret = index.get(key);
+
+		return ret == null ? EMPTY_POSITIONS : ret;
+	}
+
+	// both arrays are sorted in ascending order; null 'candidates' stands for all policies
+	static int[] intersect(int[] candidates, int[] positions) {
+		if(candidates == null) {
+			return positions;
+		}
+
+		int[] ret   = new int[Math.min(candidates.length, positions.length)];
+		int   count = 0;
+
+		for(int i = 0, j = 0; i < candidates.length && j < positions.length; ) {
+			if(candidates[i] == positions[j]) {
+				ret[count++] = candidates[i];
+				i++;
+				j++;
+			} else if(candidates[i] < positions[j]) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+
+		return count == ret.length ? ret : Arrays.copyOf(ret, count);
+	}
+
+	static int[] union(int[] positions1, int[] positions2) {
+		if(positions1.length == 0) {
+			return positions2;
+		} else if(positions2.length == 0) {
+			return positions1;
+		}
+
+		int[] ret   = new int[positions1.length + positions2.length];
+		int   count = 0;
+		int   i     = 0;
+		int   j     = 0;
+
+		while(i < positions1.length && j < positions2.length) {
+			if(positions1[i] == positions2[j]) {
+				ret[count++] = positions1[i];
+				i++;
+				j++;
+			} else if(positions1[i] < positions2[j]) {
+				ret[count++] = positions1[i++];
+			} else {
+				ret[count++] = positions2[j++];
+			}
+		}
+
+		while(i < positions1.length) {
+			ret[count++] = positions1[i++];
+		}
+
+		while(j < positions2.length) {
+			ret[count++] = positions2[j++];
+		}
+
+		return count == ret.length ? ret : Arrays.copyOf(ret, count);
+	}
+
+	private static void add(Map<String, PositionList> index, String key, int position) {
+		if(key == null) {
+			return;
+		}
+
+		PositionList positions = index.get(key);
+
+		if(positions == null) {
+			positions = new PositionList();
+
+			index.put(key, positions);
+		}
+
+		positions.add(position);
+	}
+
+	private static void toIndex(Map<String, PositionList> from, Map<String, int[]> to) {
+		for(Map.Entry<String, PositionList> entry : from.entrySet()) {
+			to.put(entry.getKey(), entry.getValue().toArray());
+		}
+	}
+
+	// positions are added in ascending order; a policy referring to the same key more than once is recorded once
+	private static class PositionList {
+		private int[] positions = new int[4];
+		private int   size      = 0;
+
+		void add(int position) {
+			if(size > 0 && positions[size - 1] == position) {
+				return;
+			}
+
+			if(size == positions.length) {
+				positions = Arrays.copyOf(positions, size * 2);
+			}
+
+			positions[size++] = position;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(positions, size);
+		}
+	}
+}
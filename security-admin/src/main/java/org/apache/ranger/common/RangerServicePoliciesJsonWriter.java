@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.common.RangerServicePoliciesCache.SerializedServicePolicies;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Writes policies downloaded by plugins as JSON. For the version of policies held in RangerServicePoliciesCache the
+ * JSON is serialized (and gzip-compressed) once and reused for every plugin; the compressed form is sent to clients
+ * that accept gzip encoding.
+ */
+@Provider
+@Produces({ MediaType.APPLICATION_JSON })
+public class RangerServicePoliciesJsonWriter implements MessageBodyWriter<ServicePolicies> {
+	private static final String ENCODING_GZIP = "gzip";
+
+	@Context
+	HttpHeaders requestHeaders;
+
+	@Override
+	public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return ServicePolicies.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public long getSize(ServicePolicies servicePolicies, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return -1;
+	}
+
+	@Override
+	public void writeTo(ServicePolicies servicePolicies, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+	                    MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+		SerializedServicePolicies serializedServicePolicies = RangerServicePoliciesCache.getInstance().getSerializedServicePolicies(servicePolicies);
+
+		if (serializedServicePolicies == null) {
+			entityStream.write(new ObjectMapper().writeValueAsBytes(servicePolicies));
+		} else {
+			httpHeaders.putSingle(HttpHeaders.ETAG, serializedServicePolicies.getETag());
+			httpHeaders.putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+			if (isGzipAccepted()) {
+				httpHeaders.putSingle(HttpHeaders.CONTENT_ENCODING, ENCODING_GZIP);
+
+				entityStream.write(serializedServicePolicies.getGzippedJson());
+			} else {
+				entityStream.write(serializedServicePolicies.getJson());
+			}
+		}
+	}
+
+	private boolean isGzipAccepted() {
+		List<String> acceptEncodings = requestHeaders != null ? requestHeaders.getRequestHeader(HttpHeaders.ACCEPT_ENCODING) : null;
+
+		if (CollectionUtils.isNotEmpty(acceptEncodings)) {
+			for (String acceptEncoding : acceptEncodings) {
+				for (String encoding : StringUtils.split(acceptEncoding, ',')) {
+					String[] encodingAndParams = StringUtils.split(encoding, ';');
+
+					if (encodingAndParams.length > 0 && ENCODING_GZIP.equalsIgnoreCase(encodingAndParams[0].trim())) {
+						// "gzip;q=0" means gzip is not acceptable
+						return encodingAndParams.length == 1 || !encodingAndParams[1].trim().matches("q\\s*=\\s*0(\\.0*)?");
+					}
+				}
+			}
+		}
+
+		return false;
+	}
+}
@@ -29,9 +29,12 @@ import org.apache.ranger.plugin.store.TagStore;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.plugin.util.ServiceTagsDeltaUtil;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -41,10 +44,12 @@ public class RangerServiceTagsCache {
 	private static final Log LOG = LogFactory.getLog(RangerServiceTagsCache.class);
 
 	private static final int MAX_WAIT_TIME_FOR_UPDATE = 10;
+	private static final int MAX_DELTA_COUNT          = 10;
 
 	private static volatile RangerServiceTagsCache sInstance = null;
 	private final boolean useServiceTagsCache;
 	private final int waitTimeInSeconds;
+	private final int maxDeltaCount;
 
 	private final Map<String, ServiceTagsWrapper> serviceTagsMap = new HashMap<String, ServiceTagsWrapper>();
 
@@ -62,6 +67,7 @@ public class RangerServiceTagsCache {
 	private RangerServiceTagsCache() {
 		useServiceTagsCache = RangerConfiguration.getInstance().getBoolean("ranger.admin.tag.download.usecache", true);
 		waitTimeInSeconds = RangerConfiguration.getInstance().getInt("ranger.admin.tag.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+		maxDeltaCount = RangerConfiguration.getInstance().getInt("ranger.admin.tag.download.delta.max.count", MAX_DELTA_COUNT);
 	}
 
 	public void dump() {
@@ -89,9 +95,17 @@ public class RangerServiceTagsCache {
 	}
 
 	public ServiceTags getServiceTags(String serviceName, Long serviceId, TagStore tagStore) throws Exception {
+		return getServiceTags(serviceName, serviceId, null, false, tagStore);
+	}
+
+	/**
+	 * When supportsTagDeltas is true and the changes since lastKnownVersion are available in the cache, returns only the
+	 * changes - i.e. ServiceTags with getIsDelta() true; otherwise returns all tags of the service.
+	 */
+	public ServiceTags getServiceTags(String serviceName, Long serviceId, Long lastKnownVersion, boolean supportsTagDeltas, TagStore tagStore) throws Exception {
 
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("==> RangerServiceTagsCache.getServiceTags(" + serviceName + ", " + serviceId + ")");
+			LOG.debug("==> RangerServiceTagsCache.getServiceTags(" + serviceName + ", " + serviceId + ", " + lastKnownVersion + ", " + supportsTagDeltas + ")");
 		}
 
 		ServiceTags ret = null;
@@ -147,7 +161,7 @@ public class RangerServiceTagsCache {
 					LOG.error("getServiceTags(" + serviceName + "): failed to get latest tags as tag-store is null!");
 				}
 
-				serviceTags = serviceTagsWrapper.getServiceTags();
+				serviceTags = supportsTagDeltas ? serviceTagsWrapper.getServiceTagsOrDelta(lastKnownVersion) : serviceTagsWrapper.getServiceTags();
 			}
 
 			ret = serviceTags;
@@ -157,7 +171,7 @@ public class RangerServiceTagsCache {
 		}
 
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("<== RangerServiceTagsCache.getServiceTags(" + serviceName + ", " + serviceId + "): count=" + ((ret == null || ret.getTags() == null) ? 0 : ret.getTags().size()));
+			LOG.debug("<== RangerServiceTagsCache.getServiceTags(" + serviceName + ", " + serviceId + ", " + lastKnownVersion + ", " + supportsTagDeltas + "): isDelta=" + (ret != null && ret.getIsDelta()) + ", count=" + ((ret == null || ret.getTags() == null) ? 0 : ret.getTags().size()));
 		}
 
 		return ret;
@@ -168,6 +182,7 @@ public class RangerServiceTagsCache {
 		ServiceTags serviceTags;
 		Date updateTime = null;
 		long longestDbLoadTimeInMs = -1;
+		final Map<Long, ServiceTags> deltas = new LinkedHashMap<Long, ServiceTags>(); // changes from the version in key to the next cached version, oldest first
 
 		ReentrantLock lock = new ReentrantLock();
 
@@ -178,10 +193,56 @@ public class RangerServiceTagsCache {
 
 		Long getServiceId() { return serviceId; }
 
-		ServiceTags getServiceTags() {
+		synchronized ServiceTags getServiceTags() {
 			return serviceTags;
 		}
 
+		synchronized ServiceTags getServiceTagsOrDelta(Long lastKnownVersion) {
+			ServiceTags ret = serviceTags;
+
+			if (serviceTags != null && lastKnownVersion != null && lastKnownVersion != -1 && !lastKnownVersion.equals(serviceTags.getTagVersion())) {
+				ServiceTags delta   = null;
+				Long        version = lastKnownVersion;
+
+				while (!version.equals(serviceTags.getTagVersion())) {
+					ServiceTags next = deltas.get(version);
+
+					if (next == null) {
+						delta = null;
+
+						break;
+					}
+
+					delta   = delta == null ? next : ServiceTagsDeltaUtil.mergeDeltas(delta, next);
+					version = next.getTagVersion();
+				}
+
+				// send all tags when the delta isn't smaller
+				if (delta != null && ServiceTagsDeltaUtil.getChangeCount(delta) < (serviceTags.getServiceResources().size() + serviceTags.getTags().size())) {
+					ret = delta;
+				}
+			}
+
+			return ret;
+		}
+
+		synchronized void setServiceTags(ServiceTags latest) {
+			ServiceTags previous = serviceTags;
+
+			serviceTags = latest;
+
+			if (maxDeltaCount > 0 && previous != null && previous.getTagVersion() < latest.getTagVersion()) {
+				deltas.put(previous.getTagVersion(), ServiceTagsDeltaUtil.getDelta(previous, latest));
+
+				for (Iterator<Long> iter = deltas.keySet().iterator(); deltas.size() > maxDeltaCount; ) {
+					iter.next();
+					iter.remove();
+				}
+			} else {
+				deltas.clear();
+			}
+		}
+
 		Date getUpdateTime() {
 			return updateTime;
 		}
@@ -242,8 +303,8 @@ public class RangerServiceTagsCache {
 					if (serviceTagsFromDb.getTagVersion() == null) {
 						serviceTagsFromDb.setTagVersion(0L);
 					}
-					serviceTags = serviceTagsFromDb;
-					pruneUnusedAttributes();
+					pruneUnusedAttributes(serviceTagsFromDb);
+					setServiceTags(serviceTagsFromDb);
 				}
 			}
 
@@ -252,7 +313,7 @@ public class RangerServiceTagsCache {
 			}
 		}
 
-		private void pruneUnusedAttributes() {
+		private void pruneUnusedAttributes(ServiceTags serviceTags) {
 			if (serviceTags != null) {
 				serviceTags.setOp(null);
 				serviceTags.setTagUpdateTime(null);
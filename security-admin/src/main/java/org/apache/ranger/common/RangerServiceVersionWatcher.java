@@ -0,0 +1,373 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Lets policy/tag download requests wait for a newer version of the service (long-poll), without holding a servlet
+ * thread or a DB connection per waiting request: a waiting request registers a listener, which is called once the
+ * version changes or the wait elapses. A single background task reads the versions of all services from
+ * x_service_version_info, only while there are waiters, and completes the waiters whose version changed. Since versions
+ * are read from the database, updates made through any Ranger Admin instance are seen.
+ *
+ * Besides the total number of waiters, the number of waiters per client address and per service is limited, so that a
+ * single client, or requests for a single service, can't take all the wait slots; requests beyond these limits are
+ * served right away, as without long-poll.
+ */
+@Service
+@Scope("singleton")
+public class RangerServiceVersionWatcher {
+	private static final Log LOG = LogFactory.getLog(RangerServiceVersionWatcher.class);
+
+	static final String PROP_LONGPOLL_MAX_WAIT_MS       = "ranger.admin.download.longpoll.max.wait.ms";
+	static final String PROP_LONGPOLL_MAX_WAITERS       = "ranger.admin.download.longpoll.max.waiters";
+	static final String PROP_LONGPOLL_MAX_WAITERS_PER_CLIENT  = "ranger.admin.download.longpoll.max.waiters.per.client";
+	static final String PROP_LONGPOLL_MAX_WAITERS_PER_SERVICE = "ranger.admin.download.longpoll.max.waiters.per.service";
+	static final String PROP_LONGPOLL_CHECK_INTERVAL_MS = "ranger.admin.download.longpoll.check.interval.ms";
+
+	private static final long DEFAULT_LONGPOLL_MAX_WAIT_MS       = 60 * 1000;
+	private static final int  DEFAULT_LONGPOLL_MAX_WAITERS       = 10000;
+	private static final int  DEFAULT_LONGPOLL_MAX_WAITERS_PER_CLIENT  = 50;
+	private static final int  DEFAULT_LONGPOLL_MAX_WAITERS_PER_SERVICE = 2500;
+	private static final long DEFAULT_LONGPOLL_CHECK_INTERVAL_MS = 500;
+
+	/**
+	 * Called once for each registered wait, from the watcher's thread
+	 */
+	public interface UpdateListener {
+		/**
+		 * @param isUpdated true if a different version was seen; false when the wait elapsed
+		 */
+		void onWaitComplete(boolean isUpdated);
+	}
+
+	@Autowired
+	RangerDaoManager daoManager;
+
+	@Autowired
+	@Qualifier(value = "transactionManager")
+	PlatformTransactionManager txManager;
+
+	private final Object                   lock     = new Object();
+	private final Map<String, VersionInfo> versions = new HashMap<String, VersionInfo>();
+	private final List<Waiter>             waiters  = new ArrayList<Waiter>();
+	private final Map<String, Integer>     clientWaiterCounts  = new HashMap<String, Integer>();
+	private final Map<String, Integer>     serviceWaiterCounts = new HashMap<String, Integer>();
+
+	private long maxWaitMs;
+	private int  maxWaiters;
+	private int  maxWaitersPerClient;
+	private int  maxWaitersPerService;
+	private long checkIntervalMs;
+	private long checkCount;
+
+	private ScheduledExecutorService scheduler;
+
+	@PostConstruct
+	public void init() {
+		init(PropertiesUtil.getLongProperty(PROP_LONGPOLL_MAX_WAIT_MS, DEFAULT_LONGPOLL_MAX_WAIT_MS),
+		     PropertiesUtil.getIntProperty(PROP_LONGPOLL_MAX_WAITERS, DEFAULT_LONGPOLL_MAX_WAITERS),
+		     PropertiesUtil.getIntProperty(PROP_LONGPOLL_MAX_WAITERS_PER_CLIENT, DEFAULT_LONGPOLL_MAX_WAITERS_PER_CLIENT),
+		     PropertiesUtil.getIntProperty(PROP_LONGPOLL_MAX_WAITERS_PER_SERVICE, DEFAULT_LONGPOLL_MAX_WAITERS_PER_SERVICE),
+		     PropertiesUtil.getLongProperty(PROP_LONGPOLL_CHECK_INTERVAL_MS, DEFAULT_LONGPOLL_CHECK_INTERVAL_MS));
+
+		if (maxWaiters > 0 && checkIntervalMs > 0) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ranger-service-version-watcher").build());
+
+			scheduler.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					checkWaiters();
+				}
+			}, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+		}
+
+		LOG.info("RangerServiceVersionWatcher: maxWaitMs=" + maxWaitMs + ", maxWaiters=" + maxWaiters + ", maxWaitersPerClient=" + maxWaitersPerClient
+		       + ", maxWaitersPerService=" + maxWaitersPerService + ", checkIntervalMs=" + checkIntervalMs);
+	}
+
+	// Not designed for public access - only for testability
+	void init(long maxWaitMs, int maxWaiters, int maxWaitersPerClient, int maxWaitersPerService, long checkIntervalMs) {
+		this.maxWaitMs            = maxWaitMs;
+		this.maxWaiters           = maxWaiters;
+		this.maxWaitersPerClient  = maxWaitersPerClient;
+		this.maxWaitersPerService = maxWaitersPerService;
+		this.checkIntervalMs      = checkIntervalMs;
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+
+		List<Waiter> pending;
+
+		synchronized (lock) {
+			maxWaiters = 0;
+			pending    = new ArrayList<Waiter>(waiters);
+
+			waiters.clear();
+			clientWaiterCounts.clear();
+			serviceWaiterCounts.clear();
+		}
+
+		for (Waiter waiter : pending) {
+			waiter.complete(false);
+		}
+	}
+
+	/**
+	 * Registers a wait until the policy version of the service differs from lastKnownVersion, or waitMs elapses.
+	 *
+	 * @param clientAddress address of the client that requested the download, to limit the number of waiters per client
+	 * @return true if the wait was registered, in which case listener will be called; false when waiting is not possible
+	 */
+	public boolean waitForPolicyUpdate(String serviceName, String clientAddress, Long lastKnownVersion, long waitMs, UpdateListener listener) {
+		return waitForUpdate(serviceName, clientAddress, lastKnownVersion, waitMs, false, listener);
+	}
+
+	/**
+	 * Registers a wait until the tag version of the service differs from lastKnownVersion, or waitMs elapses.
+	 *
+	 * @param clientAddress address of the client that requested the download, to limit the number of waiters per client
+	 * @return true if the wait was registered, in which case listener will be called; false when waiting is not possible
+	 */
+	public boolean waitForTagUpdate(String serviceName, String clientAddress, Long lastKnownVersion, long waitMs, UpdateListener listener) {
+		return waitForUpdate(serviceName, clientAddress, lastKnownVersion, waitMs, true, listener);
+	}
+
+	int getWaiterCount() {
+		synchronized (lock) {
+			return waiters.size();
+		}
+	}
+
+	void checkWaiters() {
+		if (getWaiterCount() == 0) {
+			return;
+		}
+
+		try {
+			checkVersions();
+		} catch (Throwable excp) {
+			LOG.error("RangerServiceVersionWatcher: failed to read service versions", excp);
+		}
+
+		long         now       = System.currentTimeMillis();
+		List<Waiter> updated  = new ArrayList<Waiter>();
+		List<Waiter> timedOut  = new ArrayList<Waiter>();
+
+		synchronized (lock) {
+			for (Iterator<Waiter> iter = waiters.iterator(); iter.hasNext(); ) {
+				Waiter waiter = iter.next();
+
+				// versions are not read while there are no waiters, hence consider only versions read after this wait started
+				if (checkCount != waiter.startCheckCount && waiter.isUpdated(versions.get(waiter.serviceName))) {
+					updated.add(waiter);
+					iter.remove();
+					removeWaiterCounts(waiter);
+				} else if (now >= waiter.endTimeMs) {
+					timedOut.add(waiter);
+					iter.remove();
+					removeWaiterCounts(waiter);
+				}
+			}
+		}
+
+		for (Waiter waiter : updated) {
+			waiter.complete(true);
+		}
+
+		for (Waiter waiter : timedOut) {
+			waiter.complete(false);
+		}
+	}
+
+	void checkVersions() {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerServiceVersionWatcher.checkVersions()");
+		}
+
+		TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+		txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		txTemplate.setReadOnly(true);
+
+		Map<String, VersionInfo> latestVersions = txTemplate.execute(new TransactionCallback<Map<String, VersionInfo>>() {
+			@Override
+			public Map<String, VersionInfo> doInTransaction(TransactionStatus status) {
+				Map<String, VersionInfo> ret  = new HashMap<String, VersionInfo>();
+				List<Object[]>           rows = daoManager.getXXServiceVersionInfo().getAllWithServiceNames();
+
+				if (rows != null) {
+					for (Object[] row : rows) {
+						if (row != null && row.length == 2 && row[0] instanceof XXServiceVersionInfo && row[1] instanceof String) {
+							XXServiceVersionInfo versionInfo = (XXServiceVersionInfo) row[0];
+
+							ret.put((String) row[1], new VersionInfo(versionInfo.getPolicyVersion(), versionInfo.getTagVersion()));
+						}
+					}
+				}
+
+				return ret;
+			}
+		});
+
+		synchronized (lock) {
+			versions.clear();
+			versions.putAll(latestVersions);
+
+			checkCount++;
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerServiceVersionWatcher.checkVersions(): serviceCount=" + latestVersions.size());
+		}
+	}
+
+	private boolean waitForUpdate(String serviceName, String clientAddress, Long lastKnownVersion, long waitMs, boolean isTagVersion, UpdateListener listener) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerServiceVersionWatcher.waitForUpdate(" + serviceName + ", " + clientAddress + ", " + lastKnownVersion + ", " + waitMs + ", " + isTagVersion + ")");
+		}
+
+		boolean ret = false;
+
+		// a plugin without a version needs the download right away
+		if (serviceName != null && lastKnownVersion != null && lastKnownVersion != -1 && waitMs > 0 && listener != null) {
+			synchronized (lock) {
+				int clientWaiterCount  = getCount(clientWaiterCounts, clientAddress);
+				int serviceWaiterCount = getCount(serviceWaiterCounts, serviceName);
+
+				if (waiters.size() < maxWaiters && clientWaiterCount < maxWaitersPerClient && serviceWaiterCount < maxWaitersPerService) {
+					Waiter waiter = new Waiter(serviceName, clientAddress, lastKnownVersion, isTagVersion, System.currentTimeMillis() + Math.min(waitMs, maxWaitMs), checkCount, listener);
+
+					waiters.add(waiter);
+					clientWaiterCounts.put(waiter.clientAddress, clientWaiterCount + 1);
+					serviceWaiterCounts.put(waiter.serviceName, serviceWaiterCount + 1);
+
+					ret = true;
+				} else if (LOG.isDebugEnabled()) {
+					LOG.debug("RangerServiceVersionWatcher.waitForUpdate(" + serviceName + ", " + clientAddress + "): too many waiters (total=" + waiters.size()
+					          + ", client=" + clientWaiterCount + ", service=" + serviceWaiterCount + "). Not waiting");
+				}
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerServiceVersionWatcher.waitForUpdate(" + serviceName + ", " + clientAddress + ", " + lastKnownVersion + ", " + waitMs + ", " + isTagVersion + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	// caller should hold lock
+	private void removeWaiterCounts(Waiter waiter) {
+		decrementCount(clientWaiterCounts, waiter.clientAddress);
+		decrementCount(serviceWaiterCounts, waiter.serviceName);
+	}
+
+	private static int getCount(Map<String, Integer> counts, String key) {
+		Integer ret = counts.get(key == null ? "" : key);
+
+		return ret == null ? 0 : ret;
+	}
+
+	private static void decrementCount(Map<String, Integer> counts, String key) {
+		int count = getCount(counts, key);
+
+		if (count > 1) {
+			counts.put(key, count - 1);
+		} else {
+			counts.remove(key);
+		}
+	}
+
+	private static class Waiter {
+		final String         serviceName;
+		final String         clientAddress;
+		final Long           lastKnownVersion;
+		final boolean        isTagVersion;
+		final long           endTimeMs;
+		final long           startCheckCount;
+		final UpdateListener listener;
+
+		Waiter(String serviceName, String clientAddress, Long lastKnownVersion, boolean isTagVersion, long endTimeMs, long startCheckCount, UpdateListener listener) {
+			this.serviceName      = serviceName;
+			this.clientAddress    = clientAddress == null ? "" : clientAddress;
+			this.lastKnownVersion = lastKnownVersion;
+			this.isTagVersion     = isTagVersion;
+			this.endTimeMs        = endTimeMs;
+			this.startCheckCount  = startCheckCount;
+			this.listener         = listener;
+		}
+
+		boolean isUpdated(VersionInfo versionInfo) {
+			Long version = versionInfo == null ? null : (isTagVersion ? versionInfo.tagVersion : versionInfo.policyVersion);
+
+			return !lastKnownVersion.equals(version); // for an unknown service, let the download report the error
+		}
+
+		void complete(boolean isUpdated) {
+			try {
+				listener.onWaitComplete(isUpdated);
+			} catch (Throwable excp) {
+				LOG.warn("RangerServiceVersionWatcher: listener failed for service " + serviceName, excp);
+			}
+		}
+	}
+
+	private static class VersionInfo {
+		final Long policyVersion;
+		final Long tagVersion;
+
+		VersionInfo(Long policyVersion, Long tagVersion) {
+			this.policyVersion = policyVersion;
+			this.tagVersion    = tagVersion;
+		}
+	}
+}
@@ -0,0 +1,569 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * In-memory index of users, groups and group memberships, to find groups of a user without querying the database. The
+ * index is an immutable snapshot, replaced on every refresh; its version is incremented whenever it is replaced.
+ *
+ * Refresh is incremental: row counts and latest update-times of x_user, x_group and x_group_users are compared with
+ * the snapshot, and only the rows updated since - along with memberships of users changed through this Admin
+ * instance - are read. If the counts still don't match (e.g. after deletes through another Admin instance), and
+ * periodically as a safety net, the index is rebuilt from the database.
+ *
+ * The index is also served to plugins as RangerUserStore. Its version is derived from the table stats, rather than
+ * from the local snapshot version, so that all Admin instances report the same version for the same data.
+ */
+@Service
+@Scope("singleton")
+public class RangerUserGroupCache {
+	private static final Log LOG = LogFactory.getLog(RangerUserGroupCache.class);
+
+	static final String PROP_ENABLED                  = "ranger.admin.usergroup.cache.enabled";
+	static final String PROP_REFRESH_INTERVAL_MS      = "ranger.admin.usergroup.cache.refresh.interval.ms";
+	static final String PROP_FULL_REFRESH_INTERVAL_MS = "ranger.admin.usergroup.cache.full.refresh.interval.ms";
+
+	private static final long DEFAULT_REFRESH_INTERVAL_MS      = 30 * 1000L;
+	private static final long DEFAULT_FULL_REFRESH_INTERVAL_MS = 6 * 60 * 60 * 1000L;
+	private static final int  FETCH_SIZE                       = 1000;
+	private static final int  MAX_USER_IDS_PER_QUERY           = 1000;
+
+	@Autowired
+	RangerDaoManager daoManager;
+
+	@Autowired
+	@Qualifier(value = "transactionManager")
+	PlatformTransactionManager txManager;
+
+	private final Object    refreshLock    = new Object();
+	private final Set<Long> changedUserIds = new HashSet<Long>();
+
+	private volatile UserGroupSnapshot snapshot  = null;
+	private volatile boolean           isChanged = false;
+
+	private boolean isEnabled;
+	private long    refreshIntervalMs;
+	private long    fullRefreshIntervalMs;
+	private long    lastFullRefreshTimeMs;
+
+	private ScheduledExecutorService scheduler;
+
+	@PostConstruct
+	public void init() {
+		init(PropertiesUtil.getBooleanProperty(PROP_ENABLED, true),
+		     PropertiesUtil.getLongProperty(PROP_REFRESH_INTERVAL_MS, DEFAULT_REFRESH_INTERVAL_MS),
+		     PropertiesUtil.getLongProperty(PROP_FULL_REFRESH_INTERVAL_MS, DEFAULT_FULL_REFRESH_INTERVAL_MS));
+
+		if (isEnabled && refreshIntervalMs > 0) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ranger-usergroup-cache-refresher").build());
+
+			scheduler.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					refreshQuietly();
+				}
+			}, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+		}
+
+		LOG.info("RangerUserGroupCache: isEnabled=" + isEnabled + ", refreshIntervalMs=" + refreshIntervalMs + ", fullRefreshIntervalMs=" + fullRefreshIntervalMs);
+	}
+
+	// Not designed for public access - only for testability
+	void init(boolean isEnabled, long refreshIntervalMs, long fullRefreshIntervalMs) {
+		this.isEnabled             = isEnabled;
+		this.refreshIntervalMs     = refreshIntervalMs;
+		this.fullRefreshIntervalMs = fullRefreshIntervalMs;
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return names of groups the user belongs to; empty set if the user is not known. null if the cache is disabled or
+	 *         not loaded yet, in which case the caller should look up the database.
+	 */
+	public Set<String> getGroupsForUser(String userName) {
+		UserGroupSnapshot snapshot = getSnapshot();
+
+		return snapshot != null ? snapshot.getGroupsForUser(userName) : null;
+	}
+
+	/**
+	 * @return version of the snapshot; -1 if the cache is disabled or not loaded yet
+	 */
+	public long getVersion() {
+		UserGroupSnapshot snapshot = this.snapshot;
+
+		return snapshot != null ? snapshot.version : -1;
+	}
+
+	/**
+	 * @return groups of all users, for download by plugins; null if the cache is disabled or not loaded yet
+	 */
+	public RangerUserStore getUserStore() {
+		UserGroupSnapshot snapshot = getSnapshot();
+
+		return snapshot != null ? snapshot.getUserStore() : null;
+	}
+
+	/**
+	 * To be called after users, groups or memberships are updated, so that the next lookup sees the update. When called
+	 * within a transaction, the cache is marked changed only after the transaction commits: a refresh before the commit
+	 * would not see the update, yet would consume the mark.
+	 */
+	public void onUserGroupChanged() {
+		markChangedAfterCommit(null);
+	}
+
+	/**
+	 * To be called after the user or its group memberships are updated, so that the next lookup sees the update. Unlike
+	 * onUserGroupChanged(), memberships of the user are refreshed even when only deletes were made.
+	 */
+	public void onUserChanged(Long userId) {
+		markChangedAfterCommit(userId);
+	}
+
+	private void markChangedAfterCommit(final Long userId) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					markChanged(userId);
+				}
+			});
+		} else {
+			markChanged(userId);
+		}
+	}
+
+	private void markChanged(Long userId) {
+		if (userId != null) {
+			synchronized (changedUserIds) {
+				changedUserIds.add(userId);
+			}
+		}
+
+		isChanged = true;
+	}
+
+	UserGroupSnapshot getSnapshot() {
+		if (!isEnabled) {
+			return null;
+		}
+
+		if (isChanged) {
+			refreshQuietly();
+		}
+
+		return snapshot;
+	}
+
+	void refreshQuietly() {
+		try {
+			refresh(false);
+		} catch (Throwable excp) {
+			LOG.error("RangerUserGroupCache: failed to refresh", excp);
+		}
+	}
+
+	void refresh(boolean forceFullRefresh) {
+		synchronized (refreshLock) {
+			final Set<Long> userIds;
+
+			synchronized (changedUserIds) {
+				userIds = new HashSet<Long>(changedUserIds);
+
+				changedUserIds.clear();
+
+				isChanged = false;
+			}
+
+			final UserGroupSnapshot current       = snapshot;
+			final long              startTimeMs   = System.currentTimeMillis();
+			final boolean           isFullRefresh = forceFullRefresh || current == null || (startTimeMs - lastFullRefreshTimeMs) > fullRefreshIntervalMs;
+
+			TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+			txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+			txTemplate.setReadOnly(true);
+
+			UserGroupSnapshot latest = null;
+
+			try {
+				latest = txTemplate.execute(new TransactionCallback<UserGroupSnapshot>() {
+					@Override
+					public UserGroupSnapshot doInTransaction(TransactionStatus status) {
+						UserGroupSnapshot ret = isFullRefresh ? null : loadChanges(current, userIds);
+
+						if (ret == null) {
+							ret = loadAll(current == null ? 1 : (current.version + 1));
+
+							lastFullRefreshTimeMs = startTimeMs;
+						}
+
+						return ret;
+					}
+				});
+			} catch (RuntimeException excp) {
+				synchronized (changedUserIds) { // to be retried on next refresh
+					changedUserIds.addAll(userIds);
+
+					isChanged = isChanged || !userIds.isEmpty();
+				}
+
+				throw excp;
+			}
+
+			if (latest != current) {
+				snapshot = latest;
+
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("RangerUserGroupCache.refresh(isFullRefresh=" + isFullRefresh + "): version=" + latest.version + ", userCount=" + latest.userNames.size()
+							+ ", groupCount=" + latest.groupNames.size() + ", membershipCount=" + latest.membershipCount + ", timeTaken=" + (System.currentTimeMillis() - startTimeMs) + "ms");
+				}
+			}
+		}
+	}
+
+	UserGroupSnapshot loadAll(long version) {
+		TableStats userStats      = toTableStats(daoManager.getXXUser().getCountAndMaxUpdateTime());
+		TableStats groupStats     = toTableStats(daoManager.getXXGroup().getCountAndMaxUpdateTime());
+		TableStats groupUserStats = toTableStats(daoManager.getXXGroupUser().getCountAndMaxUpdateTime());
+
+		Map<Long, String> userNames    = new HashMap<Long, String>();
+		Map<Long, String> groupNames   = new HashMap<Long, String>();
+		Map<Long, long[]> userGroupIds = new HashMap<Long, long[]>();
+
+		addNames(userNames, daoManager.getXXUser().findIdAndNames(FETCH_SIZE));
+		addNames(groupNames, daoManager.getXXGroup().findIdAndNames(FETCH_SIZE));
+		addMemberships(userGroupIds, daoManager.getXXGroupUser().findUserIdAndGroupIds(FETCH_SIZE));
+
+		return new UserGroupSnapshot(version, userNames, groupNames, userGroupIds, userStats, groupStats, groupUserStats);
+	}
+
+	/**
+	 * @return current, if nothing changed; a new snapshot with the changes applied; or null, if the changes could not
+	 *         be applied consistently - in which case the caller should load all
+	 */
+	UserGroupSnapshot loadChanges(UserGroupSnapshot current, Set<Long> changedUserIds) {
+		TableStats userStats      = toTableStats(daoManager.getXXUser().getCountAndMaxUpdateTime());
+		TableStats groupStats     = toTableStats(daoManager.getXXGroup().getCountAndMaxUpdateTime());
+		TableStats groupUserStats = toTableStats(daoManager.getXXGroupUser().getCountAndMaxUpdateTime());
+
+		boolean isUsersChanged      = !userStats.equals(current.userStats);
+		boolean isGroupsChanged     = !groupStats.equals(current.groupStats);
+		boolean isGroupUsersChanged = !groupUserStats.equals(current.groupUserStats);
+
+		if (!isUsersChanged && !isGroupsChanged && !isGroupUsersChanged && changedUserIds.isEmpty()) {
+			return current;
+		}
+
+		if (current.userStats.maxUpdateTime == null || current.groupStats.maxUpdateTime == null || current.groupUserStats.maxUpdateTime == null) {
+			return null;
+		}
+
+		Map<Long, String> userNames    = current.userNames;
+		Map<Long, String> groupNames   = current.groupNames;
+		Map<Long, long[]> userGroupIds = current.userGroupIds;
+		Set<Long>         userIds      = new HashSet<Long>(changedUserIds);
+
+		if (isUsersChanged) {
+			userNames = new HashMap<Long, String>(current.userNames);
+
+			List<Object[]> rows = daoManager.getXXUser().findIdAndNamesUpdatedSince(current.userStats.maxUpdateTime, FETCH_SIZE);
+
+			addNames(userNames, rows);
+
+			for (Object[] row : rows) {
+				userIds.add((Long) row[0]);
+			}
+		}
+
+		if (isGroupsChanged) {
+			groupNames = new HashMap<Long, String>(current.groupNames);
+
+			addNames(groupNames, daoManager.getXXGroup().findIdAndNamesUpdatedSince(current.groupStats.maxUpdateTime, FETCH_SIZE));
+		}
+
+		if (isGroupUsersChanged) {
+			for (Object[] row : daoManager.getXXGroupUser().findUserIdAndGroupIdsUpdatedSince(current.groupUserStats.maxUpdateTime, FETCH_SIZE)) {
+				userIds.add((Long) row[0]);
+			}
+		}
+
+		if (!userIds.isEmpty()) {
+			userGroupIds = new HashMap<Long, long[]>(current.userGroupIds);
+
+			List<Long> userIdList = new ArrayList<Long>(userIds);
+
+			for (Long userId : userIdList) {
+				userGroupIds.remove(userId);
+			}
+
+			for (int i = 0; i < userIdList.size(); i += MAX_USER_IDS_PER_QUERY) {
+				List<Long> subList = userIdList.subList(i, Math.min(i + MAX_USER_IDS_PER_QUERY, userIdList.size()));
+
+				addMemberships(userGroupIds, daoManager.getXXGroupUser().findUserIdAndGroupIdsByUserIds(subList, FETCH_SIZE));
+			}
+		}
+
+		UserGroupSnapshot ret = new UserGroupSnapshot(current.version + 1, userNames, groupNames, userGroupIds, userStats, groupStats, groupUserStats);
+
+		if (ret.userNames.size() != userStats.count || ret.groupNames.size() != groupStats.count || ret.membershipCount != groupUserStats.count) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerUserGroupCache.loadChanges(): counts don't match after applying changes; users=" + ret.userNames.size() + "/" + userStats.count
+						+ ", groups=" + ret.groupNames.size() + "/" + groupStats.count + ", memberships=" + ret.membershipCount + "/" + groupUserStats.count);
+			}
+
+			ret = null;
+		}
+
+		return ret;
+	}
+
+	private static void addNames(Map<Long, String> names, List<Object[]> rows) {
+		for (Object[] row : rows) {
+			Long   id   = (Long) row[0];
+			String name = (String) row[1];
+
+			if (id != null && name != null) {
+				names.put(id, name.intern());
+			}
+		}
+	}
+
+	// rows: userId, groupId - ordered by userId
+	private static void addMemberships(Map<Long, long[]> userGroupIds, List<Object[]> rows) {
+		Long   userId   = null;
+		long[] groupIds = new long[16];
+		int    count    = 0;
+
+		for (Object[] row : rows) {
+			Long rowUserId  = (Long) row[0];
+			Long rowGroupId = (Long) row[1];
+
+			if (rowUserId == null || rowGroupId == null) {
+				continue;
+			}
+
+			if (!rowUserId.equals(userId)) {
+				if (userId != null) {
+					userGroupIds.put(userId, Arrays.copyOf(groupIds, count));
+				}
+
+				userId = rowUserId;
+				count  = 0;
+			}
+
+			if (count == groupIds.length) {
+				groupIds = Arrays.copyOf(groupIds, count * 2);
+			}
+
+			groupIds[count++] = rowGroupId;
+		}
+
+		if (userId != null) {
+			userGroupIds.put(userId, Arrays.copyOf(groupIds, count));
+		}
+	}
+
+	private static TableStats toTableStats(Object[] row) {
+		long count         = row != null && row[0] != null ? ((Number) row[0]).longValue() : 0;
+		Date maxUpdateTime = row != null && row[1] != null ? (Date) row[1] : null;
+
+		return new TableStats(count, maxUpdateTime);
+	}
+
+	static class TableStats {
+		final long count;
+		final Date maxUpdateTime;
+
+		TableStats(long count, Date maxUpdateTime) {
+			this.count         = count;
+			this.maxUpdateTime = maxUpdateTime;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof TableStats)) {
+				return false;
+			}
+
+			TableStats other = (TableStats) obj;
+
+			return count == other.count && (maxUpdateTime == null ? other.maxUpdateTime == null : maxUpdateTime.equals(other.maxUpdateTime));
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) count + (maxUpdateTime == null ? 0 : maxUpdateTime.hashCode());
+		}
+	}
+
+	static class UserGroupSnapshot {
+		final long              version;
+		final Map<Long, String> userNames;    // userId  => userName
+		final Map<String, Long> userIds;      // userName => userId
+		final Map<Long, String> groupNames;   // groupId => groupName
+		final Map<Long, long[]> userGroupIds; // userId  => groupIds
+		final long              membershipCount;
+		final TableStats        userStats;
+		final TableStats        groupStats;
+		final TableStats        groupUserStats;
+		private RangerUserStore userStore;
+
+		UserGroupSnapshot(long version, Map<Long, String> userNames, Map<Long, String> groupNames, Map<Long, long[]> userGroupIds,
+		                  TableStats userStats, TableStats groupStats, TableStats groupUserStats) {
+			long membershipCount = 0;
+
+			for (long[] groupIds : userGroupIds.values()) {
+				membershipCount += groupIds.length;
+			}
+
+			this.version         = version;
+			this.userNames       = userNames;
+			this.userIds         = new HashMap<String, Long>(userNames.size());
+			this.groupNames      = groupNames;
+			this.userGroupIds    = userGroupIds;
+			this.membershipCount = membershipCount;
+			this.userStats       = userStats;
+			this.groupStats      = groupStats;
+			this.groupUserStats  = groupUserStats;
+
+			for (Map.Entry<Long, String> entry : userNames.entrySet()) {
+				userIds.put(entry.getValue(), entry.getKey());
+			}
+		}
+
+		Set<String> getGroupsForUser(String userName) {
+			Set<String> ret      = new HashSet<String>();
+			Long        userId   = userName == null ? null : userIds.get(userName);
+			long[]      groupIds = userId == null ? null : userGroupIds.get(userId);
+
+			if (groupIds != null) {
+				for (long groupId : groupIds) {
+					String groupName = groupNames.get(groupId);
+
+					if (groupName != null) {
+						ret.add(groupName);
+					}
+				}
+			}
+
+			return ret;
+		}
+
+		synchronized RangerUserStore getUserStore() {
+			if (userStore == null) {
+				List<String>       groupNameList = new ArrayList<String>(groupNames.size());
+				Map<Long, Integer> groupIdxs     = new HashMap<Long, Integer>(groupNames.size());
+				Map<String, int[]> userGroups    = new HashMap<String, int[]>(userNames.size());
+
+				for (Map.Entry<Long, String> entry : groupNames.entrySet()) {
+					groupIdxs.put(entry.getKey(), groupNameList.size());
+					groupNameList.add(entry.getValue());
+				}
+
+				for (Map.Entry<Long, String> entry : userNames.entrySet()) {
+					long[] groupIds = userGroupIds.get(entry.getKey());
+					int[]  idxs     = new int[groupIds == null ? 0 : groupIds.length];
+					int    count    = 0;
+
+					if (groupIds != null) {
+						for (long groupId : groupIds) {
+							Integer idx = groupIdxs.get(groupId);
+
+							if (idx != null) {
+								idxs[count++] = idx;
+							}
+						}
+					}
+
+					userGroups.put(entry.getValue(), count == idxs.length ? idxs : Arrays.copyOf(idxs, count));
+				}
+
+				userStore = new RangerUserStore(null, getUserStoreVersion(), getUserStoreUpdateTime(), groupNameList, userGroups);
+			}
+
+			return userStore;
+		}
+
+		// same for all Admin instances, as long as the tables are the same
+		long getUserStoreVersion() {
+			long ret = 17;
+
+			for (TableStats stats : new TableStats[] { userStats, groupStats, groupUserStats }) {
+				ret = ret * 31 + stats.count;
+				ret = ret * 31 + (stats.maxUpdateTime == null ? 0 : stats.maxUpdateTime.getTime());
+			}
+
+			return ret & Long.MAX_VALUE;
+		}
+
+		Date getUserStoreUpdateTime() {
+			Date ret = null;
+
+			for (TableStats stats : new TableStats[] { userStats, groupStats, groupUserStats }) {
+				if (stats.maxUpdateTime != null && (ret == null || stats.maxUpdateTime.after(ret))) {
+					ret = stats.maxUpdateTime;
+				}
+			}
+
+			return ret;
+		}
+	}
+}
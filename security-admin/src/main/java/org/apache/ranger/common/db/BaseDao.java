@@ -92,6 +92,20 @@ public abstract class BaseDao<T> {
 		return ret;
 	}
 
+	/**
+	 * Persists the object without flushing, so that inserts of many objects can be written together - in JDBC
+	 * batches - by the next flush(). Use only for objects whose id is not needed before the flush.
+	 */
+	public T batchCreate(T obj) {
+		em.persist(obj);
+
+		return obj;
+	}
+
+	public void flush() {
+		em.flush();
+	}
+
 	public T update(T obj) {
 		em.merge(obj);
 		em.flush();
@@ -143,6 +157,58 @@ public abstract class BaseDao<T> {
 		return ret;
 	}
 
+	/**
+	 * Runs a named query that selects columns, not entities; returned rows are not managed by the entity manager.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Object[]> findRowsByNamedQuery(String namedQuery, String paramName, Object refId, int fetchSize) {
+		List<Object[]> ret = new ArrayList<Object[]>();
+
+		if (namedQuery == null || refId == null) {
+			return ret;
+		}
+		try {
+			Query qry = em.createNamedQuery(namedQuery);
+			qry.setParameter(paramName, refId);
+			if (fetchSize > 0) {
+				qry.setHint("eclipselink.jdbc.fetch-size", "" + fetchSize);
+			}
+			ret = qry.getResultList();
+		} catch (NoResultException e) {
+			// ignore
+		}
+		return ret;
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<Object[]> findRowsByNamedQuery(String namedQuery, int fetchSize) {
+		List<Object[]> ret = new ArrayList<Object[]>();
+
+		if (namedQuery == null) {
+			return ret;
+		}
+		try {
+			Query qry = em.createNamedQuery(namedQuery);
+			if (fetchSize > 0) {
+				qry.setHint("eclipselink.jdbc.fetch-size", "" + fetchSize);
+			}
+			ret = qry.getResultList();
+		} catch (NoResultException e) {
+			// ignore
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns count of rows and latest update-time, by running the named query &lt;entity&gt;.getCountAndMaxUpdateTime
+	 */
+	public Object[] getCountAndMaxUpdateTime() {
+		String         namedQuery = tClass.getSimpleName() + ".getCountAndMaxUpdateTime";
+		List<Object[]> rows       = findRowsByNamedQuery(namedQuery, 0);
+
+		return rows.isEmpty() ? null : rows.get(0);
+	}
+
 	public List<T> findByParentId(Long parentId) {
 		String namedQuery = tClass.getSimpleName() + ".findByParentId";
 		return findByNamedQuery(namedQuery, "parentId", parentId);
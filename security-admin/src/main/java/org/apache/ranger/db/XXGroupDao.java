@@ -21,6 +21,7 @@
 
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -81,4 +82,15 @@ public class XXGroupDao extends BaseDao<XXGroup> {
 		}
 	}
 
+	public List<Object[]> findNamesByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXGroup.findNamesByServiceId", "serviceId", serviceId, fetchSize);
+	}
+
+	public List<Object[]> findIdAndNames(int fetchSize) {
+		return findRowsByNamedQuery("XXGroup.findIdAndNames", fetchSize);
+	}
+
+	public List<Object[]> findIdAndNamesUpdatedSince(Date updateTime, int fetchSize) {
+		return findRowsByNamedQuery("XXGroup.findIdAndNamesUpdatedSince", "updateTime", updateTime, fetchSize);
+	}
 }
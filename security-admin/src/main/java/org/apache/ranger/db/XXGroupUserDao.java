@@ -21,6 +21,7 @@
 
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -114,4 +115,15 @@ public class XXGroupUserDao extends BaseDao<XXGroupUser> {
 		}
 	}
 
+	public List<Object[]> findUserIdAndGroupIds(int fetchSize) {
+		return findRowsByNamedQuery("XXGroupUser.findUserIdAndGroupIds", fetchSize);
+	}
+
+	public List<Object[]> findUserIdAndGroupIdsByUserIds(List<Long> userIds, int fetchSize) {
+		return findRowsByNamedQuery("XXGroupUser.findUserIdAndGroupIdsByUserIds", "userIds", userIds, fetchSize);
+	}
+
+	public List<Object[]> findUserIdAndGroupIdsUpdatedSince(Date updateTime, int fetchSize) {
+		return findRowsByNamedQuery("XXGroupUser.findUserIdAndGroupIdsUpdatedSince", "updateTime", updateTime, fetchSize);
+	}
 }
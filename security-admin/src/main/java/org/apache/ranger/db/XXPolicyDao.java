@@ -146,4 +146,12 @@ public class XXPolicyDao extends BaseDao<XXPolicy> {
 			return new ArrayList<XXPolicy>();
 		}
 	}
-}
\ No newline at end of file
+
+	public List<Object[]> findRowsByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXPolicy.findRowsByServiceId", "serviceId", serviceId, fetchSize);
+	}
+
+	public List<Object[]> findIdAndVersionByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXPolicy.findIdAndVersionByServiceId", "serviceId", serviceId, fetchSize);
+	}
+}
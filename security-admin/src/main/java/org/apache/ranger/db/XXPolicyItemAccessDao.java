@@ -82,4 +82,7 @@ public class XXPolicyItemAccessDao extends BaseDao<XXPolicyItemAccess> {
 		}
 	}
 
+	public List<Object[]> findRowsByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXPolicyItemAccess.findRowsByServiceId", "serviceId", serviceId, fetchSize);
+	}
 }
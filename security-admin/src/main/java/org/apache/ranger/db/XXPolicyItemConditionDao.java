@@ -97,4 +97,7 @@ public class XXPolicyItemConditionDao extends BaseDao<XXPolicyItemCondition> {
 		}
 	}
 
+	public List<Object[]> findRowsByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXPolicyItemCondition.findRowsByServiceId", "serviceId", serviceId, fetchSize);
+	}
 }
@@ -69,4 +69,8 @@ public class XXPolicyItemDao extends BaseDao<XXPolicyItem> {
 			return new ArrayList<XXPolicyItem>();
 		}
 	}
-}
\ No newline at end of file
+
+	public List<Object[]> findRowsByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXPolicyItem.findRowsByServiceId", "serviceId", serviceId, fetchSize);
+	}
+}
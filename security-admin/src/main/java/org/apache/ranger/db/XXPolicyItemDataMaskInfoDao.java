@@ -82,4 +82,7 @@ public class XXPolicyItemDataMaskInfoDao extends BaseDao<XXPolicyItemDataMaskInf
 		}
 	}
 
+	public List<Object[]> findRowsByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXPolicyItemDataMaskInfo.findRowsByServiceId", "serviceId", serviceId, fetchSize);
+	}
 }
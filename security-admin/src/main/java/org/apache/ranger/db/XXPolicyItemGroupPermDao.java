@@ -69,4 +69,8 @@ public class XXPolicyItemGroupPermDao extends BaseDao<XXPolicyItemGroupPerm> {
 			return new ArrayList<XXPolicyItemGroupPerm>();
 		}
 	}
+
+	public List<Object[]> findRowsByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXPolicyItemGroupPerm.findRowsByServiceId", "serviceId", serviceId, fetchSize);
+	}
 }
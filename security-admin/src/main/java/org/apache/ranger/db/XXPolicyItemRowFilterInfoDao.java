@@ -68,4 +68,8 @@ public class XXPolicyItemRowFilterInfoDao extends BaseDao<XXPolicyItemRowFilterI
 			return new ArrayList<XXPolicyItemRowFilterInfo>();
 		}
 	}
+
+	public List<Object[]> findRowsByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXPolicyItemRowFilterInfo.findRowsByServiceId", "serviceId", serviceId, fetchSize);
+	}
 }
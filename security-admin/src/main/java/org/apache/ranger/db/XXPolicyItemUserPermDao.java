@@ -69,4 +69,8 @@ public class XXPolicyItemUserPermDao extends BaseDao<XXPolicyItemUserPerm> {
 			return new ArrayList<XXPolicyItemUserPerm>();
 		}
 	}
+
+	public List<Object[]> findRowsByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXPolicyItemUserPerm.findRowsByServiceId", "serviceId", serviceId, fetchSize);
+	}
 }
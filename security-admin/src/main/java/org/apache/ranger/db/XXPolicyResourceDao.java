@@ -83,4 +83,7 @@ public class XXPolicyResourceDao extends BaseDao<XXPolicyResource> {
 		}
 	}
 
+	public List<Object[]> findRowsByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXPolicyResource.findRowsByServiceId", "serviceId", serviceId, fetchSize);
+	}
 }
@@ -69,4 +69,8 @@ public class XXPolicyResourceMapDao extends BaseDao<XXPolicyResourceMap> {
 			return new ArrayList<XXPolicyResourceMap>();
 		}
 	}
+
+	public List<Object[]> findRowsByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXPolicyResourceMap.findRowsByServiceId", "serviceId", serviceId, fetchSize);
+	}
 }
@@ -101,4 +101,8 @@ public class XXPortalUserDao extends BaseDao<XXPortalUser> {
 		}
 
 	}
+
+	public List<Object[]> findScreenNamesByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXPortalUser.findScreenNamesByServiceId", "serviceId", serviceId, fetchSize);
+	}
 }
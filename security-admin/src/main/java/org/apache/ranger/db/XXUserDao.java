@@ -20,6 +20,7 @@
  package org.apache.ranger.db;
 
 
+import java.util.Date;
 import java.util.List;
 
 import javax.persistence.NoResultException;
@@ -76,4 +77,16 @@ public class XXUserDao extends BaseDao<XXUser> {
 			return null;
 		}
 	}
+
+	public List<Object[]> findNamesByServiceId(Long serviceId, int fetchSize) {
+		return findRowsByNamedQuery("XXUser.findNamesByServiceId", "serviceId", serviceId, fetchSize);
+	}
+
+	public List<Object[]> findIdAndNames(int fetchSize) {
+		return findRowsByNamedQuery("XXUser.findIdAndNames", fetchSize);
+	}
+
+	public List<Object[]> findIdAndNamesUpdatedSince(Date updateTime, int fetchSize) {
+		return findRowsByNamedQuery("XXUser.findIdAndNamesUpdatedSince", "updateTime", updateTime, fetchSize);
+	}
 }
@@ -27,6 +27,7 @@ import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.Encoded;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -34,6 +35,7 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
@@ -68,6 +70,8 @@ import org.apache.ranger.service.XPolicyExportAuditService;
 import org.apache.ranger.service.XPolicyService;
 import org.apache.ranger.service.XResourceService;
 import org.apache.ranger.service.XTrxLogService;
+import org.apache.ranger.solr.SolrUtil;
+import org.apache.ranger.view.VXAccessAuditAggregates;
 import org.apache.ranger.view.VXAccessAuditList;
 import org.apache.ranger.view.VXAsset;
 import org.apache.ranger.view.VXAssetList;
@@ -623,6 +627,26 @@ public class AssetREST {
 	@Produces({ "application/xml", "application/json" })
 	@PreAuthorize("@rangerPreAuthSecurityHandler.isAPIAccessible(\"" + RangerAPIList.GET_ACCESS_LOGS + "\")")
 	public VXAccessAuditList getAccessLogs(@Context HttpServletRequest request){
+		SearchCriteria searchCriteria = extractAccessLogSearchCriteria(request);
+
+		searchUtil.extractString(request, searchCriteria, SolrUtil.PARAM_CURSOR_MARK, "Cursor Mark", null);
+
+		return assetMgr.getAccessLogs(searchCriteria);
+	}
+
+	@GET
+	@Path("/accessAudit/aggregates")
+	@Produces({ "application/xml", "application/json" })
+	@PreAuthorize("@rangerPreAuthSecurityHandler.isAPIAccessible(\"" + RangerAPIList.GET_ACCESS_LOGS + "\")")
+	public VXAccessAuditAggregates getAccessLogAggregates(@Context HttpServletRequest request,
+			@QueryParam("groupBy") String groupBy, @QueryParam("timeGap") String timeGap,
+			@DefaultValue("100") @QueryParam("limit") int limit) {
+		SearchCriteria searchCriteria = extractAccessLogSearchCriteria(request);
+
+		return assetMgr.getAccessLogAggregates(searchCriteria, groupBy, timeGap, limit);
+	}
+
+	private SearchCriteria extractAccessLogSearchCriteria(HttpServletRequest request) {
 		SearchCriteria searchCriteria = searchUtil.extractCommonCriterias(
 				request, xAccessAuditService.sortFields);
 		searchUtil.extractString(request, searchCriteria, "accessType",
@@ -665,8 +689,8 @@ public class AssetREST {
 		if(isKeyAdmin && xxServiceDef != null){
 			searchCriteria.getParamList().put("repoType", xxServiceDef.getId());
 		}
-		
-		return assetMgr.getAccessLogs(searchCriteria);
+
+		return searchCriteria;
 	}
 	
 	@POST
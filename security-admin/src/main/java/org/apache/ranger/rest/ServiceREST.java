@@ -70,6 +70,8 @@ import org.apache.ranger.common.MessageEnums;
 import org.apache.ranger.common.PropertiesUtil;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerSearchUtil;
+import org.apache.ranger.common.RangerServicePoliciesCache;
+import org.apache.ranger.common.RangerUserGroupCache;
 import org.apache.ranger.common.RangerValidatorFactory;
 import org.apache.ranger.common.ServiceUtil;
 import org.apache.ranger.common.UserSessionBase;
@@ -83,6 +85,7 @@ import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicyResourceSignature;
 import org.apache.ranger.plugin.model.RangerService;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.validation.RangerPolicyValidator;
@@ -101,6 +104,7 @@ import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.SearchFilter;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.apache.ranger.security.context.RangerAPIList;
@@ -196,6 +200,9 @@ public class ServiceREST {
 
 	@Autowired
 	TagDBStore tagStore;
+
+	@Autowired
+	RangerUserGroupCache userGroupCache;
 	
 	@Autowired
     JSONUtil jsonUtil;
@@ -1305,22 +1312,8 @@ public class ServiceREST {
 
 			if(ret == null) {
 				// this needs to happen before validator is called
-				// set name of policy if unspecified
-				if (StringUtils.isBlank(policy.getName())) { // use of isBlank over isEmpty is deliberate as a blank string does not strike us as a particularly useful policy name!
-					String guid = policy.getGuid();
-					if (StringUtils.isBlank(guid)) { // use of isBlank is deliberate. External parties could send the guid in, perhaps to sync between dev/test/prod instances?
-						guid = guidUtil.genGUID();
-						policy.setGuid(guid);
-						if (LOG.isDebugEnabled()) {
-							LOG.debug("No GUID supplied on the policy!  Ok, setting GUID to [" + guid + "].");
-						}
-					}
-					String name = policy.getService() + "-" + guid;
-					policy.setName(name);
-					if (LOG.isDebugEnabled()) {
-						LOG.debug("Policy did not have its name set!  Ok, setting name to [" + name + "]");
-					}
-				}
+				setDefaultPolicyName(policy);
+
 				RangerPolicyValidator validator = validatorFactory.getPolicyValidator(svcStore);
 				validator.validate(policy, Action.CREATE, bizUtil.isAdmin());
 
@@ -1890,6 +1883,8 @@ public class ServiceREST {
 						}
 					}
 					if (!CollectionUtils.sizeIsEmpty(policiesMap.entrySet())) {
+						List<RangerPolicy> policiesToCreate = new ArrayList<RangerPolicy>();
+
 						for (Entry<String, RangerPolicy> entry : policiesMap.entrySet()) {
 							RangerPolicy policy = entry.getValue();
 							if (policy != null){
@@ -1897,11 +1892,7 @@ public class ServiceREST {
 									for (String service : serviceNameList) {
 										if (StringUtils.isNotEmpty(service.trim()) && StringUtils.isNotEmpty(policy.getService().trim())){
 											if (policy.getService().trim().equalsIgnoreCase(service.trim())) {
-												createPolicy(policy, null);
-												totalPolicyCreate = totalPolicyCreate + 1;
-												if (LOG.isDebugEnabled()) {
-													LOG.debug("Policy " + policy.getName() + " created successfully.");
-												}
+												policiesToCreate.add(policy);
 												break;
 											}
 										}else{
@@ -1910,14 +1901,14 @@ public class ServiceREST {
 										}
 									}
 								}else{
-									createPolicy(policy, null);
-									totalPolicyCreate = totalPolicyCreate + 1;
-									if (LOG.isDebugEnabled()) {
-										LOG.debug("Policy " + policy.getName() + " created successfully.");
-									}
+									policiesToCreate.add(policy);
 								}
 							}
 						}
+
+						if (!policiesToCreate.isEmpty()) {
+							totalPolicyCreate = createPolicies(policiesToCreate).size();
+						}
 						if (LOG.isDebugEnabled()) {
 							LOG.debug("Total Policy Created From Json file : " + totalPolicyCreate);
 						}
@@ -2071,6 +2062,69 @@ public class ServiceREST {
 		return policyLists;
 	}
 	
+	/**
+	 * Validates all the given policies - against the policies in the store and against each other - before creating any
+	 * of them; then creates them together, so that the policy version of each service is updated only once.
+	 */
+	private List<RangerPolicy> createPolicies(List<RangerPolicy> policies) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceREST.createPolicies(count=" + policies.size() + ")");
+		}
+
+		RangerPolicyValidator validator        = validatorFactory.getPolicyValidator(svcStore);
+		boolean               isAdmin          = bizUtil.isAdmin();
+		Set<String>           policyNames      = new HashSet<String>();
+		Map<String, String>   policySignatures = new HashMap<String, String>();
+
+		for (RangerPolicy policy : policies) {
+			setDefaultPolicyName(policy);
+
+			validator.validate(policy, Action.CREATE, isAdmin);
+
+			ensureAdminAccess(policy.getService(), policy.getResources());
+
+			if (!policyNames.add(policy.getService() + "/" + policy.getName())) {
+				throw restErrorUtil.createRESTException("duplicate policy name: ServiceName=" + policy.getService() + "; PolicyName=" + policy.getName());
+			}
+
+			if (Boolean.TRUE.equals(policy.getIsEnabled())) {
+				String signatureKey  = policy.getService() + "/" + new RangerPolicyResourceSignature(policy).getSignature();
+				String matchedPolicy = policySignatures.put(signatureKey, policy.getName());
+
+				if (matchedPolicy != null) {
+					throw restErrorUtil.createRESTException("policies " + matchedPolicy + " and " + policy.getName() + " in service " + policy.getService() + " have the same resources");
+				}
+			}
+		}
+
+		List<RangerPolicy> ret = svcStore.createPolicies(policies);
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceREST.createPolicies(count=" + policies.size() + "): created=" + ret.size());
+		}
+
+		return ret;
+	}
+
+	private void setDefaultPolicyName(RangerPolicy policy) {
+		// set name of policy if unspecified
+		if (StringUtils.isBlank(policy.getName())) { // use of isBlank over isEmpty is deliberate as a blank string does not strike us as a particularly useful policy name!
+			String guid = policy.getGuid();
+			if (StringUtils.isBlank(guid)) { // use of isBlank is deliberate. External parties could send the guid in, perhaps to sync between dev/test/prod instances?
+				guid = guidUtil.genGUID();
+				policy.setGuid(guid);
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("No GUID supplied on the policy!  Ok, setting GUID to [" + guid + "].");
+				}
+			}
+			String name = policy.getService() + "-" + guid;
+			policy.setName(name);
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Policy did not have its name set!  Ok, setting name to [" + name + "]");
+			}
+		}
+	}
+
 	private void deletePoliciesProvidedInServiceMap(
 			List<String> sourceServices, List<String> destinationServices,
 			HttpServletRequest request) {
@@ -2346,7 +2400,7 @@ public class ServiceREST {
 					logMsg = "No change since last update";
 				} else {
 					downloadedVersion = servicePolicies.getPolicyVersion();
-					ret = filterServicePolicies(servicePolicies);
+					ret = getServicePoliciesForDownload(servicePolicies);
 					httpCode = HttpServletResponse.SC_OK;
 					logMsg = "Returning " + (ret.getPolicies() != null ? ret.getPolicies().size() : 0) + " policies. Policy version=" + ret.getPolicyVersion();
 				}
@@ -2452,7 +2506,7 @@ public class ServiceREST {
 						logMsg = "No change since last update";
 					} else {
 						downloadedVersion = servicePolicies.getPolicyVersion();
-						ret = filterServicePolicies(servicePolicies);
+						ret = getServicePoliciesForDownload(servicePolicies);
 						httpCode = HttpServletResponse.SC_OK;
 						logMsg = "Returning " + (ret.getPolicies() != null ? ret.getPolicies().size() : 0) + " policies. Policy version=" + ret.getPolicyVersion();
 					}
@@ -2483,6 +2537,97 @@ public class ServiceREST {
 		return ret;
 	}		
 
+	@GET
+	@Path("/secure/userstore/download/{serviceName}")
+	@Produces({ "application/json", "application/xml" })
+	public RangerUserStore getSecureUserStoreIfUpdated(
+			@PathParam("serviceName") String serviceName,
+			@QueryParam("lastKnownUserStoreVersion") Long lastKnownUserStoreVersion,
+			@DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime,
+			@QueryParam("pluginId") String pluginId,
+			@Context HttpServletRequest request) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceREST.getSecureUserStoreIfUpdated(" + serviceName + ", " + lastKnownUserStoreVersion + ", " + lastActivationTime + ")");
+		}
+
+		RangerUserStore ret      = null;
+		int             httpCode = HttpServletResponse.SC_OK;
+		String          logMsg   = null;
+		boolean         isValid  = false;
+
+		try {
+			isValid = serviceUtil.isValidService(serviceName, request);
+		} catch (WebApplicationException webException) {
+			httpCode = webException.getResponse().getStatus();
+			logMsg = webException.getResponse().getEntity().toString();
+		} catch (Exception e) {
+			httpCode = HttpServletResponse.SC_BAD_REQUEST;
+			logMsg = e.getMessage();
+		}
+
+		if (isValid) {
+			if (isAllowedToDownload(serviceName)) {
+				ret = getUserStoreForDownload(serviceName, lastKnownUserStoreVersion);
+
+				if (ret == null) {
+					httpCode = HttpServletResponse.SC_NOT_MODIFIED;
+					logMsg = "No change since last update";
+				}
+			} else {
+				LOG.error("getSecureUserStoreIfUpdated(" + serviceName + ", " + lastKnownUserStoreVersion + ") failed as User doesn't have permission to download user-store");
+				httpCode = HttpServletResponse.SC_UNAUTHORIZED;
+				logMsg = "User doesn't have permission to download user-store";
+			}
+		}
+
+		if (httpCode != HttpServletResponse.SC_OK) {
+			boolean logError = httpCode != HttpServletResponse.SC_NOT_MODIFIED;
+			throw restErrorUtil.createRESTException(httpCode, logMsg, logError);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceREST.getSecureUserStoreIfUpdated(" + serviceName + ", " + lastKnownUserStoreVersion + ", " + lastActivationTime + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	// returns null if the user-store version is same as lastKnownUserStoreVersion, or if the user-store is not available
+	private RangerUserStore getUserStoreForDownload(String serviceName, Long lastKnownUserStoreVersion) {
+		RangerUserStore ret       = null;
+		RangerUserStore userStore = userGroupCache.getUserStore();
+
+		if (userStore == null) {
+			LOG.warn("getUserStoreForDownload(" + serviceName + "): user-store is not available");
+		} else if (lastKnownUserStoreVersion == null || !lastKnownUserStoreVersion.equals(userStore.getUserStoreVersion())) {
+			// userStore is shared by all services; return a copy with the serviceName set
+			ret = new RangerUserStore(serviceName, userStore.getUserStoreVersion(), userStore.getUserStoreUpdateTime(), userStore.getGroupNames(), userStore.getUserGroups());
+		}
+
+		return ret;
+	}
+
+	private boolean isAllowedToDownload(String serviceName) throws Exception {
+		boolean   ret      = false;
+		XXService xService = daoManager.getXXService().findByName(serviceName);
+
+		if (xService == null) {
+			LOG.error("isAllowedToDownload(" + serviceName + "): service not found");
+		} else {
+			XXServiceDef  xServiceDef = daoManager.getXXServiceDef().getById(xService.getType());
+			boolean       isKms       = xServiceDef != null && StringUtils.equals(xServiceDef.getImplclassname(), EmbeddedServiceDefsUtil.KMS_IMPL_CLASS_NAME);
+			RangerService service     = isKms ? svcStore.getServiceByNameForDP(serviceName) : svcStore.getServiceByName(serviceName);
+
+			if (isKms ? bizUtil.isKeyAdmin() : bizUtil.isAdmin()) {
+				ret = true;
+			} else if (service != null) {
+				ret = bizUtil.isUserAllowed(service, Allowed_User_List_For_Download) || bizUtil.isUserAllowed(service, Allowed_User_List_For_Grant_Revoke);
+			}
+		}
+
+		return ret;
+	}
+
 	private void createPolicyDownloadAudit(String serviceName, Long lastKnownVersion, String pluginId, int httpRespCode, String clusterName, HttpServletRequest request) {
 		try {
 			String ipAddress = request.getHeader("X-FORWARDED-FOR");
@@ -2762,7 +2907,7 @@ public class ServiceREST {
 
 					if (policyEngine != null) {
 						if(userGroups == null) {
-							userGroups = daoManager.getXXGroupUser().findGroupNamesByUserName(userName);
+							userGroups = userMgr.getGroupsForUser(userName);
 						}
 
 						for (RangerPolicy policy : listToFilter) {
@@ -2948,82 +3093,8 @@ public class ServiceREST {
 		return ret;
 	}
 
-	private ServicePolicies filterServicePolicies(ServicePolicies servicePolicies) {
-		ServicePolicies ret = null;
-		boolean containsDisabledResourcePolicies = false;
-		boolean containsDisabledTagPolicies = false;
-
-		if (servicePolicies != null) {
-			List<RangerPolicy> policies = null;
-
-			policies = servicePolicies.getPolicies();
-			if (CollectionUtils.isNotEmpty(policies)) {
-				for (RangerPolicy policy : policies) {
-					if (!policy.getIsEnabled()) {
-						containsDisabledResourcePolicies = true;
-						break;
-					}
-				}
-			}
-
-			if (servicePolicies.getTagPolicies() != null) {
-				policies = servicePolicies.getTagPolicies().getPolicies();
-				if (CollectionUtils.isNotEmpty(policies)) {
-					for (RangerPolicy policy : policies) {
-						if (!policy.getIsEnabled()) {
-							containsDisabledTagPolicies = true;
-							break;
-						}
-					}
-				}
-			}
-
-			if (!containsDisabledResourcePolicies && !containsDisabledTagPolicies) {
-				ret = servicePolicies;
-			} else {
-				ret = new ServicePolicies();
-
-				ret.setServiceDef(servicePolicies.getServiceDef());
-				ret.setServiceId(servicePolicies.getServiceId());
-				ret.setServiceName(servicePolicies.getServiceName());
-				ret.setPolicyVersion(servicePolicies.getPolicyVersion());
-				ret.setPolicyUpdateTime(servicePolicies.getPolicyUpdateTime());
-				ret.setPolicies(servicePolicies.getPolicies());
-				ret.setTagPolicies(servicePolicies.getTagPolicies());
-
-				if (containsDisabledResourcePolicies) {
-					List<RangerPolicy> filteredPolicies = new ArrayList<RangerPolicy>();
-					for (RangerPolicy policy : servicePolicies.getPolicies()) {
-						if (policy.getIsEnabled()) {
-							filteredPolicies.add(policy);
-						}
-					}
-					ret.setPolicies(filteredPolicies);
-				}
-
-				if (containsDisabledTagPolicies) {
-					ServicePolicies.TagPolicies tagPolicies = new ServicePolicies.TagPolicies();
-
-					tagPolicies.setServiceDef(servicePolicies.getTagPolicies().getServiceDef());
-					tagPolicies.setServiceId(servicePolicies.getTagPolicies().getServiceId());
-					tagPolicies.setServiceName(servicePolicies.getTagPolicies().getServiceName());
-					tagPolicies.setPolicyVersion(servicePolicies.getTagPolicies().getPolicyVersion());
-					tagPolicies.setPolicyUpdateTime(servicePolicies.getTagPolicies().getPolicyUpdateTime());
-
-					List<RangerPolicy> filteredPolicies = new ArrayList<RangerPolicy>();
-					for (RangerPolicy policy : servicePolicies.getTagPolicies().getPolicies()) {
-						if (policy.getIsEnabled()) {
-							filteredPolicies.add(policy);
-						}
-					}
-					tagPolicies.setPolicies(filteredPolicies);
-
-					ret.setTagPolicies(tagPolicies);
-				}
-			}
-		}
-
-		return ret;
+	private ServicePolicies getServicePoliciesForDownload(ServicePolicies servicePolicies) {
+		return RangerServicePoliciesCache.getInstance().getServicePoliciesForDownload(servicePolicies);
 	}
 
 	private void validateGrantRevokeRequest(GrantRevokeRequest request){
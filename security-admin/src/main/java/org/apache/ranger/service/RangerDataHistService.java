@@ -19,6 +19,7 @@ package org.apache.ranger.service;
 
 import java.io.IOException;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.ranger.common.AppConstants;
 import org.apache.ranger.common.DateUtil;
@@ -51,7 +52,52 @@ public class RangerDataHistService {
 	public static final String ACTION_UPDATE = "Update";
 	public static final String ACTION_DELETE = "Delete";
 	
+	/**
+	 * Writes data history for many newly created objects together, in JDBC batches.
+	 */
+	public void createObjectDataHistory(List<? extends RangerBaseModelObject> baseModelObjs, String action) {
+		if(!ACTION_CREATE.equalsIgnoreCase(action)) {
+			for(RangerBaseModelObject baseModelObj : baseModelObjs) {
+				createObjectDataHistory(baseModelObj, action);
+			}
+
+			return;
+		}
+
+		for(RangerBaseModelObject baseModelObj : baseModelObjs) {
+			daoMgr.getXXDataHist().batchCreate(createDataHist(baseModelObj, action));
+		}
+
+		daoMgr.getXXDataHist().flush();
+	}
+
 	public void createObjectDataHistory(RangerBaseModelObject baseModelObj, String action) {
+		XXDataHist xDataHist = createDataHist(baseModelObj, action);
+
+		Integer classType   = xDataHist.getObjectClassType();
+		String  objectName  = xDataHist.getObjectName();
+		Long    objectId    = xDataHist.getObjectId();
+		Date    currentDate = xDataHist.getUpdateTime();
+
+		xDataHist = daoMgr.getXXDataHist().create(xDataHist);
+		
+		if (ACTION_UPDATE.equalsIgnoreCase(action) || ACTION_DELETE.equalsIgnoreCase(action)) {
+			XXDataHist prevHist = daoMgr.getXXDataHist().findLatestByObjectClassTypeAndObjectId(classType, objectId);
+			
+			if(prevHist == null) {
+				throw restErrorUtil.createRESTException(
+						"Error updating DataHistory Object. ObjectName: "
+								+ objectName, MessageEnums.DATA_NOT_UPDATABLE);
+			}
+			
+			prevHist.setUpdateTime(currentDate);
+			prevHist.setToTime(currentDate);
+			prevHist.setObjectName(objectName);
+			prevHist = daoMgr.getXXDataHist().update(prevHist);
+		}
+	}
+
+	private XXDataHist createDataHist(RangerBaseModelObject baseModelObj, String action) {
 		if(baseModelObj == null || action == null) {
 			throw restErrorUtil
 					.createRESTException("Error while creating DataHistory. "
@@ -64,7 +110,6 @@ public class RangerDataHistService {
 		String objectName = null;
 		String content = null;
 		
-		Long objectId = baseModelObj.getId();
 		String objectGuid = baseModelObj.getGuid();
 		Date currentDate = DateUtil.getUTCDate();
 		
@@ -98,22 +143,8 @@ public class RangerDataHistService {
 		xDataHist.setObjectClassType(classType);
 		xDataHist.setObjectName(objectName);
 		xDataHist.setContent(content);
-		xDataHist = daoMgr.getXXDataHist().create(xDataHist);
-		
-		if (ACTION_UPDATE.equalsIgnoreCase(action) || ACTION_DELETE.equalsIgnoreCase(action)) {
-			XXDataHist prevHist = daoMgr.getXXDataHist().findLatestByObjectClassTypeAndObjectId(classType, objectId);
-			
-			if(prevHist == null) {
-				throw restErrorUtil.createRESTException(
-						"Error updating DataHistory Object. ObjectName: "
-								+ objectName, MessageEnums.DATA_NOT_UPDATABLE);
-			}
-			
-			prevHist.setUpdateTime(currentDate);
-			prevHist.setToTime(currentDate);
-			prevHist.setObjectName(objectName);
-			prevHist = daoMgr.getXXDataHist().update(prevHist);
-		}
+
+		return xDataHist;
 	}
 
 	public String writeObjectAsString(RangerBaseModelObject vObj) {
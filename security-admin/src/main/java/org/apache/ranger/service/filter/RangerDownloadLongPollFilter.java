@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.service.filter;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.common.RangerServiceVersionWatcher;
+import org.apache.ranger.plugin.util.RangerRESTUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Long-poll support for policy and tag downloads: when the plugin sends waitForUpdateMs, the request is put in async mode
+ * and parked with RangerServiceVersionWatcher - holding neither a servlet thread nor a DB connection - until the
+ * service's version differs from lastKnownVersion or the wait elapses. The request is then dispatched again, to go
+ * through authentication and ServiceREST/TagREST as usual. This filter must be mapped after the security filters, so
+ * that requests to the secure download paths are parked only after authentication, and for REQUEST dispatch only; the
+ * filters and servlet must be async-supported.
+ */
+@Component("rangerDownloadLongPollFilter")
+public class RangerDownloadLongPollFilter implements Filter {
+	private static final Log LOG = LogFactory.getLog(RangerDownloadLongPollFilter.class);
+
+	private static final String[] POLICY_DOWNLOAD_PATHS = new String[] { RangerRESTUtils.REST_URL_POLICY_GET_FOR_SERVICE_IF_UPDATED, RangerRESTUtils.REST_URL_POLICY_GET_FOR_SECURE_SERVICE_IF_UPDATED };
+	private static final String[] TAG_DOWNLOAD_PATHS    = new String[] { RangerRESTUtils.REST_URL_GET_SERVICE_TAGS_IF_UPDATED, RangerRESTUtils.REST_URL_GET_SECURE_SERVICE_TAGS_IF_UPDATED };
+	private static final String[] SECURE_DOWNLOAD_PATHS = new String[] { RangerRESTUtils.REST_URL_POLICY_GET_FOR_SECURE_SERVICE_IF_UPDATED, RangerRESTUtils.REST_URL_GET_SECURE_SERVICE_TAGS_IF_UPDATED };
+
+	// the watcher completes the wait; container timeout is only a safety net in case it doesn't
+	private static final long ASYNC_TIMEOUT_MARGIN_MS = 30 * 1000;
+
+	@Autowired
+	RangerServiceVersionWatcher versionWatcher;
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+		String waitMs = request.getParameter(RangerRESTUtils.REST_PARAM_WAIT_FOR_UPDATE_MS);
+
+		if (StringUtils.isNotBlank(waitMs) && request instanceof HttpServletRequest && request.getDispatcherType() == DispatcherType.REQUEST && request.isAsyncSupported()) {
+			HttpServletRequest httpRequest = (HttpServletRequest) request;
+			String             path        = StringUtils.removeStart(httpRequest.getRequestURI(), httpRequest.getContextPath());
+
+			try {
+				String  serviceName      = getServiceName(path, POLICY_DOWNLOAD_PATHS);
+				boolean isTagDownload    = serviceName == null;
+				Long    lastKnownVersion = Long.valueOf(request.getParameter(RangerRESTUtils.REST_PARAM_LAST_KNOWN_POLICY_VERSION));
+				long    waitTimeMs       = Long.parseLong(waitMs);
+
+				if (isTagDownload) {
+					serviceName = getServiceName(path, TAG_DOWNLOAD_PATHS);
+				}
+
+				if (serviceName != null && lastKnownVersion != -1 && waitTimeMs > 0 && (!isSecureDownload(path) || isAuthenticated())) {
+					String        clientAddress = request.getRemoteAddr();
+					AsyncContext  asyncContext  = request.startAsync(request, response);
+					AsyncDispatch dispatch      = new AsyncDispatch(asyncContext);
+
+					asyncContext.setTimeout(waitTimeMs + ASYNC_TIMEOUT_MARGIN_MS);
+					asyncContext.addListener(dispatch);
+
+					boolean isWaiting = isTagDownload ? versionWatcher.waitForTagUpdate(serviceName, clientAddress, lastKnownVersion, waitTimeMs, dispatch)
+					                                  : versionWatcher.waitForPolicyUpdate(serviceName, clientAddress, lastKnownVersion, waitTimeMs, dispatch);
+
+					if (!isWaiting) {
+						dispatch.onWaitComplete(false);
+					}
+
+					return;
+				}
+			} catch (NumberFormatException excp) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("RangerDownloadLongPollFilter.doFilter(" + path + "): invalid parameters. Not waiting", excp);
+				}
+			}
+		}
+
+		chain.doFilter(request, response);
+	}
+
+	@Override
+	public void destroy() {
+	}
+
+	private boolean isSecureDownload(String path) {
+		for (String downloadPath : SECURE_DOWNLOAD_PATHS) {
+			if (path.startsWith(downloadPath)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// secure download paths are authenticated by the security filters ahead of this filter; this only guards against a misconfigured filter order
+	private boolean isAuthenticated() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+		return authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken);
+	}
+
+	private String getServiceName(String path, String[] downloadPaths) throws IOException {
+		String ret = null;
+
+		for (String downloadPath : downloadPaths) {
+			if (path.startsWith(downloadPath)) {
+				ret = URLDecoder.decode(path.substring(downloadPath.length()), "UTF-8");
+
+				break;
+			}
+		}
+
+		return ret;
+	}
+
+	private static class AsyncDispatch implements RangerServiceVersionWatcher.UpdateListener, AsyncListener {
+		private final AsyncContext  asyncContext;
+		private final AtomicBoolean isDone = new AtomicBoolean(false);
+
+		AsyncDispatch(AsyncContext asyncContext) {
+			this.asyncContext = asyncContext;
+		}
+
+		@Override
+		public void onWaitComplete(boolean isUpdated) {
+			if (isDone.compareAndSet(false, true)) {
+				try {
+					asyncContext.dispatch();
+				} catch (IllegalStateException excp) { // request completed already, for example client disconnected
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("RangerDownloadLongPollFilter: failed to dispatch", excp);
+					}
+				}
+			}
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) throws IOException {
+			onWaitComplete(false);
+		}
+
+		@Override
+		public void onError(AsyncEvent event) throws IOException {
+			isDone.set(true);
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) throws IOException {
+			isDone.set(true);
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) throws IOException {
+		}
+	}
+}
@@ -20,10 +20,15 @@
 package org.apache.ranger.solr;
 
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.apache.log4j.Logger;
 import org.apache.ranger.common.MessageEnums;
+import org.apache.ranger.common.PropertiesUtil;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.SearchCriteria;
 import org.apache.ranger.common.SearchField;
@@ -35,12 +40,18 @@ import org.apache.ranger.common.SortField.SORT_ORDER;
 import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.entity.XXServiceDef;
 import org.apache.ranger.view.VXAccessAudit;
+import org.apache.ranger.view.VXAccessAuditAggregates;
 import org.apache.ranger.view.VXAccessAuditList;
 import org.apache.ranger.view.VXLong;
 import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.FacetField;
+import org.apache.solr.client.solrj.response.PivotField;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.RangeFacet;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.FacetParams;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
@@ -50,6 +61,14 @@ import org.springframework.stereotype.Service;
 public class SolrAccessAuditsService {
 	private static final Logger logger = Logger.getLogger(SolrAccessAuditsService.class);
 
+	private static final String  PROP_AGGREGATES_CACHE_TTL_MS   = "ranger.audit.solr.aggregates.cache.ttl.ms";
+	private static final String  PROP_AGGREGATES_CACHE_MAX_SIZE = "ranger.audit.solr.aggregates.cache.max.size";
+	private static final String  PROP_AGGREGATES_DEFAULT_DAYS   = "ranger.audit.solr.aggregates.default.days";
+	private static final String  EVENT_TIME_FIELD               = "evtTime";
+	private static final String  EVENT_TIME_RANGE_TAG           = "evtTimeRange";
+	private static final int     DEFAULT_AGGREGATES_LIMIT       = 100;
+	private static final Pattern TIME_GAP_PATTERN               = Pattern.compile("\\d+(MINUTE|HOUR|DAY|WEEK|MONTH|YEAR)S?");
+
 	@Autowired
 	SolrMgr solrMgr;
 
@@ -68,7 +87,24 @@ public class SolrAccessAuditsService {
 	public List<SortField> sortFields = new ArrayList<SortField>();
 	public List<SearchField> searchFields = new ArrayList<SearchField>();
 
+	private final long                                  aggregatesCacheTtlMs;
+	private final int                                   aggregatesDefaultDays;
+	private final Map<String, CachedAccessAuditAggregates> aggregatesCache;
+
 	public SolrAccessAuditsService() {
+		aggregatesCacheTtlMs  = PropertiesUtil.getLongProperty(PROP_AGGREGATES_CACHE_TTL_MS, 60 * 1000L);
+		aggregatesDefaultDays = PropertiesUtil.getIntProperty(PROP_AGGREGATES_DEFAULT_DAYS, 7);
+
+		final int aggregatesCacheMaxSize = PropertiesUtil.getIntProperty(PROP_AGGREGATES_CACHE_MAX_SIZE, 256);
+
+		aggregatesCache = new LinkedHashMap<String, CachedAccessAuditAggregates>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedAccessAuditAggregates> eldest) {
+				return size() > aggregatesCacheMaxSize;
+			}
+		};
 
 		searchFields.add(new SearchField("id", "id",
 				SearchField.DATA_TYPE.STRING, SearchField.SEARCH_TYPE.FULL));
@@ -152,9 +188,202 @@ public class SolrAccessAuditsService {
 		returnList.setTotalCount((int) docs.getNumFound());
 		returnList.setStartIndex((int) docs.getStart());
 		returnList.setVXAccessAudits(xAccessAuditList);
+		returnList.setNextCursorMark(response.getNextCursorMark());
 		return returnList;
 	}
 
+	/**
+	 * Computes audit counts in Solr using facets, grouped by the given search field and/or bucketed by event time.
+	 * Results are cached for a short while, as dashboards tend to repeat the same aggregations.
+	 *
+	 * @param searchCriteria filters to apply; startDate/endDate bound the time buckets
+	 * @param groupBy client field name to group by (e.g. requestUser, resourcePath, accessResult, policyId); optional
+	 * @param timeGap size of time buckets in Solr date math (e.g. 1HOUR, 1DAY); optional
+	 * @param limit maximum number of values to return for groupBy
+	 * @return
+	 */
+	public VXAccessAuditAggregates getAccessAuditAggregates(SearchCriteria searchCriteria, String groupBy, String timeGap, int limit) {
+		SolrClient solrClient = solrMgr.getSolrClient();
+
+		if (solrClient == null) {
+			logger.warn("Solr client is null, so not running the query.");
+			throw restErrorUtil.createRESTException(
+					"Error connecting to search engine",
+					MessageEnums.ERROR_SYSTEM);
+		}
+
+		String groupByFieldName = null;
+
+		if (!stringUtil.isEmpty(groupBy)) {
+			for (SearchField searchField : searchFields) {
+				if (searchField.getDataType() != DATA_TYPE.DATE && groupBy.equalsIgnoreCase(searchField.getClientFieldName())) {
+					groupByFieldName = searchField.getFieldName();
+					groupBy          = searchField.getClientFieldName();
+					break;
+				}
+			}
+
+			if (groupByFieldName == null || SolrUtil.FIELD_UNIQUE_KEY.equals(groupByFieldName)) {
+				throw restErrorUtil.createRESTException("Invalid value for parameter groupBy: " + groupBy, MessageEnums.INVALID_INPUT_DATA);
+			}
+		}
+
+		if (!stringUtil.isEmpty(timeGap)) {
+			timeGap = timeGap.trim().toUpperCase();
+
+			if (timeGap.startsWith("+")) {
+				timeGap = timeGap.substring(1);
+			}
+
+			if (!TIME_GAP_PATTERN.matcher(timeGap).matches()) {
+				throw restErrorUtil.createRESTException("Invalid value for parameter timeGap: " + timeGap, MessageEnums.INVALID_INPUT_DATA);
+			}
+		} else {
+			timeGap = null;
+		}
+
+		if (limit <= 0) {
+			limit = DEFAULT_AGGREGATES_LIMIT;
+		}
+
+		SolrQuery query = solrUtil.createQuery(searchCriteria, searchFields);
+
+		query.setRows(0);
+
+		if (groupByFieldName != null || timeGap != null) {
+			query.setFacet(true);
+			query.setFacetMinCount(1);
+			query.setFacetLimit(limit);
+		}
+
+		if (groupByFieldName != null) {
+			query.addFacetField(groupByFieldName);
+		}
+
+		if (timeGap != null) {
+			Date endDate   = searchCriteria.getParamValue("endDate") instanceof Date ? (Date) searchCriteria.getParamValue("endDate") : getDefaultAggregatesEndDate();
+			Date startDate = searchCriteria.getParamValue("startDate") instanceof Date ? (Date) searchCriteria.getParamValue("startDate") : new Date(endDate.getTime() - aggregatesDefaultDays * 24L * 60 * 60 * 1000);
+
+			query.add(FacetParams.FACET_RANGE, "{!tag=" + EVENT_TIME_RANGE_TAG + "}" + EVENT_TIME_FIELD);
+			query.add("f." + EVENT_TIME_FIELD + "." + FacetParams.FACET_RANGE_START, solrUtil.formatDate(startDate));
+			query.add("f." + EVENT_TIME_FIELD + "." + FacetParams.FACET_RANGE_END, solrUtil.formatDate(endDate));
+			query.add("f." + EVENT_TIME_FIELD + "." + FacetParams.FACET_RANGE_GAP, "+" + timeGap);
+			query.add("f." + EVENT_TIME_FIELD + "." + FacetParams.FACET_MINCOUNT, "0");
+
+			if (groupByFieldName != null) {
+				query.add(FacetParams.FACET_PIVOT, "{!range=" + EVENT_TIME_RANGE_TAG + "}" + groupByFieldName);
+			}
+		}
+
+		String                      cacheKey = query.toString();
+		CachedAccessAuditAggregates cached   = getCachedAggregates(cacheKey);
+
+		if (cached != null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("getAccessAuditAggregates(): returning cached result for query " + cacheKey);
+			}
+
+			return cached.aggregates;
+		}
+
+		QueryResponse response = solrUtil.executeQuery(query, solrClient);
+
+		VXAccessAuditAggregates ret = new VXAccessAuditAggregates();
+
+		ret.setGroupBy(groupBy);
+		ret.setTimeGap(timeGap);
+		ret.setTotalCount(response.getResults() != null ? response.getResults().getNumFound() : 0L);
+
+		if (groupByFieldName != null) {
+			FacetField          facetField    = response.getFacetField(groupByFieldName);
+			Map<String, Long>   countsByValue = new LinkedHashMap<String, Long>();
+
+			if (facetField != null && facetField.getValues() != null) {
+				for (FacetField.Count count : facetField.getValues()) {
+					countsByValue.put(count.getName(), count.getCount());
+				}
+			}
+
+			ret.setCountsByValue(countsByValue);
+		}
+
+		if (timeGap != null) {
+			ret.setCountsByTime(toTimeCounts(response.getFacetRanges()));
+
+			if (groupByFieldName != null && response.getFacetPivot() != null) {
+				Map<String, Map<String, Long>> countsByValueAndTime = new LinkedHashMap<String, Map<String, Long>>();
+				List<PivotField>               pivotFields          = response.getFacetPivot().get(groupByFieldName);
+
+				if (pivotFields != null) {
+					for (PivotField pivotField : pivotFields) {
+						countsByValueAndTime.put(String.valueOf(pivotField.getValue()), toTimeCounts(pivotField.getFacetRanges()));
+					}
+				}
+
+				ret.setCountsByValueAndTime(countsByValueAndTime);
+			}
+		}
+
+		putCachedAggregates(cacheKey, ret);
+
+		return ret;
+	}
+
+	// now, rounded up to the cache TTL: repeated queries without endDate, like the dashboard's, share the cache entry
+	private Date getDefaultAggregatesEndDate() {
+		long ret = System.currentTimeMillis();
+
+		if (aggregatesCacheTtlMs > 0) {
+			ret = (ret / aggregatesCacheTtlMs + 1) * aggregatesCacheTtlMs;
+		}
+
+		return new Date(ret);
+	}
+
+	private Map<String, Long> toTimeCounts(List<RangeFacet> facetRanges) {
+		Map<String, Long> ret = new LinkedHashMap<String, Long>();
+
+		if (facetRanges != null) {
+			for (RangeFacet<?, ?> facetRange : facetRanges) {
+				if (EVENT_TIME_FIELD.equals(facetRange.getName())) {
+					for (RangeFacet.Count count : facetRange.getCounts()) {
+						ret.put(count.getValue(), (long) count.getCount());
+					}
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	private CachedAccessAuditAggregates getCachedAggregates(String cacheKey) {
+		if (aggregatesCacheTtlMs <= 0) {
+			return null;
+		}
+
+		synchronized (aggregatesCache) {
+			CachedAccessAuditAggregates ret = aggregatesCache.get(cacheKey);
+
+			if (ret != null && (System.currentTimeMillis() - ret.createTime) > aggregatesCacheTtlMs) {
+				aggregatesCache.remove(cacheKey);
+
+				ret = null;
+			}
+
+			return ret;
+		}
+	}
+
+	private void putCachedAggregates(String cacheKey, VXAccessAuditAggregates aggregates) {
+		if (aggregatesCacheTtlMs <= 0) {
+			return;
+		}
+
+		synchronized (aggregatesCache) {
+			aggregatesCache.put(cacheKey, new CachedAccessAuditAggregates(aggregates));
+		}
+	}
+
 	/**
 	 * @param doc
 	 * @return
@@ -275,11 +504,34 @@ public class SolrAccessAuditsService {
 	 * @return
 	 */
 	public VXLong getXAccessAuditSearchCount(SearchCriteria searchCriteria) {
-		long count = 100;
+		SolrClient solrClient = solrMgr.getSolrClient();
+
+		if (solrClient == null) {
+			logger.warn("Solr client is null, so not running the query.");
+			throw restErrorUtil.createRESTException(
+					"Error connecting to search engine",
+					MessageEnums.ERROR_SYSTEM);
+		}
+
+		// count only: no documents are fetched or sorted
+		SolrQuery query = solrUtil.createQuery(searchCriteria, searchFields);
+
+		query.setRows(0);
+
+		QueryResponse response = solrUtil.executeQuery(query, solrClient);
+		long          count    = response.getResults() != null ? response.getResults().getNumFound() : 0;
 
 		VXLong vXLong = new VXLong();
 		vXLong.setValue(count);
 		return vXLong;
 	}
 
+	private static class CachedAccessAuditAggregates {
+		final VXAccessAuditAggregates aggregates;
+		final long                    createTime = System.currentTimeMillis();
+
+		CachedAccessAuditAggregates(VXAccessAuditAggregates aggregates) {
+			this.aggregates = aggregates;
+		}
+	}
 }
@@ -40,6 +40,7 @@ import org.apache.solr.client.solrj.SolrQuery.ORDER;
 import org.apache.solr.client.solrj.SolrRequest.METHOD;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.util.ClientUtils;
+import org.apache.solr.common.params.CursorMarkParams;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -47,6 +48,9 @@ import org.springframework.stereotype.Component;
 public class SolrUtil {
 	private static final Logger logger = Logger.getLogger(SolrUtil.class);
 
+	public static final String PARAM_CURSOR_MARK = "cursorMark";
+	public static final String FIELD_UNIQUE_KEY  = "id";
+
 	@Autowired
 	RESTErrorUtil restErrorUtil;
 
@@ -85,6 +89,27 @@ public class SolrUtil {
 	public QueryResponse searchResources(SearchCriteria searchCriteria,
 			List<SearchField> searchFields, List<SortField> sortFieldList,
 			SolrClient solrClient) {
+		SolrQuery query = createQuery(searchCriteria, searchFields);
+
+		setSortClause(searchCriteria, sortFieldList, query);
+
+		String cursorMark = getCursorMark(searchCriteria);
+
+		if (cursorMark != null) {
+			// deep paging: Solr resumes from the cursor, instead of collecting and skipping 'start' documents
+			query.addSort(FIELD_UNIQUE_KEY, ORDER.asc);
+			query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+		} else {
+			query.setStart(searchCriteria.getStartIndex());
+		}
+		query.setRows(searchCriteria.getMaxRows());
+
+		// Fields to get
+		// query.setFields("myClassType", "id", "score", "globalId");
+		return executeQuery(query, solrClient);
+	}
+
+	public SolrQuery createQuery(SearchCriteria searchCriteria, List<SearchField> searchFields) {
 		SolrQuery query = new SolrQuery();
 		query.setQuery("*:*");
 		if (searchCriteria.getParamList() != null) {
@@ -145,12 +170,10 @@ public class SolrUtil {
 			}
 		}
 
-		setSortClause(searchCriteria, sortFieldList, query);
-		query.setStart(searchCriteria.getStartIndex());
-		query.setRows(searchCriteria.getMaxRows());
+		return query;
+	}
 
-		// Fields to get
-		// query.setFields("myClassType", "id", "score", "globalId");
+	public QueryResponse executeQuery(SolrQuery query, SolrClient solrClient) {
 		if (logger.isDebugEnabled()) {
                         logger.debug("SOLR QUERY = " + query);
                 }
@@ -174,6 +197,18 @@ public class SolrUtil {
 		return response;
 	}
 
+	public String getCursorMark(SearchCriteria searchCriteria) {
+		Object value = searchCriteria.getParamList() != null ? searchCriteria.getParamValue(PARAM_CURSOR_MARK) : null;
+
+		return (value == null || value.toString().trim().isEmpty()) ? null : value.toString().trim();
+	}
+
+	public String formatDate(Date date) {
+		synchronized (dateFormat) {
+			return dateFormat.format(date);
+		}
+	}
+
 	private String setFieldForPartialSearch(String fieldName, Object value) {
 		if (value == null || value.toString().trim().length() == 0) {
 			return null;
@@ -195,10 +230,10 @@ public class SolrUtil {
 		String fromStr = "*";
 		String toStr = "NOW";
 		if (fromDate != null) {
-			fromStr = dateFormat.format(fromDate);
+			fromStr = formatDate(fromDate);
 		}
 		if (toDate != null) {
-			toStr = dateFormat.format(toDate);
+			toStr = formatDate(toDate);
 		}
 		return fieldName + ":[" + fromStr + " TO " + toStr + "]";
 	}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ranger.view;
+
+import java.util.Map;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import org.codehaus.jackson.annotate.JsonAutoDetect;
+import org.codehaus.jackson.annotate.JsonAutoDetect.Visibility;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+/**
+ * Access audit counts aggregated by the audit store, optionally grouped by a
+ * field and/or bucketed over time.
+ */
+@JsonAutoDetect(getterVisibility=Visibility.NONE, setterVisibility=Visibility.NONE, fieldVisibility=Visibility.ANY)
+@JsonSerialize(include=JsonSerialize.Inclusion.NON_NULL )
+@XmlRootElement
+@XmlAccessorType(XmlAccessType.FIELD)
+public class VXAccessAuditAggregates implements java.io.Serializable {
+	private static final long serialVersionUID = 1L;
+
+	protected String groupBy;
+	protected String timeGap;
+	protected Long totalCount;
+	protected Map<String, Long> countsByValue;
+	protected Map<String, Long> countsByTime;
+	protected Map<String, Map<String, Long>> countsByValueAndTime;
+
+	/**
+	 * Default constructor. This will set all the attributes to default value.
+	 */
+	public VXAccessAuditAggregates() {
+	}
+	/**
+	 * @return the groupBy
+	 */
+	public String getGroupBy() {
+		return groupBy;
+	}
+	/**
+	 * @param groupBy the groupBy to set
+	 */
+	public void setGroupBy(String groupBy) {
+		this.groupBy = groupBy;
+	}
+	/**
+	 * @return the timeGap
+	 */
+	public String getTimeGap() {
+		return timeGap;
+	}
+	/**
+	 * @param timeGap the timeGap to set
+	 */
+	public void setTimeGap(String timeGap) {
+		this.timeGap = timeGap;
+	}
+	/**
+	 * @return the totalCount
+	 */
+	public Long getTotalCount() {
+		return totalCount;
+	}
+	/**
+	 * @param totalCount the totalCount to set
+	 */
+	public void setTotalCount(Long totalCount) {
+		this.totalCount = totalCount;
+	}
+	/**
+	 * @return the countsByValue
+	 */
+	public Map<String, Long> getCountsByValue() {
+		return countsByValue;
+	}
+	/**
+	 * @param countsByValue the countsByValue to set
+	 */
+	public void setCountsByValue(Map<String, Long> countsByValue) {
+		this.countsByValue = countsByValue;
+	}
+	/**
+	 * @return the countsByTime
+	 */
+	public Map<String, Long> getCountsByTime() {
+		return countsByTime;
+	}
+	/**
+	 * @param countsByTime the countsByTime to set
+	 */
+	public void setCountsByTime(Map<String, Long> countsByTime) {
+		this.countsByTime = countsByTime;
+	}
+	/**
+	 * @return the countsByValueAndTime
+	 */
+	public Map<String, Map<String, Long>> getCountsByValueAndTime() {
+		return countsByValueAndTime;
+	}
+	/**
+	 * @param countsByValueAndTime the countsByValueAndTime to set
+	 */
+	public void setCountsByValueAndTime(Map<String, Map<String, Long>> countsByValueAndTime) {
+		this.countsByValueAndTime = countsByValueAndTime;
+	}
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "VXAccessAuditAggregates [groupBy=" + groupBy
+				+ ", timeGap=" + timeGap + ", totalCount=" + totalCount
+				+ ", countsByValue=" + countsByValue
+				+ ", countsByTime=" + countsByTime
+				+ ", countsByValueAndTime=" + countsByValueAndTime + "]";
+	}
+}
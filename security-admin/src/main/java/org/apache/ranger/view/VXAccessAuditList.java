@@ -43,6 +43,7 @@ import org.codehaus.jackson.map.annotate.JsonSerialize;
 public class VXAccessAuditList extends VList {
 	private static final long serialVersionUID = 1L;
     List<VXAccessAudit> vXAccessAudits = new ArrayList<VXAccessAudit>();
+    String nextCursorMark;
 
     public VXAccessAuditList() {
 	super();
@@ -68,6 +69,21 @@ public class VXAccessAuditList extends VList {
 	this.vXAccessAudits = vXAccessAudits;
     }
 
+    /**
+     * @return the cursor mark to pass to fetch the next page, when cursor based paging is used
+     */
+    public String getNextCursorMark() {
+	return nextCursorMark;
+    }
+
+    /**
+     * @param nextCursorMark
+     *            the nextCursorMark to set
+     */
+    public void setNextCursorMark(String nextCursorMark) {
+	this.nextCursorMark = nextCursorMark;
+    }
+
     @Override
     public int getListSize() {
 	if (vXAccessAudits != null) {
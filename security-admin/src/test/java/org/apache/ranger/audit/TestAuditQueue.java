@@ -23,14 +23,29 @@ import static org.junit.Assert.*;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
 import java.io.FileReader;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.apache.ranger.audit.destination.FileAuditDestination;
+import org.apache.ranger.audit.destination.KafkaAuditDestination;
+import org.apache.ranger.audit.destination.SolrAuditDestination;
+import org.apache.ranger.audit.model.AuditEventBase;
 import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.audit.provider.AuditHandler;
 import org.apache.ranger.audit.provider.AuditProviderFactory;
@@ -41,7 +56,14 @@ import org.apache.ranger.audit.queue.AuditAsyncQueue;
 import org.apache.ranger.audit.queue.AuditBatchQueue;
 import org.apache.ranger.audit.queue.AuditFileSpool;
 import org.apache.ranger.audit.queue.AuditQueue;
+import org.apache.ranger.audit.queue.AuditSegmentedFileSpool;
 import org.apache.ranger.audit.queue.AuditSummaryQueue;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.NamedList;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -579,6 +601,162 @@ public class TestAuditQueue {
 
 	}
 
+	@Test
+	public void testAuditBatchQueueSegmentedSpoolFlipFlop() {
+		logger.debug("testAuditBatchQueueSegmentedSpoolFlipFlop()...");
+		int messageToSend = 10;
+
+		String basePropName = "testAuditBatchQueueSegmentedSpoolFlipFlop_"
+				+ MiscUtil.generateUniqueId();
+		Properties props = createSegmentedSpoolProps(basePropName,
+				messageToSend / 3, messageToSend * 2, 5000);
+
+		TestConsumer testConsumer = new TestConsumer();
+		testConsumer.isDown = false;
+
+		AuditBatchQueue queue = new AuditBatchQueue(testConsumer);
+		queue.init(props, basePropName);
+		queue.start();
+
+		try {
+			queue.log(createEvent());
+			queue.log(createEvent());
+			queue.log(createEvent());
+			Thread.sleep(1000);
+			testConsumer.isDown = true;
+			Thread.sleep(1000);
+			queue.log(createEvent());
+			queue.log(createEvent());
+			queue.log(createEvent());
+			Thread.sleep(1000);
+			testConsumer.isDown = false;
+			Thread.sleep(1000);
+			queue.log(createEvent());
+			queue.log(createEvent());
+			queue.log(createEvent());
+			Thread.sleep(1000);
+			testConsumer.isDown = true;
+			Thread.sleep(1000);
+			queue.log(createEvent());
+			Thread.sleep(1000);
+			testConsumer.isDown = false;
+			Thread.sleep(3000);
+		} catch (InterruptedException e) {
+			// ignore
+		}
+
+		queue.waitToComplete(5000);
+		queue.stop();
+		queue.waitToComplete();
+
+		assertEquals("Total count", messageToSend, testConsumer.getCountTotal());
+		assertEquals("Total sum", messageToSend, testConsumer.getSumTotal());
+		assertNull("Event not in sequnce", testConsumer.isInSequence());
+	}
+
+	/**
+	 * See if segmented spool recovers after restart, with a torn record at
+	 * the end of the last segment
+	 */
+	@Test
+	public void testAuditBatchQueueSegmentedSpoolRestart() throws Exception {
+		logger.debug("testAuditBatchQueueSegmentedSpoolRestart()...");
+		int messageToSend = 10;
+
+		String basePropName = "testAuditBatchQueueSegmentedSpoolRestart_"
+				+ MiscUtil.generateUniqueId();
+		final String queueName = basePropName + "_queue";
+		Properties props = createSegmentedSpoolProps(basePropName,
+				messageToSend / 3, messageToSend * 2, 3000);
+		props.put(basePropName + "." + BaseAuditHandler.PROP_NAME, queueName);
+
+		TestConsumer testConsumer = new TestConsumer();
+		testConsumer.isDown = true;
+
+		AuditBatchQueue queue = new AuditBatchQueue(testConsumer);
+		queue.init(props, basePropName);
+		queue.start();
+
+		for (int i = 0; i < messageToSend; i++) {
+			queue.log(createEvent());
+		}
+		Thread.sleep(2000);
+
+		queue.waitToComplete(5000);
+		queue.stop();
+		queue.waitToComplete();
+
+		// simulate a crash while writing a record
+		File[] spoolFolders = new File("target").listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File pathname) {
+				return pathname.isDirectory()
+						&& pathname.getName().startsWith("spool_" + queueName + "_");
+			}
+		});
+		assertEquals("Spool folders", 1, spoolFolders.length);
+
+		File lastSegment = null;
+		for (File file : spoolFolders[0].listFiles()) {
+			if (file.getName().endsWith(".wal")
+					&& (lastSegment == null || file.getName().compareTo(lastSegment.getName()) > 0)) {
+				lastSegment = file;
+			}
+		}
+		assertNotNull("Spool segment", lastSegment);
+
+		try (FileOutputStream out = new FileOutputStream(lastSegment, true)) {
+			out.write(new byte[] { 0, 0, 1, 0, 1, 2, 3, 4, '{', '"' });
+		}
+
+		// Let's now recreate the objects
+		testConsumer = new TestConsumer();
+
+		queue = new AuditBatchQueue(testConsumer);
+		queue.init(props, basePropName);
+		queue.start();
+
+		Thread.sleep(2000);
+
+		queue.waitToComplete(5000);
+		queue.stop();
+		queue.waitToComplete();
+
+		assertEquals("Total count", messageToSend, testConsumer.getCountTotal());
+		assertEquals("Total sum", messageToSend, testConsumer.getSumTotal());
+		assertNull("Event not in sequnce", testConsumer.isInSequence());
+	}
+
+	private Properties createSegmentedSpoolProps(String basePropName,
+			int batchSize, int queueSize, int intervalMS) {
+		Properties props = new Properties();
+		props.put(basePropName + "." + BaseAuditHandler.PROP_NAME,
+				basePropName + "_queue");
+		props.put(basePropName + "." + AuditQueue.PROP_BATCH_SIZE, ""
+				+ batchSize);
+		props.put(basePropName + "." + AuditQueue.PROP_QUEUE_SIZE, ""
+				+ queueSize);
+		props.put(basePropName + "." + AuditQueue.PROP_BATCH_INTERVAL, ""
+				+ intervalMS);
+
+		// Enable segmented File Spooling
+		props.put(basePropName + "." + AuditQueue.PROP_FILE_SPOOL_ENABLE,
+				"" + true);
+		props.put(basePropName + "." + AuditFileSpool.PROP_FILE_SPOOL_TYPE,
+				AuditSegmentedFileSpool.SPOOL_TYPE);
+		props.put(
+				basePropName + "." + AuditFileSpool.PROP_FILE_SPOOL_LOCAL_DIR,
+				"target");
+		props.put(basePropName + "."
+				+ AuditFileSpool.PROP_FILE_SPOOL_DEST_RETRY_MS, "" + 10);
+		props.put(basePropName + "."
+				+ AuditFileSpool.PROP_FILE_SPOOL_ARCHIVE_MAX_FILES_COUNT, "" + 1);
+		props.put(basePropName + "."
+				+ AuditSegmentedFileSpool.PROP_FILE_SPOOL_SYNC, "" + true);
+
+		return props;
+	}
+
 	@Test
 	public void testFileDestination() {
 		logger.debug("testFileDestination()...");
@@ -682,6 +860,430 @@ public class TestAuditQueue {
 
 	}
 
+	@Test
+	public void testKafkaDestination() {
+		logger.debug("testKafkaDestination()...");
+
+		int messageToSend = 10;
+		String propPrefix = AuditProviderFactory.AUDIT_DEST_BASE + ".kafka";
+		Properties props = new Properties();
+		props.put(propPrefix + "." + KafkaAuditDestination.PROP_TOPIC_NAME,
+				"test_audits");
+
+		TestKafkaDestination kafkaDest = new TestKafkaDestination(true);
+		kafkaDest.init(props, propPrefix);
+
+		List<AuditEventBase> events = new ArrayList<AuditEventBase>();
+		for (int i = 0; i < messageToSend; i++) {
+			AuthzAuditEvent event = createEvent("user1", "select", "db1/tbl"
+					+ (i % 2), true);
+			event.setRepositoryName("hivedev");
+			events.add(event);
+		}
+
+		assertTrue("Batch acknowledged", kafkaDest.log(events));
+		assertEquals("Success count", messageToSend,
+				kafkaDest.getTotalSuccessCount());
+
+		List<ProducerRecord<String, String>> sent = kafkaDest.producer
+				.history();
+		assertEquals("Records sent", messageToSend, sent.size());
+		for (int i = 0; i < messageToSend; i++) {
+			assertEquals("Topic", "test_audits", sent.get(i).topic());
+			assertEquals("Key", "hivedev/db1/tbl" + (i % 2), sent.get(i).key());
+			assertEquals("Sequence", ((AuthzAuditEvent) events.get(i))
+					.getSeqNum(), MiscUtil.fromJson(sent.get(i).value(),
+					AuthzAuditEvent.class).getSeqNum());
+		}
+
+		kafkaDest.stop();
+	}
+
+	@Test
+	public void testKafkaDestinationAckTimeout() {
+		logger.debug("testKafkaDestinationAckTimeout()...");
+
+		int messageToSend = 3;
+		String propPrefix = AuditProviderFactory.AUDIT_DEST_BASE + ".kafka";
+		Properties props = new Properties();
+		props.put(propPrefix + "." + KafkaAuditDestination.PROP_ACK_TIMEOUT_MS,
+				"" + 100);
+
+		// records are never acknowledged
+		TestKafkaDestination kafkaDest = new TestKafkaDestination(false);
+		kafkaDest.init(props, propPrefix);
+
+		List<AuditEventBase> events = new ArrayList<AuditEventBase>();
+		for (int i = 0; i < messageToSend; i++) {
+			events.add(createEvent());
+		}
+
+		assertFalse("Batch acknowledged", kafkaDest.log(events));
+		assertEquals("Success count", 0, kafkaDest.getTotalSuccessCount());
+		assertEquals("Failed count", messageToSend,
+				kafkaDest.getTotalFailedCount());
+
+		kafkaDest.stop();
+	}
+
+	@Test
+	public void testAuditBatchQueueFullDrop() throws Exception {
+		logger.debug("testAuditBatchQueueFullDrop()...");
+		int messageToSend = 20;
+		int queueSize = 5;
+
+		BlockingConsumer blockedConsumer = new BlockingConsumer();
+		TestConsumer healthyConsumer = new TestConsumer();
+		AuditBatchQueue blockedQueue = createBatchQueue(blockedConsumer,
+				"testAuditBatchQueueFullDrop_blocked", 1, queueSize, 0, false);
+		AuditBatchQueue healthyQueue = createBatchQueue(healthyConsumer,
+				"testAuditBatchQueueFullDrop_healthy", 1, messageToSend, 0,
+				false);
+
+		MultiDestAuditProvider multiDest = new MultiDestAuditProvider();
+		multiDest.addAuditProvider(blockedQueue);
+		multiDest.addAuditProvider(healthyQueue);
+		blockedQueue.start();
+		healthyQueue.start();
+
+		multiDest.log(createEvent());
+		// consumer thread is now blocked, sending the first event
+		assertTrue(blockedConsumer.started.await(5, TimeUnit.SECONDS));
+
+		long startTime = System.currentTimeMillis();
+		for (int i = 1; i < messageToSend; i++) {
+			multiDest.log(createEvent());
+		}
+		assertTrue("log() waited for the blocked destination",
+				System.currentTimeMillis() - startTime < 1000);
+
+		int dropCount = messageToSend - 1 - queueSize;
+		assertEquals(dropCount, blockedQueue.getQueueFullDropCount());
+		assertEquals(0, healthyQueue.getQueueFullDropCount());
+
+		// the healthy destination gets all events, while the other is blocked
+		healthyQueue.stop();
+		healthyQueue.waitToComplete();
+		assertEquals(messageToSend, healthyConsumer.getCountTotal());
+
+		blockedConsumer.release.countDown();
+		blockedQueue.stop();
+		blockedQueue.waitToComplete();
+		assertEquals(messageToSend - dropCount,
+				blockedConsumer.getCountTotal());
+	}
+
+	@Test
+	public void testAuditBatchQueueFullSpool() throws Exception {
+		logger.debug("testAuditBatchQueueFullSpool()...");
+		int batchSize = 10;
+		int queueSize = 5;
+
+		BlockingConsumer testConsumer = new BlockingConsumer();
+		AuditBatchQueue queue = createBatchQueue(testConsumer,
+				"testAuditBatchQueueFullSpool", batchSize, queueSize, 0, true);
+		queue.start();
+
+		queue.log(createEvent());
+		// the first batch is sent after the batch interval
+		assertTrue(testConsumer.started.await(5, TimeUnit.SECONDS));
+
+		for (int i = 0; i < queueSize; i++) {
+			assertTrue(queue.log(createEvent()));
+		}
+		// queue is full: events are held to be spooled in batches
+		for (int i = 0; i < batchSize; i++) {
+			assertTrue(queue.log(createEvent()));
+		}
+		assertEquals(0, queue.getQueueFullSpoolCount());
+
+		// consumer thread is still blocked: the caller spools the held batch
+		for (int i = 0; i < 3; i++) {
+			assertTrue(queue.log(createEvent()));
+		}
+		assertEquals(batchSize, queue.getQueueFullSpoolCount());
+
+		// and the consumer thread spools the rest, once it is free
+		testConsumer.release.countDown();
+		for (int i = 0; i < 50
+				&& queue.getQueueFullSpoolCount() < batchSize + 3; i++) {
+			Thread.sleep(100);
+		}
+		assertEquals(batchSize + 3, queue.getQueueFullSpoolCount());
+		assertEquals(0, queue.getQueueFullDropCount());
+
+		queue.stop();
+		queue.waitToComplete();
+	}
+
+	@Test
+	public void testAuditBatchQueueFullWait() throws Exception {
+		logger.debug("testAuditBatchQueueFullWait()...");
+		int queueFullWaitMs = 300;
+
+		final BlockingConsumer testConsumer = new BlockingConsumer();
+		AuditBatchQueue queue = createBatchQueue(testConsumer,
+				"testAuditBatchQueueFullWait", 1, 1, queueFullWaitMs, false);
+		queue.start();
+
+		queue.log(createEvent());
+		assertTrue(testConsumer.started.await(5, TimeUnit.SECONDS));
+		assertTrue(queue.log(createEvent())); // queue is now full
+
+		// no room within queueFullWaitMs: dropped
+		long startTime = System.currentTimeMillis();
+		assertFalse(queue.log(createEvent()));
+		assertTrue(System.currentTimeMillis() - startTime >= queueFullWaitMs - 50);
+		assertEquals(1, queue.getQueueFullDropCount());
+
+		// room made while waiting: queued
+		Thread releaser = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					// ignore
+				}
+				testConsumer.release.countDown();
+			}
+		};
+		releaser.start();
+		assertTrue(queue.log(createEvent()));
+		assertEquals(1, queue.getQueueFullDropCount());
+		releaser.join();
+
+		queue.stop();
+		queue.waitToComplete();
+		assertEquals(3, testConsumer.getCountTotal());
+	}
+
+	@Test
+	public void testAuditProviderFactoryQueuePerDestination() {
+		logger.debug("testAuditProviderFactoryQueuePerDestination()...");
+		Properties props = new Properties();
+		for (String destName : new String[] { "dest1", "dest2" }) {
+			String destPropPrefix = AuditProviderFactory.AUDIT_DEST_BASE + "."
+					+ destName;
+			props.put(destPropPrefix, "enable");
+			props.put(destPropPrefix + "." + BaseAuditHandler.PROP_CLASS_NAME,
+					TestConsumer.class.getName());
+			props.put(destPropPrefix + "." + AuditQueue.PROP_QUEUE, "none");
+		}
+
+		AuditProviderFactory factory = AuditProviderFactory.getInstance();
+		factory.init(props, "test");
+
+		List<AuditHandler> providers = getDestinationProviders(factory);
+		assertEquals(2, providers.size());
+		for (AuditHandler provider : providers) {
+			assertTrue(provider instanceof AuditBatchQueue);
+			assertTrue(((AuditBatchQueue) provider).getConsumer() instanceof TestConsumer);
+		}
+		factory.getProvider().stop();
+
+		props.put(AuditProviderFactory.AUDIT_MULTI_DEST_QUEUE_PER_DEST_PROP,
+				"false");
+		factory.init(props, "test");
+
+		providers = getDestinationProviders(factory);
+		assertEquals(2, providers.size());
+		for (AuditHandler provider : providers) {
+			assertTrue(provider instanceof TestConsumer);
+		}
+		factory.getProvider().stop();
+	}
+
+	private List<AuditHandler> getDestinationProviders(
+			AuditProviderFactory factory) {
+		AuditQueue asyncQueue = (AuditQueue) factory.getProvider();
+		MultiDestAuditProvider multiDest = (MultiDestAuditProvider) asyncQueue
+				.getConsumer();
+		return multiDest.getAuditProviders();
+	}
+
+	private AuditBatchQueue createBatchQueue(AuditHandler consumer,
+			String name, int batchSize, int queueSize, int queueFullWaitMs,
+			boolean isSpoolEnabled) {
+		String basePropName = name + "_" + MiscUtil.generateUniqueId();
+		Properties props = new Properties();
+		props.put(basePropName + "." + BaseAuditHandler.PROP_NAME, name);
+		props.put(basePropName + "." + AuditQueue.PROP_BATCH_SIZE, ""
+				+ batchSize);
+		props.put(basePropName + "." + AuditQueue.PROP_QUEUE_SIZE, ""
+				+ queueSize);
+		props.put(basePropName + "." + AuditQueue.PROP_BATCH_INTERVAL, ""
+				+ 100);
+		props.put(basePropName + "." + AuditQueue.PROP_QUEUE_FULL_WAIT, ""
+				+ queueFullWaitMs);
+		if (isSpoolEnabled) {
+			props.put(basePropName + "." + AuditQueue.PROP_FILE_SPOOL_ENABLE,
+					"" + true);
+			props.put(basePropName + "."
+					+ AuditFileSpool.PROP_FILE_SPOOL_LOCAL_DIR, "target");
+		}
+
+		AuditBatchQueue queue = new AuditBatchQueue(consumer);
+		queue.init(props, basePropName);
+		return queue;
+	}
+
+	// blocks sending of the first batch, until released
+	static class BlockingConsumer extends TestConsumer {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public boolean log(Collection<AuditEventBase> events) {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				// ignore
+			}
+			return super.log(events);
+		}
+	}
+
+	@Test
+	public void testSolrDestination() {
+		logger.debug("testSolrDestination()...");
+		StubSolrClient solrClient = new StubSolrClient();
+		TestSolrDestination solrDest = new TestSolrDestination(solrClient);
+		solrDest.init(new Properties(), "xasecure.audit.destination.solr");
+
+		// by default, the result of the request is returned to the queue
+		solrClient.isDown = true;
+		assertFalse(solrDest.log(createEvents(3)));
+		assertEquals(3, solrDest.getTotalDeferredCount());
+
+		solrClient.isDown = false;
+		assertTrue(solrDest.log(createEvents(3)));
+		assertEquals(3, solrClient.docCount.get());
+		assertEquals(3, solrDest.getTotalSuccessCount());
+		solrDest.stop();
+	}
+
+	@Test
+	public void testSolrDestinationPipelined() throws Exception {
+		logger.debug("testSolrDestinationPipelined()...");
+		String propPrefix = "xasecure.audit.destination.solr";
+		Properties props = new Properties();
+		props.put(propPrefix + "."
+				+ SolrAuditDestination.PROP_SOLR_MAX_INFLIGHT_REQUESTS, "2");
+
+		StubSolrClient solrClient = new StubSolrClient();
+		TestSolrDestination solrDest = new TestSolrDestination(solrClient);
+		solrDest.init(props, propPrefix);
+
+		// failure on a writer thread: the batch is held, writes turn synchronous
+		solrClient.isDown = true;
+		assertTrue(solrDest.log(createEvents(3)));
+		solrDest.flush();
+		assertTrue(solrDest.isSyncMode());
+		assertEquals(1, solrDest.getFailedBatchCount());
+
+		// while the held batch can't be sent, the next one is failed, for the queue to spool it
+		assertFalse(solrDest.log(createEvents(2)));
+		assertEquals(1, solrDest.getFailedBatchCount());
+		assertEquals(2, solrDest.getTotalFailedCount());
+
+		// recovery: the held batch is sent before the next one, and writes are pipelined again
+		solrClient.isDown = false;
+		assertTrue(solrDest.log(createEvents(4)));
+		assertEquals(0, solrDest.getFailedBatchCount());
+		assertFalse(solrDest.isSyncMode());
+		assertEquals(3 + 4, solrClient.docCount.get());
+
+		assertTrue(solrDest.log(createEvents(5)));
+		solrDest.flush();
+		assertEquals(3 + 4 + 5, solrClient.docCount.get());
+		assertEquals(3 + 4 + 5, solrDest.getTotalSuccessCount());
+		assertEquals(2, solrDest.getTotalFailedCount());
+		solrDest.stop();
+	}
+
+	private List<AuditEventBase> createEvents(int count) {
+		List<AuditEventBase> ret = new ArrayList<AuditEventBase>();
+		for (int i = 0; i < count; i++) {
+			AuthzAuditEvent event = createEvent();
+			event.setEventId("event-" + event.getSeqNum());
+			ret.add(event);
+		}
+		return ret;
+	}
+
+	static class TestSolrDestination extends SolrAuditDestination {
+		final SolrClient solrClient;
+
+		TestSolrDestination(SolrClient solrClient) {
+			this.solrClient = solrClient;
+			this.failedRetryTimes = 1;
+			this.failedRetrySleep = 10;
+		}
+
+		@Override
+		protected SolrClient createSolrClient() {
+			return solrClient;
+		}
+	}
+
+	static class StubSolrClient extends SolrClient {
+		private static final long serialVersionUID = 1L;
+
+		final AtomicInteger docCount = new AtomicInteger();
+		volatile boolean isDown = false;
+
+		@Override
+		public UpdateResponse add(Collection<SolrInputDocument> docs,
+				int commitWithinMs) throws SolrServerException, IOException {
+			return add(docs);
+		}
+
+		@Override
+		public UpdateResponse add(Collection<SolrInputDocument> docs)
+				throws SolrServerException, IOException {
+			if (isDown) {
+				throw new SolrServerException("Solr is down");
+			}
+			docCount.addAndGet(docs.size());
+
+			NamedList<Object> header = new NamedList<Object>();
+			header.add("status", 0);
+			NamedList<Object> response = new NamedList<Object>();
+			response.add("responseHeader", header);
+			UpdateResponse ret = new UpdateResponse();
+			ret.setResponse(response);
+			return ret;
+		}
+
+		@Override
+		public NamedList<Object> request(
+				@SuppressWarnings("rawtypes") SolrRequest request,
+				String collection) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void shutdown() {
+		}
+	}
+
+	static class TestKafkaDestination extends KafkaAuditDestination {
+		final MockProducer<String, String> producer;
+
+		TestKafkaDestination(boolean autoComplete) {
+			producer = new MockProducer<String, String>(autoComplete,
+					new StringSerializer(), new StringSerializer());
+		}
+
+		@Override
+		protected Producer<String, String> createProducer(
+				Map<String, Object> producerProps) {
+			return producer;
+		}
+	}
+
 	private AuthzAuditEvent createEvent() {
 		AuthzAuditEvent event = new AuthzAuditEvent();
 		event.setSeqNum(++seqNum);
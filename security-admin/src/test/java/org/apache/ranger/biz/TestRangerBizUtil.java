@@ -22,6 +22,7 @@ import java.util.List;
 
 import org.apache.ranger.common.AppConstants;
 import org.apache.ranger.common.ContextUtil;
+import org.apache.ranger.common.GUIDUtil;
 import org.apache.ranger.common.RangerCommonEnums;
 import org.apache.ranger.common.RangerConstants;
 import org.apache.ranger.common.StringUtil;
@@ -31,11 +32,13 @@ import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.db.XXAssetDao;
 import org.apache.ranger.db.XXPortalUserDao;
 import org.apache.ranger.db.XXResourceDao;
+import org.apache.ranger.db.XXTrxLogDao;
 import org.apache.ranger.db.XXUserDao;
 import org.apache.ranger.entity.XXAsset;
 import org.apache.ranger.entity.XXDBBase;
 import org.apache.ranger.entity.XXPortalUser;
 import org.apache.ranger.entity.XXResource;
+import org.apache.ranger.entity.XXTrxLog;
 import org.apache.ranger.entity.XXUser;
 import org.apache.ranger.security.context.RangerContextHolder;
 import org.apache.ranger.security.context.RangerSecurityContext;
@@ -67,6 +70,9 @@ public class TestRangerBizUtil {
 	
 	@Mock
 	StringUtil stringUtil;
+
+	@Mock
+	GUIDUtil guidUtil;
 	
 	@Before
 	public void setup(){
@@ -553,4 +559,25 @@ public class TestRangerBizUtil {
 		Mockito.verify(stringUtil).split(Mockito.anyString(), Mockito.anyString());
 		Assert.assertFalse(bnlChk);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testCreateTrxLog(){
+		XXTrxLogDao xxTrxLogDao = Mockito.mock(XXTrxLogDao.class);
+		List<XXTrxLog> trxLogList = new ArrayList<XXTrxLog>();
+		trxLogList.add(new XXTrxLog());
+		trxLogList.add(new XXTrxLog());
+		Mockito.when(daoManager.getXXTrxLog()).thenReturn(xxTrxLogDao);
+		Mockito.when(guidUtil.genLong()).thenReturn(id);
+
+		// each log is written right away, as before JDBC batch-writing was enabled
+		rangerBizUtil.createTrxLog(trxLogList);
+		Mockito.verify(xxTrxLogDao, Mockito.times(2)).create(Mockito.isA(XXTrxLog.class));
+		Mockito.verify(xxTrxLogDao, Mockito.never()).batchCreate(Mockito.isA(XXTrxLog.class));
+
+		// batch: flushed by the caller
+		rangerBizUtil.createTrxLog(trxLogList, true);
+		Mockito.verify(xxTrxLogDao, Mockito.times(2)).batchCreate(Mockito.isA(XXTrxLog.class));
+		Mockito.verify(xxTrxLogDao, Mockito.never()).flush();
+		Assert.assertEquals(id.toString(), trxLogList.get(0).getTransactionId());
+	}
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.biz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXAccessTypeDefDao;
+import org.apache.ranger.db.XXDataMaskTypeDefDao;
+import org.apache.ranger.db.XXGroupDao;
+import org.apache.ranger.db.XXPolicyConditionDefDao;
+import org.apache.ranger.db.XXPolicyDao;
+import org.apache.ranger.db.XXPolicyItemAccessDao;
+import org.apache.ranger.db.XXPolicyItemConditionDao;
+import org.apache.ranger.db.XXPolicyItemDao;
+import org.apache.ranger.db.XXPolicyItemDataMaskInfoDao;
+import org.apache.ranger.db.XXPolicyItemGroupPermDao;
+import org.apache.ranger.db.XXPolicyItemRowFilterInfoDao;
+import org.apache.ranger.db.XXPolicyItemUserPermDao;
+import org.apache.ranger.db.XXPolicyResourceDao;
+import org.apache.ranger.db.XXPolicyResourceMapDao;
+import org.apache.ranger.db.XXPortalUserDao;
+import org.apache.ranger.db.XXResourceDefDao;
+import org.apache.ranger.db.XXUserDao;
+import org.apache.ranger.entity.XXAccessTypeDef;
+import org.apache.ranger.entity.XXPolicy;
+import org.apache.ranger.entity.XXResourceDef;
+import org.apache.ranger.entity.XXService;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyItemEvaluator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestRangerPolicyRetriever {
+	private static final Long SERVICE_ID     = 1L;
+	private static final Long SERVICE_DEF_ID = 2L;
+	private static final int  FETCH_SIZE     = 1000;
+
+	RangerDaoManager         daoManager;
+	XXService                xService;
+	XXPolicyDao              xPolicyDao;
+	XXPolicyResourceDao      xPolicyResourceDao;
+	XXPolicyResourceMapDao   xPolicyResourceMapDao;
+	XXPolicyItemDao          xPolicyItemDao;
+	XXPolicyItemUserPermDao  xUserPermDao;
+	XXPolicyItemGroupPermDao xGroupPermDao;
+	XXPolicyItemAccessDao    xAccessDao;
+	XXUserDao                xUserDao;
+	XXGroupDao               xGroupDao;
+
+	@Before
+	public void setup() {
+		daoManager = Mockito.mock(RangerDaoManager.class);
+
+		xService = new XXService();
+		xService.setId(SERVICE_ID);
+		xService.setName("hivedev");
+		xService.setType(SERVICE_DEF_ID);
+
+		xPolicyDao            = Mockito.mock(XXPolicyDao.class);
+		xPolicyResourceDao    = Mockito.mock(XXPolicyResourceDao.class);
+		xPolicyResourceMapDao = Mockito.mock(XXPolicyResourceMapDao.class);
+		xPolicyItemDao        = Mockito.mock(XXPolicyItemDao.class);
+		xUserPermDao          = Mockito.mock(XXPolicyItemUserPermDao.class);
+		xGroupPermDao         = Mockito.mock(XXPolicyItemGroupPermDao.class);
+		xAccessDao            = Mockito.mock(XXPolicyItemAccessDao.class);
+		xUserDao              = Mockito.mock(XXUserDao.class);
+		xGroupDao             = Mockito.mock(XXGroupDao.class);
+
+		XXAccessTypeDefDao xAccessTypeDefDao = Mockito.mock(XXAccessTypeDefDao.class);
+		XXResourceDefDao   xResourceDefDao   = Mockito.mock(XXResourceDefDao.class);
+
+		Mockito.when(daoManager.getXXPolicy()).thenReturn(xPolicyDao);
+		Mockito.when(daoManager.getXXPolicyResource()).thenReturn(xPolicyResourceDao);
+		Mockito.when(daoManager.getXXPolicyResourceMap()).thenReturn(xPolicyResourceMapDao);
+		Mockito.when(daoManager.getXXPolicyItem()).thenReturn(xPolicyItemDao);
+		Mockito.when(daoManager.getXXPolicyItemUserPerm()).thenReturn(xUserPermDao);
+		Mockito.when(daoManager.getXXPolicyItemGroupPerm()).thenReturn(xGroupPermDao);
+		Mockito.when(daoManager.getXXPolicyItemAccess()).thenReturn(xAccessDao);
+		Mockito.when(daoManager.getXXPolicyItemCondition()).thenReturn(Mockito.mock(XXPolicyItemConditionDao.class));
+		Mockito.when(daoManager.getXXPolicyItemDataMaskInfo()).thenReturn(Mockito.mock(XXPolicyItemDataMaskInfoDao.class));
+		Mockito.when(daoManager.getXXPolicyItemRowFilterInfo()).thenReturn(Mockito.mock(XXPolicyItemRowFilterInfoDao.class));
+		Mockito.when(daoManager.getXXUser()).thenReturn(xUserDao);
+		Mockito.when(daoManager.getXXGroup()).thenReturn(xGroupDao);
+		Mockito.when(daoManager.getXXPortalUser()).thenReturn(Mockito.mock(XXPortalUserDao.class));
+		Mockito.when(daoManager.getXXAccessTypeDef()).thenReturn(xAccessTypeDefDao);
+		Mockito.when(daoManager.getXXResourceDef()).thenReturn(xResourceDefDao);
+		Mockito.when(daoManager.getXXPolicyConditionDef()).thenReturn(Mockito.mock(XXPolicyConditionDefDao.class));
+		Mockito.when(daoManager.getXXDataMaskTypeDef()).thenReturn(Mockito.mock(XXDataMaskTypeDefDao.class));
+
+		XXAccessTypeDef select = new XXAccessTypeDef();
+		select.setId(10L);
+		select.setName("select");
+		XXAccessTypeDef update = new XXAccessTypeDef();
+		update.setId(11L);
+		update.setName("update");
+		Mockito.when(xAccessTypeDefDao.findByServiceDefId(SERVICE_DEF_ID)).thenReturn(Arrays.asList(select, update));
+
+		XXResourceDef database = new XXResourceDef();
+		database.setId(20L);
+		database.setName("database");
+		XXResourceDef table = new XXResourceDef();
+		table.setId(21L);
+		table.setName("table");
+		Mockito.when(xResourceDefDao.findByServiceDefId(SERVICE_DEF_ID)).thenReturn(Arrays.asList(database, table));
+
+		Mockito.when(xUserDao.findNamesByServiceId(SERVICE_ID, FETCH_SIZE)).thenReturn(rows(row(30L, "user1"), row(31L, "user2")));
+		Mockito.when(xGroupDao.findNamesByServiceId(SERVICE_ID, FETCH_SIZE)).thenReturn(rows(row(40L, "group1")));
+
+		Mockito.when(xPolicyDao.findRowsByServiceId(SERVICE_ID, FETCH_SIZE)).thenReturn(rows(
+				policyRow(100L, "policy1"),
+				policyRow(101L, "policy2")));
+		// policyId, id, resDefId, isExcludes, isRecursive
+		Mockito.when(xPolicyResourceDao.findRowsByServiceId(SERVICE_ID, FETCH_SIZE)).thenReturn(rows(
+				row(100L, 200L, 20L, false, false),
+				row(100L, 201L, 21L, true, false),
+				row(101L, 202L, 20L, false, false)));
+		// policyId, resourceId, value
+		Mockito.when(xPolicyResourceMapDao.findRowsByServiceId(SERVICE_ID, FETCH_SIZE)).thenReturn(rows(
+				row(100L, 200L, "db1"),
+				row(100L, 200L, "db2"),
+				row(100L, 201L, "tbl1"),
+				row(101L, 202L, "*")));
+		// policyId, id, itemType, delegateAdmin
+		Mockito.when(xPolicyItemDao.findRowsByServiceId(SERVICE_ID, FETCH_SIZE)).thenReturn(rows(
+				row(100L, 300L, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW, true),
+				row(100L, 301L, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY, false),
+				row(101L, 302L, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW, false)));
+		// policyId, policyItemId, type, isAllowed
+		Mockito.when(xAccessDao.findRowsByServiceId(SERVICE_ID, FETCH_SIZE)).thenReturn(rows(
+				row(100L, 300L, 10L, true),
+				row(100L, 300L, 11L, true),
+				row(100L, 301L, 11L, true),
+				row(101L, 302L, 10L, true)));
+		// policyId, policyItemId, userId
+		Mockito.when(xUserPermDao.findRowsByServiceId(SERVICE_ID, FETCH_SIZE)).thenReturn(rows(
+				row(100L, 300L, 30L),
+				row(100L, 301L, 31L),
+				row(101L, 302L, 30L)));
+		// policyId, policyItemId, groupId
+		Mockito.when(xGroupPermDao.findRowsByServiceId(SERVICE_ID, FETCH_SIZE)).thenReturn(rows(
+				row(100L, 300L, 40L)));
+	}
+
+	@Test
+	public void testGetServicePolicies() {
+		RangerPolicyRetriever retriever = new RangerPolicyRetriever(daoManager);
+
+		List<RangerPolicy> policies = retriever.getServicePolicies(xService);
+
+		Assert.assertEquals(2, policies.size());
+
+		RangerPolicy policy1 = policies.get(0);
+		Assert.assertEquals(Long.valueOf(100L), policy1.getId());
+		Assert.assertEquals("policy1", policy1.getName());
+		Assert.assertEquals("hivedev", policy1.getService());
+		Assert.assertEquals(2, policy1.getResources().size());
+
+		RangerPolicyResource dbResource = policy1.getResources().get("database");
+		Assert.assertEquals(Arrays.asList("db1", "db2"), dbResource.getValues());
+		Assert.assertFalse(dbResource.getIsExcludes());
+		Assert.assertTrue(policy1.getResources().get("table").getIsExcludes());
+
+		Assert.assertEquals(1, policy1.getPolicyItems().size());
+		RangerPolicyItem allowItem = policy1.getPolicyItems().get(0);
+		Assert.assertEquals(Arrays.asList("user1"), allowItem.getUsers());
+		Assert.assertEquals(Arrays.asList("group1"), allowItem.getGroups());
+		Assert.assertEquals(2, allowItem.getAccesses().size());
+		Assert.assertEquals("select", allowItem.getAccesses().get(0).getType());
+		Assert.assertEquals("update", allowItem.getAccesses().get(1).getType());
+		Assert.assertTrue(allowItem.getDelegateAdmin());
+
+		Assert.assertEquals(1, policy1.getDenyPolicyItems().size());
+		Assert.assertEquals(Arrays.asList("user2"), policy1.getDenyPolicyItems().get(0).getUsers());
+
+		RangerPolicy policy2 = policies.get(1);
+		Assert.assertEquals(Long.valueOf(101L), policy2.getId());
+		Assert.assertEquals(Arrays.asList("*"), policy2.getResources().get("database").getValues());
+		Assert.assertEquals(1, policy2.getPolicyItems().size());
+		Assert.assertEquals(Arrays.asList("user1"), policy2.getPolicyItems().get(0).getUsers());
+		Assert.assertTrue(policy2.getDenyPolicyItems().isEmpty());
+
+		// names are pre-loaded in bulk
+		Mockito.verify(xUserDao, Mockito.never()).getById(Mockito.anyLong());
+		Mockito.verify(xPolicyDao, Mockito.never()).findByServiceId(SERVICE_ID);
+	}
+
+	@Test
+	public void testGetServicePoliciesWithUpdateDuringRetrieval() {
+		// a policy-item of a policy that is not in the policy rows
+		Mockito.when(xPolicyItemDao.findRowsByServiceId(SERVICE_ID, FETCH_SIZE)).thenReturn(rows(
+				row(100L, 300L, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW, true),
+				row(100L, 301L, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_DENY, false),
+				row(101L, 302L, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW, false),
+				row(102L, 303L, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW, false)));
+		Mockito.when(xPolicyDao.findByServiceId(SERVICE_ID)).thenReturn(new ArrayList<XXPolicy>());
+
+		RangerPolicyRetriever retriever = new RangerPolicyRetriever(daoManager);
+
+		List<RangerPolicy> policies = retriever.getServicePolicies(xService);
+
+		Assert.assertNotNull(policies);
+		Mockito.verify(xPolicyDao).findByServiceId(SERVICE_ID);
+	}
+
+	@Test
+	public void testGetServicePoliciesIncremental() {
+		RangerPolicyRetriever retriever = new RangerPolicyRetriever(daoManager);
+
+		List<RangerPolicy> cachedPolicies = retriever.getServicePolicies(xService);
+
+		// policy 100 unchanged, policy 101 updated, policy 103 added
+		Mockito.when(xPolicyDao.findIdAndVersionByServiceId(SERVICE_ID, FETCH_SIZE)).thenReturn(rows(
+				row(100L, 1L),
+				row(101L, 2L),
+				row(103L, 1L)));
+		Mockito.when(xPolicyDao.getById(101L)).thenReturn(xPolicy(101L, 2L, "policy2-updated"));
+		Mockito.when(xPolicyDao.getById(103L)).thenReturn(xPolicy(103L, 1L, "policy3"));
+
+		List<RangerPolicy> policies = retriever.getServicePolicies(xService, cachedPolicies, 10);
+
+		Assert.assertEquals(3, policies.size());
+		Assert.assertSame(cachedPolicies.get(0), policies.get(0));
+		Assert.assertEquals("policy2-updated", policies.get(1).getName());
+		Assert.assertEquals(Long.valueOf(2L), policies.get(1).getVersion());
+		Assert.assertEquals(Long.valueOf(103L), policies.get(2).getId());
+		Mockito.verify(xPolicyDao, Mockito.never()).getById(100L);
+
+		// cached policies are not modified
+		Assert.assertEquals(2, cachedPolicies.size());
+		Assert.assertEquals("policy2", cachedPolicies.get(1).getName());
+
+		// too many changes: caller is expected to retrieve all policies
+		Assert.assertNull(retriever.getServicePolicies(xService, cachedPolicies, 1));
+	}
+
+	private static XXPolicy xPolicy(Long id, Long version, String name) {
+		XXPolicy ret = new XXPolicy();
+
+		ret.setId(id);
+		ret.setVersion(version);
+		ret.setName(name);
+		ret.setService(SERVICE_ID);
+		ret.setIsEnabled(true);
+
+		return ret;
+	}
+
+	private static Object[] policyRow(Long id, String name) {
+		Date now = new Date();
+
+		// id, guid, isEnabled, addedByUserId, updatedByUserId, createTime, updateTime, version, name, policyType, description, resourceSignature, isAuditEnabled
+		return row(id, "guid-" + id, true, null, null, now, now, 1L, name, RangerPolicy.POLICY_TYPE_ACCESS, null, "sig-" + id, true);
+	}
+
+	private static Object[] row(Object... values) {
+		return values;
+	}
+
+	private static List<Object[]> rows(Object[]... rows) {
+		return new ArrayList<Object[]>(Arrays.asList(rows));
+	}
+}
@@ -2327,4 +2327,75 @@ public class TestServiceDBStore {
 		Assert.assertNotNull(policyList);
 		Mockito.verify(daoManager).getXXPolicy();
 	}
+
+	@Test
+	public void test41createPolicies() throws Exception {
+		setup();
+		RangerService rangerService = rangerService();
+		XXService xService = Mockito.mock(XXService.class);
+		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
+		XXServiceDefDao xServiceDefDao = Mockito.mock(XXServiceDefDao.class);
+		XXPolicyDao xPolicyDao = Mockito.mock(XXPolicyDao.class);
+		XXPolicyItemDao xPolicyItemDao = Mockito.mock(XXPolicyItemDao.class);
+		XXPolicyItemUserPermDao xPolicyItemUserPermDao = Mockito.mock(XXPolicyItemUserPermDao.class);
+		XXUserDao xUserDao = Mockito.mock(XXUserDao.class);
+		XXServiceVersionInfoDao xServiceVersionInfoDao = Mockito.mock(XXServiceVersionInfoDao.class);
+		XXServiceVersionInfo xServiceVersionInfo = new XXServiceVersionInfo();
+		XXUser xUser = new XXUser();
+		XXPolicy xPolicy = new XXPolicy();
+		XXPolicyItem xPolicyItem = new XXPolicyItem();
+
+		xServiceVersionInfo.setPolicyVersion(5L);
+		xUser.setId(Id);
+		xPolicy.setId(Id);
+		xPolicy.setService(rangerService.getId());
+
+		List<RangerPolicy> policies = new ArrayList<RangerPolicy>();
+
+		for (int i = 0; i < 2; i++) {
+			RangerPolicyItem policyItem = new RangerPolicyItem();
+			policyItem.getUsers().add("user1");
+
+			RangerPolicy policy = new RangerPolicy();
+			policy.setId(Id);
+			policy.setName("policy-" + i);
+			policy.setService(rangerService.getName());
+			policy.getPolicyItems().add(policyItem);
+
+			policies.add(policy);
+
+			Mockito.when(policyService.create(policy)).thenReturn(policy);
+			Mockito.when(factory.createPolicyResourceSignature(policy)).thenReturn(Mockito.mock(RangerPolicyResourceSignature.class));
+		}
+
+		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(xServiceDao.findByName(rangerService.getName())).thenReturn(xService);
+		Mockito.when(xServiceDao.getById(rangerService.getId())).thenReturn(xService);
+		Mockito.when(bizUtil.hasAccess(xService, null)).thenReturn(true);
+		Mockito.when(svcService.getPopulatedViewObject(xService)).thenReturn(rangerService);
+		Mockito.when(daoManager.getXXServiceDef()).thenReturn(xServiceDefDao);
+		Mockito.when(xServiceDefDao.findByName(rangerService.getType())).thenReturn(serviceDef());
+		Mockito.when(daoManager.getXXPolicy()).thenReturn(xPolicyDao);
+		Mockito.when(xPolicyDao.getById(Id)).thenReturn(xPolicy);
+		Mockito.when(rangerAuditFields.populateAuditFields(Mockito.isA(XXPolicyItem.class), Mockito.isA(XXPolicy.class))).thenReturn(xPolicyItem);
+		Mockito.when(rangerAuditFields.populateAuditFields(Mockito.isA(XXPolicyItemUserPerm.class), Mockito.isA(XXPolicyItem.class))).thenReturn(new XXPolicyItemUserPerm());
+		Mockito.when(daoManager.getXXPolicyItem()).thenReturn(xPolicyItemDao);
+		Mockito.when(xPolicyItemDao.create(xPolicyItem)).thenReturn(xPolicyItem);
+		Mockito.when(daoManager.getXXPolicyItemUserPerm()).thenReturn(xPolicyItemUserPermDao);
+		Mockito.when(daoManager.getXXUser()).thenReturn(xUserDao);
+		Mockito.when(xUserDao.findByUserName("user1")).thenReturn(xUser);
+		Mockito.when(daoManager.getXXServiceVersionInfo()).thenReturn(xServiceVersionInfoDao);
+		Mockito.when(xServiceVersionInfoDao.findByServiceId(rangerService.getId())).thenReturn(xServiceVersionInfo);
+
+		List<RangerPolicy> createdPolicies = serviceDBStore.createPolicies(policies);
+
+		Assert.assertEquals(2, createdPolicies.size());
+		Assert.assertEquals(Long.valueOf(6L), xServiceVersionInfo.getPolicyVersion());
+		Mockito.verify(xServiceVersionInfoDao, Mockito.times(1)).update(xServiceVersionInfo);
+		Mockito.verify(xUserDao, Mockito.times(1)).findByUserName("user1");
+		Mockito.verify(xPolicyItemUserPermDao, Mockito.times(2)).batchCreate(Mockito.isA(XXPolicyItemUserPerm.class));
+		Mockito.verify(dataHistService).createObjectDataHistory(createdPolicies, RangerDataHistService.ACTION_CREATE);
+		Mockito.verify(bizUtil).createTrxLog(Mockito.anyListOf(XXTrxLog.class), Mockito.eq(true));
+		Mockito.verify(xPolicyDao, Mockito.times(1)).flush(); // once per import, not per policy
+	}
 }
@@ -17,6 +17,7 @@
 package org.apache.ranger.biz;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -26,6 +27,7 @@ import java.util.Set;
 
 import org.apache.ranger.common.ContextUtil;
 import org.apache.ranger.common.RESTErrorUtil;
+import org.apache.ranger.common.RangerUserGroupCache;
 import org.apache.ranger.common.SearchCriteria;
 import org.apache.ranger.common.StringUtil;
 import org.apache.ranger.common.UserSessionBase;
@@ -162,6 +164,10 @@ public class TestXUserMgr {
 
 	@Mock
 	ServiceDBStore svcStore;
+
+	@Mock
+	RangerUserGroupCache userGroupCache;
+
 	@Rule
 	public ExpectedException thrown = ExpectedException.none();
 
@@ -1238,6 +1244,7 @@ public class TestXUserMgr {
 	public void test44getGroupsForUser() {
 		VXUser vxUser = vxUser();
 		String userName = "test";
+		Mockito.when(userGroupCache.getGroupsForUser(userName)).thenReturn(null); // cache not loaded
 		Mockito.when(xUserService.getXUserByUserName(userName)).thenReturn(
 				vxUser);
 		Set<String> list = xUserMgr.getGroupsForUser(userName);
@@ -1245,6 +1252,16 @@ public class TestXUserMgr {
 		Mockito.verify(xUserService).getXUserByUserName(userName);
 	}
 
+	@Test
+	public void test44getGroupsForUserFromCache() {
+		String userName = "test";
+		Set<String> groups = new HashSet<String>(Arrays.asList("group1", "group2"));
+		Mockito.when(userGroupCache.getGroupsForUser(userName)).thenReturn(groups);
+		Set<String> list = xUserMgr.getGroupsForUser(userName);
+		Assert.assertEquals(groups, list);
+		Mockito.verify(xUserService, Mockito.never()).getXUserByUserName(userName);
+	}
+
 	@Test
 	public void test45setUserRolesByExternalID() {
 		setup();
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.ranger.common.RangerServicePoliciesCache.SerializedServicePolicies;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.store.ServiceStore;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestRangerServicePoliciesCache {
+
+	@Test
+	public void testSerializedPoliciesAreReusedPerVersion() throws Exception {
+		String          serviceName     = "testSerializedPolicies";
+		ServicePolicies servicePolicies = createServicePolicies(serviceName, 1L, 7L);
+		ServiceStore    serviceStore    = Mockito.mock(ServiceStore.class);
+
+		Mockito.when(serviceStore.getServicePolicyVersion(serviceName)).thenReturn(7L);
+		Mockito.when(serviceStore.getServicePolicies(serviceName)).thenReturn(servicePolicies);
+
+		RangerServicePoliciesCache cache = RangerServicePoliciesCache.getInstance();
+
+		ServicePolicies cached      = cache.getServicePolicies(serviceName, 1L, serviceStore);
+		ServicePolicies forDownload = cache.getServicePoliciesForDownload(cached);
+
+		Assert.assertEquals(2, cached.getPolicies().size());
+		Assert.assertEquals(1, forDownload.getPolicies().size());
+		Assert.assertSame(forDownload, cache.getServicePoliciesForDownload(cache.getServicePolicies(serviceName, 1L, serviceStore)));
+
+		SerializedServicePolicies serialized = cache.getSerializedServicePolicies(forDownload);
+
+		Assert.assertNotNull(serialized);
+		Assert.assertSame(serialized, cache.getSerializedServicePolicies(forDownload));
+		Assert.assertEquals("W/\"1-7\"", serialized.getETag());
+		Assert.assertArrayEquals(new ObjectMapper().writeValueAsBytes(forDownload), serialized.getJson());
+		Assert.assertArrayEquals(serialized.getJson(), gunzip(serialized.getGzippedJson()));
+
+		// policies that are not the cached ones are not serialized by the cache
+		Assert.assertNull(cache.getSerializedServicePolicies(RangerServicePoliciesCache.filterDisabledPolicies(servicePolicies)));
+
+		Mockito.verify(serviceStore, Mockito.times(1)).getServicePolicies(serviceName);
+	}
+
+	@Test
+	public void testFilterDisabledPolicies() {
+		ServicePolicies servicePolicies = createServicePolicies("testFilterDisabledPolicies", 2L, 1L);
+
+		ServicePolicies filtered = RangerServicePoliciesCache.filterDisabledPolicies(servicePolicies);
+
+		Assert.assertEquals(1, filtered.getPolicies().size());
+		Assert.assertTrue(filtered.getPolicies().get(0).getIsEnabled());
+		Assert.assertEquals(servicePolicies.getPolicyVersion(), filtered.getPolicyVersion());
+
+		servicePolicies.getPolicies().remove(1);
+
+		Assert.assertSame(servicePolicies, RangerServicePoliciesCache.filterDisabledPolicies(servicePolicies));
+	}
+
+	private ServicePolicies createServicePolicies(String serviceName, Long serviceId, Long policyVersion) {
+		ServicePolicies    ret      = new ServicePolicies();
+		List<RangerPolicy> policies = new ArrayList<RangerPolicy>();
+
+		for (long i = 0; i < 2; i++) {
+			RangerPolicy policy = new RangerPolicy();
+
+			policy.setId(i);
+			policy.setName("policy-" + i);
+			policy.setIsEnabled(i == 0);
+
+			policies.add(policy);
+		}
+
+		ret.setServiceName(serviceName);
+		ret.setServiceId(serviceId);
+		ret.setPolicyVersion(policyVersion);
+		ret.setPolicies(policies);
+
+		return ret;
+	}
+
+	private byte[] gunzip(byte[] data) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		IOUtils.copy(new GZIPInputStream(new ByteArrayInputStream(data)), out);
+
+		return out.toByteArray();
+	}
+}
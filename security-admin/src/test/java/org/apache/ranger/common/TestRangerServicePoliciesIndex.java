@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.store.AbstractPredicateUtil;
+import org.apache.ranger.plugin.util.SearchFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRangerServicePoliciesIndex {
+	private final AbstractPredicateUtil predicateUtil = new AbstractPredicateUtil();
+
+	@Test
+	public void testCandidatesMatchPredicateFiltering() {
+		List<RangerPolicy>         policies = createPolicies(200);
+		RangerServicePoliciesIndex index    = new RangerServicePoliciesIndex(policies);
+
+		String[][] filters = new String[][] {
+				{ },
+				{ SearchFilter.USER, "user3" },
+				{ SearchFilter.GROUP, "group1" },
+				{ SearchFilter.USER, "user3", SearchFilter.GROUP, "group2" },
+				{ SearchFilter.USER, "unknown" },
+				{ SearchFilter.POLICY_NAME, "policy-17" },
+				{ SearchFilter.POLICY_ID, "42" },
+				{ SearchFilter.IS_ENABLED, "true" },
+				{ SearchFilter.IS_ENABLED, "false", SearchFilter.GROUP, "group4" },
+				{ SearchFilter.POLICY_TYPE, "1" },
+				{ SearchFilter.POLICY_TYPE, "0", SearchFilter.USER, "user1" },
+				{ SearchFilter.RESOURCE_PREFIX + "database", "db5" },
+				{ SearchFilter.RESOURCE_PREFIX + "database", "finance", SearchFilter.RESOURCE_PREFIX + "table", "tbl3" },
+				{ SearchFilter.RESOURCE_PREFIX + "table", "tmp_tbl" },
+				{ SearchFilter.RESOURCE_PREFIX + "column", "col1" },
+		};
+
+		for (String[] params : filters) {
+			SearchFilter filter = new SearchFilter();
+
+			for (int i = 0; i < params.length; i += 2) {
+				filter.setParam(params[i], params[i + 1]);
+			}
+
+			List<RangerPolicy> expected = new ArrayList<RangerPolicy>(policies);
+			predicateUtil.applyFilter(expected, filter);
+
+			List<RangerPolicy> actual = index.getCandidatePolicies(filter);
+			predicateUtil.applyFilter(actual, filter);
+
+			Assert.assertEquals("filter=" + Arrays.toString(params), expected, actual);
+		}
+	}
+
+	@Test
+	public void testCandidatesAreNarrowed() {
+		List<RangerPolicy>         policies = createPolicies(200);
+		RangerServicePoliciesIndex index    = new RangerServicePoliciesIndex(policies);
+		SearchFilter               filter   = new SearchFilter();
+
+		filter.setParam(SearchFilter.POLICY_NAME, "policy-17");
+
+		Assert.assertEquals(1, index.getCandidatePolicies(filter).size());
+		Assert.assertEquals(policies.size(), index.getCandidatePolicies(new SearchFilter()).size());
+	}
+
+	@Test
+	public void testIntersectAndUnion() {
+		Assert.assertArrayEquals(new int[] { 3, 7 }, RangerServicePoliciesIndex.intersect(new int[] { 1, 3, 5, 7 }, new int[] { 2, 3, 7, 9 }));
+		Assert.assertArrayEquals(new int[] { 2, 9 }, RangerServicePoliciesIndex.intersect(null, new int[] { 2, 9 }));
+		Assert.assertArrayEquals(new int[] { 1, 2, 3, 5, 7, 9 }, RangerServicePoliciesIndex.union(new int[] { 1, 3, 5, 7 }, new int[] { 2, 3, 7, 9 }));
+	}
+
+	private List<RangerPolicy> createPolicies(int count) {
+		List<RangerPolicy> ret = new ArrayList<RangerPolicy>();
+
+		for (long i = 0; i < count; i++) {
+			RangerPolicy policy = new RangerPolicy();
+
+			policy.setId(i);
+			policy.setName("policy-" + i);
+			policy.setIsEnabled(i % 7 != 0);
+			policy.setPolicyType(i % 11 == 0 ? null : (int) (i % 3));
+
+			Map<String, RangerPolicyResource> resources = new HashMap<String, RangerPolicyResource>();
+
+			resources.put("database", new RangerPolicyResource(i % 13 == 0 ? "fin*" : ("db" + (i % 10))));
+			resources.put("table", new RangerPolicyResource(i % 17 == 0 ? "tmp_*" : ("tbl" + (i % 5))));
+
+			if (i % 2 == 0) {
+				resources.put("column", new RangerPolicyResource(Arrays.asList("col" + (i % 4), "col?"), false, false));
+			}
+
+			policy.setResources(resources);
+
+			RangerPolicyItem allowItem = new RangerPolicyItem();
+
+			allowItem.setUsers(Arrays.asList("user" + (i % 5), "user" + (i % 3)));
+			allowItem.setGroups(Arrays.asList("group" + (i % 6)));
+
+			policy.getPolicyItems().add(allowItem);
+
+			if (i % 4 == 0) {
+				RangerPolicyItem denyItem = new RangerPolicyItem();
+
+				denyItem.setUsers(Arrays.asList("user9"));
+				denyItem.setGroups(Arrays.asList("group1"));
+
+				policy.getDenyPolicyItems().add(denyItem);
+			}
+
+			ret.add(policy);
+		}
+
+		return ret;
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXServiceVersionInfoDao;
+import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class TestRangerServiceVersionWatcher {
+	private static final String CLIENT = "10.0.0.1";
+
+	private RangerServiceVersionWatcher watcher;
+	private XXServiceVersionInfoDao     versionInfoDao;
+
+	@Before
+	public void setUp() {
+		RangerDaoManager daoManager = Mockito.mock(RangerDaoManager.class);
+
+		versionInfoDao = Mockito.mock(XXServiceVersionInfoDao.class);
+
+		Mockito.when(daoManager.getXXServiceVersionInfo()).thenReturn(versionInfoDao);
+
+		watcher            = new RangerServiceVersionWatcher();
+		watcher.daoManager = daoManager;
+		watcher.txManager  = Mockito.mock(PlatformTransactionManager.class);
+
+		watcher.init(60 * 1000, 10, 5, 5, 100);
+	}
+
+	@Test
+	public void testWaitCompletesOnVersionChange() throws Exception {
+		setVersions("svc1", 5L, 3L);
+
+		Listener listener = new Listener();
+
+		Assert.assertTrue(watcher.waitForPolicyUpdate("svc1", CLIENT, 5L, 30 * 1000, listener));
+		Assert.assertEquals(1, watcher.getWaiterCount());
+
+		watcher.checkWaiters(); // unchanged: waiter continues to wait
+
+		Assert.assertEquals(0, listener.callCount);
+		Assert.assertEquals(1, watcher.getWaiterCount());
+
+		setVersions("svc1", 6L, 3L);
+
+		watcher.checkWaiters();
+
+		Assert.assertEquals(1, listener.callCount);
+		Assert.assertTrue(listener.isUpdated);
+		Assert.assertEquals(0, watcher.getWaiterCount());
+	}
+
+	@Test
+	public void testOnlyVersionsReadAfterWaitStartAreConsidered() throws Exception {
+		setVersions("svc1", 5L, 3L);
+
+		watcher.checkWaiters(); // no waiters: versions are not read
+
+		Mockito.verify(versionInfoDao, Mockito.never()).getAllWithServiceNames();
+
+		Listener listener = new Listener();
+
+		watcher.waitForTagUpdate("svc1", CLIENT, 2L, 30 * 1000, listener); // version 3 is already available; will be seen on next check
+
+		Assert.assertEquals(0, listener.callCount);
+
+		watcher.checkWaiters();
+
+		Assert.assertEquals(1, listener.callCount);
+		Assert.assertTrue(listener.isUpdated);
+	}
+
+	@Test
+	public void testWaitTimesOutWithoutChange() throws Exception {
+		setVersions("svc1", 5L, 3L);
+
+		Listener listener = new Listener();
+
+		Assert.assertTrue(watcher.waitForTagUpdate("svc1", CLIENT, 3L, 200, listener));
+
+		watcher.checkWaiters();
+
+		Assert.assertEquals(0, listener.callCount);
+
+		Thread.sleep(300);
+
+		watcher.checkWaiters();
+
+		Assert.assertEquals(1, listener.callCount);
+		Assert.assertFalse(listener.isUpdated);
+		Assert.assertEquals(0, watcher.getWaiterCount());
+	}
+
+	@Test
+	public void testWaitTimesOutWhenVersionsCannotBeRead() throws Exception {
+		Mockito.when(versionInfoDao.getAllWithServiceNames()).thenThrow(new RuntimeException("db down"));
+
+		Listener listener = new Listener();
+
+		watcher.waitForPolicyUpdate("svc1", CLIENT, 5L, 1, listener);
+
+		Thread.sleep(10);
+
+		watcher.checkWaiters();
+
+		Assert.assertEquals(1, listener.callCount);
+		Assert.assertFalse(listener.isUpdated);
+	}
+
+	@Test
+	public void testNoWait() throws Exception {
+		Listener listener = new Listener();
+
+		Assert.assertFalse(watcher.waitForPolicyUpdate("svc1", CLIENT, -1L, 30 * 1000, listener));
+		Assert.assertFalse(watcher.waitForPolicyUpdate("svc1", CLIENT, null, 30 * 1000, listener));
+		Assert.assertFalse(watcher.waitForPolicyUpdate("svc1", CLIENT, 5L, 0, listener));
+
+		watcher.init(60 * 1000, 1, 5, 5, 100);
+
+		Assert.assertTrue(watcher.waitForPolicyUpdate("svc1", CLIENT, 5L, 30 * 1000, listener));
+		Assert.assertFalse(watcher.waitForPolicyUpdate("svc2", CLIENT, 5L, 30 * 1000, listener)); // too many waiters
+		Assert.assertEquals(0, listener.callCount);
+	}
+
+	@Test
+	public void testMaxWaitersPerClientAndService() throws Exception {
+		watcher.init(60 * 1000, 10, 2, 3, 100);
+
+		Listener listener = new Listener();
+
+		Assert.assertTrue(watcher.waitForPolicyUpdate("svc1", "10.0.0.1", 5L, 30 * 1000, listener));
+		Assert.assertTrue(watcher.waitForTagUpdate("svc1", "10.0.0.1", 3L, 30 * 1000, listener));
+		Assert.assertFalse("too many waiters from the client", watcher.waitForPolicyUpdate("svc2", "10.0.0.1", 5L, 30 * 1000, listener));
+
+		Assert.assertTrue(watcher.waitForPolicyUpdate("svc1", "10.0.0.2", 5L, 30 * 1000, listener));
+		Assert.assertFalse("too many waiters for the service", watcher.waitForPolicyUpdate("svc1", "10.0.0.3", 5L, 30 * 1000, listener));
+		Assert.assertTrue(watcher.waitForPolicyUpdate("svc2", "10.0.0.3", 5L, 30 * 1000, listener));
+		Assert.assertEquals(4, watcher.getWaiterCount());
+
+		// completed waits free their slots
+		setVersions("svc1", 6L, 4L, "svc2", 5L, 3L);
+
+		watcher.checkWaiters();
+
+		Assert.assertEquals(3, listener.callCount);
+		Assert.assertEquals(1, watcher.getWaiterCount());
+		Assert.assertTrue(watcher.waitForPolicyUpdate("svc2", "10.0.0.1", 5L, 30 * 1000, listener));
+		Assert.assertTrue(watcher.waitForPolicyUpdate("svc1", "10.0.0.1", 6L, 30 * 1000, listener));
+	}
+
+	@Test
+	public void testUnknownServiceDoesNotWait() throws Exception {
+		setVersions("svc1", 5L, 3L);
+
+		Listener listener = new Listener();
+
+		watcher.waitForPolicyUpdate("unknown-svc", CLIENT, 5L, 30 * 1000, listener);
+		watcher.checkWaiters();
+
+		Assert.assertEquals(1, listener.callCount);
+		Assert.assertTrue(listener.isUpdated);
+	}
+
+	@Test
+	public void testDestroyCompletesWaiters() throws Exception {
+		Listener listener = new Listener();
+
+		watcher.waitForPolicyUpdate("svc1", CLIENT, 5L, 30 * 1000, listener);
+		watcher.destroy();
+
+		Assert.assertEquals(1, listener.callCount);
+		Assert.assertFalse(listener.isUpdated);
+		Assert.assertFalse(watcher.waitForPolicyUpdate("svc1", CLIENT, 5L, 30 * 1000, listener));
+	}
+
+	// serviceName, policyVersion, tagVersion of each service
+	private void setVersions(Object... versions) {
+		List<Object[]> rows = new ArrayList<Object[]>();
+
+		for (int i = 0; i + 2 < versions.length; i += 3) {
+			XXServiceVersionInfo versionInfo = new XXServiceVersionInfo();
+
+			versionInfo.setPolicyVersion((Long) versions[i + 1]);
+			versionInfo.setTagVersion((Long) versions[i + 2]);
+
+			rows.add(new Object[] { versionInfo, versions[i] });
+		}
+
+		Mockito.when(versionInfoDao.getAllWithServiceNames()).thenReturn(rows);
+	}
+
+	private static class Listener implements RangerServiceVersionWatcher.UpdateListener {
+		int     callCount;
+		boolean isUpdated;
+
+		@Override
+		public void onWaitComplete(boolean isUpdated) {
+			this.callCount++;
+			this.isUpdated = isUpdated;
+		}
+	}
+}
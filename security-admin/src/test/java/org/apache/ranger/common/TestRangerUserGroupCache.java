@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXGroupDao;
+import org.apache.ranger.db.XXGroupUserDao;
+import org.apache.ranger.db.XXUserDao;
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TestRangerUserGroupCache {
+	private static final int  FETCH_SIZE = 1000;
+	private static final Date T1         = new Date(1000L);
+	private static final Date T2         = new Date(2000L);
+
+	private RangerUserGroupCache cache;
+	private XXUserDao            userDao;
+	private XXGroupDao           groupDao;
+	private XXGroupUserDao       groupUserDao;
+
+	@Before
+	public void setUp() {
+		RangerDaoManager daoManager = Mockito.mock(RangerDaoManager.class);
+
+		userDao      = Mockito.mock(XXUserDao.class);
+		groupDao     = Mockito.mock(XXGroupDao.class);
+		groupUserDao = Mockito.mock(XXGroupUserDao.class);
+
+		Mockito.when(daoManager.getXXUser()).thenReturn(userDao);
+		Mockito.when(daoManager.getXXGroup()).thenReturn(groupDao);
+		Mockito.when(daoManager.getXXGroupUser()).thenReturn(groupUserDao);
+
+		cache            = new RangerUserGroupCache();
+		cache.daoManager = daoManager;
+		cache.txManager  = Mockito.mock(PlatformTransactionManager.class);
+
+		cache.init(true, 0, 60 * 60 * 1000L);
+
+		// users: 1=user1, 2=user2; groups: 10=group1, 11=group2; user1 in group1 and group2, user2 in group2
+		Mockito.when(userDao.getCountAndMaxUpdateTime()).thenReturn(row(2L, T1));
+		Mockito.when(groupDao.getCountAndMaxUpdateTime()).thenReturn(row(2L, T1));
+		Mockito.when(groupUserDao.getCountAndMaxUpdateTime()).thenReturn(row(3L, T1));
+		Mockito.when(userDao.findIdAndNames(FETCH_SIZE)).thenReturn(rows(row(1L, "user1"), row(2L, "user2")));
+		Mockito.when(groupDao.findIdAndNames(FETCH_SIZE)).thenReturn(rows(row(10L, "group1"), row(11L, "group2")));
+		Mockito.when(groupUserDao.findUserIdAndGroupIds(FETCH_SIZE)).thenReturn(rows(row(1L, 10L), row(1L, 11L), row(2L, 11L)));
+	}
+
+	@Test
+	public void testFullLoad() {
+		Assert.assertNull(cache.getGroupsForUser("user1")); // not loaded yet
+
+		cache.refresh(false);
+
+		Assert.assertEquals(1, cache.getVersion());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("group1", "group2")), cache.getGroupsForUser("user1"));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("group2")), cache.getGroupsForUser("user2"));
+		Assert.assertTrue(cache.getGroupsForUser("unknown").isEmpty());
+
+		cache.refresh(false); // nothing changed
+
+		Assert.assertEquals(1, cache.getVersion());
+	}
+
+	@Test
+	public void testIncrementalRefresh() {
+		cache.refresh(false);
+
+		// user3 added to group1; user2 removed from group2 through this instance
+		Mockito.when(userDao.getCountAndMaxUpdateTime()).thenReturn(row(3L, T2));
+		Mockito.when(groupUserDao.getCountAndMaxUpdateTime()).thenReturn(row(3L, T2));
+		Mockito.when(userDao.findIdAndNamesUpdatedSince(T1, FETCH_SIZE)).thenReturn(rows(row(3L, "user3")));
+		Mockito.when(groupUserDao.findUserIdAndGroupIdsUpdatedSince(T1, FETCH_SIZE)).thenReturn(rows(row(3L, 10L)));
+		Mockito.when(groupUserDao.findUserIdAndGroupIdsByUserIds(Mockito.anyListOf(Long.class), Mockito.eq(FETCH_SIZE))).thenReturn(rows(row(3L, 10L)));
+
+		cache.onUserChanged(2L);
+
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("group1")), cache.getGroupsForUser("user3"));
+		Assert.assertTrue(cache.getGroupsForUser("user2").isEmpty());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("group1", "group2")), cache.getGroupsForUser("user1"));
+		Assert.assertEquals(2, cache.getVersion());
+
+		// only once, at the first refresh
+		Mockito.verify(groupUserDao, Mockito.times(1)).findUserIdAndGroupIds(FETCH_SIZE);
+	}
+
+	@Test
+	public void testChangeSeenAfterCommit() {
+		cache.refresh(false);
+
+		Mockito.when(groupUserDao.findUserIdAndGroupIdsByUserIds(Mockito.anyListOf(Long.class), Mockito.eq(FETCH_SIZE))).thenReturn(rows(row(2L, 10L)));
+
+		TransactionSynchronizationManager.initSynchronization();
+
+		try {
+			cache.onUserChanged(2L);
+
+			// not committed yet
+			Assert.assertEquals(new HashSet<String>(Arrays.asList("group2")), cache.getGroupsForUser("user2"));
+			Assert.assertEquals(1, cache.getVersion());
+
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCommit();
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("group1")), cache.getGroupsForUser("user2"));
+		Assert.assertEquals(2, cache.getVersion());
+	}
+
+	@Test
+	public void testFullRefreshOnCountMismatch() {
+		cache.refresh(false);
+
+		// membership deleted through another instance: not found by update-time
+		Mockito.when(groupUserDao.getCountAndMaxUpdateTime()).thenReturn(row(2L, T1));
+		Mockito.when(groupUserDao.findUserIdAndGroupIds(FETCH_SIZE)).thenReturn(rows(row(1L, 10L), row(2L, 11L)));
+
+		cache.refresh(false);
+
+		Assert.assertEquals(2, cache.getVersion());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("group1")), cache.getGroupsForUser("user1"));
+		Mockito.verify(groupUserDao, Mockito.times(2)).findUserIdAndGroupIds(FETCH_SIZE);
+	}
+
+	@Test
+	public void testUserStore() {
+		Assert.assertNull(cache.getUserStore()); // not loaded yet
+
+		cache.refresh(false);
+
+		RangerUserStore userStore = cache.getUserStore();
+
+		Assert.assertSame(userStore, cache.getUserStore());
+		Assert.assertEquals(T1, userStore.getUserStoreUpdateTime());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("group1", "group2")), userStore.getGroupsForUser("user1"));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("group2")), userStore.getGroupsForUser("user2"));
+
+		// another Admin instance, loading the same data, reports the same version
+		RangerUserGroupCache other = new RangerUserGroupCache();
+
+		other.daoManager = cache.daoManager;
+		other.txManager  = cache.txManager;
+		other.init(true, 0, 60 * 60 * 1000L);
+		other.refresh(false);
+
+		Assert.assertEquals(userStore.getUserStoreVersion(), other.getUserStore().getUserStoreVersion());
+
+		Mockito.when(groupUserDao.getCountAndMaxUpdateTime()).thenReturn(row(2L, T2));
+		Mockito.when(groupUserDao.findUserIdAndGroupIds(FETCH_SIZE)).thenReturn(rows(row(1L, 10L), row(2L, 11L)));
+
+		cache.refresh(true);
+
+		Assert.assertNotEquals(userStore.getUserStoreVersion(), cache.getUserStore().getUserStoreVersion());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("group1")), cache.getUserStore().getGroupsForUser("user1"));
+	}
+
+	@Test
+	public void testDisabled() {
+		cache.init(false, 0, 0);
+		cache.refresh(false);
+
+		Assert.assertNull(cache.getGroupsForUser("user1"));
+	}
+
+	private static Object[] row(Object... values) {
+		return values;
+	}
+
+	private static List<Object[]> rows(Object[]... rows) {
+		return new ArrayList<Object[]>(Arrays.asList(rows));
+	}
+}
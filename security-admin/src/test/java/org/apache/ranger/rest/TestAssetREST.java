@@ -67,6 +67,7 @@ import org.apache.ranger.service.XPolicyExportAuditService;
 import org.apache.ranger.service.XResourceService;
 import org.apache.ranger.service.XTrxLogService;
 import org.apache.ranger.view.VXAccessAudit;
+import org.apache.ranger.view.VXAccessAuditAggregates;
 import org.apache.ranger.view.VXAccessAuditList;
 import org.apache.ranger.view.VXAsset;
 import org.apache.ranger.view.VXAssetList;
@@ -757,7 +758,7 @@ public class TestAssetREST {
 		Mockito.verify(msBizUtil).isKeyAdmin();
 		Mockito.verify(assetMgr).getAccessLogs(searchCriteria);
 		Mockito.verify(daoManager).getXXServiceDef();
-		Mockito.verify(searchUtil, Mockito.times(12)).extractString((HttpServletRequest) Mockito.any(),
+		Mockito.verify(searchUtil, Mockito.times(13)).extractString((HttpServletRequest) Mockito.any(),
 				(SearchCriteria) Mockito.any(), Mockito.anyString(), Mockito.anyString(), Mockito.nullable(String.class));
 		Mockito.verify(searchUtil, Mockito.times(4)).extractInt((HttpServletRequest) Mockito.any(),
 				(SearchCriteria) Mockito.any(), Mockito.anyString(), Mockito.anyString());
@@ -800,7 +801,7 @@ public class TestAssetREST {
 		Mockito.verify(msBizUtil).isKeyAdmin();
 		Mockito.verify(assetMgr).getAccessLogs(searchCriteria);
 		Mockito.verify(daoManager).getXXServiceDef();
-		Mockito.verify(searchUtil, Mockito.times(12)).extractString((HttpServletRequest) Mockito.any(),
+		Mockito.verify(searchUtil, Mockito.times(13)).extractString((HttpServletRequest) Mockito.any(),
 				(SearchCriteria) Mockito.any(), Mockito.anyString(), Mockito.anyString(), Mockito.nullable(String.class));
 		Mockito.verify(searchUtil, Mockito.times(4)).extractInt((HttpServletRequest) Mockito.any(),
 				(SearchCriteria) Mockito.any(), Mockito.anyString(), Mockito.anyString());
@@ -810,6 +811,23 @@ public class TestAssetREST {
 				(SearchCriteria) Mockito.any(), Mockito.anyString(), Mockito.anyString());
 	}
 
+	@Test
+	public void testGetAccessLogAggregates() {
+		SearchCriteria searchCriteria = new SearchCriteria();
+		List<SortField> sortFields = null;
+		VXAccessAuditAggregates vXAccessAuditAggregates = new VXAccessAuditAggregates();
+		Mockito.when(searchUtil.extractCommonCriterias(request, sortFields)).thenReturn(searchCriteria);
+		Mockito.when(msBizUtil.isKeyAdmin()).thenReturn(false);
+		Mockito.when(daoManager.getXXServiceDef()).thenReturn(xxServiceDefDao);
+		Mockito.when(assetMgr.getAccessLogAggregates(searchCriteria, "requestUser", "1DAY", 10)).thenReturn(vXAccessAuditAggregates);
+		VXAccessAuditAggregates expectedVXAccessAuditAggregates = assetREST.getAccessLogAggregates(request, "requestUser", "1DAY", 10);
+		Assert.assertEquals(vXAccessAuditAggregates, expectedVXAccessAuditAggregates);
+		Mockito.verify(assetMgr).getAccessLogAggregates(searchCriteria, "requestUser", "1DAY", 10);
+		Mockito.verify(assetMgr, Mockito.never()).getAccessLogs((SearchCriteria) Mockito.any());
+		Mockito.verify(searchUtil, Mockito.times(12)).extractString((HttpServletRequest) Mockito.any(),
+				(SearchCriteria) Mockito.any(), Mockito.anyString(), Mockito.anyString(), Mockito.nullable(String.class));
+	}
+
 	@Test
 	public void testGrantPermission() {
 		RangerPolicy policy = rangerPolicy(Id);
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.WebApplicationException;
 
 import org.apache.commons.lang.StringUtils;
@@ -38,6 +39,7 @@ import org.apache.ranger.biz.XUserMgr;
 import org.apache.ranger.common.ContextUtil;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerSearchUtil;
+import org.apache.ranger.common.RangerUserGroupCache;
 import org.apache.ranger.common.RangerValidatorFactory;
 import org.apache.ranger.common.ServiceUtil;
 import org.apache.ranger.common.StringUtil;
@@ -66,6 +68,7 @@ import org.apache.ranger.plugin.model.validation.RangerServiceValidator;
 import org.apache.ranger.plugin.service.ResourceLookupContext;
 import org.apache.ranger.plugin.store.PList;
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
+import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.SearchFilter;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.apache.ranger.security.context.RangerContextHolder;
@@ -178,6 +181,9 @@ public class TestServiceREST {
 	@Mock
 	AssetMgr assetMgr;
 
+	@Mock
+	RangerUserGroupCache userGroupCache;
+
 	@Rule
 	public ExpectedException thrown = ExpectedException.none();
 
@@ -945,6 +951,58 @@ public class TestServiceREST {
 		Assert.assertNull(dbServicePolicies);
 	}
 
+	@Test
+	public void test44getSecureUserStoreIfUpdated() throws Exception {
+		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+		String serviceName = "HDFS_1";
+		RangerUserStore userStore = new RangerUserStore(null, 5L, new Date(), new ArrayList<String>(), new HashMap<String, int[]>());
+		XXServiceDef xServiceDef = serviceDef();
+		XXService xService = xService();
+		XXServiceDefDao xServiceDefDao = Mockito.mock(XXServiceDefDao.class);
+		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
+
+		Mockito.when(serviceUtil.isValidService(serviceName, request)).thenReturn(true);
+		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(xServiceDao.findByName(serviceName)).thenReturn(xService);
+		Mockito.when(daoManager.getXXServiceDef()).thenReturn(xServiceDefDao);
+		Mockito.when(xServiceDefDao.getById(xService.getType())).thenReturn(xServiceDef);
+		Mockito.when(bizUtil.isAdmin()).thenReturn(true);
+		Mockito.when(userGroupCache.getUserStore()).thenReturn(userStore);
+
+		RangerUserStore dbUserStore = serviceREST.getSecureUserStoreIfUpdated(serviceName, -1L, 0L, "1", request);
+
+		Assert.assertNotNull(dbUserStore);
+		Assert.assertEquals(serviceName, dbUserStore.getServiceName());
+		Assert.assertEquals(userStore.getUserStoreVersion(), dbUserStore.getUserStoreVersion());
+		Assert.assertNull(userStore.getServiceName());
+
+		Mockito.when(restErrorUtil.createRESTException(Matchers.anyInt(), Matchers.anyString(), Matchers.anyBoolean()))
+				.thenThrow(new WebApplicationException());
+		thrown.expect(WebApplicationException.class);
+
+		serviceREST.getSecureUserStoreIfUpdated(serviceName, 5L, 0L, "1", request);
+	}
+
+	@Test
+	public void test45getSecureUserStoreIfUpdatedForUnknownService() throws Exception {
+		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+		String serviceName = "HDFS_1";
+		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
+
+		Mockito.when(serviceUtil.isValidService(serviceName, request)).thenReturn(true);
+		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(xServiceDao.findByName(serviceName)).thenReturn(null);
+		Mockito.when(restErrorUtil.createRESTException(Matchers.eq(HttpServletResponse.SC_UNAUTHORIZED), Matchers.anyString(), Matchers.anyBoolean()))
+				.thenThrow(new WebApplicationException());
+		thrown.expect(WebApplicationException.class);
+
+		try {
+			serviceREST.getSecureUserStoreIfUpdated(serviceName, -1L, 0L, "1", request);
+		} finally {
+			Mockito.verify(userGroupCache, Mockito.never()).getUserStore();
+		}
+	}
+
 	@Test
 	public void test25getPolicies() throws Exception {
 		List<RangerPolicy> ret = new ArrayList<RangerPolicy>();
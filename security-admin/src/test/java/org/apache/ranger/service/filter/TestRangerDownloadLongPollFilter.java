@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.service.filter;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.ranger.common.RangerServiceVersionWatcher;
+import org.apache.ranger.common.RangerServiceVersionWatcher.UpdateListener;
+import org.apache.ranger.plugin.util.RangerRESTUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+public class TestRangerDownloadLongPollFilter {
+	private static final String CLIENT = "10.0.0.1";
+
+	private RangerDownloadLongPollFilter filter;
+	private RangerServiceVersionWatcher  watcher;
+	private HttpServletRequest           request;
+	private HttpServletResponse          response;
+	private FilterChain                  chain;
+	private AsyncContext                 asyncContext;
+
+	@Before
+	public void setUp() {
+		watcher      = Mockito.mock(RangerServiceVersionWatcher.class);
+		request      = Mockito.mock(HttpServletRequest.class);
+		response     = Mockito.mock(HttpServletResponse.class);
+		chain        = Mockito.mock(FilterChain.class);
+		asyncContext = Mockito.mock(AsyncContext.class);
+
+		filter                = new RangerDownloadLongPollFilter();
+		filter.versionWatcher = watcher;
+
+		Mockito.when(request.getContextPath()).thenReturn("");
+		Mockito.when(request.getRemoteAddr()).thenReturn(CLIENT);
+		Mockito.when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+		Mockito.when(request.isAsyncSupported()).thenReturn(true);
+		Mockito.when(request.startAsync(request, response)).thenReturn(asyncContext);
+		Mockito.when(request.getParameter(RangerRESTUtils.REST_PARAM_WAIT_FOR_UPDATE_MS)).thenReturn("30000");
+		Mockito.when(request.getParameter(RangerRESTUtils.REST_PARAM_LAST_KNOWN_POLICY_VERSION)).thenReturn("5");
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void testPolicyDownloadIsParkedAndDispatched() throws Exception {
+		Mockito.when(request.getRequestURI()).thenReturn(RangerRESTUtils.REST_URL_POLICY_GET_FOR_SERVICE_IF_UPDATED + "cl1_hdfs");
+		Mockito.when(watcher.waitForPolicyUpdate(Mockito.eq("cl1_hdfs"), Mockito.eq(CLIENT), Mockito.eq(5L), Mockito.eq(30000L), Mockito.any(UpdateListener.class))).thenReturn(true);
+
+		filter.doFilter(request, response, chain);
+
+		ArgumentCaptor<UpdateListener> listener = ArgumentCaptor.forClass(UpdateListener.class);
+
+		Mockito.verify(watcher).waitForPolicyUpdate(Mockito.eq("cl1_hdfs"), Mockito.eq(CLIENT), Mockito.eq(5L), Mockito.eq(30000L), listener.capture());
+		Mockito.verify(asyncContext).addListener(Mockito.any(AsyncListener.class));
+		Mockito.verify(chain, Mockito.never()).doFilter(request, response);
+		Mockito.verify(asyncContext, Mockito.never()).dispatch();
+
+		listener.getValue().onWaitComplete(true);
+		listener.getValue().onWaitComplete(false); // dispatched only once
+
+		Mockito.verify(asyncContext, Mockito.times(1)).dispatch();
+	}
+
+	@Test
+	public void testTagDownloadDispatchedRightAwayWhenWatcherIsFull() throws Exception {
+		Mockito.when(request.getRequestURI()).thenReturn(RangerRESTUtils.REST_URL_GET_SERVICE_TAGS_IF_UPDATED + "cl1_hive");
+		Mockito.when(watcher.waitForTagUpdate(Mockito.eq("cl1_hive"), Mockito.eq(CLIENT), Mockito.eq(5L), Mockito.eq(30000L), Mockito.any(UpdateListener.class))).thenReturn(false);
+
+		filter.doFilter(request, response, chain);
+
+		Mockito.verify(asyncContext).dispatch();
+		Mockito.verify(chain, Mockito.never()).doFilter(request, response);
+	}
+
+	@Test
+	public void testSecureDownloadIsParkedOnlyWhenAuthenticated() throws Exception {
+		Mockito.when(request.getRequestURI()).thenReturn(RangerRESTUtils.REST_URL_POLICY_GET_FOR_SECURE_SERVICE_IF_UPDATED + "cl1_hdfs");
+		Mockito.when(watcher.waitForPolicyUpdate(Mockito.eq("cl1_hdfs"), Mockito.eq(CLIENT), Mockito.eq(5L), Mockito.eq(30000L), Mockito.any(UpdateListener.class))).thenReturn(true);
+
+		SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+
+		filter.doFilter(request, response, chain);
+
+		Mockito.verify(chain).doFilter(request, response);
+		Mockito.verify(request, Mockito.never()).startAsync(request, response);
+		Mockito.verifyZeroInteractions(watcher);
+
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("hdfs", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+
+		filter.doFilter(request, response, chain);
+
+		Mockito.verify(watcher).waitForPolicyUpdate(Mockito.eq("cl1_hdfs"), Mockito.eq(CLIENT), Mockito.eq(5L), Mockito.eq(30000L), Mockito.any(UpdateListener.class));
+		Mockito.verify(chain, Mockito.times(1)).doFilter(request, response);
+	}
+
+	@Test
+	public void testRequestsWithoutWaitPassThrough() throws Exception {
+		Mockito.when(request.getRequestURI()).thenReturn(RangerRESTUtils.REST_URL_POLICY_GET_FOR_SERVICE_IF_UPDATED + "cl1_hdfs");
+
+		// async dispatch after the wait
+		Mockito.when(request.getDispatcherType()).thenReturn(DispatcherType.ASYNC);
+		filter.doFilter(request, response, chain);
+
+		// plugin without a policy version
+		Mockito.when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+		Mockito.when(request.getParameter(RangerRESTUtils.REST_PARAM_LAST_KNOWN_POLICY_VERSION)).thenReturn("-1");
+		filter.doFilter(request, response, chain);
+
+		// plugin that doesn't long-poll
+		Mockito.when(request.getParameter(RangerRESTUtils.REST_PARAM_WAIT_FOR_UPDATE_MS)).thenReturn(null);
+		filter.doFilter(request, response, chain);
+
+		Mockito.verify(chain, Mockito.times(3)).doFilter(request, response);
+		Mockito.verify(request, Mockito.never()).startAsync(request, response);
+		Mockito.verifyZeroInteractions(watcher);
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.solr;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.ranger.common.SearchCriteria;
+import org.apache.ranger.common.StringUtil;
+import org.apache.ranger.view.VXAccessAuditAggregates;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class TestSolrAccessAuditsService {
+	private static final String DAY1 = "2026-10-18T00:00:00Z";
+	private static final String DAY2 = "2026-10-19T00:00:00Z";
+
+	private SolrAccessAuditsService service;
+	private SolrUtil                solrUtil;
+
+	@Before
+	public void setUp() {
+		SolrMgr solrMgr = Mockito.mock(SolrMgr.class);
+
+		Mockito.when(solrMgr.getSolrClient()).thenReturn(Mockito.mock(SolrClient.class));
+
+		solrUtil = Mockito.spy(new SolrUtil());
+
+		service            = new SolrAccessAuditsService();
+		service.solrMgr    = solrMgr;
+		service.solrUtil   = solrUtil;
+		service.stringUtil = new StringUtil();
+
+		Mockito.doReturn(createResponse()).when(solrUtil).executeQuery(Mockito.any(SolrQuery.class), Mockito.any(SolrClient.class));
+	}
+
+	@Test
+	public void testFacetAndPivotParsing() {
+		VXAccessAuditAggregates aggregates = service.getAccessAuditAggregates(new SearchCriteria(), "requestUser", "1DAY", 10);
+
+		Assert.assertEquals("requestUser", aggregates.getGroupBy());
+		Assert.assertEquals("1DAY", aggregates.getTimeGap());
+		Assert.assertEquals(Long.valueOf(4), aggregates.getTotalCount());
+		Assert.assertEquals(counts("alice", 3L, "bob", 1L), aggregates.getCountsByValue());
+		Assert.assertEquals(counts(DAY1, 1L, DAY2, 3L), aggregates.getCountsByTime());
+		Assert.assertEquals(counts(DAY1, 0L, DAY2, 3L), aggregates.getCountsByValueAndTime().get("alice"));
+		Assert.assertEquals(counts(DAY1, 1L, DAY2, 0L), aggregates.getCountsByValueAndTime().get("bob"));
+	}
+
+	@Test
+	public void testDefaultWindowIsCached() {
+		service.getAccessAuditAggregates(new SearchCriteria(), "requestUser", "1DAY", 10);
+		service.getAccessAuditAggregates(new SearchCriteria(), "requestUser", "1DAY", 10);
+
+		ArgumentCaptor<SolrQuery> query = ArgumentCaptor.forClass(SolrQuery.class);
+
+		Mockito.verify(solrUtil, Mockito.times(1)).executeQuery(query.capture(), Mockito.any(SolrClient.class));
+
+		// end of the default window is rounded to the cache TTL of 1 minute
+		Assert.assertTrue(query.getValue().get("f.evtTime.facet.range.end").endsWith(":00Z"));
+
+		// a different groupBy is a different query
+		service.getAccessAuditAggregates(new SearchCriteria(), "clientIP", "1DAY", 10);
+
+		Mockito.verify(solrUtil, Mockito.times(2)).executeQuery(Mockito.any(SolrQuery.class), Mockito.any(SolrClient.class));
+	}
+
+	private static QueryResponse createResponse() {
+		SolrDocumentList docs = new SolrDocumentList();
+
+		docs.setNumFound(4);
+
+		NamedList<Object> facetFields = new NamedList<Object>();
+
+		facetFields.add("reqUser", namedList("alice", 3, "bob", 1));
+
+		NamedList<Object> facetRanges = new NamedList<Object>();
+
+		facetRanges.add("evtTime", timeRange(1, 3));
+
+		NamedList<Object> facetPivot = new NamedList<Object>();
+
+		facetPivot.add("reqUser", Arrays.asList(pivot("alice", 3, timeRange(0, 3)), pivot("bob", 1, timeRange(1, 0))));
+
+		NamedList<Object> facetCounts = new NamedList<Object>();
+
+		facetCounts.add("facet_queries", new NamedList<Object>());
+		facetCounts.add("facet_fields", facetFields);
+		facetCounts.add("facet_ranges", facetRanges);
+		facetCounts.add("facet_pivot", facetPivot);
+
+		NamedList<Object> res = new NamedList<Object>();
+
+		res.add("response", docs);
+		res.add("facet_counts", facetCounts);
+
+		return new QueryResponse(res, null);
+	}
+
+	private static NamedList<Object> timeRange(int day1Count, int day2Count) {
+		NamedList<Object> ret = new NamedList<Object>();
+
+		ret.add("counts", namedList(DAY1, day1Count, DAY2, day2Count));
+		ret.add("gap", "+1DAY");
+		ret.add("start", new Date(0));
+		ret.add("end", new Date());
+
+		return ret;
+	}
+
+	private static NamedList<Object> pivot(String value, int count, NamedList<Object> timeRange) {
+		NamedList<Object> ranges = new NamedList<Object>();
+
+		ranges.add("evtTime", timeRange);
+
+		NamedList<Object> ret = new NamedList<Object>();
+
+		ret.add("field", "reqUser");
+		ret.add("value", value);
+		ret.add("count", count);
+		ret.add("ranges", ranges);
+
+		return ret;
+	}
+
+	private static NamedList<Object> namedList(Object... nameValues) {
+		NamedList<Object> ret = new NamedList<Object>();
+
+		for (int i = 0; i < nameValues.length; i += 2) {
+			ret.add((String) nameValues[i], nameValues[i + 1]);
+		}
+
+		return ret;
+	}
+
+	private static Map<String, Long> counts(Object... nameValues) {
+		Map<String, Long> ret = new LinkedHashMap<String, Long>();
+
+		for (int i = 0; i < nameValues.length; i += 2) {
+			ret.put((String) nameValues[i], (Long) nameValues[i + 1]);
+		}
+
+		return ret;
+	}
+}
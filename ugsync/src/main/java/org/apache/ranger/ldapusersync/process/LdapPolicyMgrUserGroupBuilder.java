@@ -45,6 +45,7 @@ import javax.ws.rs.core.MediaType;
 import org.apache.hadoop.security.SecureClientLogin;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
+import org.apache.ranger.plugin.util.RangerRESTClientFilter;
 import org.apache.ranger.unixusersync.config.UserGroupSyncConfig;
 import org.apache.ranger.unixusersync.model.GroupUserInfo;
 import org.apache.ranger.unixusersync.model.MUserInfo;
@@ -112,6 +113,7 @@ private static final Logger LOG = Logger.getLogger(LdapPolicyMgrUserGroupBuilder
 	private HostnameVerifier hv =  null;
 
 	private SSLContext sslContext = null;
+	private Client client = null;
 	private String authenticationType = null;
 	String principal;
 	String keytab;
@@ -672,6 +674,15 @@ private static final Logger LOG = Logger.getLogger(LdapPolicyMgrUserGroupBuilder
 	}
 
 	private synchronized Client getClient() {
+		// built once: creating a client is expensive, and kept-alive connections and auth cookies are reused only within a client
+		if (client == null) {
+			client = buildClient();
+		}
+
+		return client;
+	}
+
+	private Client buildClient() {
 		
 		Client ret = null;
 		
@@ -771,6 +782,11 @@ private static final Logger LOG = Logger.getLogger(LdapPolicyMgrUserGroupBuilder
 				 }
 			}
 		}
+		if (ret != null) {
+			ret.addFilter(new RangerRESTClientFilter(0, 0));
+			ret.setConnectTimeout(config.getPolicyMgrConnectionTimeoutMs());
+			ret.setReadTimeout(config.getPolicyMgrReadTimeoutMs());
+		}
 		return ret;
 	}
 	
@@ -20,6 +20,15 @@
 package org.apache.ranger.ldapusersync.process;
 
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -29,6 +38,12 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.naming.Context;
 import javax.naming.InvalidNameException;
@@ -40,21 +55,37 @@ import javax.naming.directory.SearchResult;
 import javax.naming.ldap.Control;
 import javax.naming.ldap.InitialLdapContext;
 import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.LdapName;
 import javax.naming.ldap.PagedResultsControl;
 import javax.naming.ldap.PagedResultsResponseControl;
+import javax.naming.ldap.Rdn;
 import javax.naming.ldap.StartTlsRequest;
 import javax.naming.ldap.StartTlsResponse;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.apache.ranger.unixusersync.config.UserGroupSyncConfig;
 import org.apache.ranger.usergroupsync.AbstractUserGroupSource;
 import org.apache.ranger.usergroupsync.UserGroupSink;
 
+import com.google.gson.Gson;
+
+/**
+ * Synchronizes users and groups from LDAP/AD.
+ *
+ * Each configured user and group search base is searched in parallel, over its own connection. Memberships are
+ * computed in memory from the snapshot of entries read, instead of searching groups for each user. After the first
+ * cycle, only entries changed since the highest uSNChanged/modifyTimestamp seen in each search base are read; a full
+ * search is done once every ranger.usersync.ldap.full.sync.interval.ms, to find deleted entries. Only users and groups
+ * that changed since the last cycle, or whose update failed, are sent to the sink; all are sent after a full search.
+ */
 public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 
 	private static final Logger LOG = Logger.getLogger(LdapUserGroupBuilder.class);
 
-	private static final int PAGE_SIZE = 500;
+	private static final String USN_CHANGED_ATTRIBUTE      = "uSNChanged";
+	private static final String MODIFY_TIMESTAMP_ATTRIBUTE = "modifyTimestamp";
+	private static final String CREATE_TIMESTAMP_ATTRIBUTE = "createTimestamp";
 
 	private String ldapUrl;
 	private String ldapBindDn;
@@ -82,15 +113,11 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 	private int groupSearchScope;
 	private String groupObjectClass;
 	private String groupSearchFilter;
-	private String extendedGroupSearchFilter;
 	private String extendedAllGroupsSearchFilter;
 	private SearchControls groupSearchControls;
 	private String groupMemberAttributeName;
 	private String groupNameAttribute;
 
-	private LdapContext ldapContext;
-	private StartTlsResponse tls;
-
 	private boolean userNameCaseConversionFlag;
 	private boolean groupNameCaseConversionFlag;
 	private boolean userNameLowerCaseFlag;
@@ -98,7 +125,14 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 
 	private boolean groupUserMapSyncEnabled;
 
-	private Map<String, UserInfo> userGroupMap;
+	private int searchThreads;
+	private boolean incrementalSearchEnabled;
+	private long fullSyncIntervalMs;
+	private String snapshotFile;
+	private String configSignature;
+
+	private final Gson gson = new Gson();
+	private LdapSyncSnapshot snapshot;
 
 	public static void main(String[] args) throws Throwable {
 		LdapUserGroupBuilder  ugBuilder = new LdapUserGroupBuilder();
@@ -131,38 +165,10 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 	}
 
 	@Override
-	public void init() throws Throwable{		
+	public void init() throws Throwable{
 		setConfig();
 	}
 
-	private void createLdapContext() throws Throwable {
-		Properties env = new Properties();
-		env.put(Context.INITIAL_CONTEXT_FACTORY,
-				"com.sun.jndi.ldap.LdapCtxFactory");
-		env.put(Context.PROVIDER_URL, ldapUrl);
-		if (ldapUrl.startsWith("ldaps") && (config.getSSLTrustStorePath() != null && !config.getSSLTrustStorePath().trim().isEmpty())) {
-			env.put("java.naming.ldap.factory.socket", "org.apache.ranger.ldapusersync.process.CustomSSLSocketFactory");
-		}
-
-		ldapContext = new InitialLdapContext(env, null);
-		if (!ldapUrl.startsWith("ldaps")) {
-			if (config.isStartTlsEnabled()) {
-				tls = (StartTlsResponse) ldapContext.extendedOperation(new StartTlsRequest());
-				if (config.getSSLTrustStorePath() != null && !config.getSSLTrustStorePath().trim().isEmpty()) {
-					tls.negotiate(CustomSSLSocketFactory.getDefault());
-				} else {
-					tls.negotiate();
-				}
-				LOG.info("Starting TLS session...");
-			}
-		}
-
-		ldapContext.addToEnvironment(Context.SECURITY_PRINCIPAL, ldapBindDn);
-		ldapContext.addToEnvironment(Context.SECURITY_CREDENTIALS, ldapBindPassword);
-		ldapContext.addToEnvironment(Context.SECURITY_AUTHENTICATION, ldapAuthenticationMechanism);
-		ldapContext.addToEnvironment(Context.REFERRAL, ldapReferral);
-	}
-
 	private void setConfig() throws Throwable {
 		LOG.info("LdapUserGroupBuilder initialization started");
 
@@ -176,6 +182,11 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 		ldapReferral = config.getContextReferral();
 		searchBase = config.getSearchBase();
 
+		searchThreads = config.getLdapSearchThreads();
+		incrementalSearchEnabled = config.isLdapIncrementalSearchEnabled();
+		fullSyncIntervalMs = config.getLdapFullSyncIntervalMs();
+		snapshotFile = config.getLdapSnapshotFile();
+
 		userSearchBase = config.getUserSearchBase().split(";");
 		userSearchScope = config.getUserSearchScope();
 		userObjectClass = config.getUserObjectClass();
@@ -195,12 +206,18 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 		Set<String> userSearchAttributes = new HashSet<String>();
 		userSearchAttributes.add(userNameAttribute);
 		// For Group based search, user's group name attribute should not be added to the user search attributes
+		userGroupNameAttributeSet = null;
 		if (!groupSearchFirstEnabled && !groupSearchEnabled) {
 			userGroupNameAttributeSet = config.getUserGroupNameAttributeSet();
 			for (String useGroupNameAttribute : userGroupNameAttributeSet) {
 				userSearchAttributes.add(useGroupNameAttribute);
 			}
 		}
+		if (incrementalSearchEnabled) {
+			userSearchAttributes.add(USN_CHANGED_ATTRIBUTE);
+			userSearchAttributes.add(MODIFY_TIMESTAMP_ATTRIBUTE);
+			userSearchAttributes.add(CREATE_TIMESTAMP_ATTRIBUTE);
+		}
 
 		userSearchControls = new SearchControls();
 		userSearchControls.setSearchScope(userSearchScope);
@@ -217,7 +234,7 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 		groupMemberAttributeName =  config.getUserGroupMemberAttributeName();
 		groupNameAttribute = config.getGroupNameAttribute();
 
-		extendedGroupSearchFilter = "(objectclass=" + groupObjectClass + ")";
+		String extendedGroupSearchFilter = "(objectclass=" + groupObjectClass + ")";
 		if (groupSearchFilter != null && !groupSearchFilter.trim().isEmpty()) {
 			String customFilter = groupSearchFilter.trim();
 			if (!customFilter.startsWith("(")) {
@@ -225,10 +242,8 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 			}
 			extendedGroupSearchFilter = extendedGroupSearchFilter + customFilter;
 		}
+		// memberships are computed from all the groups read, instead of searching groups of each user
 		extendedAllGroupsSearchFilter = "(&"  + extendedGroupSearchFilter + ")";
-		if (!groupSearchFirstEnabled) {
-			extendedGroupSearchFilter =  "(&"  + extendedGroupSearchFilter + "(|(" + groupMemberAttributeName + "={0})(" + groupMemberAttributeName + "={1})))";
-		}
 		groupUserMapSyncEnabled = config.isGroupUserMapSyncEnabled();
 
 		groupSearchControls = new SearchControls();
@@ -237,10 +252,27 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 		Set<String> groupSearchAttributes = new HashSet<String>();
 		groupSearchAttributes.add(groupNameAttribute);
 		groupSearchAttributes.add(groupMemberAttributeName);
+		if (incrementalSearchEnabled) {
+			groupSearchAttributes.add(USN_CHANGED_ATTRIBUTE);
+			groupSearchAttributes.add(MODIFY_TIMESTAMP_ATTRIBUTE);
+			groupSearchAttributes.add(CREATE_TIMESTAMP_ATTRIBUTE);
+		}
 
 		groupSearchControls.setReturningAttributes(groupSearchAttributes.toArray(
 				new String[groupSearchAttributes.size()]));
 
+		// entries in a snapshot taken with different search settings can't be reused
+		configSignature = ldapUrl
+				+ "|" + Arrays.toString(userSearchBase) + "|" + userSearchScope + "|" + extendedUserSearchFilter
+				+ "|" + userNameAttribute + "|" + userGroupNameAttributeSet
+				+ "|" + Arrays.toString(groupSearchBase) + "|" + groupSearchScope + "|" + extendedAllGroupsSearchFilter
+				+ "|" + groupNameAttribute + "|" + groupMemberAttributeName
+				+ "|" + groupSearchFirstEnabled + "|" + groupSearchEnabled + "|" + userSearchEnabled;
+
+		if (snapshot == null || !StringUtils.equals(configSignature, snapshot.configSignature)) {
+			snapshot = loadSnapshot();
+		}
+
 		if (LOG.isInfoEnabled()) {
 			LOG.info("LdapUserGroupBuilder initialization completed with --  "
 					+ "ldapUrl: " + ldapUrl
@@ -263,7 +295,6 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 					+ ",  groupSearchScope: " + groupSearchScope
 					+ ",  groupObjectClass: " + groupObjectClass
 					+ ",  groupSearchFilter: " + groupSearchFilter
-					+ ",  extendedGroupSearchFilter: " + extendedGroupSearchFilter
 					+ ",  extendedAllGroupsSearchFilter: " + extendedAllGroupsSearchFilter
 					+ ",  groupMemberAttributeName: " + groupMemberAttributeName
 					+ ",  groupNameAttribute: " + groupNameAttribute
@@ -272,452 +303,677 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 					+ ", groupSearchFirstEnabled: " + groupSearchFirstEnabled
 					+ ", userSearchEnabled: " + userSearchEnabled
 					+ ",  ldapReferral: " + ldapReferral
+					+ ",  searchThreads: " + searchThreads
+					+ ",  incrementalSearchEnabled: " + incrementalSearchEnabled
+					+ ",  fullSyncIntervalMs: " + fullSyncIntervalMs
+					+ ",  snapshotFile: " + snapshotFile
 					);
 		}
 
 	}
 
-	private void closeLdapContext() throws Throwable {
-		if (tls != null) {
-			tls.close();
-		}
-		if (ldapContext != null) {
-			ldapContext.close();
-		}
-	}
-
 	@Override
 	public boolean isChanged() {
-		// we do not want to get the full ldap dit and check whether anything has changed
+		// changes are found by the (incremental) searches in updateSink()
 		return true;
 	}
 
 	@Override
 	public void updateSink(UserGroupSink sink) throws Throwable {
 		LOG.info("LDAPUserGroupBuilder updateSink started");
-		userGroupMap = new HashMap<String, UserInfo>();
-		if (!groupSearchFirstEnabled) {
-			LOG.info("Performing user search first");
-			getUsers(sink);
-
-			LOG.debug("Total No. of users saved = " + userGroupMap.size());
-			//Iterator<UserInfo> userInfoIterator = userGroupMap.
-			for (UserInfo userInfo : userGroupMap.values()) {
-				String userName = userInfo.getUserName();
-				if (groupSearchEnabled) {
-					// Perform group search
-					LOG.info("groupSearch is enabled, would search for groups and compute memberships");
-					getGroups(sink, userInfo);
+
+		long    startTimeMs  = System.currentTimeMillis();
+		boolean isFullSync   = !incrementalSearchEnabled || snapshot.lastFullSyncTime <= 0 || (startTimeMs - snapshot.lastFullSyncTime) >= fullSyncIntervalMs;
+		boolean searchUsers  = !groupSearchFirstEnabled || userSearchEnabled;
+		boolean searchGroups = groupSearchFirstEnabled || groupSearchEnabled;
+
+		List<LdapSearch> searches = new ArrayList<LdapSearch>();
+
+		if (searchUsers) {
+			for (String base : userSearchBase) {
+				searches.add(new LdapSearch(base, true, isFullSync ? null : snapshot.highWaterMarks.get(getHighWaterMarkKey(base, true))));
+			}
+		}
+		if (searchGroups) {
+			for (String base : groupSearchBase) {
+				searches.add(new LdapSearch(base, false, isFullSync ? null : snapshot.highWaterMarks.get(getHighWaterMarkKey(base, false))));
+			}
+		}
+
+		LOG.info("Performing " + (isFullSync ? "full" : "incremental") + " search of " + searches.size() + " search base(s)");
+
+		List<LdapSearchResult> results = runSearches(searches);
+
+		boolean isComplete = mergeSearchResults(results, isFullSync, startTimeMs);
+
+		if (isFullSync && isComplete) {
+			// a sink can fail to apply an update without reporting it - e.g. PolicyMgrUserGroupBuilder.addOrUpdateUser()
+			// for an existing user - so everything is sent again after a complete full search
+			snapshot.sentGroups.clear();
+			snapshot.sentUserGroups.clear();
+		}
+
+		Map<String, Set<String>> userGroups = new HashMap<String, Set<String>>();
+		Set<String>              groups     = new HashSet<String>();
+
+		computeUserGroups(userGroups, groups);
+
+		int updatedGroupCount = 0;
+		int updatedUserCount  = 0;
+
+		for (String groupName : groups) {
+			if (snapshot.sentGroups.contains(groupName)) {
+				continue;
+			}
+
+			try {
+				sink.addOrUpdateGroup(groupName);
+
+				snapshot.sentGroups.add(groupName);
+				updatedGroupCount++;
+			} catch (Throwable t) {
+				LOG.error("sink.addOrUpdateGroup failed with exception: " + t.getMessage()
+				+ ", for group: " + groupName);
+			}
+		}
+
+		for (Map.Entry<String, Set<String>> entry : userGroups.entrySet()) {
+			String       userName  = entry.getKey();
+			List<String> groupList = new ArrayList<String>(entry.getValue());
+
+			if (groupList.equals(snapshot.sentUserGroups.get(userName))) {
+				continue;
+			}
+
+			try {
+				sink.addOrUpdateUser(userName, groupList);
+
+				snapshot.sentUserGroups.put(userName, groupList);
+				updatedUserCount++;
+
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Updated user: " + userName + ", groupList: " + groupList);
 				}
-				List<String> groupList = userInfo.getGroups();
-				if (userNameCaseConversionFlag) {
-					if (userNameLowerCaseFlag) {
-						userName = userName.toLowerCase();
-					}
-					else {
-						userName = userName.toUpperCase();
+			} catch (Throwable t) {
+				LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
+				+ ", for user: " + userName
+				+ ", groups: " + groupList);
+			}
+		}
+
+		snapshot.sentGroups.retainAll(groups);
+		snapshot.sentUserGroups.keySet().retainAll(userGroups.keySet());
+
+		saveSnapshot();
+
+		LOG.info("LDAPUserGroupBuilder updateSink completed: " + (isFullSync ? "full" : "incremental") + " search"
+				+ ", users: " + userGroups.size() + ", groups: " + groups.size()
+				+ ", updated users: " + updatedUserCount + ", updated groups: " + updatedGroupCount
+				+ ", timeTaken: " + (System.currentTimeMillis() - startTimeMs) + "ms");
+	}
+
+	private List<LdapSearchResult> runSearches(List<LdapSearch> searches) throws Throwable {
+		List<LdapSearchResult> ret         = new ArrayList<LdapSearchResult>(searches.size());
+		int                    threadCount = Math.min(searchThreads, searches.size());
+
+		if (threadCount <= 1) {
+			for (LdapSearch search : searches) {
+				ret.add(search.call());
+			}
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+			try {
+				for (Future<LdapSearchResult> future : executor.invokeAll(searches)) {
+					try {
+						ret.add(future.get());
+					} catch (ExecutionException excp) {
+						throw excp.getCause();
 					}
 				}
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		return ret;
+	}
+
+	// returns false if any of the searches failed
+	private boolean mergeSearchResults(List<LdapSearchResult> results, boolean isFullSync, long startTimeMs) {
+		boolean isComplete = true;
+
+		for (LdapSearchResult result : results) {
+			if (result.isFailed) {
+				isComplete = false;
+			}
+		}
 
-				if (userNameRegExInst != null) {
-					userName = userNameRegExInst.transform(userName);
+		if (isFullSync && isComplete) {
+			// entries not found by a complete full search have been deleted
+			snapshot.users.clear();
+			snapshot.groups.clear();
+			snapshot.highWaterMarks.clear();
+		}
+
+		for (LdapSearchResult result : results) {
+			(result.isUserSearch ? snapshot.users : snapshot.groups).putAll(result.entries);
+
+			// entries of a failed search will be read again in the next cycle
+			if (!result.isFailed) {
+				String        key           = getHighWaterMarkKey(result.searchBase, result.isUserSearch);
+				HighWaterMark highWaterMark = snapshot.highWaterMarks.get(key);
+
+				if (highWaterMark == null) {
+					highWaterMark = new HighWaterMark();
+
+					snapshot.highWaterMarks.put(key, highWaterMark);
 				}
-				try {
-					sink.addOrUpdateUser(userName, groupList);
-				} catch (Throwable t) {
-					LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
-					+ ", for user: " + userName
-					+ ", groups: " + groupList);
+
+				highWaterMark.update(result.highWaterMark);
+			}
+		}
+
+		if (isFullSync && isComplete) {
+			snapshot.lastFullSyncTime = startTimeMs;
+		}
+
+		return isComplete;
+	}
+
+	private void computeUserGroups(Map<String, Set<String>> userGroups, Set<String> groups) throws Throwable {
+		Map<String, Set<String>> memberGroups = new HashMap<String, Set<String>>(); // normalized member value => groups
+		Map<String, String>      memberNames  = new HashMap<String, String>();      // normalized member value => member value
+
+		for (LdapEntry group : snapshot.groups.values()) {
+			String gName = transformGroupName(group.name);
+
+			if (groupSearchFirstEnabled) {
+				groups.add(gName);
+			}
+
+			if (group.values == null) {
+				continue;
+			}
+
+			for (String member : group.values) {
+				String      key             = normalizeDn(member);
+				Set<String> groupsOfMember = memberGroups.get(key);
+
+				if (groupsOfMember == null) {
+					groupsOfMember = new TreeSet<String>();
+
+					memberGroups.put(key, groupsOfMember);
+					memberNames.put(key, member);
 				}
+
+				groupsOfMember.add(gName);
 			}
+		}
 
-		} else {
-			LOG.info("Performing Group search first");
-			getGroups(sink, null);
-			if (userSearchEnabled) {
-				LOG.info("User search is enabled and hence computing user membership.");
-				getUsers(sink);
-			} else {
-				LOG.info("User search is disabled and hence using the group member attribute for username.");
-				// Go through the userInfo map and update ranger admin.
-				for (UserInfo userInfo : userGroupMap.values()) {
-					String userName = getShortUserName(userInfo.getUserFullName());
-					List<String> groupList = userInfo.getGroups();
-					if (userNameCaseConversionFlag) {
-						if (userNameLowerCaseFlag) {
-							userName = userName.toLowerCase();
-						}
-						else {
-							userName = userName.toUpperCase();
+		if (!groupSearchFirstEnabled || userSearchEnabled) {
+			for (Map.Entry<String, LdapEntry> entry : snapshot.users.entrySet()) {
+				LdapEntry   user           = entry.getValue();
+				Set<String> groupsOfMember = new TreeSet<String>();
+
+				if (!groupSearchFirstEnabled && !groupSearchEnabled) {
+					if (user.values != null) {
+						for (String gName : user.values) {
+							groupsOfMember.add(transformGroupName(gName));
 						}
 					}
+				} else {
+					Set<String> memberOf = memberGroups.get(entry.getKey());
 
-					if (userNameRegExInst != null) {
-						userName = userNameRegExInst.transform(userName);
+					if (memberOf == null) {
+						memberOf = memberGroups.get(user.name.toLowerCase());
 					}
 
-					try {
-						sink.addOrUpdateUser(userName, groupList);
-					} catch (Throwable t) {
-						LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
-						+ ", for user: " + userName
-						+ ", groups: " + groupList);
+					if (memberOf != null) {
+						groupsOfMember.addAll(memberOf);
+					} else if (groupSearchFirstEnabled) {
+						// with group search first, only members of the groups are synced
+						continue;
 					}
 				}
+
+				userGroups.put(transformUserName(user.name), groupsOfMember);
+			}
+		} else {
+			for (Map.Entry<String, Set<String>> entry : memberGroups.entrySet()) {
+				userGroups.put(transformUserName(getShortUserName(memberNames.get(entry.getKey()))), entry.getValue());
 			}
 		}
 	}
 
-	private void getUsers(UserGroupSink sink) throws Throwable {
-		UserInfo userInfo;
-		NamingEnumeration<SearchResult> userSearchResultEnum = null;
-		NamingEnumeration<SearchResult> groupSearchResultEnum = null;
-		try {
-			createLdapContext();
-			int total;
-			// Activate paged results
-			if (pagedResultsEnabled)   {
-				ldapContext.setRequestControls(new Control[]{
-						new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL) });
+	private String transformUserName(String userName) {
+		if (userNameCaseConversionFlag) {
+			if (userNameLowerCaseFlag) {
+				userName = userName.toLowerCase();
 			}
+			else {
+				userName = userName.toUpperCase();
+			}
+		}
 
-			// When multiple OUs are configured, go through each OU as the user search base to search for users.
-			for (int ou=0; ou<userSearchBase.length; ou++) {
-				byte[] cookie = null;
-				int counter = 0;
-				try {
-					do {
-						userSearchResultEnum = ldapContext
-								.search(userSearchBase[ou], extendedUserSearchFilter,
-										userSearchControls);
-
-						while (userSearchResultEnum.hasMore()) {
-							// searchResults contains all the user entries
-							final SearchResult userEntry = userSearchResultEnum.next();
-
-							if (userEntry == null)  {
-								if (LOG.isInfoEnabled())  {
-									LOG.info("userEntry null, skipping sync for the entry");
-								}
-								continue;
-							}
+		if (userNameRegExInst != null) {
+			userName = userNameRegExInst.transform(userName);
+		}
 
-							Attributes attributes =   userEntry.getAttributes();
-							if (attributes == null)  {
-								if (LOG.isInfoEnabled())  {
-									LOG.info("attributes  missing for entry " + userEntry.getNameInNamespace() +
-											", skipping sync");
-								}
-								continue;
-							}
+		return userName;
+	}
 
-							Attribute userNameAttr  = attributes.get(userNameAttribute);
-							if (userNameAttr == null)  {
-								if (LOG.isInfoEnabled())  {
-									LOG.info(userNameAttribute + " missing for entry " + userEntry.getNameInNamespace() +
-											", skipping sync");
-								}
-								continue;
-							}
+	private String transformGroupName(String gName) {
+		if (groupNameCaseConversionFlag) {
+			if (groupNameLowerCaseFlag) {
+				gName = gName.toLowerCase();
+			} else {
+				gName = gName.toUpperCase();
+			}
+		}
 
-							String userName = (String) userNameAttr.get();
+		if (groupNameRegExInst != null) {
+			gName = groupNameRegExInst.transform(gName);
+		}
 
-							if (userName == null || userName.trim().isEmpty())  {
-								if (LOG.isInfoEnabled())  {
-									LOG.info(userNameAttribute + " empty for entry " + userEntry.getNameInNamespace() +
-											", skipping sync");
-								}
-								continue;
-							}
+		return gName;
+	}
 
-							if (!groupSearchFirstEnabled) {
-								userInfo = new UserInfo(userName, userEntry.getNameInNamespace());
-								Set<String> groups = new HashSet<String>();
-
-								// Get all the groups from the group name attribute of the user only when group search is not enabled.
-								if (!groupSearchEnabled) {
-									for (String useGroupNameAttribute : userGroupNameAttributeSet) {
-										Attribute userGroupfAttribute = userEntry.getAttributes().get(useGroupNameAttribute);
-										if (userGroupfAttribute != null) {
-											NamingEnumeration<?> groupEnum = userGroupfAttribute.getAll();
-											while (groupEnum.hasMore()) {
-												String gName = getShortGroupName((String) groupEnum
-														.next());
-												if (groupNameCaseConversionFlag) {
-													if (groupNameLowerCaseFlag) {
-														gName = gName.toLowerCase();
-													} else {
-														gName = gName.toUpperCase();
-													}
-												}
-												if (groupNameRegExInst != null) {
-													gName = groupNameRegExInst.transform(gName);
-												}
-												groups.add(gName);
-											}
-										}
-									}
-								}
+	private LdapSyncSnapshot loadSnapshot() {
+		LdapSyncSnapshot ret = null;
 
-								userInfo.addGroups(groups);
+		if (snapshotFile != null) {
+			File file = new File(snapshotFile);
 
-								//populate the userGroupMap with username, userInfo.
-								//userInfo contains details of user that will be later used for
-								//group search to compute group membership as well as to call sink.addOrUpdateUser()
-								if (userGroupMap.containsKey(userName)) {
-									LOG.warn("user object with username " + userName + " already exists and is replaced with the latest user object." );
-								}
-								userGroupMap.put(userName, userInfo);
-
-								//List<String> groupList = new ArrayList<String>(groups);
-								List<String> groupList = userInfo.getGroups();
-								counter++;
-								if (counter <= 2000) {
-									if (LOG.isInfoEnabled()) {
-										LOG.info("Updating user count: " + counter
-												+ ", userName: " + userName + ", groupList: "
-												+ groupList);
-									}
-									if ( counter == 2000 ) {
-										LOG.info("===> 2000 user records have been synchronized so far. From now on, only a summary progress log will be written for every 100 users. To continue to see detailed log for every user, please enable Trace level logging. <===");
-									}
-								} else {
-									if (LOG.isTraceEnabled()) {
-										LOG.trace("Updating user count: " + counter
-												+ ", userName: " + userName + ", groupList: "
-												+ groupList);
-									} else  {
-										if ( counter % 100 == 0) {
-											LOG.info("Synced " + counter + " users till now");
-										}
-									}
-								}
-							} else {
-								// If the user from the search result is present in the usersList,
-								// then update user name in the userInfo map with the value from the search result
-								// and update ranger admin.
-								String userFullName = (userEntry.getNameInNamespace()).toLowerCase();
-								LOG.debug("Chekcing if the user " + userFullName + " is part of the retrieved groups");
-
-								userInfo = userGroupMap.get(userFullName);
-								if (userInfo == null) {
-									userInfo = userGroupMap.get(userName.toLowerCase());
-								}
-								if (userInfo != null) {
-									counter++;
-									LOG.info("Updating username for " + userFullName + " with " + userName);
-									userInfo.updateUserName(userName);
-									List<String> groupList = userInfo.getGroups();
-									if (userNameCaseConversionFlag) {
-										if (userNameLowerCaseFlag) {
-											userName = userName.toLowerCase();
-										}
-										else {
-											userName = userName.toUpperCase();
-										}
-									}
-
-									if (userNameRegExInst != null) {
-										userName = userNameRegExInst.transform(userName);
-									}
-
-									try {
-										sink.addOrUpdateUser(userName, groupList);
-									} catch (Throwable t) {
-										LOG.error("sink.addOrUpdateUser failed with exception: " + t.getMessage()
-										+ ", for user: " + userName
-										+ ", groups: " + groupList);
-									}
-								}
-							}
+			if (file.isFile()) {
+				try (Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8")) {
+					ret = gson.fromJson(reader, LdapSyncSnapshot.class);
+				} catch (Exception excp) {
+					LOG.warn("Failed to load LDAP snapshot from " + snapshotFile + ". A full search will be done", excp);
+				}
 
-						}
+				if (ret != null && !StringUtils.equals(configSignature, ret.configSignature)) {
+					LOG.info("LDAP search configuration changed since the snapshot in " + snapshotFile + " was saved. A full search will be done");
 
-						// Examine the paged results control response
-						Control[] controls = ldapContext.getResponseControls();
-						if (controls != null) {
-							for (int i = 0; i < controls.length; i++) {
-								if (controls[i] instanceof PagedResultsResponseControl) {
-									PagedResultsResponseControl prrc =
-											(PagedResultsResponseControl)controls[i];
-									total = prrc.getResultSize();
-									if (total != 0) {
-										LOG.debug("END-OF-PAGE total : " + total);
-									} else {
-										LOG.debug("END-OF-PAGE total : unknown");
-									}
-									cookie = prrc.getCookie();
-								}
-							}
-						} else {
-							LOG.debug("No controls were sent from the server");
-						}
-						// Re-activate paged results
-						if (pagedResultsEnabled)   {
-							ldapContext.setRequestControls(new Control[]{
-									new PagedResultsControl(PAGE_SIZE, cookie, Control.CRITICAL) });
-						}
-					} while (cookie != null);
-					LOG.info("LDAPUserGroupBuilder.getUsers() completed with user count: "
-							+ counter);
-				} catch (Throwable t) {
-					LOG.error("LDAPUserGroupBuilder.getUsers() failed with exception: " + t);
-					LOG.info("LDAPUserGroupBuilder.getUsers() user count: "
-							+ counter);
+					ret = null;
 				}
 			}
+		}
 
-		} finally {
-			if (userSearchResultEnum != null) {
-				userSearchResultEnum.close();
-			}
-			if (groupSearchResultEnum != null) {
-				groupSearchResultEnum.close();
+		if (ret == null) {
+			ret = new LdapSyncSnapshot();
+
+			ret.configSignature = configSignature;
+		} else {
+			LOG.info("Loaded LDAP snapshot from " + snapshotFile + ": users=" + ret.users.size() + ", groups=" + ret.groups.size());
+		}
+
+		return ret;
+	}
+
+	private void saveSnapshot() {
+		if (snapshotFile == null) {
+			return;
+		}
+
+		File file    = new File(snapshotFile);
+		File tmpFile = new File(snapshotFile + ".tmp");
+
+		try {
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmpFile), "UTF-8")) {
+				gson.toJson(snapshot, writer);
 			}
-			closeLdapContext();
+
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (Exception excp) {
+			LOG.warn("Failed to save LDAP snapshot to " + snapshotFile, excp);
 		}
 	}
 
-	private void getGroups(UserGroupSink sink, UserInfo userInfo) throws Throwable {
-		NamingEnumeration<SearchResult> groupSearchResultEnum = null;
+	private static String getHighWaterMarkKey(String searchBase, boolean isUserSearch) {
+		return (isUserSearch ? "user:" : "group:") + searchBase;
+	}
+
+	/*
+	 * DNs in member attributes can differ from the DN of the entry in case and spacing; compare them normalized.
+	 * Values that are not DNs, like memberUid, are compared in lower case.
+	 */
+	static String normalizeDn(String dn) {
+		String ret = dn.trim().toLowerCase();
+
 		try {
-			createLdapContext();
-			int total;
-			// Activate paged results
-			if (pagedResultsEnabled)   {
-				ldapContext.setRequestControls(new Control[]{
-						new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL) });
-			}
-			for (int ou=0; ou<groupSearchBase.length; ou++) {
+			List<Rdn>     rdns = new LdapName(ret).getRdns();
+			StringBuilder sb   = new StringBuilder();
+
+			for (int i = rdns.size() - 1; i >= 0; i--) {
+				if (sb.length() > 0) {
+					sb.append(',');
+				}
+
+				sb.append(rdns.get(i).toString());
+			}
+
+			ret = sb.toString();
+		} catch (InvalidNameException excp) {
+			// not a DN
+		}
+
+		return ret;
+	}
+
+	private static String getString(Attributes attributes, String attrName) throws Throwable {
+		Attribute attr  = attributes.get(attrName);
+		Object    value = attr == null ? null : attr.get();
+
+		return value == null ? null : value.toString();
+	}
+
+	/*
+	 * Searches one search base over its own connection; these run in parallel.
+	 */
+	private class LdapSearch implements Callable<LdapSearchResult> {
+		private final String        searchBase;
+		private final boolean       isUserSearch;
+		private final HighWaterMark since;
+
+		private LdapContext      ldapContext;
+		private StartTlsResponse tls;
+
+		LdapSearch(String searchBase, boolean isUserSearch, HighWaterMark since) {
+			this.searchBase   = searchBase;
+			this.isUserSearch = isUserSearch;
+			this.since        = since;
+		}
+
+		@Override
+		public LdapSearchResult call() throws Exception {
+			LdapSearchResult ret     = new LdapSearchResult(searchBase, isUserSearch);
+			String           filter  = isUserSearch ? extendedUserSearchFilter : extendedAllGroupsSearchFilter;
+			String           changed = since == null ? null : since.getSearchFilter();
+			NamingEnumeration<SearchResult> searchResultEnum = null;
+
+			if (changed != null) {
+				filter = "(&" + filter + changed + ")";
+			}
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Searching " + (isUserSearch ? "users" : "groups") + " in " + searchBase + " using filter " + filter);
+			}
+
+			// failure to connect fails the cycle, like before; search failures are logged and the cycle continues
+			try {
+				createLdapContext();
+			} catch (Exception excp) {
+				closeLdapContext();
+
+				throw excp;
+			}
+
+			int counter = 0;
+
+			try {
+				int total;
+				// Activate paged results
+				if (pagedResultsEnabled)   {
+					ldapContext.setRequestControls(new Control[]{
+							new PagedResultsControl(pagedResultsSize, Control.NONCRITICAL) });
+				}
+
 				byte[] cookie = null;
-				int counter = 0;
-				try {
-					do {
-						if (!groupSearchFirstEnabled) {
-							if (userInfo == null) {
-								// Should never reach this.
-								LOG.error("No user information provided for group search!");
-								return;
-							}
-							if (LOG.isDebugEnabled()) {
-								LOG.debug("Searching for groups for user " + userInfo.getUserName() +
-										" using filter " + String.format(extendedGroupSearchFilter, userInfo.getUserFullName(),
-												userInfo.getUserName()));
-							}
-							groupSearchResultEnum = ldapContext
-									.search(groupSearchBase[ou], extendedGroupSearchFilter,
-											new Object[]{userInfo.getUserFullName(), userInfo.getUserName()},
-											groupSearchControls);
-						} else {
-							// If group based search is enabled, then first retrieve all the groups based on the group configuration.
-							groupSearchResultEnum = ldapContext
-									.search(groupSearchBase[ou], extendedAllGroupsSearchFilter,
-											groupSearchControls);
+				do {
+					searchResultEnum = ldapContext.search(searchBase, filter, isUserSearch ? userSearchControls : groupSearchControls);
+
+					while (searchResultEnum.hasMore()) {
+						final SearchResult entry = searchResultEnum.next();
+
+						if (entry != null && addEntry(ret, entry)) {
+							counter++;
 						}
-						while (groupSearchResultEnum.hasMore()) {
-							final SearchResult groupEntry = groupSearchResultEnum.next();
-							if (groupEntry != null) {
-								counter++;
-								Attribute groupNameAttr = groupEntry.getAttributes().get(groupNameAttribute);
-								if (groupNameAttr == null) {
-									if (LOG.isInfoEnabled())  {
-										LOG.info(groupNameAttribute + " empty for entry " + groupEntry.getNameInNamespace() +
-												", skipping sync");
-									}
-									continue;
-								}
-								String gName = (String) groupNameAttr.get();
-								if (groupNameCaseConversionFlag) {
-									if (groupNameLowerCaseFlag) {
-										gName = gName.toLowerCase();
-									} else {
-										gName = gName.toUpperCase();
-									}
-								}
-								if (groupNameRegExInst != null) {
-									gName = groupNameRegExInst.transform(gName);
-								}
-								if (!groupSearchFirstEnabled) {
-									//computedGroups.add(gName);
-									if (LOG.isInfoEnabled())  {
-										LOG.info("computed groups for user: " + userInfo.getUserName() +", groups: " + gName);
-									}
-									userInfo.addGroup(gName);
+					}
+
+					// Examine the paged results control response
+					Control[] controls = ldapContext.getResponseControls();
+					if (controls != null) {
+						for (int i = 0; i < controls.length; i++) {
+							if (controls[i] instanceof PagedResultsResponseControl) {
+								PagedResultsResponseControl prrc =
+										(PagedResultsResponseControl)controls[i];
+								total = prrc.getResultSize();
+								if (total != 0) {
+									LOG.debug("END-OF-PAGE total : " + total);
 								} else {
-									// If group based search is enabled, then
-									// update the group name to ranger admin
-									// check for group members and populate userInfo object with user's full name and group mapping
-									Attribute groupMemberAttr = groupEntry.getAttributes().get(groupMemberAttributeName);
-									LOG.debug("Update Ranger admin with " + gName);
-									sink.addOrUpdateGroup(gName);
-									int userCount = 0;
-									if (groupMemberAttr == null || groupMemberAttr.size() <= 0) {
-										LOG.info("No members available for " + gName);
-										continue;
-									}
-									NamingEnumeration<?> userEnum = groupMemberAttr.getAll();
-									while (userEnum.hasMore()) {
-										String originalUserFullName = (String) userEnum.next();
-										if (originalUserFullName == null || originalUserFullName.trim().isEmpty()) {
-											continue;
-										}
-										String userFullName = originalUserFullName.toLowerCase();
-										userCount++;
-										if (!userGroupMap.containsKey(userFullName)) {
-											userInfo = new UserInfo(userFullName, originalUserFullName); // Preserving the original full name for later
-											userGroupMap.put(userFullName, userInfo);
-										} else {
-											userInfo = userGroupMap.get(userFullName);
-										}
-										LOG.info("Adding " + gName + " to user " + userInfo.getUserFullName());
-										userInfo.addGroup(gName);
-									}
-									LOG.info("No. of members in the group " + gName + " = " + userCount);
+									LOG.debug("END-OF-PAGE total : unknown");
 								}
+								cookie = prrc.getCookie();
 							}
 						}
-						// Examine the paged results control response
-						Control[] controls = ldapContext.getResponseControls();
-						if (controls != null) {
-							for (int i = 0; i < controls.length; i++) {
-								if (controls[i] instanceof PagedResultsResponseControl) {
-									PagedResultsResponseControl prrc =
-											(PagedResultsResponseControl)controls[i];
-									total = prrc.getResultSize();
-									if (total != 0) {
-										LOG.debug("END-OF-PAGE total : " + total);
-									} else {
-										LOG.debug("END-OF-PAGE total : unknown");
-									}
-									cookie = prrc.getCookie();
-								}
+					} else {
+						LOG.debug("No controls were sent from the server");
+					}
+					// Re-activate paged results
+					if (pagedResultsEnabled)   {
+						ldapContext.setRequestControls(new Control[]{
+								new PagedResultsControl(pagedResultsSize, cookie, Control.CRITICAL) });
+					}
+				} while (cookie != null);
+
+				LOG.info("LDAPUserGroupBuilder search of " + (isUserSearch ? "users" : "groups") + " in " + searchBase + " completed with count: " + counter);
+			} catch (Throwable t) {
+				LOG.error("LDAPUserGroupBuilder search of " + (isUserSearch ? "users" : "groups") + " in " + searchBase + " failed with exception: " + t
+						+ ", count: " + counter);
+
+				ret.isFailed = true;
+			} finally {
+				try {
+					if (searchResultEnum != null) {
+						searchResultEnum.close();
+					}
+				} catch (Throwable t) {
+					LOG.debug("Failed to close search results", t);
+				}
+
+				closeLdapContext();
+			}
+
+			return ret;
+		}
+
+		private boolean addEntry(LdapSearchResult result, SearchResult entry) throws Throwable {
+			Attributes attributes = entry.getAttributes();
+
+			if (attributes == null)  {
+				if (LOG.isInfoEnabled())  {
+					LOG.info("attributes  missing for entry " + entry.getNameInNamespace() +
+							", skipping sync");
+				}
+				return false;
+			}
+
+			String    nameAttribute = isUserSearch ? userNameAttribute : groupNameAttribute;
+			String    name          = getString(attributes, nameAttribute);
+			LdapEntry ldapEntry     = new LdapEntry();
+
+			if (name == null || name.trim().isEmpty())  {
+				if (LOG.isInfoEnabled())  {
+					LOG.info(nameAttribute + " empty for entry " + entry.getNameInNamespace() +
+							", skipping sync");
+				}
+				return false;
+			}
+
+			ldapEntry.name = name;
+
+			if (isUserSearch) {
+				// Get all the groups from the group name attribute of the user only when group search is not enabled.
+				if (userGroupNameAttributeSet != null) {
+					ldapEntry.values = new ArrayList<String>();
+
+					for (String useGroupNameAttribute : userGroupNameAttributeSet) {
+						Attribute userGroupfAttribute = attributes.get(useGroupNameAttribute);
+						if (userGroupfAttribute != null) {
+							NamingEnumeration<?> groupEnum = userGroupfAttribute.getAll();
+							while (groupEnum.hasMore()) {
+								ldapEntry.values.add(getShortGroupName((String) groupEnum.next()));
 							}
-						} else {
-							LOG.debug("No controls were sent from the server");
 						}
-						// Re-activate paged results
-						if (pagedResultsEnabled)   {
-							ldapContext.setRequestControls(new Control[]{
-									new PagedResultsControl(PAGE_SIZE, cookie, Control.CRITICAL) });
+					}
+				}
+			} else {
+				Attribute groupMemberAttr = attributes.get(groupMemberAttributeName);
+
+				if (groupMemberAttr != null && groupMemberAttr.size() > 0) {
+					ldapEntry.values = new ArrayList<String>(groupMemberAttr.size());
+
+					NamingEnumeration<?> userEnum = groupMemberAttr.getAll();
+					while (userEnum.hasMore()) {
+						String member = (String) userEnum.next();
+						if (member != null && !member.trim().isEmpty()) {
+							ldapEntry.values.add(member);
 						}
-					} while (cookie != null);
-					LOG.info("LDAPUserGroupBuilder.getGroups() completed with group count: "
-							+ counter);
-				} catch (Throwable t) {
-					LOG.error("LDAPUserGroupBuilder.getGroups() failed with exception: " + t);
-					LOG.info("LDAPUserGroupBuilder.getGroups() group count: "
-							+ counter);
+					}
+				} else {
+					LOG.info("No members available for " + name);
 				}
 			}
 
-		} finally {
-			if (groupSearchResultEnum != null) {
-				groupSearchResultEnum.close();
+			String key = normalizeDn(entry.getNameInNamespace());
+
+			if (isUserSearch && result.entries.containsKey(key)) {
+				LOG.warn("user object with DN " + key + " already exists and is replaced with the latest user object." );
 			}
-			closeLdapContext();
+
+			result.entries.put(key, ldapEntry);
+
+			if (incrementalSearchEnabled) {
+				result.highWaterMark.update(getString(attributes, USN_CHANGED_ATTRIBUTE), getString(attributes, MODIFY_TIMESTAMP_ATTRIBUTE));
+				result.highWaterMark.update(null, getString(attributes, CREATE_TIMESTAMP_ATTRIBUTE));
+			}
+
+			return true;
 		}
+
+		private void createLdapContext() throws Exception {
+			Properties env = new Properties();
+			env.put(Context.INITIAL_CONTEXT_FACTORY,
+					"com.sun.jndi.ldap.LdapCtxFactory");
+			env.put(Context.PROVIDER_URL, ldapUrl);
+			if (ldapUrl.startsWith("ldaps") && (config.getSSLTrustStorePath() != null && !config.getSSLTrustStorePath().trim().isEmpty())) {
+				env.put("java.naming.ldap.factory.socket", "org.apache.ranger.ldapusersync.process.CustomSSLSocketFactory");
+			}
+
+			ldapContext = new InitialLdapContext(env, null);
+			if (!ldapUrl.startsWith("ldaps")) {
+				if (config.isStartTlsEnabled()) {
+					tls = (StartTlsResponse) ldapContext.extendedOperation(new StartTlsRequest());
+					if (config.getSSLTrustStorePath() != null && !config.getSSLTrustStorePath().trim().isEmpty()) {
+						tls.negotiate(CustomSSLSocketFactory.getDefault());
+					} else {
+						tls.negotiate();
+					}
+					LOG.info("Starting TLS session...");
+				}
+			}
+
+			ldapContext.addToEnvironment(Context.SECURITY_PRINCIPAL, ldapBindDn);
+			ldapContext.addToEnvironment(Context.SECURITY_CREDENTIALS, ldapBindPassword);
+			ldapContext.addToEnvironment(Context.SECURITY_AUTHENTICATION, ldapAuthenticationMechanism);
+			ldapContext.addToEnvironment(Context.REFERRAL, ldapReferral);
+		}
+
+		private void closeLdapContext() {
+			try {
+				if (tls != null) {
+					tls.close();
+				}
+				if (ldapContext != null) {
+					ldapContext.close();
+				}
+			} catch (Throwable t) {
+				LOG.debug("Failed to close LDAP context", t);
+			}
+		}
+	}
+
+	static class LdapSearchResult {
+		final String                 searchBase;
+		final boolean                isUserSearch;
+		final Map<String, LdapEntry> entries       = new HashMap<String, LdapEntry>();
+		final HighWaterMark          highWaterMark = new HighWaterMark();
+		boolean                      isFailed;
+
+		LdapSearchResult(String searchBase, boolean isUserSearch) {
+			this.searchBase   = searchBase;
+			this.isUserSearch = isUserSearch;
+		}
+	}
+
+	/*
+	 * Users and groups read from LDAP, keyed by normalized DN, and what was last sent to the sink.
+	 * Saved in ranger.usersync.ldap.snapshot.file, when configured, so that a restart doesn't need a full search.
+	 */
+	static class LdapSyncSnapshot {
+		String                     configSignature;
+		long                       lastFullSyncTime;
+		Map<String, LdapEntry>     users          = new HashMap<String, LdapEntry>();
+		Map<String, LdapEntry>     groups         = new HashMap<String, LdapEntry>();
+		Map<String, HighWaterMark> highWaterMarks = new HashMap<String, HighWaterMark>();
+		Map<String, List<String>>  sentUserGroups = new HashMap<String, List<String>>();
+		Set<String>                sentGroups     = new HashSet<String>();
 	}
 
+	static class LdapEntry {
+		String       name;
+		List<String> values; // user: group names from the user's group name attributes; group: member values
+	}
+
+	/*
+	 * Highest uSNChanged (AD) and modify/create timestamp seen in a search base. Entries changed while a search
+	 * was in progress can be missed by the next incremental search; the periodic full search picks them up.
+	 */
+	static class HighWaterMark {
+		Long   usnChanged;
+		String timestamp; // generalized time, truncated to seconds: yyyyMMddHHmmssZ
+
+		void update(String usnChanged, String timestamp) {
+			if (usnChanged != null) {
+				try {
+					long usn = Long.parseLong(usnChanged.trim());
+
+					if (this.usnChanged == null || usn > this.usnChanged) {
+						this.usnChanged = usn;
+					}
+				} catch (NumberFormatException excp) {
+					LOG.debug("Ignoring invalid " + USN_CHANGED_ATTRIBUTE + ": " + usnChanged);
+				}
+			}
+
+			if (timestamp != null && timestamp.length() >= 14 && StringUtils.isNumeric(timestamp.substring(0, 14))) {
+				String ts = timestamp.substring(0, 14) + "Z";
+
+				if (this.timestamp == null || ts.compareTo(this.timestamp) > 0) {
+					this.timestamp = ts;
+				}
+			}
+		}
+
+		void update(HighWaterMark other) {
+			update(other.usnChanged == null ? null : other.usnChanged.toString(), other.timestamp);
+		}
+
+		String getSearchFilter() {
+			final String ret;
+
+			if (usnChanged != null) { // AD: uSNChanged is indexed, unlike modifyTimestamp
+				ret = "(" + USN_CHANGED_ATTRIBUTE + ">=" + (usnChanged + 1) + ")";
+			} else if (timestamp != null) { // timestamps have seconds resolution; entries of the last second are read again
+				ret = "(|(" + MODIFY_TIMESTAMP_ATTRIBUTE + ">=" + timestamp + ")(" + CREATE_TIMESTAMP_ATTRIBUTE + ">=" + timestamp + "))";
+			} else {
+				ret = null;
+			}
+
+			return ret;
+		}
+	}
 
 	private static String getShortGroupName(String longGroupName) throws InvalidNameException {
 		if (longGroupName == null) {
@@ -752,35 +1008,3 @@ public class LdapUserGroupBuilder extends AbstractUserGroupSource {
 	}
 
 }
-
-class UserInfo {
-	private String userName;
-	private String userFullName;
-	private Set<String> groupList;
-
-	public UserInfo(String userName, String userFullName) {
-		this.userName = userName;
-		this.userFullName = userFullName;
-		this.groupList = new HashSet<String>();
-	}
-
-	public void updateUserName(String userName) {
-		this.userName = userName;
-	}
-
-	public String getUserName() {
-		return userName;
-	}
-	public String getUserFullName() {
-		return userFullName;
-	}
-	public void addGroups(Set<String> groups) {
-		groupList.addAll(groups);
-	}
-	public void addGroup(String group) {
-		groupList.add(group);
-	}
-	public List<String> getGroups() {
-		return (new ArrayList<String>(groupList));
-	}
-}
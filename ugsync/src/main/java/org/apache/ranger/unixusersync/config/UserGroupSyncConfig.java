@@ -157,6 +157,17 @@ public class UserGroupSyncConfig  {
 	private static final String LGSYNC_PAGED_RESULTS_SIZE = "ranger.usersync.pagedresultssize";
 	private static final int DEFAULT_LGSYNC_PAGED_RESULTS_SIZE = 500;
 
+	private static final String LGSYNC_LDAP_SEARCH_THREADS = "ranger.usersync.ldap.search.threads";
+	private static final int DEFAULT_LGSYNC_LDAP_SEARCH_THREADS = 4;
+
+	private static final String LGSYNC_LDAP_INCREMENTAL_SEARCH_ENABLED = "ranger.usersync.ldap.incremental.search.enabled";
+	private static final boolean DEFAULT_LGSYNC_LDAP_INCREMENTAL_SEARCH_ENABLED = true;
+
+	private static final String LGSYNC_LDAP_FULL_SYNC_INTERVAL_MS = "ranger.usersync.ldap.full.sync.interval.ms";
+	private static final long DEFAULT_LGSYNC_LDAP_FULL_SYNC_INTERVAL_MS = 6 * 60 * 60 * 1000L; // 6 hours
+
+	private static final String LGSYNC_LDAP_SNAPSHOT_FILE = "ranger.usersync.ldap.snapshot.file";
+
 	private static final String LGSYNC_GROUP_SEARCH_ENABLED = "ranger.usersync.group.searchenabled";
 	private static final boolean DEFAULT_LGSYNC_GROUP_SEARCH_ENABLED = false;
 
@@ -209,6 +220,12 @@ public class UserGroupSyncConfig  {
 	private static final String DEFAULT_POLICYMGR_USERNAME = "rangerusersync";
 
 	private static final String DEFAULT_POLICYMGR_PASSWORD = "rangerusersync";
+
+	private static final String SYNC_POLICY_MGR_CONNECTION_TIMEOUT_MS = "ranger.usersync.policymgr.connection.timeout.ms";
+	private static final int DEFAULT_POLICY_MGR_CONNECTION_TIMEOUT_MS = 120 * 1000;
+
+	private static final String SYNC_POLICY_MGR_READ_TIMEOUT_MS = "ranger.usersync.policymgr.read.timeout.ms";
+	private static final int DEFAULT_POLICY_MGR_READ_TIMEOUT_MS = 300 * 1000;
 	private static final String SYNC_SOURCE = "ranger.usersync.sync.source";
 	private static final String LGSYNC_REFERRAL = "ranger.usersync.ldap.referral";
 	private static final String DEFAULT_LGSYNC_REFERRAL = "ignore";
@@ -890,6 +907,72 @@ public class UserGroupSyncConfig  {
 		return deltaSyncEnabled;
 	}
 
+	public int getPolicyMgrConnectionTimeoutMs() {
+		int timeoutMs;
+		String val = prop.getProperty(SYNC_POLICY_MGR_CONNECTION_TIMEOUT_MS);
+		if(val == null || val.trim().isEmpty()) {
+			timeoutMs = DEFAULT_POLICY_MGR_CONNECTION_TIMEOUT_MS;
+		} else {
+			timeoutMs = Integer.parseInt(val.trim());
+		}
+		return timeoutMs;
+	}
+
+	public int getPolicyMgrReadTimeoutMs() {
+		int timeoutMs;
+		String val = prop.getProperty(SYNC_POLICY_MGR_READ_TIMEOUT_MS);
+		if(val == null || val.trim().isEmpty()) {
+			timeoutMs = DEFAULT_POLICY_MGR_READ_TIMEOUT_MS;
+		} else {
+			timeoutMs = Integer.parseInt(val.trim());
+		}
+		return timeoutMs;
+	}
+
+	public int getLdapSearchThreads() {
+		int searchThreads;
+		String val = prop.getProperty(LGSYNC_LDAP_SEARCH_THREADS);
+		if(val == null || val.trim().isEmpty()) {
+			searchThreads = DEFAULT_LGSYNC_LDAP_SEARCH_THREADS;
+		} else {
+			searchThreads = Integer.parseInt(val.trim());
+		}
+		if (searchThreads < 1) {
+			searchThreads = 1;
+		}
+		return searchThreads;
+	}
+
+	public boolean isLdapIncrementalSearchEnabled() {
+		boolean incrementalSearchEnabled;
+		String val = prop.getProperty(LGSYNC_LDAP_INCREMENTAL_SEARCH_ENABLED);
+		if(val == null || val.trim().isEmpty()) {
+			incrementalSearchEnabled = DEFAULT_LGSYNC_LDAP_INCREMENTAL_SEARCH_ENABLED;
+		} else {
+			incrementalSearchEnabled = Boolean.valueOf(val.trim());
+		}
+		return incrementalSearchEnabled;
+	}
+
+	public long getLdapFullSyncIntervalMs() {
+		long fullSyncIntervalMs;
+		String val = prop.getProperty(LGSYNC_LDAP_FULL_SYNC_INTERVAL_MS);
+		if(val == null || val.trim().isEmpty()) {
+			fullSyncIntervalMs = DEFAULT_LGSYNC_LDAP_FULL_SYNC_INTERVAL_MS;
+		} else {
+			fullSyncIntervalMs = Long.parseLong(val.trim());
+		}
+		return fullSyncIntervalMs;
+	}
+
+	public String getLdapSnapshotFile() {
+		String val = prop.getProperty(LGSYNC_LDAP_SNAPSHOT_FILE);
+		if(val == null || val.trim().isEmpty()) {
+			return null;
+		}
+		return val.trim();
+	}
+
 	/* Used only for unit testing */
 	public void setUserSearchFilter(String filter) {
 		prop.setProperty(LGSYNC_USER_SEARCH_FILTER, filter);
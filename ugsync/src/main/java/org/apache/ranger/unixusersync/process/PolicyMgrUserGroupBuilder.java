@@ -57,6 +57,7 @@ import com.sun.jersey.api.client.config.DefaultClientConfig;
 import com.sun.jersey.api.client.filter.HTTPBasicAuthFilter;
 import com.sun.jersey.client.urlconnection.HTTPSProperties;
 
+import org.apache.ranger.plugin.util.RangerRESTClientFilter;
 import org.apache.ranger.unixusersync.config.UserGroupSyncConfig;
 import org.apache.ranger.unixusersync.model.GetXGroupListResponse;
 import org.apache.ranger.unixusersync.model.GetXUserGroupListResponse;
@@ -117,6 +118,7 @@ public class PolicyMgrUserGroupBuilder implements UserGroupSink {
 	private HostnameVerifier hv =  null;
 
 	private SSLContext sslContext = null;
+	private Client client = null;
 	private String authenticationType = null;
 	String principal;
 	String keytab;
@@ -858,6 +860,15 @@ public class PolicyMgrUserGroupBuilder implements UserGroupSink {
 	}
 
 	private synchronized Client getClient() {
+		// built once: creating a client is expensive, and kept-alive connections and auth cookies are reused only within a client
+		if (client == null) {
+			client = buildClient();
+		}
+
+		return client;
+	}
+
+	private Client buildClient() {
 		
 		Client ret = null;
 		
@@ -957,6 +968,11 @@ public class PolicyMgrUserGroupBuilder implements UserGroupSink {
 				 }
 			}
 		}
+		if (ret != null) {
+			ret.addFilter(new RangerRESTClientFilter(0, 0));
+			ret.setConnectTimeout(config.getPolicyMgrConnectionTimeoutMs());
+			ret.setReadTimeout(config.getPolicyMgrReadTimeoutMs());
+		}
 		return ret;
 	}
 	
@@ -21,6 +21,14 @@ package org.apache.ranger.usergroupsync;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.entry.DefaultModification;
+import org.apache.directory.api.ldap.model.entry.ModificationOperation;
+import org.apache.directory.api.ldap.model.name.Dn;
 
 import org.apache.directory.server.annotations.CreateLdapConnectionPool;
 import org.apache.directory.server.core.annotations.ApplyLdifFiles;
@@ -562,6 +570,103 @@ public class TestLdapUserGroup extends AbstractLdapTestUnit{
 		assertEquals(0, sink.getTotalGroups());
 	}
 	
+	@Test
+	public void testIncrementalUpdateSink() throws Throwable {
+		config.setUserSearchBase("cn=users,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setUserSearchFilter("");
+		config.setGroupSearchBase("OU=Groups,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setGroupSearchFilter("");
+		config.setUserGroupMemberAttributeName("member");
+		config.setUserObjectClass("organizationalPerson");
+		config.setGroupObjectClass("groupOfNames");
+		config.setGroupSearchEnabled(true);
+		config.setPagedResultsEnabled(true);
+		config.setGroupSearchFirstEnabled(false);
+		ldapBuilder.init();
+		PolicyMgrUserGroupBuilderTest sink = new PolicyMgrUserGroupBuilderTest();
+		sink.init();
+		ldapBuilder.updateSink(sink);
+		assertEquals(10, sink.getTotalGroups());
+
+		// nothing changed in LDAP: nothing is sent again
+		sink.init();
+		ldapBuilder.updateSink(sink);
+		assertEquals(0, sink.getTotalUsers());
+		assertEquals(0, sink.getTotalGroups());
+
+		// changes are reverted below; keep them out of the change log, which the test runner can't revert after shutdown()
+		boolean changeLogEnabled = getService().getChangeLog().isEnabled();
+		getService().getChangeLog().setEnabled(false);
+
+		Dn group10 = new Dn("CN=Group10,OU=Groups,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		getService().getAdminSession().modify(group10,
+				new DefaultModification(ModificationOperation.ADD_ATTRIBUTE, "member", "CN=User1001,CN=Users,DC=ranger,DC=qe,DC=hortonworks,DC=com"),
+				new DefaultModification(ModificationOperation.REPLACE_ATTRIBUTE, "uSNChanged", "973800"));
+		try {
+			// only the user whose memberships changed is sent
+			sink.init();
+			ldapBuilder.updateSink(sink);
+			assertEquals(Collections.singleton("User1001"), sink.getAllUsers());
+			assertTrue(sink.getAllGroups().contains("Group10"));
+		} finally {
+			getService().getAdminSession().modify(group10,
+					new DefaultModification(ModificationOperation.REMOVE_ATTRIBUTE, "member", "CN=User1001,CN=Users,DC=ranger,DC=qe,DC=hortonworks,DC=com"),
+					new DefaultModification(ModificationOperation.REPLACE_ATTRIBUTE, "uSNChanged", "973745"));
+			getService().getChangeLog().setEnabled(changeLogEnabled);
+		}
+	}
+
+	@Test
+	public void testUpdateSinkRetry() throws Throwable {
+		config.setUserSearchBase("cn=users,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setUserSearchFilter("");
+		config.setGroupSearchBase("OU=Groups,DC=ranger,DC=qe,DC=hortonworks,DC=com");
+		config.setGroupSearchFilter("");
+		config.setUserGroupMemberAttributeName("member");
+		config.setUserObjectClass("organizationalPerson");
+		config.setGroupObjectClass("groupOfNames");
+		config.setGroupSearchEnabled(true);
+		config.setPagedResultsEnabled(true);
+		config.setGroupSearchFirstEnabled(false);
+		ldapBuilder.init();
+
+		// the sink fails to update User1001 once
+		PolicyMgrUserGroupBuilderTest sink = new PolicyMgrUserGroupBuilderTest() {
+			private boolean isFailed = false;
+
+			@Override
+			public void addOrUpdateUser(String user, List<String> groups) {
+				if ("User1001".equals(user) && !isFailed) {
+					isFailed = true;
+
+					throw new RuntimeException("ranger admin not reachable");
+				}
+
+				super.addOrUpdateUser(user, groups);
+			}
+		};
+		sink.init();
+		ldapBuilder.updateSink(sink);
+		assertFalse(sink.getAllUsers().contains("User1001"));
+		int userCount = sink.getTotalUsers();
+
+		// nothing changed in LDAP: only the failed user is sent again
+		sink.init();
+		ldapBuilder.updateSink(sink);
+		assertEquals(Collections.singleton("User1001"), sink.getAllUsers());
+
+		// a failure not reported by the sink is recovered by the next full search, which sends all users again
+		config.setProperty("ranger.usersync.ldap.full.sync.interval.ms", "0");
+		try {
+			ldapBuilder.init();
+			sink.init();
+			ldapBuilder.updateSink(sink);
+			assertEquals(userCount + 1, sink.getTotalUsers());
+		} finally {
+			config.setProperty("ranger.usersync.ldap.full.sync.interval.ms", "");
+		}
+	}
+
 	@Test
 	public void testDeltaUpdateSinkTotalGroups() throws Throwable {
 		config.setUserSearchBase("cn=users,DC=ranger,DC=qe,DC=hortonworks,DC=com");
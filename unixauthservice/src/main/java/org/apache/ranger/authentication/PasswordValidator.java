@@ -25,7 +25,13 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 
@@ -39,6 +45,19 @@ public class PasswordValidator implements Runnable {
 
 	private static String adminRoleNames;
 
+	private static int maxRequestsPerConnection = 1;
+
+	private static long validatorTimeoutMs = 0;
+
+	private static ScheduledExecutorService validatorWatchdog;
+
+	private static final AtomicInteger activeValidations   = new AtomicInteger();
+	private static final AtomicLong    validationCount     = new AtomicLong();
+	private static final AtomicLong    failedCount         = new AtomicLong();
+	private static final AtomicLong    timedOutCount       = new AtomicLong();
+	private static final AtomicLong    totalValidationTime = new AtomicLong();
+	private static final AtomicLong    maxValidationTime   = new AtomicLong();
+
 	private Socket client;
 	
 	public PasswordValidator(Socket client) {
@@ -55,65 +74,44 @@ public class PasswordValidator implements Runnable {
 		try {
 			reader = new BufferedReader(new InputStreamReader(client.getInputStream()));
 			writer = new PrintWriter(new OutputStreamWriter(client.getOutputStream()));
-			String request = reader.readLine();
-			
-			if (request.startsWith("LOGIN:")) {
-				String line = request.substring(6).trim();
-				int passwordAt = line.indexOf(' ');
-				if (passwordAt != -1) {
-					userName = line.substring(0,passwordAt).trim();
-				}
-			}
 
-			if (validatorProgram == null) {
-				String res = "FAILED: Unable to validate credentials.";
-				writer.println(res);
-				writer.flush();
-				LOG.error("Response [" + res + "] for user: " + userName + " as ValidatorProgram is not defined in configuration.");
+			// a connection may carry more than one request (keep-alive); it is closed when the client closes it, stays
+			// idle beyond the socket timeout or reaches maxRequestsPerConnection
+			for (int requestCount = 0; requestCount < maxRequestsPerConnection; requestCount++) {
+				String request = null;
 
-			}
-			else {
-				
-				BufferedReader pReader = null;
-				PrintWriter pWriter = null;
-				Process p =  null;
-				
 				try {
-					p = Runtime.getRuntime().exec(validatorProgram);
-					
-					pReader = new BufferedReader(new InputStreamReader(p.getInputStream()));
-					
-					pWriter = new PrintWriter(new OutputStreamWriter(p.getOutputStream()));
-					
-					pWriter.println(request); pWriter.flush();
-	
-					String res = pReader.readLine();
-
-
-					if (res != null && res.startsWith("OK")) {
-						if (adminRoleNames != null && adminUserList != null) {
-							if (adminUserList.contains(userName)) {
-								res = res + " " + adminRoleNames;
-							}
-						}
+					request = reader.readLine();
+				} catch (SocketTimeoutException excp) {
+					if (requestCount == 0) {
+						LOG.warn("Timed out waiting for request from " + client.getRemoteSocketAddress());
 					}
+				}
 
-					LOG.info("Response [" + res + "] for user: " + userName);
-					
-					writer.println(res); writer.flush();
+				if (request == null) {
+					break;
 				}
-				finally {
-					if (p != null) {
-						p.destroy();
+
+				userName = null;
+
+				if (request.startsWith("LOGIN:")) {
+					String line = request.substring(6).trim();
+					int passwordAt = line.indexOf(' ');
+					if (passwordAt != -1) {
+						userName = line.substring(0,passwordAt).trim();
 					}
 				}
+
+				String res = validate(request, userName);
+
+				writer.println(res); writer.flush();
 			}
-			
 		}
 		catch(Throwable t) {
 			if (userName != null && writer != null ) {
 				String res = "FAILED: unable to validate due to error " + t;
 				writer.println(res);
+				writer.flush();
 				LOG.error("Response [" + res + "] for user: " + userName, t);
 			}
 		}
@@ -131,6 +129,144 @@ public class PasswordValidator implements Runnable {
 			}
 		}
 	}
+
+	private String validate(String request, String userName) throws IOException {
+		String res;
+
+		if (validatorProgram == null) {
+			res = "FAILED: Unable to validate credentials.";
+			LOG.error("Response [" + res + "] for user: " + userName + " as ValidatorProgram is not defined in configuration.");
+
+			return res;
+		}
+
+		long startTime = System.currentTimeMillis();
+
+		activeValidations.incrementAndGet();
+
+		BufferedReader pReader = null;
+		PrintWriter pWriter = null;
+		Process p =  null;
+		ScheduledFuture<?> watchdog = null;
+		DestroyProcessTask destroyTask = null;
+
+		try {
+			// the native validators handle a single request and exit, hence a process per request
+			p = Runtime.getRuntime().exec(validatorProgram);
+
+			if (validatorWatchdog != null && validatorTimeoutMs > 0) {
+				destroyTask = new DestroyProcessTask(p);
+				watchdog    = validatorWatchdog.schedule(destroyTask, validatorTimeoutMs, TimeUnit.MILLISECONDS);
+			}
+
+			pReader = new BufferedReader(new InputStreamReader(p.getInputStream()));
+			
+			pWriter = new PrintWriter(new OutputStreamWriter(p.getOutputStream()));
+			
+			pWriter.println(request); pWriter.flush();
+
+			res = pReader.readLine();
+
+			if (destroyTask != null && destroyTask.isDestroyed()) {
+				timedOutCount.incrementAndGet();
+
+				res = "FAILED: credential validation timed out.";
+			}
+
+			if (res != null && res.startsWith("OK")) {
+				if (adminRoleNames != null && adminUserList != null) {
+					if (adminUserList.contains(userName)) {
+						res = res + " " + adminRoleNames;
+					}
+				}
+			} else {
+				failedCount.incrementAndGet();
+			}
+
+			LOG.info("Response [" + res + "] for user: " + userName);
+		}
+		finally {
+			if (watchdog != null) {
+				watchdog.cancel(false);
+			}
+
+			if (p != null) {
+				p.destroy();
+			}
+
+			long elapsed = System.currentTimeMillis() - startTime;
+
+			activeValidations.decrementAndGet();
+			validationCount.incrementAndGet();
+			totalValidationTime.addAndGet(elapsed);
+
+			for (long max = maxValidationTime.get(); elapsed > max && !maxValidationTime.compareAndSet(max, elapsed); max = maxValidationTime.get()) {
+				// retry until the max is updated or another thread records a larger value
+			}
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Validation for user: " + userName + " took " + elapsed + "ms");
+			}
+		}
+
+		return res;
+	}
+
+	/**
+	 * @return validator metrics, as "active=, count=, failed=, timedOut=, avgTimeMs=, maxTimeMs="
+	 */
+	public static String getMetrics() {
+		return "active=" + getActiveValidations() + ", count=" + getValidationCount() + ", failed=" + getFailedCount()
+		       + ", timedOut=" + getTimedOutCount() + ", avgTimeMs=" + getAvgValidationTimeMs() + ", maxTimeMs=" + getMaxValidationTimeMs();
+	}
+
+	public static int getActiveValidations() {
+		return activeValidations.get();
+	}
+
+	public static long getValidationCount() {
+		return validationCount.get();
+	}
+
+	public static long getFailedCount() {
+		return failedCount.get();
+	}
+
+	public static long getTimedOutCount() {
+		return timedOutCount.get();
+	}
+
+	public static long getAvgValidationTimeMs() {
+		long count = validationCount.get();
+
+		return count > 0 ? (totalValidationTime.get() / count) : 0;
+	}
+
+	public static long getMaxValidationTimeMs() {
+		return maxValidationTime.get();
+	}
+
+	private static class DestroyProcessTask implements Runnable {
+		private final Process process;
+		private volatile boolean isDestroyed = false;
+
+		DestroyProcessTask(Process process) {
+			this.process = process;
+		}
+
+		@Override
+		public void run() {
+			isDestroyed = true;
+
+			LOG.warn("Credential validator did not respond in " + validatorTimeoutMs + "ms; terminating it");
+
+			process.destroy();
+		}
+
+		boolean isDestroyed() {
+			return isDestroyed;
+		}
+	}
 	
 	
 	public static String getValidatorProgram() {
@@ -157,4 +293,16 @@ public class PasswordValidator implements Runnable {
 		PasswordValidator.adminRoleNames = adminRoleNames;
 	}
 
+	public static void setMaxRequestsPerConnection(int maxRequestsPerConnection) {
+		PasswordValidator.maxRequestsPerConnection = maxRequestsPerConnection;
+	}
+
+	public static void setValidatorTimeoutMs(long validatorTimeoutMs) {
+		PasswordValidator.validatorTimeoutMs = validatorTimeoutMs;
+	}
+
+	public static void setValidatorWatchdog(ScheduledExecutorService validatorWatchdog) {
+		PasswordValidator.validatorWatchdog = validatorWatchdog;
+	}
+
 }
@@ -24,6 +24,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.security.KeyStore;
@@ -33,7 +34,18 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
@@ -47,11 +59,13 @@ import org.apache.ranger.credentialapi.CredentialReader;
 import org.apache.ranger.plugin.util.XMLUtils;
 import org.apache.ranger.usergroupsync.UserGroupSync;
 
-public class UnixAuthenticationService {
+public class UnixAuthenticationService implements UnixAuthenticationServiceMXBean {
 
 	private static final Logger LOG = Logger.getLogger(UnixAuthenticationService.class);
 	
 	private static final String serviceName = "UnixAuthenticationService";
+
+	private static final String MBEAN_NAME = "org.apache.ranger:type=UnixAuthenticationService";
 	
 	private static final String SSL_ALGORITHM = "TLS";
 	private static final String REMOTE_LOGIN_AUTH_SERVICE_PORT_PARAM = "ranger.usersync.port";
@@ -68,6 +82,20 @@ public class UnixAuthenticationService {
 	private static final String SSL_ENABLED_PARAM = "ranger.usersync.ssl";
 	
 	private static final String CREDSTORE_FILENAME_PARAM = "ranger.usersync.credstore.filename";
+
+	private static final String MAX_THREADS_PARAM                 = "ranger.usersync.passwordvalidator.max.threads";
+	private static final String QUEUE_SIZE_PARAM                  = "ranger.usersync.passwordvalidator.queue.size";
+	private static final String SOCKET_TIMEOUT_MS_PARAM           = "ranger.usersync.passwordvalidator.socket.timeout.ms";
+	private static final String VALIDATOR_TIMEOUT_MS_PARAM        = "ranger.usersync.passwordvalidator.timeout.ms";
+	private static final String MAX_REQUESTS_PER_CONNECTION_PARAM = "ranger.usersync.passwordvalidator.max.requests.per.connection";
+	private static final String METRICS_LOG_INTERVAL_MS_PARAM     = "ranger.usersync.passwordvalidator.metrics.log.interval.ms";
+
+	private static final int  DEFAULT_MAX_THREADS                 = 32;
+	private static final int  DEFAULT_QUEUE_SIZE                  = 256;
+	private static final int  DEFAULT_SOCKET_TIMEOUT_MS           = 30 * 1000;
+	private static final long DEFAULT_VALIDATOR_TIMEOUT_MS        = 30 * 1000L;
+	private static final int  DEFAULT_MAX_REQUESTS_PER_CONNECTION = 100;
+	private static final long DEFAULT_METRICS_LOG_INTERVAL_MS     = 5 * 60 * 1000L;
 	
 	private String keyStorePath;
 	private String keyStorePathPassword;
@@ -77,6 +105,18 @@ public class UnixAuthenticationService {
 	private String adminRoleNames;
 	
 	private int  portNum;
+
+	private int  maxThreads           = DEFAULT_MAX_THREADS;
+	private int  queueSize            = DEFAULT_QUEUE_SIZE;
+	private int  socketTimeoutMs      = DEFAULT_SOCKET_TIMEOUT_MS;
+	private long validatorTimeoutMs   = DEFAULT_VALIDATOR_TIMEOUT_MS;
+	private int  maxRequestsPerConn   = DEFAULT_MAX_REQUESTS_PER_CONNECTION;
+	private long metricsLogIntervalMs = DEFAULT_METRICS_LOG_INTERVAL_MS;
+
+	private final AtomicLong acceptedCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	private volatile ThreadPoolExecutor validatorPool;
 	
 	private boolean SSLEnabled = false;
 	
@@ -100,6 +140,16 @@ public class UnixAuthenticationService {
 	public UnixAuthenticationService() {
 	}
 
+	// Not designed for public access - only for testability
+	UnixAuthenticationService(int maxThreads, int queueSize, int socketTimeoutMs, long validatorTimeoutMs, int maxRequestsPerConn) {
+		this.maxThreads           = maxThreads;
+		this.queueSize            = queueSize;
+		this.socketTimeoutMs      = socketTimeoutMs;
+		this.validatorTimeoutMs   = validatorTimeoutMs;
+		this.maxRequestsPerConn   = maxRequestsPerConn;
+		this.metricsLogIntervalMs = 0;
+	}
+
 	
 	public void run() {
 		try {
@@ -191,6 +241,28 @@ public class UnixAuthenticationService {
 		String SSLEnabledProp = prop.getProperty(SSL_ENABLED_PARAM);
 		
 		SSLEnabled = (SSLEnabledProp != null &&  (SSLEnabledProp.equalsIgnoreCase("true")));
+
+		maxThreads           = getIntProperty(prop, MAX_THREADS_PARAM, DEFAULT_MAX_THREADS);
+		queueSize            = getIntProperty(prop, QUEUE_SIZE_PARAM, DEFAULT_QUEUE_SIZE);
+		socketTimeoutMs      = getIntProperty(prop, SOCKET_TIMEOUT_MS_PARAM, DEFAULT_SOCKET_TIMEOUT_MS);
+		validatorTimeoutMs   = getLongProperty(prop, VALIDATOR_TIMEOUT_MS_PARAM, DEFAULT_VALIDATOR_TIMEOUT_MS);
+		maxRequestsPerConn   = getIntProperty(prop, MAX_REQUESTS_PER_CONNECTION_PARAM, DEFAULT_MAX_REQUESTS_PER_CONNECTION);
+		metricsLogIntervalMs = getLongProperty(prop, METRICS_LOG_INTERVAL_MS_PARAM, DEFAULT_METRICS_LOG_INTERVAL_MS);
+
+		if (maxThreads < 1) {
+			maxThreads = 1;
+		}
+
+		if (queueSize < 1) {
+			queueSize = 1;
+		}
+
+		if (maxRequestsPerConn < 1) {
+			maxRequestsPerConn = 1;
+		}
+
+		LOG.info("PasswordValidator: maxThreads=" + maxThreads + ", queueSize=" + queueSize + ", socketTimeoutMs=" + socketTimeoutMs
+		         + ", validatorTimeoutMs=" + validatorTimeoutMs + ", maxRequestsPerConnection=" + maxRequestsPerConn);
 		
 //		LOG.info("Key:" + keyStorePath);
 //		LOG.info("KeyPassword:" + keyStorePathPassword);
@@ -286,23 +358,204 @@ public class UnixAuthenticationService {
 				secureSocket.setEnabledProtocols(allowedProtocols.toArray(new String[0]));
 			}
 		}
-		
-				
+
+		serve(socket);
+	}
+
+	/**
+	 * Accepts connections on the given socket, until it is closed, and hands them to a bounded pool of validator threads
+	 */
+	void serve(ServerSocket socket) throws IOException {
+		// when all workers are busy and the queue is full, new connections are closed right away instead of piling up
+		// threads and validator processes
+		validatorPool = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+		                                       new ArrayBlockingQueue<Runnable>(queueSize),
+		                                       new NamedThreadFactory("PasswordValidator"));
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("PasswordValidatorWatchdog"));
+
+		validatorPool.allowCoreThreadTimeOut(true);
+
+		PasswordValidator.setMaxRequestsPerConnection(maxRequestsPerConn);
+		PasswordValidator.setValidatorTimeoutMs(validatorTimeoutMs);
+		PasswordValidator.setValidatorWatchdog(scheduler);
+
+		if (metricsLogIntervalMs > 0) {
+			scheduler.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					LOG.info("PasswordValidator metrics: accepted=" + getAcceptedConnections() + ", rejected=" + getRejectedConnections()
+					         + ", activeThreads=" + getActiveThreads() + ", queued=" + getQueuedConnections()
+					         + ", " + PasswordValidator.getMetrics());
+				}
+			}, metricsLogIntervalMs, metricsLogIntervalMs, TimeUnit.MILLISECONDS);
+		}
+
+		ObjectName mbeanName = registerMBean();
+
 		Socket client = null;
 		
 		try {
 		
 			while ( (client = socket.accept()) != null ) {
-				Thread clientValidatorThread = new Thread(new PasswordValidator(client));
-				clientValidatorThread.start();
+				acceptedCount.incrementAndGet();
+
+				try {
+					if (socketTimeoutMs > 0) {
+						client.setSoTimeout(socketTimeoutMs);
+					}
+
+					validatorPool.execute(new PasswordValidator(client));
+				} catch (RejectedExecutionException excp) {
+					rejectedCount.incrementAndGet();
+
+					LOG.warn("Rejecting connection from " + client.getRemoteSocketAddress() + ": all " + maxThreads + " validator threads are busy and " + queueSize + " connections are queued");
+
+					closeQuietly(client);
+				} catch (IOException excp) {
+					LOG.warn("Failed to setup connection from " + client.getRemoteSocketAddress(), excp);
+
+					closeQuietly(client);
+				}
 			}
 		} catch (IOException e) {
 			socket.close();
 			throw(e);
+		} finally {
+			unregisterMBean(mbeanName);
+			validatorPool.shutdown();
+			scheduler.shutdown();
 		}
 
 	}
+
+	@Override
+	public long getAcceptedConnections() {
+		return acceptedCount.get();
+	}
+
+	@Override
+	public long getRejectedConnections() {
+		return rejectedCount.get();
+	}
+
+	@Override
+	public int getActiveThreads() {
+		ThreadPoolExecutor pool = validatorPool;
+
+		return pool != null ? pool.getActiveCount() : 0;
+	}
+
+	@Override
+	public int getQueuedConnections() {
+		ThreadPoolExecutor pool = validatorPool;
+
+		return pool != null ? pool.getQueue().size() : 0;
+	}
+
+	@Override
+	public int getActiveValidations() {
+		return PasswordValidator.getActiveValidations();
+	}
+
+	@Override
+	public long getValidationCount() {
+		return PasswordValidator.getValidationCount();
+	}
+
+	@Override
+	public long getFailedValidations() {
+		return PasswordValidator.getFailedCount();
+	}
+
+	@Override
+	public long getTimedOutValidations() {
+		return PasswordValidator.getTimedOutCount();
+	}
+
+	@Override
+	public long getAvgValidationTimeMs() {
+		return PasswordValidator.getAvgValidationTimeMs();
+	}
+
+	@Override
+	public long getMaxValidationTimeMs() {
+		return PasswordValidator.getMaxValidationTimeMs();
+	}
+
+	private ObjectName registerMBean() {
+		ObjectName ret = null;
+
+		try {
+			MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+			ObjectName  name        = new ObjectName(MBEAN_NAME);
+
+			if (!mbeanServer.isRegistered(name)) {
+				mbeanServer.registerMBean(this, name);
+
+				ret = name;
+			}
+		} catch (Exception excp) {
+			LOG.warn("Failed to register MBean " + MBEAN_NAME + ". Metrics will not be available over JMX", excp);
+		}
+
+		return ret;
+	}
+
+	private static void unregisterMBean(ObjectName name) {
+		if (name != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+			} catch (Exception excp) {
+				LOG.debug("Failed to unregister MBean " + name, excp);
+			}
+		}
+	}
 	
+	private static void closeQuietly(Socket client) {
+		try {
+			client.close();
+		} catch (IOException excp) {
+			LOG.debug("Close socket failure. Detail: \n", excp);
+		}
+	}
+
+	private static int getIntProperty(Properties prop, String name, int defaultValue) {
+		return (int) getLongProperty(prop, name, defaultValue);
+	}
+
+	private static long getLongProperty(Properties prop, String name, long defaultValue) {
+		long   ret = defaultValue;
+		String val = prop.getProperty(name);
+
+		if (val != null && val.trim().length() > 0) {
+			try {
+				ret = Long.parseLong(val.trim());
+			} catch (NumberFormatException excp) {
+				LOG.warn("Invalid value [" + val + "] for " + name + "; using default " + defaultValue);
+			}
+		}
+
+		return ret;
+	}
+
+	private static class NamedThreadFactory implements ThreadFactory {
+		private final String        namePrefix;
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		NamedThreadFactory(String namePrefix) {
+			this.namePrefix = namePrefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread ret = new Thread(r, namePrefix + "-" + threadNumber.getAndIncrement());
+
+			ret.setDaemon(true);
+
+			return ret;
+		}
+	}
+
 	private InputStream getFileInputStream(String path) throws FileNotFoundException {
 		
 		InputStream ret = null;
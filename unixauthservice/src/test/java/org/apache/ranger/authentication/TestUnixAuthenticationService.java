@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authentication;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestUnixAuthenticationService {
+	// a validator that never responds
+	private static final String HUNG_VALIDATOR = "sleep 60";
+
+	private UnixAuthenticationService service;
+	private ServerSocket              serverSocket;
+	private Thread                    serverThread;
+	private final List<Socket>        clients = new ArrayList<Socket>();
+
+	@After
+	public void tearDown() throws Exception {
+		for (Socket client : clients) {
+			client.close();
+		}
+
+		if (serverSocket != null) {
+			serverSocket.close();
+		}
+
+		if (serverThread != null) {
+			serverThread.join(10 * 1000);
+		}
+
+		PasswordValidator.setValidatorProgram(null);
+	}
+
+	@Test
+	public void testConnectionsBeyondCapacityAreRejected() throws Exception {
+		PasswordValidator.setValidatorProgram(HUNG_VALIDATOR);
+
+		startService(1, 1, 5 * 1000);
+
+		login("user1");
+		waitFor("validator thread to be busy", new Condition() { public boolean isMet() { return service.getActiveThreads() == 1; } });
+
+		login("user2");
+		waitFor("connection to be queued", new Condition() { public boolean isMet() { return service.getQueuedConnections() == 1; } });
+
+		Socket rejected = login("user3");
+		waitFor("connection to be rejected", new Condition() { public boolean isMet() { return service.getRejectedConnections() == 1; } });
+
+		try {
+			Assert.assertEquals("rejected connection must be closed by the server", -1, rejected.getInputStream().read());
+		} catch (SocketException excp) {
+			// connection reset: closed as well
+		}
+
+		Assert.assertEquals(3, service.getAcceptedConnections());
+		Assert.assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName("org.apache.ranger:type=UnixAuthenticationService"), "RejectedConnections"));
+	}
+
+	@Test
+	public void testHungValidatorIsTerminated() throws Exception {
+		PasswordValidator.setValidatorProgram(HUNG_VALIDATOR);
+
+		startService(2, 2, 200);
+
+		long   timedOutCount = PasswordValidator.getTimedOutCount();
+		long   startTime     = System.currentTimeMillis();
+		Socket client        = login("user1");
+		String response      = new BufferedReader(new InputStreamReader(client.getInputStream())).readLine();
+
+		Assert.assertEquals("FAILED: credential validation timed out.", response);
+		Assert.assertTrue(System.currentTimeMillis() - startTime < 30 * 1000);
+		Assert.assertEquals(timedOutCount + 1, PasswordValidator.getTimedOutCount());
+		Assert.assertEquals(timedOutCount + 1, service.getTimedOutValidations());
+	}
+
+	private void startService(int maxThreads, int queueSize, long validatorTimeoutMs) throws IOException {
+		service      = new UnixAuthenticationService(maxThreads, queueSize, 30 * 1000, validatorTimeoutMs, 1);
+		serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		serverThread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					service.serve(serverSocket);
+				} catch (IOException excp) {
+					// server socket closed
+				}
+			}
+		};
+
+		serverThread.start();
+	}
+
+	private Socket login(String userName) throws IOException {
+		Socket      ret    = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(ret.getOutputStream()));
+
+		clients.add(ret);
+
+		ret.setSoTimeout(30 * 1000);
+
+		writer.println("LOGIN:" + userName + " password");
+		writer.flush();
+
+		return ret;
+	}
+
+	private static void waitFor(String what, Condition condition) throws InterruptedException {
+		for (long endTime = System.currentTimeMillis() + 10 * 1000; !condition.isMet(); Thread.sleep(10)) {
+			if (System.currentTimeMillis() > endTime) {
+				Assert.fail("timed out waiting for " + what);
+			}
+		}
+	}
+
+	private interface Condition {
+		boolean isMet();
+	}
+}